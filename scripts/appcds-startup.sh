@@ -0,0 +1,29 @@
+#!/usr/bin/env bash
+# Tiempo hasta la primera respuesta (desde el arranque de la JVM) del servidor y del handler Lambda,
+# con y sin el archivo AppCDS. Arma el jar y el archivo si no están (mvn -Plambda,appcds verify).
+#
+#   scripts/appcds-startup.sh [corridas]     # por defecto 5 por combinación; reporta la mediana
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+RUNS="${1:-5}"
+JAR=target/tacticore-backend-lambda-1.0.8.jar
+if [ ! -f "$JAR" ] || [ ! -f "${JAR%.jar}.jsa" ]; then
+    mvn -q -B -Plambda,appcds verify -DskipTests
+fi
+
+median() { sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : (v[NR / 2] + v[NR / 2 + 1]) / 2 }'; }
+
+for entrypoint in lambda server; do
+    for appcds in false true; do
+        times=()
+        for _ in $(seq "$RUNS"); do
+            line=$(APPCDS="$appcds" JAVA_OPTS="-Dlogging.level.root=WARN" \
+                scripts/run-jar.sh com.tacticore.lambda.AppCdsTraining first-response "$entrypoint" \
+                | grep '^TIME_TO_FIRST_RESPONSE')
+            times+=("$(echo "$line" | awk '{ print $3 }')")
+        done
+        printf '%-7s appcds=%-5s median=%6s ms  runs: %s\n' "$entrypoint" "$appcds" \
+            "$(printf '%s\n' "${times[@]}" | median)" "${times[*]}"
+    done
+done
@@ -0,0 +1,34 @@
+#!/usr/bin/env bash
+# Latencia del primer request de cada ruta GET de la Lambda, con y sin priming, arrancando en frío
+# y restaurando desde un checkpoint de CRaC (lo mismo que hace SnapStart).
+#
+# Requiere Linux y un JDK 17 con CRaC (p.ej. Azul Zulu 17 CRaC) en JAVA_HOME; el checkpoint usa CRIU,
+# que necesita correr como root o con CAP_CHECKPOINT_RESTORE.
+#
+#   JAVA_HOME=/opt/zulu17-crac scripts/crac-cold-start.sh
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+JAVA="${JAVA_HOME:?JAVA_HOME tiene que apuntar a un JDK con CRaC}/bin/java"
+OUT=target/crac
+mkdir -p "$OUT"
+
+mvn -q -B test-compile
+mvn -q -B dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile="$OUT/classpath.txt"
+CP="target/test-classes:target/classes:$(cat "$OUT/classpath.txt")"
+HARNESS=com.tacticore.lambda.LambdaColdStartHarness
+
+for priming in false true; do
+    echo "== arranque en frío, priming=$priming"
+    "$JAVA" -Dlambda.priming="$priming" -cp "$CP" "$HARNESS" cold | grep '^HARNESS summary'
+
+    echo "== checkpoint, priming=$priming"
+    rm -rf "$OUT/checkpoint-$priming"
+    # El proceso termina al hacer el checkpoint
+    "$JAVA" -XX:CRaCCheckpointTo="$OUT/checkpoint-$priming" -Dlambda.priming="$priming" -cp "$CP" "$HARNESS" checkpoint \
+        | grep '^HARNESS init' || true
+
+    echo "== restore, priming=$priming"
+    "$JAVA" -XX:CRaCRestoreFrom="$OUT/checkpoint-$priming" | tee "$OUT/restore-$priming.log" | grep '^HARNESS summary'
+done
+echo "Latencias por ruta: $OUT/restore-*.log"
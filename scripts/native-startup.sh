@@ -0,0 +1,60 @@
+#!/usr/bin/env bash
+# Arranque y memoria del custom runtime: binario nativo (perfil lambda-native) contra el uber JAR en la JVM
+# (con y sin el archivo AppCDS si existe). Cada variante corre contra el emulador local del Runtime API
+# (LambdaRuntimeApiEmulator) y se reporta el tiempo desde el lanzamiento hasta la primera respuesta
+# publicada, la latencia de las siguientes invocaciones y el RSS máximo (VmHWM) del proceso.
+#
+#   scripts/native-startup.sh [invocaciones]     # por defecto 10 invocaciones de GET /api/matches
+# Requiere target/tacticore-backend-lambda-1.0.8.jar (mvn -Plambda package) y, para la fila nativa,
+# target/tacticore-lambda-native (mvn -Plambda,lambda-native verify con GraalVM).
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+INVOCATIONS="${1:-10}"
+PORT="${PORT:-9901}"
+JAR=target/tacticore-backend-lambda-1.0.8.jar
+NATIVE=target/tacticore-lambda-native
+OUT=target/native-startup
+mkdir -p "$OUT"
+
+[ -f target/test-classes/com/tacticore/lambda/LambdaRuntimeApiEmulator.class ] || mvn -q -B test-compile
+[ -f "$JAR" ] || mvn -q -B -Plambda package -DskipTests
+
+now_ms() { date +%s%3N; }
+
+# measure <nombre> <comando...>
+measure() {
+    local name="$1"; shift
+    local log="$OUT/$name.emulator.log"
+    java -cp target/test-classes:target/classes com.tacticore.lambda.LambdaRuntimeApiEmulator \
+        "$PORT" /api/matches "$INVOCATIONS" > "$log" &
+    local emulator=$!
+    until grep -q '^EMULATOR listening' "$log" 2>/dev/null; do sleep 0.05; done
+
+    local start; start=$(now_ms)
+    AWS_LAMBDA_RUNTIME_API="127.0.0.1:$PORT" "$@" > "$OUT/$name.runtime.log" 2>&1 &
+    local runtime=$!
+    wait "$emulator"
+    local hwm; hwm=$(awk '/^VmHWM/ { print $2 }' "/proc/$runtime/status" 2>/dev/null || echo 0)
+    kill "$runtime" 2>/dev/null || true
+    wait "$runtime" 2>/dev/null || true
+
+    awk -v name="$name" -v start="$start" -v hwm="$hwm" '
+        /^EMULATOR response/ { t[$3] = $4; if ($5 != "ok") errors++; n = $3 }
+        END {
+            warm = n > 1 ? (t[n] - t[1]) / (n - 1) : 0
+            printf "%-14s first=%7d ms  next=%6.1f ms/inv  rss=%5d MB  errors=%d\n",
+                name, t[1] - start, warm, hwm / 1024, errors
+        }' "$log"
+}
+
+if [ -x "$NATIVE" ]; then
+    measure native "$NATIVE"
+else
+    echo "native         (sin $NATIVE: mvn -Plambda,lambda-native verify con GraalVM)"
+fi
+measure jvm env APPCDS=false scripts/run-jar.sh lambda
+if [ -f "${JAR%.jar}.jsa" ]; then
+    measure jvm-appcds scripts/run-jar.sh lambda
+fi
+echo "Logs: $OUT/"
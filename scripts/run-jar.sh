@@ -0,0 +1,29 @@
+#!/usr/bin/env bash
+# Arranca el uber JAR (mvn -Plambda package) usando el archivo AppCDS que deja -Pappcds junto al jar,
+# si existe. Con -Xshare:auto, si el archivo no corresponde a este JDK/jar la JVM lo ignora y arranca igual.
+#
+#   scripts/run-jar.sh server [args...]            # LambdaApplication (servidor web)
+#   scripts/run-jar.sh lambda                      # LambdaCustomRuntime (Runtime API, AWS_LAMBDA_RUNTIME_API)
+#   scripts/run-jar.sh <main-class> [args...]      # p.ej. com.tacticore.lambda.AppCdsTraining first-response lambda
+#
+# JAR=... para otro jar, APPCDS=false para arrancar sin el archivo, JAVA_OPTS para flags extra.
+set -euo pipefail
+
+JAR="${JAR:-$(dirname "$0")/../target/tacticore-backend-lambda-1.0.8.jar}"
+[ -f "$JAR" ] || { echo "❌ No existe $JAR (mvn -Plambda package)" >&2; exit 1; }
+# Ruta absoluta: el archivo guarda el classpath con el que se entrenó
+JAR="$(cd "$(dirname "$JAR")" && pwd)/$(basename "$JAR")"
+ARCHIVE="${JAR%.jar}.jsa"
+
+MAIN="${1:-server}"
+shift || true
+[ "$MAIN" = server ] && MAIN=com.tacticore.lambda.LambdaApplication
+[ "$MAIN" = lambda ] && MAIN=com.tacticore.lambda.LambdaCustomRuntime
+
+CDS=()
+if [ "${APPCDS:-true}" != false ] && [ -f "$ARCHIVE" ]; then
+    CDS=(-XX:SharedArchiveFile="$ARCHIVE" -Xshare:auto)
+fi
+
+# shellcheck disable=SC2086
+exec java "${CDS[@]}" ${JAVA_OPTS:-} -classpath "$JAR" "$MAIN" "$@"
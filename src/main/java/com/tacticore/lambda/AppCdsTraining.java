@@ -0,0 +1,137 @@
+package com.tacticore.lambda;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.cert.X509Certificate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Corrida de entrenamiento del archivo AppCDS dinámico (perfil appcds del pom). Con
+ * -XX:ArchiveClassesAtExit la JVM vuelca al salir las clases que cargó, así que se recorren los dos
+ * entrypoints: LambdaApplication con el servidor web (HTTPS, endpoints principales) y
+ * SpringBootLambdaHandler (datos demo y todas las rutas vía priming).
+ *
+ * Uso:
+ *   java -XX:ArchiveClassesAtExit=app.jsa -cp app.jar com.tacticore.lambda.AppCdsTraining train
+ *   java [-XX:SharedArchiveFile=app.jsa] -cp app.jar com.tacticore.lambda.AppCdsTraining first-response lambda|server
+ * first-response arranca un entrypoint, hace un request y reporta el tiempo desde el arranque de la JVM
+ * (lo usa scripts/appcds-startup.sh). Se ejecuta desde la raíz del proyecto.
+ */
+public class AppCdsTraining {
+
+    // Request medido en first-response
+    private static final String FIRST_PATH = "/api/matches";
+
+    public static void main(String[] args) throws Exception {
+        // Certificado autofirmado del servidor local (keystore.p12)
+        System.setProperty("jdk.internal.httpclient.disableHostnameVerification", "true");
+        String mode = args.length > 0 ? args[0] : "train";
+        switch (mode) {
+            case "train":
+                trainServer();
+                trainLambda();
+                break;
+            case "first-response":
+                firstResponse(args.length > 1 ? args[1] : "lambda");
+                break;
+            default:
+                throw new IllegalArgumentException("Modo desconocido: " + mode + " (train | first-response lambda|server)");
+        }
+        // El contexto del handler es estático y no se cierra: salir explícitamente (también vuelca el archivo)
+        System.exit(0);
+    }
+
+    private static void trainServer() throws Exception {
+        System.out.println("🏋️ AppCDS: training LambdaApplication (server)...");
+        try (ConfigurableApplicationContext context = SpringApplication.run(LambdaApplication.class, "--server.port=0")) {
+            LambdaPriming.Samples samples = LambdaPriming.Samples.from(context);
+            String base = "https://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            HttpClient client = localClient();
+            List<String> paths = List.of("/ping", "/api/health", "/api/maps", "/api/matches",
+                "/api/matches/" + samples.matchId, "/api/matches/" + samples.matchId + "/kills",
+                "/api/matches/" + samples.matchId + "/chat", "/api/analytics/dashboard",
+                "/api/analytics/dashboard?user=" + samples.user, "/api/users", "/api/users/top/score",
+                "/api/users/leaderboard/kills", "/api/users/" + samples.user + "/profile",
+                "/api/users/" + samples.user + "/rank", "/api/analysis/overview", "/api/analysis/players",
+                "/api/analysis/rounds", "/api/analysis/heatmap?map=" + samples.map,
+                "/api/analysis/spatial/radius?map=" + samples.map + "&x=0&y=0&radius=500");
+            int ok = 0;
+            for (String path : paths) {
+                if (get(client, base + path) < 500) {
+                    ok++;
+                }
+            }
+            System.out.println("✅ AppCDS: " + ok + "/" + paths.size() + " server endpoints");
+        }
+    }
+
+    private static void trainLambda() throws Exception {
+        System.out.println("🏋️ AppCDS: training SpringBootLambdaHandler...");
+        // El priming del handler recorre todas las rutas del router
+        System.setProperty(LambdaPriming.ENABLED_PROPERTY, "true");
+        SpringBootLambdaHandler handler = new SpringBootLambdaHandler();
+        for (String path : List.of("/ping", FIRST_PATH, "/api/analytics/dashboard", "/api/users/top/score")) {
+            handler.handleRequest(lambdaEvent(path), null);
+        }
+        System.out.println("✅ AppCDS: Lambda handler trained");
+    }
+
+    private static void firstResponse(String entrypoint) throws Exception {
+        int status;
+        if ("server".equals(entrypoint)) {
+            ConfigurableApplicationContext context = SpringApplication.run(LambdaApplication.class, "--server.port=0");
+            status = get(localClient(), "https://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                + FIRST_PATH);
+        } else {
+            APIGatewayProxyResponseEvent response = new SpringBootLambdaHandler().handleRequest(lambdaEvent(FIRST_PATH), null);
+            status = response.getStatusCode();
+        }
+        long elapsedMs = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        System.out.println("TIME_TO_FIRST_RESPONSE " + entrypoint + " " + elapsedMs + " ms (status " + status + ")");
+    }
+
+    private static APIGatewayProxyRequestEvent lambdaEvent(String path) {
+        return new APIGatewayProxyRequestEvent()
+            .withHttpMethod("GET")
+            .withPath(path)
+            .withQueryStringParameters(Map.of());
+    }
+
+    private static int get(HttpClient client, String url) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    // Solo para localhost: acepta el certificado autofirmado del servidor
+    private static HttpClient localClient() throws Exception {
+        TrustManager trustAll = new X509TrustManager() {
+            @Override
+            public void checkClientTrusted(X509Certificate[] chain, String authType) {
+            }
+
+            @Override
+            public void checkServerTrusted(X509Certificate[] chain, String authType) {
+            }
+
+            @Override
+            public X509Certificate[] getAcceptedIssuers() {
+                return new X509Certificate[0];
+            }
+        };
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(null, new TrustManager[]{trustAll}, null);
+        return HttpClient.newBuilder().sslContext(sslContext).build();
+    }
+}
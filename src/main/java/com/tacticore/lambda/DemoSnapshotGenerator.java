@@ -0,0 +1,33 @@
+package com.tacticore.lambda;
+
+import com.tacticore.lambda.service.DemoSnapshotService;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Paso de build que genera el snapshot de datos demo (ver DemoSnapshotService).
+ * Levanta el contexto con el perfil lambda, reproduce los JSON de demos-jsons/ y vuelca la base.
+ *
+ * Uso: java -cp ... com.tacticore.lambda.DemoSnapshotGenerator target/classes/snapshot/demo-data.sql.gz
+ * (se ejecuta desde la raíz del proyecto para que demos-jsons/ sea accesible)
+ */
+public class DemoSnapshotGenerator {
+
+    public static void main(String[] args) throws Exception {
+        Path target = Paths.get(args.length > 0 ? args[0] : "target/classes/" + DemoSnapshotService.SNAPSHOT_RESOURCE);
+
+        System.setProperty("spring.profiles.active", "lambda");
+        System.setProperty("spring.main.web-application-type", "none");
+        // Siempre reproducir los JSON: un snapshot viejo en el classpath no debe usarse como fuente
+        System.setProperty("demo.snapshot.enabled", "false");
+
+        try (ConfigurableApplicationContext context = SpringApplication.run(LambdaApplication.class)) {
+            DemoSnapshotService snapshotService = context.getBean(DemoSnapshotService.class);
+            snapshotService.loadDemoData();
+            snapshotService.exportSnapshot(target);
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.tacticore.lambda;
 
+import com.tacticore.lambda.config.NativeRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(NativeRuntimeHints.class)
 public class LambdaApplication {
 
     public static void main(String[] args) {
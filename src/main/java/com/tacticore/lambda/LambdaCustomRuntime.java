@@ -0,0 +1,251 @@
+package com.tacticore.lambda;
+
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.tacticore.lambda.serialization.JsonResponseWriter;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Entrypoint de custom runtime (provided.al2 / imagen nativa, perfil maven lambda-native): habla el
+ * Lambda Runtime API (https://docs.aws.amazon.com/lambda/latest/dg/runtimes-api.html) en lugar del
+ * runtime java17 administrado, y despacha cada invocación a {@link SpringBootLambdaHandler}.
+ *
+ * Ciclo: GET /runtime/invocation/next (long poll) → handler → POST .../{requestId}/response, o
+ * .../{requestId}/error si el handler lanza. Si el init falla se reporta en /runtime/init/error.
+ * También corre en la JVM (scripts/run-jar.sh lambda) para comparar con el binario nativo.
+ */
+public class LambdaCustomRuntime {
+
+    static final String API_VERSION = "2018-06-01";
+
+    private static final String REQUEST_ID_HEADER = "Lambda-Runtime-Aws-Request-Id";
+    private static final String DEADLINE_HEADER = "Lambda-Runtime-Deadline-Ms";
+    private static final String FUNCTION_ARN_HEADER = "Lambda-Runtime-Invoked-Function-Arn";
+    private static final String TRACE_ID_HEADER = "Lambda-Runtime-Trace-Id";
+    private static final String ERROR_TYPE_HEADER = "Lambda-Runtime-Function-Error-Type";
+
+    private final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final String runtimeUri;
+    private final RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> handler;
+    private final ObjectReader eventReader;
+    private final ObjectWriter responseWriter;
+
+    LambdaCustomRuntime(String runtimeApi,
+                        RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> handler) {
+        this.runtimeUri = "http://" + runtimeApi + "/" + API_VERSION + "/runtime";
+        this.handler = handler;
+        ObjectMapper mapper = runtimeMapper();
+        this.eventReader = mapper.readerFor(APIGatewayProxyRequestEvent.class);
+        this.responseWriter = mapper.writer();
+    }
+
+    public static void main(String[] args) {
+        String runtimeApi = System.getenv("AWS_LAMBDA_RUNTIME_API");
+        if (runtimeApi == null || runtimeApi.isEmpty()) {
+            System.err.println("❌ AWS_LAMBDA_RUNTIME_API no está definido (¿se ejecuta fuera de un custom runtime?)");
+            System.exit(1);
+        }
+
+        RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> handler;
+        try {
+            handler = new SpringBootLambdaHandler();
+        } catch (Throwable e) {
+            // ExceptionInInitializerError del init de Spring: la plataforma reinicia el entorno
+            reportInitError(runtimeApi, e);
+            System.exit(1);
+            return;
+        }
+
+        LambdaCustomRuntime runtime = new LambdaCustomRuntime(runtimeApi, handler);
+        System.out.println("✅ Lambda Runtime API loop started (" + runtimeApi + ")");
+        while (true) {
+            try {
+                runtime.processNext();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                // Runtime API caído o respuesta rechazada: seguir con la próxima invocación
+                System.err.println("⚠️ Runtime API error: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Espera la próxima invocación, la ejecuta y publica la respuesta o el error
+     */
+    void processNext() throws IOException, InterruptedException {
+        HttpResponse<String> next = http.send(
+            HttpRequest.newBuilder(URI.create(runtimeUri + "/invocation/next")).GET().build(),
+            HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        if (next.statusCode() != 200) {
+            throw new IOException("GET /invocation/next devolvió " + next.statusCode());
+        }
+
+        String requestId = next.headers().firstValue(REQUEST_ID_HEADER)
+            .orElseThrow(() -> new IOException("Invocación sin " + REQUEST_ID_HEADER));
+        long deadlineMs = next.headers().firstValue(DEADLINE_HEADER).map(Long::parseLong).orElse(Long.MAX_VALUE);
+        String functionArn = next.headers().firstValue(FUNCTION_ARN_HEADER).orElse(null);
+        // Igual que el runtime administrado: el SDK de X-Ray toma el trace de esta propiedad
+        next.headers().firstValue(TRACE_ID_HEADER)
+            .ifPresentOrElse(trace -> System.setProperty("com.amazonaws.xray.traceHeader", trace),
+                () -> System.clearProperty("com.amazonaws.xray.traceHeader"));
+
+        String invocationUri = runtimeUri + "/invocation/" + requestId;
+        String body;
+        try {
+            APIGatewayProxyRequestEvent event = eventReader.readValue(next.body());
+            APIGatewayProxyResponseEvent response = handler.handleRequest(event,
+                new RuntimeContext(requestId, deadlineMs, functionArn));
+            body = responseWriter.writeValueAsString(response);
+        } catch (Exception e) {
+            System.err.println("❌ Invocation " + requestId + " failed: " + e.getMessage());
+            post(invocationUri + "/error", errorBody(e), "Unhandled");
+            return;
+        }
+        post(invocationUri + "/response", body, null);
+    }
+
+    static void reportInitError(String runtimeApi, Throwable error) {
+        System.err.println("❌ Lambda init failed: " + error);
+        try {
+            LambdaCustomRuntime reporter = new LambdaCustomRuntime(runtimeApi, null);
+            reporter.post(reporter.runtimeUri + "/init/error", reporter.errorBody(error), "Runtime.InitError");
+        } catch (Exception e) {
+            System.err.println("⚠️ Could not report init error: " + e.getMessage());
+        }
+    }
+
+    private void post(String uri, String body, String errorType) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(uri))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8));
+        if (errorType != null) {
+            request.header(ERROR_TYPE_HEADER, errorType);
+        }
+        HttpResponse<Void> response = http.send(request.build(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 202) {
+            throw new IOException("POST " + uri + " devolvió " + response.statusCode());
+        }
+    }
+
+    private String errorBody(Throwable error) throws IOException {
+        Throwable cause = error instanceof ExceptionInInitializerError && error.getCause() != null ? error.getCause() : error;
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("errorMessage", String.valueOf(cause.getMessage()));
+        body.put("errorType", cause.getClass().getName());
+        return responseWriter.writeValueAsString(body);
+    }
+
+    /**
+     * Mapper del Runtime API: los eventos de API Gateway traen campos que las clases de aws-lambda-java-events
+     * no modelan, y API Gateway espera la respuesta sin los campos nulos
+     */
+    static ObjectMapper runtimeMapper() {
+        ObjectMapper mapper = JsonResponseWriter.createMapper();
+        mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        return mapper;
+    }
+
+    /**
+     * Context de la invocación con los headers del Runtime API y las variables de entorno de la función
+     */
+    static final class RuntimeContext implements Context {
+        private static final LambdaLogger LOGGER = new LambdaLogger() {
+            @Override
+            public void log(String message) {
+                System.out.println(message);
+            }
+
+            @Override
+            public void log(byte[] message) {
+                System.out.println(new String(message, StandardCharsets.UTF_8));
+            }
+        };
+
+        private final String requestId;
+        private final long deadlineMs;
+        private final String functionArn;
+
+        RuntimeContext(String requestId, long deadlineMs, String functionArn) {
+            this.requestId = requestId;
+            this.deadlineMs = deadlineMs;
+            this.functionArn = functionArn;
+        }
+
+        @Override
+        public String getAwsRequestId() {
+            return requestId;
+        }
+
+        @Override
+        public String getLogGroupName() {
+            return System.getenv("AWS_LAMBDA_LOG_GROUP_NAME");
+        }
+
+        @Override
+        public String getLogStreamName() {
+            return System.getenv("AWS_LAMBDA_LOG_STREAM_NAME");
+        }
+
+        @Override
+        public String getFunctionName() {
+            return System.getenv("AWS_LAMBDA_FUNCTION_NAME");
+        }
+
+        @Override
+        public String getFunctionVersion() {
+            return System.getenv("AWS_LAMBDA_FUNCTION_VERSION");
+        }
+
+        @Override
+        public String getInvokedFunctionArn() {
+            return functionArn;
+        }
+
+        @Override
+        public CognitoIdentity getIdentity() {
+            return null;
+        }
+
+        @Override
+        public ClientContext getClientContext() {
+            return null;
+        }
+
+        @Override
+        public int getRemainingTimeInMillis() {
+            return (int) Math.max(0, Math.min(Integer.MAX_VALUE, deadlineMs - System.currentTimeMillis()));
+        }
+
+        @Override
+        public int getMemoryLimitInMB() {
+            String memory = System.getenv("AWS_LAMBDA_FUNCTION_MEMORY_SIZE");
+            return memory != null ? Integer.parseInt(memory) : 0;
+        }
+
+        @Override
+        public LambdaLogger getLogger() {
+            return LOGGER;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.tacticore.lambda;
+
+import com.tacticore.lambda.controller.UserController;
+import com.tacticore.lambda.model.MatchEntity;
+import com.tacticore.lambda.model.S3MatchUploadRequest;
+import com.tacticore.lambda.model.UserEntity;
+import com.tacticore.lambda.repository.MatchRepository;
+import com.tacticore.lambda.repository.UserRepository;
+import com.tacticore.lambda.routing.LambdaRouter;
+import com.tacticore.lambda.serialization.JsonResponseWriter;
+import com.tacticore.lambda.service.LeaderboardService;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Priming de la Lambda antes del checkpoint (SnapStart / CRaC) o de servir con provisioned concurrency:
+ * crea todos los beans lazy (repositorios incluidos), recorre cada ruta del router con inputs sintéticos
+ * y serializa las respuestas, así el primer request después del restore no paga creación de beans,
+ * consultas de Hibernate por primera vez, introspección de Jackson ni código sin compilar por el JIT.
+ *
+ * Las rutas GET se ejecutan de verdad (son de solo lectura). Las de escritura se recorren en seco:
+ * se rutean y se crea su controller sin invocarlo, y sus bodies se parsean aparte.
+ *
+ * Se activa con -Dlambda.priming=true (o LAMBDA_PRIMING=true); sin configurar, solo en SnapStart y
+ * provisioned concurrency, donde el init no lo paga un request.
+ */
+final class LambdaPriming {
+
+    static final String ENABLED_PROPERTY = "lambda.priming";
+    static final String ITERATIONS_PROPERTY = "lambda.priming.iterations";
+
+    private static final int DEFAULT_ITERATIONS = 3;
+    private static final Pattern PATH_VARIABLE = Pattern.compile("\\{(\\w+)(?::\\w+)?}");
+
+    // Bodies de las rutas de escritura: solo se parsean, para crear los deserializers
+    private static final Map<String, Class<?>> BODY_TYPES = Map.of(
+        "{\"bucket\":\"priming\",\"key\":\"priming/demo.dem\",\"metadata\":{}}", S3MatchUploadRequest.class,
+        "{\"name\":\"priming\",\"role\":\"Entry Fragger\"}", UserController.CreateUserRequest.class,
+        "{\"message\":\"priming\",\"user\":\"priming\"}", Map.class);
+
+    private LambdaPriming() {
+    }
+
+    static boolean isEnabled() {
+        String configured = System.getProperty(ENABLED_PROPERTY, System.getenv("LAMBDA_PRIMING"));
+        if (configured != null) {
+            return Boolean.parseBoolean(configured);
+        }
+        String initializationType = System.getenv("AWS_LAMBDA_INITIALIZATION_TYPE");
+        return "snap-start".equals(initializationType) || "provisioned-concurrency".equals(initializationType);
+    }
+
+    /**
+     * Ejecuta el priming completo y devuelve cuántas rutas se ejecutaron, cuántas en seco y cuáles fallaron.
+     * Un error en una ruta no corta el priming: la ruta queda sin precalentar.
+     */
+    static Map<String, Object> prime(ConfigurableApplicationContext context, JsonResponseWriter json) {
+        long start = System.nanoTime();
+        System.out.println("🔥 Priming Lambda routes before checkpoint...");
+
+        // Beans lazy: controllers, servicios y proxies de repositorios
+        context.getBeanFactory().preInstantiateSingletons();
+        long beansMs = (System.nanoTime() - start) / 1_000_000;
+
+        List<SyntheticRequest> requests = syntheticRequests(SpringBootLambdaHandler.routes(), Samples.from(context));
+        int iterations = Integer.getInteger(ITERATIONS_PROPERTY, DEFAULT_ITERATIONS);
+        int executed = 0;
+        int dryRuns = 0;
+        Map<String, String> failures = new TreeMap<>();
+        for (int i = 0; i < iterations; i++) {
+            for (SyntheticRequest request : requests) {
+                try {
+                    Object result = SpringBootLambdaHandler.routeRequest(request.method, request.path, request.query,
+                        null, request.dryRun);
+                    json.writeAsString(LambdaResponses.body(result));
+                    executed++;
+                } catch (DryRunComplete e) {
+                    dryRuns++;
+                } catch (Exception e) {
+                    failures.putIfAbsent(request.method + " " + request.path, String.valueOf(e.getMessage()));
+                }
+            }
+        }
+
+        for (Map.Entry<String, Class<?>> body : BODY_TYPES.entrySet()) {
+            try {
+                json.read(body.getKey(), body.getValue());
+            } catch (Exception e) {
+                failures.putIfAbsent("body " + body.getValue().getSimpleName(), e.getMessage());
+            }
+        }
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("✅ Priming: " + requests.size() + " routes x " + iterations + " (" + executed + " executed, "
+            + dryRuns + " dry runs, " + failures.size() + " failed) in " + elapsedMs + " ms (beans " + beansMs + " ms)");
+        failures.forEach((route, error) -> System.err.println("⚠️ Priming failed for " + route + ": " + error));
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("routes", requests.size());
+        stats.put("iterations", iterations);
+        stats.put("executed", executed);
+        stats.put("dryRuns", dryRuns);
+        stats.put("failures", failures);
+        stats.put("beansMs", beansMs);
+        stats.put("elapsedMs", elapsedMs);
+        return stats;
+    }
+
+    /**
+     * Un request sintético por ruta registrada: variables del path con valores de ejemplo y los
+     * query params que usan las rutas que los requieren (los demás los ignoran)
+     */
+    static <H> List<SyntheticRequest> syntheticRequests(List<LambdaRouter.Route<H>> routes, Samples samples) {
+        Map<String, String> query = new HashMap<>();
+        query.put("map", samples.map);
+        query.put("name", samples.user);
+        query.put("timeRange", "all");
+        query.put("minX", "-2000");
+        query.put("minY", "-2000");
+        query.put("maxX", "2000");
+        query.put("maxY", "2000");
+        query.put("x", "0");
+        query.put("y", "0");
+        query.put("radius", "500");
+        query.put("points", "-500,-500,500,-500,0,500");
+        query.put("k", "5");
+        query.put("limit", "10");
+        Map<String, String> readOnlyQuery = Collections.unmodifiableMap(query);
+
+        List<SyntheticRequest> requests = new ArrayList<>(routes.size());
+        for (LambdaRouter.Route<H> route : routes) {
+            Matcher variables = PATH_VARIABLE.matcher(route.getTemplate());
+            StringBuilder path = new StringBuilder();
+            while (variables.find()) {
+                variables.appendReplacement(path, Matcher.quoteReplacement(samples.value(variables.group(1))));
+            }
+            variables.appendTail(path);
+            requests.add(new SyntheticRequest(route.getMethod(), path.toString(), readOnlyQuery,
+                !"GET".equals(route.getMethod())));
+        }
+        return requests;
+    }
+
+    /**
+     * Valores de ejemplo para las variables de las rutas: un usuario y un match reales si hay datos cargados
+     */
+    static final class Samples {
+        final String user;
+        final String matchId;
+        final String map;
+
+        Samples(String user, String matchId, String map) {
+            this.user = user;
+            this.matchId = matchId;
+            this.map = map;
+        }
+
+        static Samples from(ConfigurableApplicationContext context) {
+            String user = context.getBean(UserRepository.class).findAll(PageRequest.of(0, 1)).stream()
+                .map(UserEntity::getName).findFirst().orElse("priming");
+            Optional<MatchEntity> match = context.getBean(MatchRepository.class).findAll(PageRequest.of(0, 1)).stream()
+                .findFirst();
+            return new Samples(user,
+                match.map(MatchEntity::getMatchId).orElse("priming"),
+                match.map(MatchEntity::getMapName).filter(map -> map != null && !map.isEmpty()).orElse("de_mirage"));
+        }
+
+        String value(String variable) {
+            switch (variable) {
+                case "id":
+                    return matchId;
+                case "round":
+                    return "1";
+                case "board":
+                    return LeaderboardService.SCORE;
+                case "role":
+                    return "Entry Fragger";
+                default:
+                    // name, user, player, userName
+                    return user;
+            }
+        }
+    }
+
+    static final class SyntheticRequest {
+        final String method;
+        final String path;
+        final Map<String, String> query;
+        final boolean dryRun;
+
+        SyntheticRequest(String method, String path, Map<String, String> query, boolean dryRun) {
+            this.method = method;
+            this.path = path;
+            this.query = query;
+            this.dryRun = dryRun;
+        }
+
+        @Override
+        public String toString() {
+            return method + " " + path;
+        }
+    }
+
+    /**
+     * Corta un request en seco una vez creado el controller; sin stack trace, se lanza en cada ruta de escritura
+     */
+    static final class DryRunComplete extends RuntimeException {
+        static final DryRunComplete INSTANCE = new DryRunComplete();
+
+        private DryRunComplete() {
+            super("dry run", null, false, false);
+        }
+    }
+}
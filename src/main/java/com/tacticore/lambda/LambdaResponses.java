@@ -0,0 +1,106 @@
+package com.tacticore.lambda;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.tacticore.lambda.serialization.JsonResponseWriter;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Respuestas de API Gateway de SpringBootLambdaHandler: el resultado de una ruta (con el status y los
+ * headers del ResponseEntity si la ruta devuelve el del controller) y los errores con su status.
+ * Separado del handler para poder probarlo sin levantar el contexto de la Lambda.
+ */
+final class LambdaResponses {
+
+    private LambdaResponses() {
+    }
+
+    static APIGatewayProxyResponseEvent of(Object result, JsonResponseWriter json) throws IOException {
+        int status = result instanceof ResponseEntity<?> entity ? entity.getStatusCode().value() : 200;
+
+        APIGatewayProxyResponseEvent response = new APIGatewayProxyResponseEvent();
+        response.setStatusCode(status);
+        response.setBody(json.writeAsString(body(result)));
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Content-Type", "application/json");
+        headers.put("Access-Control-Allow-Origin", "*");
+        headers.put("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
+        headers.put("Access-Control-Allow-Headers", "Content-Type, Authorization");
+        if (result instanceof ResponseEntity<?> entity) {
+            // Headers del controller, p. ej. Retry-After en un 503
+            entity.getHeaders().forEach((name, values) -> {
+                if (!values.isEmpty()) {
+                    headers.put(name, String.join(", ", values));
+                }
+            });
+        }
+        response.setHeaders(headers);
+        return response;
+    }
+
+    /**
+     * Body de lo que devuelve una ruta: las que devuelven el ResponseEntity del controller se desenvuelven
+     */
+    static Object body(Object result) {
+        return result instanceof ResponseEntity<?> entity ? entity.getBody() : result;
+    }
+
+    /**
+     * Error de un request: 404 sin ruta, 400 con parámetros inválidos y 500 para el resto
+     */
+    static APIGatewayProxyResponseEvent error(Exception e, JsonResponseWriter json) {
+        if (e instanceof RouteNotFoundException) {
+            System.err.println("⚠️ " + e.getMessage());
+            return error(404, "Not Found", e.getMessage(), json);
+        }
+        if (e instanceof BadRequestException) {
+            System.err.println("⚠️ Bad request: " + e.getMessage());
+            return error(400, "Bad Request", e.getMessage(), json);
+        }
+        System.err.println("❌ Error handling request: " + e.getMessage());
+        e.printStackTrace();
+        return error(500, "Internal Server Error", "Internal server error: " + e.getMessage(), json);
+    }
+
+    static APIGatewayProxyResponseEvent error(int status, String error, String message, JsonResponseWriter json) {
+        APIGatewayProxyResponseEvent response = new APIGatewayProxyResponseEvent();
+        response.setStatusCode(status);
+
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Content-Type", "application/json");
+        headers.put("Access-Control-Allow-Origin", "*");
+        response.setHeaders(headers);
+
+        Map<String, String> body = new LinkedHashMap<>();
+        body.put("error", error);
+        body.put("message", message);
+        try {
+            response.setBody(json.writeAsString(body));
+        } catch (IOException e) {
+            response.setBody("{\"error\": \"" + error + "\"}");
+        }
+        return response;
+    }
+
+    /**
+     * Ninguna ruta coincide con el método y el path: se responde 404
+     */
+    static final class RouteNotFoundException extends IllegalArgumentException {
+        RouteNotFoundException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Parámetro del request inválido: se responde 400 con el mensaje
+     */
+    static final class BadRequestException extends RuntimeException {
+        BadRequestException(String message) {
+            super(message);
+        }
+    }
+}
@@ -15,6 +15,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.PrintWriter;
 import java.io.IOException;
 import java.util.Collection;
+import java.util.List;
 import java.util.Locale;
 
 import jakarta.servlet.ServletContext;
@@ -22,16 +23,26 @@ import jakarta.servlet.ServletRegistration;
 import java.io.UnsupportedEncodingException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 import com.tacticore.lambda.controller.ApiController;
 import com.tacticore.lambda.controller.DataController;
 import com.tacticore.lambda.controller.KillAnalysisController;
 import com.tacticore.lambda.controller.MatchController;
 import com.tacticore.lambda.controller.UserController;
+import com.tacticore.lambda.model.DashboardStats;
 import com.tacticore.lambda.model.S3MatchUploadRequest;
-import com.tacticore.lambda.model.MatchResponse;
-import com.tacticore.lambda.service.DummyDataService;
-import com.tacticore.lambda.service.PreloadedDataService;
+import com.tacticore.lambda.model.dto.ChatMessageDto;
+import com.tacticore.lambda.model.dto.KillAnalysisDto;
+import com.tacticore.lambda.model.dto.MatchDto;
+import com.tacticore.lambda.model.dto.PlayerStatsDto;
+import com.tacticore.lambda.model.dto.RoundAnalysisDto;
+import com.tacticore.lambda.model.dto.UserDto;
+import com.tacticore.lambda.model.dto.UserProfileDto;
+import com.tacticore.lambda.routing.LambdaRouter;
+import com.tacticore.lambda.serialization.JsonResponseWriter;
+import com.tacticore.lambda.service.DemoSnapshotService;
+import com.tacticore.lambda.service.HeatmapService;
 
 /**
  * Handler completo de Spring Boot para AWS Lambda
@@ -41,6 +52,9 @@ public class SpringBootLambdaHandler implements RequestHandler<APIGatewayProxyRe
 
     private static ConfigurableApplicationContext applicationContext;
     private static DispatcherServlet dispatcherServlet;
+    private static final LambdaRouter<RouteHandler> ROUTER = buildRouter();
+    private static final JsonResponseWriter JSON = JsonResponseWriter.shared();
+    private static final Pattern STAGE_PREFIX = Pattern.compile("^/(prod|dev|test|staging)/");
 
     static {
         initializeSpringBoot();
@@ -49,6 +63,7 @@ public class SpringBootLambdaHandler implements RequestHandler<APIGatewayProxyRe
     private static void initializeSpringBoot() {
         try {
             System.out.println("🚀 Initializing Spring Boot for Lambda...");
+            long initStart = System.nanoTime();
             
             // Configurar propiedades del sistema para Lambda
             System.setProperty("spring.profiles.active", "lambda");
@@ -64,7 +79,17 @@ public class SpringBootLambdaHandler implements RequestHandler<APIGatewayProxyRe
             // Ejecutar inicialización de datos (equivalente a CommandLineRunner)
             initializeData();
             
-            System.out.println("✅ Spring Boot initialized successfully for Lambda");
+            // Construir los serializers de los DTOs más usados antes del primer request
+            JSON.warmUp(MatchDto.class, KillAnalysisDto.class, RoundAnalysisDto.class, PlayerStatsDto.class,
+                UserDto.class, UserProfileDto.class, ChatMessageDto.class, DashboardStats.class);
+            
+            // SnapStart / provisioned concurrency: recorrer todas las rutas antes del snapshot
+            if (LambdaPriming.isEnabled()) {
+                LambdaPriming.prime(applicationContext, JSON);
+            }
+            
+            System.out.println("✅ Spring Boot initialized successfully for Lambda in "
+                + (System.nanoTime() - initStart) / 1_000_000 + " ms");
         } catch (Exception e) {
             System.err.println("❌ Error initializing Spring Boot for Lambda: " + e.getMessage());
             e.printStackTrace();
@@ -80,17 +105,10 @@ public class SpringBootLambdaHandler implements RequestHandler<APIGatewayProxyRe
         try {
             System.out.println("📦 Initializing application data...");
             
-            // Cargar datos dummy (maps, weapons, analytics)
-            DummyDataService dummyDataService = applicationContext.getBean(DummyDataService.class);
-            System.out.println("Inicializando datos dummy (maps, weapons, analytics)...");
-            dummyDataService.loadDummyData();
-            System.out.println("Datos dummy inicializados exitosamente!");
-            
-            // Cargar todas las partidas demo (incluye usuarios con roles aleatorios)
-            PreloadedDataService preloadedDataService = applicationContext.getBean(PreloadedDataService.class);
-            System.out.println("Inicializando todas las partidas demo (incluye usuarios con roles aleatorios)...");
-            preloadedDataService.loadAllDemoMatches();
-            System.out.println("Todas las partidas demo inicializadas exitosamente!");
+            // Datos dummy y partidas demo: restaura el snapshot generado en build si está en el jar,
+            // si no reproduce los JSON de demos-jsons/. Es idempotente (DataInitializer ya pudo haberlo hecho).
+            DemoSnapshotService demoSnapshotService = applicationContext.getBean(DemoSnapshotService.class);
+            demoSnapshotService.loadDemoData();
             
             System.out.println("✅ Application data initialized successfully");
         } catch (Exception e) {
@@ -107,301 +125,305 @@ public class SpringBootLambdaHandler implements RequestHandler<APIGatewayProxyRe
         System.out.println("📨 Received request: " + method + " " + path);
 
         try {
-            // Obtener todos los controladores
-            ApiController apiController = applicationContext.getBean(ApiController.class);
-            HelloController helloController = applicationContext.getBean(HelloController.class);
-            MatchController matchController = applicationContext.getBean(MatchController.class);
-            UserController userController = applicationContext.getBean(UserController.class);
-            KillAnalysisController analysisController = applicationContext.getBean(KillAnalysisController.class);
-            DataController dataController = applicationContext.getBean(DataController.class);
-            
             // Extraer parámetros de query
             Map<String, String> queryParams = input.getQueryStringParameters();
             String requestBody = input.getBody();
             
-            // Router simple basado en path y método
-            Object result = routeRequest(apiController, helloController, matchController, 
-                userController, analysisController, dataController, method, path, queryParams, requestBody);
-            
-            // Convertir resultado a JSON
-            String body;
-            if (result instanceof String) {
-                body = (String) result;
-            } else {
-                com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                mapper.registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
-                mapper.disable(com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-                body = mapper.writeValueAsString(result);
-            }
-            
-            APIGatewayProxyResponseEvent response = new APIGatewayProxyResponseEvent();
-            response.setStatusCode(200);
-            response.setBody(body);
+            // Router precompilado basado en path y método
+            Object result = routeRequest(method, path, queryParams, requestBody);
             
-            Map<String, String> headers = new HashMap<>();
-            headers.put("Content-Type", "application/json");
-            headers.put("Access-Control-Allow-Origin", "*");
-            headers.put("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
-            headers.put("Access-Control-Allow-Headers", "Content-Type, Authorization");
-            response.setHeaders(headers);
-            
-            System.out.println("✅ Response status: 200");
+            // JSON con el writer compartido; las rutas que devuelven el ResponseEntity del controller conservan su status
+            APIGatewayProxyResponseEvent response = LambdaResponses.of(result, JSON);
+            System.out.println("✅ Response status: " + response.getStatusCode());
             return response;
 
         } catch (Exception e) {
-            System.err.println("❌ Error handling request: " + e.getMessage());
-            e.printStackTrace();
-            return createErrorResponse("Internal server error: " + e.getMessage());
+            return LambdaResponses.error(e, JSON);
         }
     }
     
-    private Object routeRequest(ApiController apiController, HelloController helloController,
-                                MatchController matchController, UserController userController,
-                                KillAnalysisController analysisController, DataController dataController,
-                                String method, String path, Map<String, String> queryParams, 
-                                String requestBody) throws Exception {
-        String userParam = queryParams != null ? queryParams.get("user") : null;
+    private static Object routeRequest(String method, String path, Map<String, String> queryParams,
+                                       String requestBody) throws Exception {
+        return routeRequest(method, path, queryParams, requestBody, false);
+    }
+
+    /**
+     * Con {@code dryRun} la ruta se resuelve y se crea su controller, pero no se invoca (priming de
+     * rutas de escritura): termina con {@link LambdaPriming.DryRunComplete}
+     */
+    static Object routeRequest(String method, String path, Map<String, String> queryParams,
+                               String requestBody, boolean dryRun) throws Exception {
+        LambdaRouter.RouteMatch<RouteHandler> match = ROUTER.match(method, path);
+        if (match == null) {
+            throw new LambdaResponses.RouteNotFoundException("Route not found: " + method + " " + path);
+        }
+        return match.getHandler().handle(new RouteRequest(match, queryParams, requestBody, dryRun));
+    }
+
+    static List<LambdaRouter.Route<RouteHandler>> routes() {
+        return ROUTER.getRoutes();
+    }
+
+    /**
+     * Tabla de rutas de la Lambda. Se construye una sola vez al cargar la clase;
+     * los literales tienen prioridad sobre las variables ({@code /api/users/roles} antes que
+     * {@code /api/users/{name}}), así que el orden de registro no importa.
+     */
+    private static LambdaRouter<RouteHandler> buildRouter() {
+        LambdaRouter<RouteHandler> router = new LambdaRouter<>();
+
+        // ==================== GET / HEAD ====================
         
-        // Patrones para extraer IDs de los paths
-        java.util.regex.Pattern matchIdPattern = java.util.regex.Pattern.compile("/api/matches/([^/]+)(?:/(.*))?");
-        java.util.regex.Pattern userNamePattern = java.util.regex.Pattern.compile("/api/users/([^/]+)(?:/(.*))?");
-        java.util.regex.Pattern analysisPattern = java.util.regex.Pattern.compile("/api/analysis/(.+)");
+        // --- Health & Ping ---
+        router.register("GET", "/ping", r -> r.controller(HelloController.class).ping());
+        router.register("GET", "/hello", r -> r.controller(HelloController.class).hello());
+        router.register("GET", "/api/health",
+            r -> Map.of("status", "healthy", "message", "Tacti-Core Backend is running!"));
         
-        java.util.regex.Matcher matchIdMatcher = matchIdPattern.matcher(path);
-        java.util.regex.Matcher userNameMatcher = userNamePattern.matcher(path);
-        java.util.regex.Matcher analysisMatcher = analysisPattern.matcher(path);
+        // --- Game Data ---
+        router.register("GET", "/api/maps", r -> r.controller(ApiController.class).getMaps().getBody());
+        router.register("GET", "/api/weapons", r -> r.controller(ApiController.class).getWeapons().getBody());
         
-        // ==================== GET / HEAD ====================
-        if ("GET".equals(method) || "HEAD".equals(method)) {
-            
-            // --- Health & Ping ---
-            if ("/ping".equals(path)) {
-                return helloController.ping();
-            }
-            if ("/hello".equals(path)) {
-                return helloController.hello();
-            }
-            if ("/api/health".equals(path)) {
-                return java.util.Map.of("status", "healthy", "message", "Tacti-Core Backend is running!");
-            }
-            
-            // --- Game Data ---
-            if ("/api/maps".equals(path)) {
-                return apiController.getMaps().getBody();
-            }
-            if ("/api/weapons".equals(path)) {
-                return apiController.getWeapons().getBody();
-            }
-            
-            // --- Analytics ---
-            if ("/api/analytics/dashboard".equals(path)) {
-                return apiController.getDashboardStats(userParam).getBody();
-            }
-            if ("/api/analytics/historical".equals(path)) {
-                String timeRange = queryParams != null ? queryParams.get("timeRange") : "all";
-                String metric = queryParams != null ? queryParams.get("metric") : "kdr";
-                return apiController.getHistoricalAnalytics(
-                    timeRange != null ? timeRange : "all",
-                    metric != null ? metric : "kdr"
-                ).getBody();
-            }
-            
-            // --- Data Management ---
-            if ("/api/data/status".equals(path)) {
-                return dataController.getDataStatus().getBody();
-            }
-            
-            // --- Users ---
-            if ("/api/users".equals(path)) {
-                return userController.getAllUsers().getBody();
-            }
-            if ("/api/users/roles".equals(path)) {
-                return userController.getAvailableRoles().getBody();
-            }
-            if ("/api/users/stats".equals(path)) {
-                return userController.getUserStatistics().getBody();
-            }
-            if ("/api/users/top/score".equals(path)) {
-                return userController.getTopPlayersByScore().getBody();
-            }
-            if ("/api/users/top/kills".equals(path)) {
-                return userController.getTopPlayersByKills().getBody();
-            }
-            if ("/api/users/top/kdr".equals(path)) {
-                return userController.getTopPlayersByKDR().getBody();
-            }
-            if ("/api/users/top/matches".equals(path)) {
-                int minMatches = queryParams != null && queryParams.get("minMatches") != null 
-                    ? Integer.parseInt(queryParams.get("minMatches")) : 5;
-                return userController.getTopPlayersByMatches(minMatches).getBody();
-            }
-            if ("/api/users/search".equals(path)) {
-                String name = queryParams != null ? queryParams.get("name") : "";
-                return userController.searchUsers(name).getBody();
-            }
-            if ("/api/users/debug/kills-users".equals(path)) {
-                return userController.getKillsUsers().getBody();
-            }
-            
-            // Users con parámetros en path
-            if (path.matches("/api/users/exists/[^/]+")) {
-                String userName = path.substring("/api/users/exists/".length());
-                return userController.userExists(userName).getBody();
-            }
-            if (path.matches("/api/users/role/[^/]+")) {
-                String role = path.substring("/api/users/role/".length());
-                return userController.getUsersByRole(role).getBody();
-            }
-            if (path.matches("/api/users/debug/[^/]+/real-stats")) {
-                String userName = path.replaceAll("/api/users/debug/([^/]+)/real-stats", "$1");
-                return userController.getRealUserStats(userName).getBody();
-            }
-            if (path.matches("/api/users/[^/]+/profile")) {
-                String userName = path.replaceAll("/api/users/([^/]+)/profile", "$1");
-                return userController.getUserProfile(userName).getBody();
-            }
-            // GET /api/users/{name} - Debe ir al final para no interferir con otras rutas
-            if (path.matches("/api/users/[^/]+")) {
-                String userName = path.substring("/api/users/".length());
-                // Excluir rutas especiales que ya fueron manejadas arriba
-                if (!userName.equals("roles") && !userName.equals("stats") && 
-                    !userName.equals("search") && !userName.equals("debug") &&
-                    !userName.startsWith("top/") && !userName.startsWith("exists/") &&
-                    !userName.startsWith("role/") && !userName.contains("/")) {
-                    return userController.getUserByName(userName).getBody();
-                }
-            }
-            
-            // --- Kill Analysis ---
-            if ("/api/analysis/overview".equals(path)) {
-                return analysisController.getOverallAnalysis().getBody();
-            }
-            if ("/api/analysis/players".equals(path)) {
-                return analysisController.getAllPlayersAnalysis().getBody();
-            }
-            if ("/api/analysis/rounds".equals(path)) {
-                return analysisController.getAllRoundsAnalysis().getBody();
-            }
-            if ("/api/analysis/users".equals(path)) {
-                return analysisController.getAllUsers().getBody();
-            }
-            if (path.matches("/api/analysis/player/[^/]+")) {
-                String playerName = path.substring("/api/analysis/player/".length());
-                return analysisController.getPlayerStats(playerName).getBody();
-            }
-            if (path.matches("/api/analysis/round/[0-9]+")) {
-                int roundNumber = Integer.parseInt(path.substring("/api/analysis/round/".length()));
-                return analysisController.getRoundAnalysis(roundNumber).getBody();
-            }
-            if (path.matches("/api/analysis/user/[^/]+/overview")) {
-                String user = path.replaceAll("/api/analysis/user/([^/]+)/overview", "$1");
-                return analysisController.getUserAnalysis(user).getBody();
-            }
-            if (path.matches("/api/analysis/user/[^/]+/kills")) {
-                String user = path.replaceAll("/api/analysis/user/([^/]+)/kills", "$1");
-                return analysisController.getUserKills(user).getBody();
-            }
-            if (path.matches("/api/analysis/user/[^/]+/round/[0-9]+")) {
-                java.util.regex.Pattern p = java.util.regex.Pattern.compile("/api/analysis/user/([^/]+)/round/([0-9]+)");
-                java.util.regex.Matcher m = p.matcher(path);
-                if (m.matches()) {
-                    return analysisController.getUserKillsByRound(m.group(1), Integer.parseInt(m.group(2))).getBody();
-                }
-            }
-            
-            // --- Matches ---
-            if ("/api/matches".equals(path)) {
-                return apiController.getMatches(userParam).getBody();
-            }
-            if (matchIdMatcher.matches()) {
-                String matchId = matchIdMatcher.group(1);
-                String subPath = matchIdMatcher.group(2);
-                
-                if (subPath == null || subPath.isEmpty()) {
-                    return apiController.getMatch(matchId).getBody();
-                }
-                if ("kills".equals(subPath)) {
-                    return apiController.getMatchKills(matchId, userParam).getBody();
-                }
-                if ("chat".equals(subPath)) {
-                    return apiController.getMatchChat(matchId).getBody();
-                }
-                if ("status".equals(subPath)) {
-                    return matchController.getMatchStatus(matchId).getBody();
-                }
-            }
-        }
+        // --- Analytics ---
+        router.register("GET", "/api/analytics/dashboard",
+            r -> r.controller(ApiController.class).getDashboardStats(r.query("user")).getBody());
+        router.register("GET", "/api/analytics/historical",
+            r -> r.controller(ApiController.class).getHistoricalAnalytics(
+                r.query("timeRange", "all"), r.query("metric", "kdr")).getBody());
+        
+        // --- Data Management ---
+        router.register("GET", "/api/data/status", r -> r.controller(DataController.class).getDataStatus().getBody());
+        router.register("GET", "/api/data/init-metrics", r -> r.controller(DataController.class).getInitMetrics().getBody());
+        router.register("GET", "/api/data/json-cache-stats", r -> r.controller(DataController.class).getJsonCacheStats().getBody());
+        
+        // --- Users ---
+        router.register("GET", "/api/users", r -> r.controller(UserController.class).getAllUsers().getBody());
+        router.register("GET", "/api/users/roles", r -> r.controller(UserController.class).getAvailableRoles().getBody());
+        router.register("GET", "/api/users/stats", r -> r.controller(UserController.class).getUserStatistics().getBody());
+        router.register("GET", "/api/users/top/score", r -> r.controller(UserController.class).getTopPlayersByScore(
+            r.intQuery("offset", 0), r.intQuery("limit", 100)));
+        router.register("GET", "/api/users/top/kills", r -> r.controller(UserController.class).getTopPlayersByKills(
+            r.intQuery("offset", 0), r.intQuery("limit", 100)));
+        router.register("GET", "/api/users/top/kdr", r -> r.controller(UserController.class).getTopPlayersByKDR(
+            r.intQuery("offset", 0), r.intQuery("limit", 100)));
+        router.register("GET", "/api/users/top/matches",
+            r -> r.controller(UserController.class).getTopPlayersByMatches(r.intQuery("minMatches", 5),
+                r.intQuery("offset", 0), r.intQuery("limit", 100)));
+        router.register("GET", "/api/users/leaderboard/{board}",
+            r -> r.controller(UserController.class).getLeaderboard(r.path("board"), r.intQuery("offset", 0),
+                r.intQuery("limit", 50), r.query("cursor"), r.intQuery("minMatches")));
+        router.register("GET", "/api/users/search", r -> r.controller(UserController.class).searchUsers(r.query("name")).getBody());
+        router.register("GET", "/api/users/debug/kills-users", r -> r.controller(UserController.class).getKillsUsers().getBody());
+        router.register("GET", "/api/users/debug/aggregates/check",
+            r -> r.controller(UserController.class).checkAggregates().getBody());
+        router.register("GET", "/api/users/exists/{name}",
+            r -> r.controller(UserController.class).userExists(r.path("name")).getBody());
+        router.register("GET", "/api/users/role/{role}",
+            r -> r.controller(UserController.class).getUsersByRole(r.path("role")).getBody());
+        router.register("GET", "/api/users/debug/{name}/real-stats",
+            r -> r.controller(UserController.class).getRealUserStats(r.path("name")).getBody());
+        router.register("GET", "/api/users/{name}/rank",
+            r -> r.controller(UserController.class).getUserRank(r.path("name")).getBody());
+        router.register("GET", "/api/users/{name}/profile",
+            r -> r.controller(UserController.class).getUserProfile(r.path("name")).getBody());
+        router.register("GET", "/api/users/{name}",
+            r -> r.controller(UserController.class).getUserByName(r.path("name")).getBody());
+        
+        // --- Kill Analysis ---
+        router.register("GET", "/api/analysis/overview",
+            r -> r.controller(KillAnalysisController.class).getOverallAnalysis().getBody());
+        router.register("GET", "/api/analysis/players",
+            r -> r.controller(KillAnalysisController.class).getAllPlayersAnalysis().getBody());
+        router.register("GET", "/api/analysis/rounds",
+            r -> r.controller(KillAnalysisController.class).getAllRoundsAnalysis().getBody());
+        router.register("GET", "/api/analysis/users",
+            r -> r.controller(KillAnalysisController.class).getAllUsers().getBody());
+        router.register("GET", "/api/analysis/player/{player}",
+            r -> r.controller(KillAnalysisController.class).getPlayerStats(r.path("player")).getBody());
+        router.register("GET", "/api/analysis/round/{round:int}",
+            r -> r.controller(KillAnalysisController.class).getRoundAnalysis(r.intPath("round")).getBody());
+        router.register("GET", "/api/analysis/user/{user}/overview",
+            r -> r.controller(KillAnalysisController.class).getUserAnalysis(r.path("user")).getBody());
+        router.register("GET", "/api/analysis/user/{user}/kills",
+            r -> r.controller(KillAnalysisController.class).getUserKills(r.path("user")).getBody());
+        router.register("GET", "/api/analysis/user/{user}/round/{round:int}",
+            r -> r.controller(KillAnalysisController.class).getUserKillsByRound(r.path("user"), r.intPath("round")).getBody());
+        router.register("GET", "/api/analysis/heatmap",
+            r -> r.controller(KillAnalysisController.class).getHeatmap(r.query("map"), r.query("side"), r.query("weapon"),
+                r.query("user"), r.query("role", HeatmapService.ATTACKER), r.intQuery("resolution", 64),
+                Boolean.parseBoolean(r.query("quantize", "true"))));
+        router.register("GET", "/api/analysis/spatial/box",
+            r -> r.controller(KillAnalysisController.class).getKillsInBox(r.query("map"), r.doubleQuery("minX"),
+                r.doubleQuery("minY"), r.doubleQuery("maxX"), r.doubleQuery("maxY"), r.query("role", HeatmapService.VICTIM),
+                r.intQuery("round"), r.query("side"), r.query("weapon"), r.intQuery("limit", 100)));
+        router.register("GET", "/api/analysis/spatial/polygon",
+            r -> r.controller(KillAnalysisController.class).getKillsInPolygon(r.query("map"), r.query("points", ""),
+                r.query("role", HeatmapService.VICTIM), r.intQuery("round"), r.query("side"), r.query("weapon"),
+                r.intQuery("limit", 100)));
+        router.register("GET", "/api/analysis/spatial/radius",
+            r -> r.controller(KillAnalysisController.class).getKillsInRadius(r.query("map"), r.doubleQuery("x"),
+                r.doubleQuery("y"), r.doubleQuery("radius"), r.query("role", HeatmapService.VICTIM), r.intQuery("round"),
+                r.query("side"), r.query("weapon"), r.intQuery("limit", 100)));
+        router.register("GET", "/api/analysis/spatial/nearest",
+            r -> r.controller(KillAnalysisController.class).getNearestKills(r.query("map"), r.doubleQuery("x"),
+                r.doubleQuery("y"), r.intQuery("k", 10), r.query("role", HeatmapService.VICTIM),
+                r.intQuery("round"), r.query("side"), r.query("weapon")));
+        
+        // --- Matches ---
+        router.register("GET", "/api/matches", r -> r.controller(ApiController.class).getMatches(r.query("user")).getBody());
+        router.register("GET", "/api/matches/{id}", r -> r.controller(ApiController.class).getMatch(r.path("id")).getBody());
+        router.register("GET", "/api/matches/{id}/kills",
+            r -> r.controller(ApiController.class).getMatchKills(r.path("id"), r.query("user")).getBody());
+        router.register("GET", "/api/matches/{id}/chat", r -> r.controller(ApiController.class).getMatchChat(r.path("id")).getBody());
+        router.register("GET", "/api/matches/{id}/status",
+            r -> r.controller(MatchController.class).getMatchStatus(r.path("id")).getBody());
         
         // ==================== POST ====================
-        if ("POST".equals(method)) {
-            if ("/api/matches/s3".equals(path)) {
-                return handleS3MatchUpload(matchController, requestBody);
-            }
-            if ("/api/users".equals(path)) {
-                return handleCreateUser(userController, requestBody);
-            }
-            if ("/api/data/load".equals(path)) {
-                String fileName = "example.json"; // Default
-                return dataController.loadData(fileName).getBody();
-            }
-            if ("/api/data/reload-preloaded".equals(path)) {
-                return dataController.reloadPreloadedData().getBody();
-            }
-            if ("/api/data/reload-dummy".equals(path)) {
-                return dataController.reloadDummyData().getBody();
+        router.register("POST", "/api/matches/s3", r -> handleS3MatchUpload(r.controller(MatchController.class), r.body()));
+        router.register("POST", "/api/users", r -> handleCreateUser(r.controller(UserController.class), r.body()));
+        router.register("POST", "/api/data/load", r -> r.controller(DataController.class).loadData("example.json").getBody());
+        router.register("POST", "/api/data/reload-preloaded",
+            r -> r.controller(DataController.class).reloadPreloadedData().getBody());
+        router.register("POST", "/api/data/reload-dummy", r -> r.controller(DataController.class).reloadDummyData().getBody());
+        router.register("POST", "/api/data/backfill-match-summaries",
+            r -> r.controller(DataController.class).backfillMatchSummaries().getBody());
+        router.register("POST", "/api/data/compact-ml-responses",
+            r -> r.controller(DataController.class).compactMlResponses().getBody());
+        router.register("POST", "/api/users/debug/reload-kills", r -> r.controller(UserController.class).reloadKills().getBody());
+        router.register("POST", "/api/users/debug/update-stats", r -> r.controller(UserController.class).updateUserStats().getBody());
+        router.register("POST", "/api/users/debug/aggregates/rebuild",
+            r -> r.controller(UserController.class).rebuildAggregates().getBody());
+        router.register("POST", "/api/users/debug/prediction-aggregates/rebuild",
+            r -> r.controller(UserController.class).rebuildPredictionAggregates().getBody());
+        router.register("POST", "/api/matches/{id}/chat",
+            r -> handleChatMessage(r.controller(ApiController.class), r.path("id"), r.body()));
+        
+        // ==================== DELETE ====================
+        router.register("DELETE", "/api/data/clear", r -> r.controller(DataController.class).clearData().getBody());
+        router.register("DELETE", "/api/matches/{id}", r -> r.controller(ApiController.class).deleteMatch(r.path("id")).getBody());
+
+        return router;
+    }
+
+    /**
+     * Handler de una ruta de la Lambda
+     */
+    @FunctionalInterface
+    interface RouteHandler {
+        Object handle(RouteRequest request) throws Exception;
+    }
+
+    /**
+     * Datos de un request ya ruteado: variables del path, query params y body
+     */
+    static final class RouteRequest {
+        private final LambdaRouter.RouteMatch<RouteHandler> match;
+        private final Map<String, String> queryParams;
+        private final String body;
+        private final boolean dryRun;
+
+        RouteRequest(LambdaRouter.RouteMatch<RouteHandler> match, Map<String, String> queryParams, String body,
+                     boolean dryRun) {
+            this.match = match;
+            this.queryParams = queryParams;
+            this.body = body;
+            this.dryRun = dryRun;
+        }
+
+        String path(String name) {
+            return match.getPathVariable(name);
+        }
+
+        int intPath(String name) {
+            return match.getIntPathVariable(name);
+        }
+
+        String query(String name) {
+            return queryParams != null ? queryParams.get(name) : null;
+        }
+
+        String query(String name, String defaultValue) {
+            String value = query(name);
+            return value != null ? value : defaultValue;
+        }
+
+        /**
+         * Parámetro numérico obligatorio; si falta o no es un número finito es un 400
+         */
+        double doubleQuery(String name) {
+            String value = query(name);
+            if (value == null) {
+                throw new LambdaResponses.BadRequestException("Falta el parámetro " + name);
             }
-            if ("/api/users/debug/reload-kills".equals(path)) {
-                return userController.reloadKills().getBody();
+            try {
+                double parsed = Double.parseDouble(value.trim());
+                if (Double.isFinite(parsed)) {
+                    return parsed;
+                }
+            } catch (NumberFormatException e) {
+                // mismo error que un valor no finito
             }
-            if ("/api/users/debug/update-stats".equals(path)) {
-                return userController.updateUserStats().getBody();
+            throw new LambdaResponses.BadRequestException("El parámetro " + name + " debe ser un número: " + value);
+        }
+
+        /**
+         * Parámetro entero opcional sin default: null si no viene, 400 si no es un entero
+         */
+        Integer intQuery(String name) {
+            return query(name) != null ? intQuery(name, 0) : null;
+        }
+
+        /**
+         * Parámetro entero opcional; un valor que no es un entero es un 400, no un 500
+         */
+        int intQuery(String name, int defaultValue) {
+            String value = query(name);
+            if (value == null) {
+                return defaultValue;
             }
-            // POST chat message
-            if (path.matches("/api/matches/[^/]+/chat")) {
-                String matchId = path.replaceAll("/api/matches/([^/]+)/chat", "$1");
-                return handleChatMessage(apiController, matchId, requestBody);
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                throw new LambdaResponses.BadRequestException("El parámetro " + name + " debe ser un entero: " + value);
             }
         }
-        
-        // ==================== DELETE ====================
-        if ("DELETE".equals(method)) {
-            if ("/api/data/clear".equals(path)) {
-                return dataController.clearData().getBody();
-            }
-            if (path.matches("/api/matches/[^/]+")) {
-                String matchId = path.substring("/api/matches/".length());
-                return apiController.deleteMatch(matchId).getBody();
+
+        String body() {
+            return body;
+        }
+
+        <T> T controller(Class<T> type) {
+            T controller = applicationContext.getBean(type);
+            if (dryRun) {
+                throw LambdaPriming.DryRunComplete.INSTANCE;
             }
+            return controller;
         }
-        
-        throw new IllegalArgumentException("Route not found: " + method + " " + path);
     }
     
     /**
      * Maneja el upload de match desde S3
      */
-    private Object handleS3MatchUpload(MatchController matchController, String requestBody) throws Exception {
+    private static Object handleS3MatchUpload(MatchController matchController, String requestBody) throws Exception {
         if (requestBody == null || requestBody.trim().isEmpty()) {
             return java.util.Map.of("error", "Request body is required");
         }
         
-        com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-        S3MatchUploadRequest request = mapper.readValue(requestBody, S3MatchUploadRequest.class);
+        S3MatchUploadRequest request = JSON.read(requestBody, S3MatchUploadRequest.class);
         
-        org.springframework.http.ResponseEntity<MatchResponse> response = matchController.uploadMatchFromS3(request);
-        return response.getBody();
+        // Con el ResponseEntity se conservan el status y los headers (503 + Retry-After si el ML no está disponible)
+        return matchController.uploadMatchFromS3(request);
     }
     
     /**
      * Maneja la creación de usuarios
      */
-    private Object handleCreateUser(UserController userController, String requestBody) throws Exception {
+    private static Object handleCreateUser(UserController userController, String requestBody) throws Exception {
         if (requestBody == null || requestBody.trim().isEmpty()) {
             return java.util.Map.of("error", "Request body is required");
         }
         
-        com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-        UserController.CreateUserRequest request = mapper.readValue(requestBody, UserController.CreateUserRequest.class);
+        UserController.CreateUserRequest request = JSON.read(requestBody, UserController.CreateUserRequest.class);
         
         return userController.createOrGetUser(request).getBody();
     }
@@ -409,14 +431,13 @@ public class SpringBootLambdaHandler implements RequestHandler<APIGatewayProxyRe
     /**
      * Maneja el envío de mensajes de chat
      */
-    private Object handleChatMessage(ApiController apiController, String matchId, String requestBody) throws Exception {
+    private static Object handleChatMessage(ApiController apiController, String matchId, String requestBody) throws Exception {
         if (requestBody == null || requestBody.trim().isEmpty()) {
             return java.util.Map.of("error", "Request body is required");
         }
         
-        com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
         @SuppressWarnings("unchecked")
-        java.util.Map<String, String> request = mapper.readValue(requestBody, java.util.Map.class);
+        java.util.Map<String, String> request = JSON.read(requestBody, java.util.Map.class);
         
         return apiController.sendChatMessage(matchId, request).getBody();
     }
@@ -430,7 +451,7 @@ public class SpringBootLambdaHandler implements RequestHandler<APIGatewayProxyRe
         }
         
         // Remover prefijo del stage si existe (ej: /prod/api/... -> /api/...)
-        path = path.replaceFirst("^/(prod|dev|test|staging)/", "/");
+        path = STAGE_PREFIX.matcher(path).replaceFirst("/");
         
         // Asegurar que empiece con /
         if (!path.startsWith("/")) {
@@ -486,22 +507,6 @@ public class SpringBootLambdaHandler implements RequestHandler<APIGatewayProxyRe
         return response;
     }
 
-    /**
-     * Crea una respuesta de error
-     */
-    private APIGatewayProxyResponseEvent createErrorResponse(String errorMessage) {
-        APIGatewayProxyResponseEvent response = new APIGatewayProxyResponseEvent();
-        response.setStatusCode(500);
-        
-        Map<String, String> headers = new HashMap<>();
-        headers.put("Content-Type", "application/json");
-        headers.put("Access-Control-Allow-Origin", "*");
-        response.setHeaders(headers);
-        
-        response.setBody("{\"error\": \"Internal Server Error\", \"message\": \"" + errorMessage + "\"}");
-        return response;
-    }
-
     /**
      * Mock ServletContext para Lambda
      */
@@ -1,7 +1,6 @@
 package com.tacticore.lambda.config;
 
-import com.tacticore.lambda.service.DummyDataService;
-import com.tacticore.lambda.service.PreloadedDataService;
+import com.tacticore.lambda.service.DemoSnapshotService;
 // import com.tacticore.lambda.service.PreloadedUserService; // Desactivado - se usa PreloadedDataService
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
@@ -11,10 +10,7 @@ import org.springframework.stereotype.Component;
 public class DataInitializer implements CommandLineRunner {
     
     @Autowired
-    private PreloadedDataService preloadedDataService;
-    
-    @Autowired
-    private DummyDataService dummyDataService;
+    private DemoSnapshotService demoSnapshotService;
     
     // @Autowired
     // private PreloadedUserService preloadedUserService; // Desactivado - se usa PreloadedDataService
@@ -26,12 +22,8 @@ public class DataInitializer implements CommandLineRunner {
             // preloadedUserService.loadPreloadedUsers(); // Desactivado - los usuarios se crean en PreloadedDataService
             // System.out.println("Usuarios precargados inicializados exitosamente!");
             
-            System.out.println("Inicializando datos dummy (maps, weapons, analytics)...");
-            dummyDataService.loadDummyData();
-            System.out.println("Datos dummy inicializados exitosamente!");
-            
-            System.out.println("Inicializando todas las partidas demo (incluye usuarios con roles aleatorios)...");
-            preloadedDataService.loadAllDemoMatches();
+            // Datos dummy (maps, weapons, analytics) y partidas demo: snapshot precompilado o replay de JSON
+            demoSnapshotService.loadDemoData();
             System.out.println("Todas las partidas demo inicializadas exitosamente!");
             
         } catch (Exception e) {
@@ -0,0 +1,97 @@
+package com.tacticore.lambda.config;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.tacticore.lambda.service.DemoSnapshotService;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ClassUtils;
+
+import jakarta.persistence.Entity;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hints de reflexión y recursos para la imagen nativa (perfil maven lambda-native).
+ * Spring AOT ya cubre los beans y los tipos de los @RequestMapping, pero el router de la Lambda
+ * serializa con su propio ObjectMapper lo que devuelven controllers y servicios, y el Runtime API
+ * llega como eventos de API Gateway: todo eso se registra acá.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final String BASE_PACKAGE = "com.tacticore.lambda";
+
+    private final BindingReflectionHintsRegistrar bindings = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        // Modelos y DTOs (KillContext, KillPrediction, MatchDto...): Jackson en el router, el ML y los JSON de demos
+        for (Class<?> type : scan(classLoader, BASE_PACKAGE + ".model", null)) {
+            bindings.registerReflectionHints(hints.reflection(), type);
+        }
+        // Entidades JPA: Hibernate instancia y accede por reflexión a constructores y campos
+        for (Class<?> entity : scan(classLoader, BASE_PACKAGE + ".model", Entity.class)) {
+            hints.reflection().registerType(entity, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_METHODS);
+        }
+        // Servicios llamados directo por el router: sus tipos propios (UserService.UserStats, ...)
+        for (Class<?> service : scan(classLoader, BASE_PACKAGE + ".service", Service.class)) {
+            for (Method method : service.getDeclaredMethods()) {
+                if (Modifier.isPublic(method.getModifiers())) {
+                    registerOwnType(hints, method.getGenericReturnType());
+                    for (Type parameter : method.getGenericParameterTypes()) {
+                        registerOwnType(hints, parameter);
+                    }
+                }
+            }
+        }
+        // Eventos del Runtime API (LambdaCustomRuntime)
+        bindings.registerReflectionHints(hints.reflection(),
+            APIGatewayProxyRequestEvent.class, APIGatewayProxyResponseEvent.class);
+
+        // Recursos del classpath; demos-jsons/ se lee del filesystem y va en el zip junto al binario
+        hints.resources()
+            .registerPattern(DemoSnapshotService.SNAPSHOT_RESOURCE)
+            .registerPattern("ai_model_response_example.json");
+    }
+
+    private void registerOwnType(RuntimeHints hints, Type type) {
+        if (type.getTypeName().contains(BASE_PACKAGE)) {
+            bindings.registerReflectionHints(hints.reflection(), type);
+        }
+    }
+
+    /**
+     * Clases del paquete (incluidas las anidadas y abstractas), opcionalmente solo las que tienen la anotación
+     */
+    static List<Class<?>> scan(ClassLoader classLoader, String basePackage, Class<? extends Annotation> annotation) {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false) {
+            @Override
+            protected boolean isCandidateComponent(AnnotatedBeanDefinition beanDefinition) {
+                return beanDefinition.getMetadata().isIndependent();
+            }
+        };
+        scanner.setResourceLoader(new DefaultResourceLoader(classLoader));
+        scanner.addIncludeFilter(annotation != null
+            ? new AnnotationTypeFilter(annotation)
+            : (metadataReader, factory) -> true);
+
+        List<Class<?>> types = new ArrayList<>();
+        for (BeanDefinition candidate : scanner.findCandidateComponents(basePackage)) {
+            types.add(ClassUtils.resolveClassName(candidate.getBeanClassName(), classLoader));
+        }
+        return types;
+    }
+}
@@ -10,15 +10,16 @@ import com.tacticore.lambda.service.DatabaseMatchService;
 import com.tacticore.lambda.service.GameDataService;
 import com.tacticore.lambda.service.KillAnalysisService;
 import com.tacticore.lambda.service.JsonMatchService;
+import com.tacticore.lambda.service.MapTransformRegistry;
+import com.tacticore.lambda.serialization.MatchKillsJson;
+import com.fasterxml.jackson.databind.util.RawValue;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import java.util.Comparator;
 import java.util.Optional;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api")
@@ -44,15 +45,13 @@ public class ApiController {
     private JsonMatchService jsonMatchService;
     
     @Autowired
-    private com.fasterxml.jackson.databind.ObjectMapper objectMapper;
+    private MapTransformRegistry mapTransformRegistry;
     
     @GetMapping("/matches")
     public ResponseEntity<Map<String, Object>> getMatches(@RequestParam(required = false) String user) {
-        List<MatchDto> matches = databaseMatchService.getAllMatches();
-        
-        if (user != null && !user.isEmpty()) {
-            matches = databaseMatchService.getMatchesByUser(user);
-        }
+        List<MatchDto> matches = (user != null && !user.isEmpty())
+            ? databaseMatchService.getMatchesByUser(user)
+            : databaseMatchService.getAllMatches();
         
         Map<String, Object> response = new HashMap<>();
         response.put("matches", matches);
@@ -90,40 +89,14 @@ public class ApiController {
     public ResponseEntity<Object> getMatchKills(@PathVariable String id, @RequestParam(required = false) String user) {
         Optional<MatchDto> matchDto = databaseMatchService.getMatchById(id);
         if (matchDto.isPresent()) {
-            String mlResponseJson = databaseMatchService.getMlResponseJson(id);
-            if (mlResponseJson != null && !mlResponseJson.isEmpty()) {
-                try {
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> jsonData = objectMapper.readValue(mlResponseJson, Map.class);
-                    
-                    if (user != null && !user.isEmpty()) {
-                        @SuppressWarnings("unchecked")
-                        List<Map<String, Object>> predictions = (List<Map<String, Object>>) jsonData.get("predictions");
-                        if (predictions != null) {
-                            List<Map<String, Object>> filteredPredictions = new ArrayList<>();
-                            for (Map<String, Object> prediction : predictions) {
-                                @SuppressWarnings("unchecked")
-                                Map<String, Object> context = (Map<String, Object>) prediction.get("context");
-                                if (context != null) {
-                                    String attackerName = String.valueOf(context.get("attacker_name"));
-                                    String victimName = String.valueOf(context.get("victim_name"));
-                                    
-                                    if (user.equalsIgnoreCase(attackerName) || user.equalsIgnoreCase(victimName)) {
-                                        filteredPredictions.add(prediction);
-                                    }
-                                }
-                            }
-                            Map<String, Object> filteredData = new HashMap<>(jsonData);
-                            filteredData.put("predictions", filteredPredictions);
-                            filteredData.put("total_kills", filteredPredictions.size());
-                            jsonData = filteredData;
-                        }
-                    }
-                    
-                    return ResponseEntity.ok(jsonData);
-                } catch (Exception e) {
-                    System.err.println("Error parsing JSON from database: " + e.getMessage());
+            try {
+                // JSON ya serializado (guardado o filtrado en streaming): se escribe tal cual en la respuesta
+                String mlResponseJson = databaseMatchService.getMlResponseKillsJson(id, user);
+                if (mlResponseJson != null) {
+                    return ResponseEntity.ok(new RawValue(mlResponseJson));
                 }
+            } catch (Exception e) {
+                System.err.println("Error reading ML response from database: " + e.getMessage());
             }
         }
         
@@ -137,91 +110,10 @@ public class ApiController {
         if (jsonData != null) {
             return ResponseEntity.ok(jsonData);
         }
-        List<KillEntity> killEntities;
-        
-        if (user != null && !user.isEmpty()) {
-            killEntities = killAnalysisService.getKillsByUser(user).stream()
-                    .filter(kill -> id.equals(kill.getMatchId()))
-                    .collect(Collectors.toList());
-        } else {
-            killEntities = killAnalysisService.getAllKills().stream()
-                    .filter(kill -> id.equals(kill.getMatchId()))
-                    .collect(Collectors.toList());
-        }
-        
-        List<KillEntity> sortedKills = killEntities.stream()
-                .sorted(Comparator.comparing(KillEntity::getRound)
-                        .thenComparing(KillEntity::getTimeInRound))
-                .collect(Collectors.toList());
-
-        List<Map<String, Object>> kills = new ArrayList<>();
-        Map<Integer, Map<String, Integer>> roundTeamCounts = new HashMap<>();
-        
-        for (KillEntity kill : sortedKills) {
-            int round = kill.getRound();
-            String victimSide = kill.getSide();
-            
-            roundTeamCounts.putIfAbsent(round, new HashMap<>());
-            Map<String, Integer> teamCounts = roundTeamCounts.get(round);
-            teamCounts.putIfAbsent("ct", 5);
-            teamCounts.putIfAbsent("t", 5);
-            
-            if ("ct".equals(victimSide)) {
-                teamCounts.put("ct", Math.max(0, teamCounts.get("ct") - 1));
-            } else if ("t".equals(victimSide)) {
-                teamCounts.put("t", Math.max(0, teamCounts.get("t") - 1));
-            }
-            
-            Map<String, Object> killDto = new HashMap<>();
-            killDto.put("id", kill.getKillId().hashCode());
-            killDto.put("killer", kill.getAttacker());
-            killDto.put("victim", kill.getVictim());
-            killDto.put("weapon", kill.getWeapon());
-            killDto.put("isGoodPlay", kill.getHeadshot() || (kill.getDistance() != null && kill.getDistance() > 500));
-            killDto.put("round", kill.getRound());
-            killDto.put("time", String.format("%.1fs", kill.getTimeInRound() != null ? kill.getTimeInRound() : 0.0));
-            killDto.put("teamAlive", Map.of("ct", teamCounts.get("ct"), "t", teamCounts.get("t")));
-            killDto.put("position", kill.getPlace());
-            killDto.put("attackerSide", kill.getSide());
-            
-            // Coordenadas del atacante (posición en el juego)
-            if (kill.getAttackerX() != null && kill.getAttackerY() != null) {
-                Map<String, Double> attackerPosition = new HashMap<>();
-                attackerPosition.put("x", kill.getAttackerX());
-                attackerPosition.put("y", kill.getAttackerY());
-                attackerPosition.put("z", kill.getAttackerZ() != null ? kill.getAttackerZ() : 0.0);
-                killDto.put("attackerPosition", attackerPosition);
-                
-                // Convertir a coordenadas de imagen (asumiendo mapa 1024x1024)
-                Map<String, Integer> attackerImagePos = convertToImagePosition(
-                    kill.getAttackerX(), kill.getAttackerY(), matchDto.get().getMap());
-                killDto.put("attackerImagePosition", attackerImagePos);
-            }
-            
-            // Coordenadas de la víctima (posición en el juego)
-            if (kill.getVictimX() != null && kill.getVictimY() != null) {
-                Map<String, Double> victimPosition = new HashMap<>();
-                victimPosition.put("x", kill.getVictimX());
-                victimPosition.put("y", kill.getVictimY());
-                victimPosition.put("z", kill.getVictimZ() != null ? kill.getVictimZ() : 0.0);
-                killDto.put("victimPosition", victimPosition);
-                
-                // Convertir a coordenadas de imagen
-                Map<String, Integer> victimImagePos = convertToImagePosition(
-                    kill.getVictimX(), kill.getVictimY(), matchDto.get().getMap());
-                killDto.put("victimImagePosition", victimImagePos);
-            }
-            
-            kills.add(killDto);
-        }
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("kills", kills);
-        response.put("matchId", id);
-        if (user != null) {
-            response.put("filteredBy", user);
-        }
-        return ResponseEntity.ok(response);
+        // Fallback desde la tabla kills: solo los del match, serializados en streaming
+        List<KillEntity> matchKills = killAnalysisService.getMatchKills(id, user);
+        String mapName = matchDto.map(MatchDto::getMap).orElse(null);
+        return ResponseEntity.ok(new MatchKillsJson(id, user, matchKills, mapTransformRegistry.get(mapName)));
     }
     
     @GetMapping("/matches/{id}/chat")
@@ -355,43 +247,5 @@ public class ApiController {
         response.setStatus("success");
         return response;
     }
-    
-    /**
-     * Convierte coordenadas del juego a coordenadas de imagen del mapa.
-     * Las imágenes de mapa son típicamente 1024x1024 píxeles.
-     */
-    private Map<String, Integer> convertToImagePosition(Double gameX, Double gameY, String mapName) {
-        // Datos de los mapas (pos_x, pos_y, scale)
-        // Estos valores definen el origen y escala para convertir coordenadas del juego a imagen
-        Map<String, double[]> mapData = Map.of(
-            "de_mirage", new double[]{-3230.0, 1713.0, 5.0},
-            "de_dust2", new double[]{-2476.0, 3239.0, 4.4},
-            "de_inferno", new double[]{-2087.0, 3870.0, 4.9},
-            "de_nuke", new double[]{-3453.0, 2887.0, 7.0},
-            "de_overpass", new double[]{-4831.0, 1781.0, 5.2},
-            "de_train", new double[]{-2477.0, 2392.0, 4.7},
-            "de_vertigo", new double[]{-3168.0, 1762.0, 4.0},
-            "de_cache", new double[]{-2000.0, 3250.0, 5.5},
-            "de_ancient", new double[]{-2953.0, 2164.0, 5.0},
-            "de_anubis", new double[]{-2796.0, 3328.0, 5.22}
-        );
-        
-        double[] data = mapData.getOrDefault(mapName, new double[]{-2000.0, 3000.0, 5.0});
-        double posX = data[0];
-        double posY = data[1];
-        double scale = data[2];
-        
-        // Fórmula de conversión: imageCoord = (gameCoord - mapOffset) / scale
-        int imageX = (int) ((gameX - posX) / scale);
-        int imageY = (int) ((posY - gameY) / scale);
-        
-        // Limitar a los bordes de la imagen (0-1024)
-        imageX = Math.max(0, Math.min(1024, imageX));
-        imageY = Math.max(0, Math.min(1024, imageY));
-        
-        Map<String, Integer> position = new HashMap<>();
-        position.put("x", imageX);
-        position.put("y", imageY);
-        return position;
-    }
+
 }
@@ -1,7 +1,10 @@
 package com.tacticore.lambda.controller;
 
 import com.tacticore.lambda.service.DataLoaderService;
+import com.tacticore.lambda.service.DatabaseMatchService;
+import com.tacticore.lambda.service.DemoSnapshotService;
 import com.tacticore.lambda.service.DummyDataService;
+import com.tacticore.lambda.service.JsonMatchService;
 import com.tacticore.lambda.service.PreloadedDataService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -24,6 +27,15 @@ public class DataController {
     @Autowired
     private DummyDataService dummyDataService;
     
+    @Autowired
+    private DemoSnapshotService demoSnapshotService;
+    
+    @Autowired
+    private DatabaseMatchService databaseMatchService;
+    
+    @Autowired
+    private JsonMatchService jsonMatchService;
+    
     // POST /api/data/load
     @PostMapping("/load")
     public ResponseEntity<Map<String, String>> loadData(@RequestParam(defaultValue = "example.json") String fileName) {
@@ -87,6 +99,33 @@ public class DataController {
         }
     }
     
+    // POST /api/data/backfill-match-summaries
+    // Migración one-off: persiste goodPlays/badPlays de matches antiguos (los GET ya no los recalculan)
+    @PostMapping("/backfill-match-summaries")
+    public ResponseEntity<Map<String, Object>> backfillMatchSummaries() {
+        try {
+            return ResponseEntity.ok(databaseMatchService.backfillMatchSummaries());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Map.of(
+                "status", "error",
+                "message", "Error en el backfill de matches: " + e.getMessage()
+            ));
+        }
+    }
+    
+    // POST /api/data/compact-ml-responses
+    // Migración one-off: pasa las respuestas ML guardadas como TEXT al formato comprimido
+    @PostMapping("/compact-ml-responses")
+    public ResponseEntity<Map<String, Object>> compactMlResponses() {
+        try {
+            return ResponseEntity.ok(databaseMatchService.compactMlResponses());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Map.of(
+                "status", "error",
+                "message", "Error compactando respuestas ML: " + e.getMessage()
+            ));
+        }
+    }
     
     // GET /api/data/status
     @GetMapping("/status")
@@ -96,4 +135,16 @@ public class DataController {
             "message", "Base de datos en memoria lista para usar"
         ));
     }
+    
+    // GET /api/data/init-metrics - origen y duración de la carga inicial (snapshot vs replay de JSON)
+    @GetMapping("/init-metrics")
+    public ResponseEntity<Map<String, Object>> getInitMetrics() {
+        return ResponseEntity.ok(demoSnapshotService.getInitMetrics());
+    }
+    
+    // GET /api/data/json-cache-stats - hits/misses/evictions del cache de JSON de partidas
+    @GetMapping("/json-cache-stats")
+    public ResponseEntity<Map<String, Object>> getJsonCacheStats() {
+        return ResponseEntity.ok(jsonMatchService.getCacheStats());
+    }
 }
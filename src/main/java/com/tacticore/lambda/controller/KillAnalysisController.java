@@ -3,7 +3,9 @@ package com.tacticore.lambda.controller;
 import com.tacticore.lambda.model.dto.KillAnalysisDto;
 import com.tacticore.lambda.model.dto.PlayerStatsDto;
 import com.tacticore.lambda.model.dto.RoundAnalysisDto;
+import com.tacticore.lambda.service.HeatmapService;
 import com.tacticore.lambda.service.KillAnalysisService;
+import com.tacticore.lambda.service.KillSpatialIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -18,6 +20,12 @@ public class KillAnalysisController {
     @Autowired
     private KillAnalysisService killAnalysisService;
     
+    @Autowired
+    private HeatmapService heatmapService;
+    
+    @Autowired
+    private KillSpatialIndex killSpatialIndex;
+    
     // GET /api/analysis/overview
     @GetMapping("/overview")
     public ResponseEntity<KillAnalysisDto> getOverallAnalysis() {
@@ -93,4 +101,101 @@ public class KillAnalysisController {
             return ResponseEntity.badRequest().build();
         }
     }
+    
+    // GET /api/analysis/heatmap?map=&side=&weapon=&user=&role=attacker|victim&resolution=
+    @GetMapping("/heatmap")
+    public ResponseEntity<Object> getHeatmap(@RequestParam String map,
+                                             @RequestParam(required = false) String side,
+                                             @RequestParam(required = false) String weapon,
+                                             @RequestParam(required = false) String user,
+                                             @RequestParam(defaultValue = HeatmapService.ATTACKER) String role,
+                                             @RequestParam(defaultValue = "64") Integer resolution,
+                                             @RequestParam(defaultValue = "true") boolean quantize) {
+        try {
+            return ResponseEntity.ok(heatmapService.getHeatmap(map, side, weapon, user, role, resolution, quantize));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    // Consultas espaciales en coordenadas del juego; role = posición del atacante o de la víctima
+    // GET /api/analysis/spatial/box?map=&minX=&minY=&maxX=&maxY=&role=&round=&side=&weapon=&limit=
+    @GetMapping("/spatial/box")
+    public ResponseEntity<Object> getKillsInBox(@RequestParam String map,
+                                                @RequestParam double minX, @RequestParam double minY,
+                                                @RequestParam double maxX, @RequestParam double maxY,
+                                                @RequestParam(defaultValue = HeatmapService.VICTIM) String role,
+                                                @RequestParam(required = false) Integer round,
+                                                @RequestParam(required = false) String side,
+                                                @RequestParam(required = false) String weapon,
+                                                @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return ResponseEntity.ok(killSpatialIndex.findInBox(map, role, minX, minY, maxX, maxY,
+                new KillSpatialIndex.Filter(round, side, weapon), limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    // GET /api/analysis/spatial/polygon?map=&points=x0,y0,x1,y1,x2,y2...
+    @GetMapping("/spatial/polygon")
+    public ResponseEntity<Object> getKillsInPolygon(@RequestParam String map,
+                                                    @RequestParam String points,
+                                                    @RequestParam(defaultValue = HeatmapService.VICTIM) String role,
+                                                    @RequestParam(required = false) Integer round,
+                                                    @RequestParam(required = false) String side,
+                                                    @RequestParam(required = false) String weapon,
+                                                    @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return ResponseEntity.ok(killSpatialIndex.findInPolygon(map, role, parsePolygon(points),
+                new KillSpatialIndex.Filter(round, side, weapon), limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    // GET /api/analysis/spatial/radius?map=&x=&y=&radius=
+    @GetMapping("/spatial/radius")
+    public ResponseEntity<Object> getKillsInRadius(@RequestParam String map,
+                                                   @RequestParam double x, @RequestParam double y,
+                                                   @RequestParam double radius,
+                                                   @RequestParam(defaultValue = HeatmapService.VICTIM) String role,
+                                                   @RequestParam(required = false) Integer round,
+                                                   @RequestParam(required = false) String side,
+                                                   @RequestParam(required = false) String weapon,
+                                                   @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return ResponseEntity.ok(killSpatialIndex.findInRadius(map, role, x, y, radius,
+                new KillSpatialIndex.Filter(round, side, weapon), limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    // GET /api/analysis/spatial/nearest?map=&x=&y=&k=
+    @GetMapping("/spatial/nearest")
+    public ResponseEntity<Object> getNearestKills(@RequestParam String map,
+                                                  @RequestParam double x, @RequestParam double y,
+                                                  @RequestParam(defaultValue = "10") int k,
+                                                  @RequestParam(defaultValue = HeatmapService.VICTIM) String role,
+                                                  @RequestParam(required = false) Integer round,
+                                                  @RequestParam(required = false) String side,
+                                                  @RequestParam(required = false) String weapon) {
+        try {
+            return ResponseEntity.ok(killSpatialIndex.findNearest(map, role, x, y, k,
+                new KillSpatialIndex.Filter(round, side, weapon)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    // "x0,y0,x1,y1,..." -> vértices del polígono; NumberFormatException es IllegalArgumentException
+    private static double[] parsePolygon(String points) {
+        String[] parts = points.split(",");
+        double[] polygon = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            polygon[i] = Double.parseDouble(parts[i].trim());
+        }
+        return polygon;
+    }
 }
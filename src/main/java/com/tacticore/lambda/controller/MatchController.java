@@ -7,15 +7,22 @@ import com.tacticore.lambda.model.MatchEntity;
 import com.tacticore.lambda.model.S3MatchUploadRequest;
 import com.tacticore.lambda.service.ChatService;
 import com.tacticore.lambda.service.DatabaseMatchService;
-import com.tacticore.lambda.service.MLServiceClient;
+import com.tacticore.lambda.service.MatchProcessingService;
+import com.tacticore.lambda.service.MlServiceGuard;
 import com.tacticore.lambda.service.S3Service;
-import com.tacticore.lambda.service.SimulationDataMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
 
 @RestController
@@ -33,10 +40,7 @@ public class MatchController {
     private ChatService chatService;
     
     @Autowired
-    private MLServiceClient mlServiceClient;
-    
-    @Autowired
-    private SimulationDataMapper simulationDataMapper;
+    private MatchProcessingService matchProcessingService;
     
     @Autowired
     private S3Service s3Service;
@@ -64,40 +68,46 @@ public class MatchController {
                 }
             }
             
-            String matchId = "match_" + System.currentTimeMillis();
+            String matchId = matchProcessingService.newMatchId();
+            String fileName = demFile.getOriginalFilename();
+            boolean async = matchProcessingService.isAsync();
             
             MatchEntity matchEntity = new MatchEntity();
             matchEntity.setMatchId(matchId);
-            matchEntity.setFileName(demFile.getOriginalFilename());
+            matchEntity.setFileName(fileName);
             matchEntity.setMapName(metadata != null ? metadata.getNotes() : "Unknown");
-            matchEntity.setStatus("processing");
+            matchEntity.setStatus(async ? "queued" : "processing");
             matchEntity.setHasVideo(videoFile != null && !videoFile.isEmpty());
             matchEntity.setTotalKills(null);
             matchEntity.setTickrate(null);
             
             saveMatch(matchEntity);
             
+            if (async) {
+                // El multipart se borra al terminar el request: copiarlo a un temporal propio del job
+                Path uploadCopy;
+                try {
+                    uploadCopy = Files.createTempFile("tacticore-upload-", ".dem");
+                    demFile.transferTo(uploadCopy);
+                } catch (Exception e) {
+                    System.err.println("Error storing upload for match: " + matchId + " - " + e.getMessage());
+                    updateMatchWithError(matchId, "Upload copy failed: " + e.getMessage());
+                    return ResponseEntity.internalServerError()
+                            .body(MatchResponse.failed(matchId, "Could not store uploaded file: " + e.getMessage()));
+                }
+                return enqueueMatch(matchId, fileName,
+                    (client, ingest) -> client.analyzeDemoFile(uploadCopy, fileName, ingest),
+                    () -> deleteTempFile(uploadCopy));
+            }
+            
             try {
-                Map<String, Object> mlResponse = mlServiceClient.analyzeDemoFile(demFile);
-                
-                SimulationDataMapper.SimulationResult result = simulationDataMapper.mapMLResponseToEntities(
-                    mlResponse, matchId, demFile.getOriginalFilename()
-                );
-                
-                databaseMatchService.updateMatchWithKills(
-                    matchId, 
-                    result.getTotalKills(), 
-                    result.getTickrate(), 
-                    result.getMapName(), 
-                    result.getKillEntities(),
-                    mlResponse
-                );
-                
+                matchProcessingService.process(matchId, fileName, (client, ingest) -> client.analyzeDemoFile(demFile, ingest));
                 return ResponseEntity.ok(MatchResponse.completed(matchId));
                 
+            } catch (MlServiceGuard.MlUnavailableException e) {
+                return mlUnavailable(matchId, e);
             } catch (Exception e) {
                 System.err.println("Error processing match: " + matchId + " - " + e.getMessage());
-                updateMatchWithError(matchId, "Processing failed: " + e.getMessage());
                 return ResponseEntity.internalServerError()
                         .body(MatchResponse.failed(matchId, "Match processing failed: " + e.getMessage()));
             }
@@ -140,52 +150,46 @@ public class MatchController {
                         .body(MatchResponse.failed("unknown", "File not found in S3: s3://" + request.getBucket() + "/" + request.getKey()));
             }
             
-            // Descargar archivo desde S3
-            byte[] fileContent = s3Service.downloadFile(request.getBucket(), request.getKey());
+            MatchMetadata metadata = request.getMetadata();
+            String matchId = matchProcessingService.newMatchId();
+            String bucket = request.getBucket();
+            String key = request.getKey();
             
-            if (fileContent == null || fileContent.length == 0) {
-                return ResponseEntity.badRequest()
-                        .body(MatchResponse.failed("unknown", "Downloaded file is empty"));
+            if (matchProcessingService.isAsync()) {
+                // La descarga desde S3 también se hace en el worker: el request solo registra el match
+                saveMatch(createS3MatchEntity(matchId, fileName, metadata, "queued"));
+                return enqueueMatch(matchId, fileName, (client, ingest) -> {
+                    try (InputStream content = openS3Stream(bucket, key)) {
+                        if (content == null) {
+                            throw new RuntimeException("Downloaded file is empty: s3://" + bucket + "/" + key);
+                        }
+                        return client.analyzeDemoStream(content, fileName, ingest);
+                    }
+                }, null);
             }
             
-            MatchMetadata metadata = request.getMetadata();
-            String matchId = "match_" + System.currentTimeMillis();
-            
-            // Crear entidad de match
-            MatchEntity matchEntity = new MatchEntity();
-            matchEntity.setMatchId(matchId);
-            matchEntity.setFileName(fileName);
-            matchEntity.setMapName(metadata != null ? metadata.getNotes() : "Unknown");
-            matchEntity.setStatus("processing");
-            matchEntity.setHasVideo(false);
-            matchEntity.setTotalKills(null);
-            matchEntity.setTickrate(null);
+            // S3 -> gzip -> multipart en streaming: el demo nunca se carga completo en memoria
+            InputStream content = openS3Stream(bucket, key);
             
-            saveMatch(matchEntity);
+            if (content == null) {
+                return ResponseEntity.badRequest()
+                        .body(MatchResponse.failed("unknown", "Downloaded file is empty"));
+            }
             
-            try {
-                // Procesar con el servicio ML usando los bytes descargados
-                Map<String, Object> mlResponse = mlServiceClient.analyzeDemoFile(fileContent, fileName);
-                
-                SimulationDataMapper.SimulationResult result = simulationDataMapper.mapMLResponseToEntities(
-                    mlResponse, matchId, fileName
-                );
+            try (content) {
+                saveMatch(createS3MatchEntity(matchId, fileName, metadata, "processing"));
                 
-                databaseMatchService.updateMatchWithKills(
-                    matchId, 
-                    result.getTotalKills(), 
-                    result.getTickrate(), 
-                    result.getMapName(), 
-                    result.getKillEntities(),
-                    mlResponse
-                );
+                // Procesar con el servicio ML leyendo directamente del stream de S3 (no se puede reintentar)
+                matchProcessingService.process(matchId, fileName,
+                    (client, ingest) -> client.analyzeDemoStream(content, fileName, ingest), false);
                 
                 System.out.println("✅ Match processed successfully: " + matchId);
                 return ResponseEntity.ok(MatchResponse.completed(matchId));
                 
+            } catch (MlServiceGuard.MlUnavailableException e) {
+                return mlUnavailable(matchId, e);
             } catch (Exception e) {
                 System.err.println("❌ Error processing match: " + matchId + " - " + e.getMessage());
-                updateMatchWithError(matchId, "Processing failed: " + e.getMessage());
                 return ResponseEntity.internalServerError()
                         .body(MatchResponse.failed(matchId, "Match processing failed: " + e.getMessage()));
             }
@@ -209,6 +213,7 @@ public class MatchController {
             String message = switch (status) {
                 case "completed" -> "Match processing completed successfully";
                 case "failed" -> "Match processing failed";
+                case "queued" -> "Match is queued for processing";
                 case "processing" -> "Match is being processed";
                 default -> "Unknown status";
             };
@@ -227,6 +232,12 @@ public class MatchController {
         return ResponseEntity.ok("Tacti-Core Backend is running!");
     }
     
+    // GET /api/ml/status - probe cacheado, estado del circuit breaker, contadores y uso del transporte
+    @GetMapping("/ml/status")
+    public ResponseEntity<Map<String, Object>> getMlStatus() {
+        return ResponseEntity.ok(matchProcessingService.getMlStatus());
+    }
+    
     private void saveMatch(MatchEntity matchEntity) {
         databaseMatchService.saveMatch(matchEntity);
         chatService.addChatMessage(
@@ -239,4 +250,62 @@ public class MatchController {
     private void updateMatchWithError(String matchId, String errorMessage) {
         databaseMatchService.updateMatchWithError(matchId, errorMessage);
     }
+    
+    private ResponseEntity<MatchResponse> enqueueMatch(String matchId, String fileName,
+                                                       MatchProcessingService.MlAnalysis analysis, Runnable cleanup) {
+        try {
+            matchProcessingService.enqueue(matchId, fileName, analysis, cleanup);
+            System.out.println("📬 Match queued for processing: " + matchId);
+            return ResponseEntity.accepted().body(MatchResponse.queued(matchId));
+        } catch (MatchProcessingService.QueueFullException e) {
+            System.err.println("⚠️ Match rejected, " + e.getMessage() + ": " + matchId);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(MatchResponse.failed(matchId, e.getMessage()));
+        }
+    }
+    
+    /**
+     * Breaker abierto o bulkhead lleno: 503 con Retry-After, el match ya quedó como "failed"
+     */
+    private ResponseEntity<MatchResponse> mlUnavailable(String matchId, MlServiceGuard.MlUnavailableException e) {
+        System.err.println("⚠️ Match rejected, " + e.getMessage() + ": " + matchId);
+        long retryAfterSeconds = Math.max(1, (e.getRetryAfterMs() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(MatchResponse.failed(matchId, e.getMessage()));
+    }
+    
+    private MatchEntity createS3MatchEntity(String matchId, String fileName, MatchMetadata metadata, String status) {
+        MatchEntity matchEntity = new MatchEntity();
+        matchEntity.setMatchId(matchId);
+        matchEntity.setFileName(fileName);
+        matchEntity.setMapName(metadata != null ? metadata.getNotes() : "Unknown");
+        matchEntity.setStatus(status);
+        matchEntity.setHasVideo(false);
+        matchEntity.setTotalKills(null);
+        matchEntity.setTickrate(null);
+        return matchEntity;
+    }
+    
+    /**
+     * Abre el archivo de S3 como stream; devuelve null (y cierra la conexión) si está vacío
+     */
+    private InputStream openS3Stream(String bucket, String key) throws IOException {
+        PushbackInputStream content = new PushbackInputStream(s3Service.downloadFileAsStream(bucket, key), 1);
+        int firstByte = content.read();
+        if (firstByte == -1) {
+            content.close();
+            return null;
+        }
+        content.unread(firstByte);
+        return content;
+    }
+    
+    private void deleteTempFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("Could not delete temp upload " + file + ": " + e.getMessage());
+        }
+    }
 }
@@ -2,6 +2,7 @@ package com.tacticore.lambda.controller;
 
 import com.tacticore.lambda.model.UserEntity;
 import com.tacticore.lambda.model.dto.UserDto;
+import com.tacticore.lambda.service.LeaderboardService;
 import com.tacticore.lambda.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -20,6 +21,9 @@ public class UserController {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private LeaderboardService leaderboardService;
+    
     // Get all users
     @GetMapping
     public ResponseEntity<List<UserDto>> getAllUsers() {
@@ -62,36 +66,73 @@ public class UserController {
         return ResponseEntity.ok(userDtos);
     }
     
-    // Get top players by average score
+    // Get top players by average score (paginado: limit hasta LeaderboardService.MAX_LIMIT)
     @GetMapping("/top/score")
-    public ResponseEntity<List<UserDto>> getTopPlayersByScore() {
-        List<UserEntity> users = userService.getTopPlayersByScore();
-        List<UserDto> userDtos = userService.convertToDtoList(users);
-        return ResponseEntity.ok(userDtos);
+    public ResponseEntity<Object> getTopPlayersByScore(@RequestParam(defaultValue = "0") int offset,
+                                                       @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return ResponseEntity.ok(userService.getTopPlayersByScore(offset, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
     
     // Get top players by kills
     @GetMapping("/top/kills")
-    public ResponseEntity<List<UserDto>> getTopPlayersByKills() {
-        List<UserEntity> users = userService.getTopPlayersByKills();
-        List<UserDto> userDtos = userService.convertToDtoList(users);
-        return ResponseEntity.ok(userDtos);
+    public ResponseEntity<Object> getTopPlayersByKills(@RequestParam(defaultValue = "0") int offset,
+                                                       @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return ResponseEntity.ok(userService.getTopPlayersByKills(offset, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
     
     // Get top players by KDR
     @GetMapping("/top/kdr")
-    public ResponseEntity<List<UserDto>> getTopPlayersByKDR() {
-        List<UserEntity> users = userService.getTopPlayersByKDR();
-        List<UserDto> userDtos = userService.convertToDtoList(users);
-        return ResponseEntity.ok(userDtos);
+    public ResponseEntity<Object> getTopPlayersByKDR(@RequestParam(defaultValue = "0") int offset,
+                                                     @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return ResponseEntity.ok(userService.getTopPlayersByKDR(offset, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
     
     // Get top players with minimum matches
     @GetMapping("/top/matches")
-    public ResponseEntity<List<UserDto>> getTopPlayersByMatches(@RequestParam(defaultValue = "5") int minMatches) {
-        List<UserEntity> users = userService.getTopPlayersByMatches(minMatches);
-        List<UserDto> userDtos = userService.convertToDtoList(users);
-        return ResponseEntity.ok(userDtos);
+    public ResponseEntity<Object> getTopPlayersByMatches(@RequestParam(defaultValue = "5") int minMatches,
+                                                         @RequestParam(defaultValue = "0") int offset,
+                                                         @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return ResponseEntity.ok(userService.getTopPlayersByMatches(minMatches, offset, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    // GET /api/users/leaderboard/{board}?limit=&offset=&cursor=&minMatches= (board: score, kills, kdr)
+    @GetMapping("/leaderboard/{board}")
+    public ResponseEntity<Object> getLeaderboard(@PathVariable String board,
+                                                 @RequestParam(defaultValue = "0") int offset,
+                                                 @RequestParam(defaultValue = "50") int limit,
+                                                 @RequestParam(required = false) String cursor,
+                                                 @RequestParam(required = false) Integer minMatches) {
+        try {
+            return ResponseEntity.ok(leaderboardService.getPage(board, offset, limit, cursor, minMatches));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    // Get user position in every leaderboard
+    @GetMapping("/{name}/rank")
+    public ResponseEntity<Map<String, Object>> getUserRank(@PathVariable String name) {
+        Map<String, Object> rank = leaderboardService.getRank(name);
+        if (rank == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(rank);
     }
     
     // Create or get user
@@ -159,6 +200,48 @@ public class UserController {
         }
     }
     
+    @Autowired
+    private com.tacticore.lambda.service.PlayerAggregateService playerAggregateService;
+    
+    // Debug endpoint: Rebuild per-player aggregates from the raw kills
+    @PostMapping("/debug/aggregates/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildAggregates() {
+        try {
+            return ResponseEntity.ok(playerAggregateService.rebuild());
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+    
+    @Autowired
+    private com.tacticore.lambda.service.PredictionAggregateService predictionAggregateService;
+    
+    // Debug endpoint: Rebuild per-player/per-match prediction aggregates from kill_predictions
+    @PostMapping("/debug/prediction-aggregates/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildPredictionAggregates() {
+        try {
+            return ResponseEntity.ok(predictionAggregateService.rebuild());
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+    
+    // Debug endpoint: Compare per-player aggregates against the raw kills
+    @GetMapping("/debug/aggregates/check")
+    public ResponseEntity<Map<String, Object>> checkAggregates() {
+        try {
+            return ResponseEntity.ok(playerAggregateService.checkConsistency());
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+    
     // Debug endpoint: Get real kills/deaths for a specific user
     @GetMapping("/debug/{userName}/real-stats")
     public ResponseEntity<Map<String, Object>> getRealUserStats(@PathVariable String userName) {
@@ -4,11 +4,22 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "kills")
+@Table(name = "kills", indexes = {
+    // Consultas por usuario (como atacante o víctima) y por usuario dentro de un match
+    @Index(name = "idx_kills_attacker", columnList = "attacker"),
+    @Index(name = "idx_kills_victim", columnList = "victim"),
+    @Index(name = "idx_kills_match_attacker", columnList = "match_id, attacker"),
+    @Index(name = "idx_kills_match_victim", columnList = "match_id, victim"),
+    // Análisis por ronda y timeline de un match (kills en orden de ronda / tiempo)
+    @Index(name = "idx_kills_round", columnList = "round_number"),
+    @Index(name = "idx_kills_match_round_time", columnList = "match_id, round_number, time_in_round")
+})
 public class KillEntity {
     
+    // Secuencia con allocationSize 50 (optimizer pooled): IDENTITY impide que Hibernate agrupe los INSERT en batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "kills_seq")
+    @SequenceGenerator(name = "kills_seq", sequenceName = "kills_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "kill_id", unique = true, nullable = false)
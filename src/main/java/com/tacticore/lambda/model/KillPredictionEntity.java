@@ -3,17 +3,36 @@ package com.tacticore.lambda.model;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
+/**
+ * Una fila por etiqueta del modelo (top_predictions / all_probabilities) o por fortaleza del atacante
+ * (attacker_strengths) de un kill; {@code kind} distingue ambos tipos
+ */
 @Entity
-@Table(name = "kill_predictions")
+@Table(name = "kill_predictions", indexes = {
+    // Filas de un kill y estadísticas globales de top predictions por etiqueta
+    @Index(name = "idx_kill_predictions_kill", columnList = "kill_id"),
+    @Index(name = "idx_kill_predictions_label_top", columnList = "label, is_top_prediction")
+})
 public class KillPredictionEntity {
     
+    public static final String LABEL = "label";
+    public static final String STRENGTH = "strength";
+    
+    // Un kill es buena jugada si alguna fortaleza del atacante supera este valor
+    public static final double GOOD_PLAY_STRENGTH = 0.5;
+    
+    // Misma estrategia que KillEntity: con IDENTITY Hibernate no agrupa los INSERT en batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "kill_predictions_seq")
+    @SequenceGenerator(name = "kill_predictions_seq", sequenceName = "kill_predictions_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "kill_id", nullable = false)
     private String killId;
     
+    @Column(name = "kind", nullable = false)
+    private String kind;
+    
     @Column(name = "label", nullable = false)
     private String label;
     
@@ -28,11 +47,17 @@ public class KillPredictionEntity {
     
     // Constructors
     public KillPredictionEntity() {
+        this.kind = LABEL;
         this.createdAt = LocalDateTime.now();
     }
     
     public KillPredictionEntity(String killId, String label, Double confidence, Boolean isTopPrediction) {
+        this(killId, LABEL, label, confidence, isTopPrediction);
+    }
+    
+    public KillPredictionEntity(String killId, String kind, String label, Double confidence, Boolean isTopPrediction) {
         this.killId = killId;
+        this.kind = kind;
         this.label = label;
         this.confidence = confidence;
         this.isTopPrediction = isTopPrediction;
@@ -46,6 +71,9 @@ public class KillPredictionEntity {
     public String getKillId() { return killId; }
     public void setKillId(String killId) { this.killId = killId; }
     
+    public String getKind() { return kind; }
+    public void setKind(String kind) { this.kind = kind; }
+    
     public String getLabel() { return label; }
     public void setLabel(String label) { this.label = label; }
     
@@ -0,0 +1,81 @@
+package com.tacticore.lambda.model;
+
+import java.util.Objects;
+
+/**
+ * Transformación de coordenadas del juego a la imagen del mapa (1024x1024):
+ * imageX = (gameX - pos_x) / scale + offsetX, imageY = (pos_y - gameY) / scale + offsetY.
+ * Los valores conocidos de cada mapa usan la esquina superior izquierda (offset 0); los que emite
+ * el servicio ML (debug_attacker.parameters) centran en pos_x/pos_y y suman 512 más x_adjust/y_adjust.
+ */
+public final class MapTransform {
+
+    public static final int IMAGE_SIZE = 1024;
+
+    private final double posX;
+    private final double posY;
+    private final double scale;
+    private final double offsetX;
+    private final double offsetY;
+
+    public MapTransform(double posX, double posY, double scale) {
+        this(posX, posY, scale, 0.0, 0.0);
+    }
+
+    public MapTransform(double posX, double posY, double scale, double offsetX, double offsetY) {
+        if (!(scale > 0)) {
+            throw new IllegalArgumentException("scale debe ser positivo: " + scale);
+        }
+        this.posX = posX;
+        this.posY = posY;
+        this.scale = scale;
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
+    }
+
+    /**
+     * Parámetros tal como los emite el ML: pos_x/pos_y es el centro de la imagen
+     */
+    public static MapTransform fromMlParameters(double posX, double posY, double scale, double xAdjust, double yAdjust) {
+        return new MapTransform(posX, posY, scale, IMAGE_SIZE / 2.0 + xAdjust, IMAGE_SIZE / 2.0 + yAdjust);
+    }
+
+    public double toImageX(double gameX) {
+        return (gameX - posX) / scale + offsetX;
+    }
+
+    public double toImageY(double gameY) {
+        return (posY - gameY) / scale + offsetY;
+    }
+
+    public double getPosX() { return posX; }
+
+    public double getPosY() { return posY; }
+
+    public double getScale() { return scale; }
+
+    public double getOffsetX() { return offsetX; }
+
+    public double getOffsetY() { return offsetY; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MapTransform)) return false;
+        MapTransform that = (MapTransform) o;
+        return Double.compare(posX, that.posX) == 0 && Double.compare(posY, that.posY) == 0
+            && Double.compare(scale, that.scale) == 0 && Double.compare(offsetX, that.offsetX) == 0
+            && Double.compare(offsetY, that.offsetY) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(posX, posY, scale, offsetX, offsetY);
+    }
+
+    @Override
+    public String toString() {
+        return "MapTransform{pos_x=" + posX + ", pos_y=" + posY + ", scale=" + scale
+            + ", offset=" + offsetX + "," + offsetY + "}";
+    }
+}
@@ -38,15 +38,26 @@ public class MatchEntity {
     @Column(name = "has_video")
     private Boolean hasVideo;
     
+    // Formato anterior (JSON pretty-printed); solo lo tienen matches aún no compactados
     @Column(name = "ml_response_json", columnDefinition = "TEXT")
     private String mlResponseJson;
     
+    // Respuesta del ML como JSON compacto + gzip (MlResponseCodec)
+    @Lob
+    @Column(name = "ml_response_gz")
+    private byte[] mlResponseGz;
+    
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Se incrementa en cada update: clave del cache de MatchDto en DatabaseMatchService
+    @Version
+    @Column(name = "version")
+    private Long version;
+    
     // Constructors
     public MatchEntity() {
         this.createdAt = LocalDateTime.now();
@@ -100,12 +111,18 @@ public class MatchEntity {
     public String getMlResponseJson() { return mlResponseJson; }
     public void setMlResponseJson(String mlResponseJson) { this.mlResponseJson = mlResponseJson; }
     
+    public byte[] getMlResponseGz() { return mlResponseGz; }
+    public void setMlResponseGz(byte[] mlResponseGz) { this.mlResponseGz = mlResponseGz; }
+    
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
     
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+    
     @PreUpdate
     public void preUpdate() {
         this.updatedAt = LocalDateTime.now();
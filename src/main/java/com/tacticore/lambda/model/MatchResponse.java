@@ -48,6 +48,10 @@ public class MatchResponse {
     }
     
     // Static factory methods
+    public static MatchResponse queued(String id) {
+        return new MatchResponse(id, "queued", "Match uploaded successfully and queued for processing");
+    }
+    
     public static MatchResponse processing(String id) {
         return new MatchResponse(id, "processing", "Match uploaded successfully and is being processed");
     }
@@ -0,0 +1,58 @@
+package com.tacticore.lambda.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Kills y deaths de un jugador en un match: el conjunto de filas de un jugador es
+ * el set de matches distintos en los que aparece (como atacante o víctima)
+ */
+@Entity
+@Table(name = "player_match_stats",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"player_name", "match_id"}),
+       indexes = @Index(name = "idx_player_match_stats_match", columnList = "match_id"))
+public class PlayerMatchStatsEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "player_name", nullable = false)
+    private String playerName;
+
+    @Column(name = "match_id", nullable = false)
+    private String matchId;
+
+    @Column(name = "kills", nullable = false)
+    private Long kills;
+
+    @Column(name = "deaths", nullable = false)
+    private Long deaths;
+
+    // Constructors
+    public PlayerMatchStatsEntity() {
+        this.kills = 0L;
+        this.deaths = 0L;
+    }
+
+    public PlayerMatchStatsEntity(String playerName, String matchId) {
+        this();
+        this.playerName = playerName;
+        this.matchId = matchId;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getPlayerName() { return playerName; }
+    public void setPlayerName(String playerName) { this.playerName = playerName; }
+
+    public String getMatchId() { return matchId; }
+    public void setMatchId(String matchId) { this.matchId = matchId; }
+
+    public Long getKills() { return kills; }
+    public void setKills(Long kills) { this.kills = kills; }
+
+    public Long getDeaths() { return deaths; }
+    public void setDeaths(Long deaths) { this.deaths = deaths; }
+}
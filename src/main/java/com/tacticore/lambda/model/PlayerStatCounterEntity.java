@@ -0,0 +1,63 @@
+package com.tacticore.lambda.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Contador de kills de un jugador por arma, lugar o lado (una fila por jugador/dimensión/valor)
+ */
+@Entity
+@Table(name = "player_stat_counters",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"player_name", "dimension", "counter_key"}))
+public class PlayerStatCounterEntity {
+
+    public static final String WEAPON = "weapon";
+    public static final String PLACE = "place";
+    public static final String SIDE = "side";
+
+    // Valor usado cuando el kill no trae place/side
+    public static final String UNKNOWN_KEY = "Unknown";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "player_name", nullable = false)
+    private String playerName;
+
+    @Column(name = "dimension", nullable = false)
+    private String dimension;
+
+    @Column(name = "counter_key", nullable = false)
+    private String counterKey;
+
+    @Column(name = "kill_count", nullable = false)
+    private Long killCount;
+
+    // Constructors
+    public PlayerStatCounterEntity() {
+        this.killCount = 0L;
+    }
+
+    public PlayerStatCounterEntity(String playerName, String dimension, String counterKey) {
+        this();
+        this.playerName = playerName;
+        this.dimension = dimension;
+        this.counterKey = counterKey;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getPlayerName() { return playerName; }
+    public void setPlayerName(String playerName) { this.playerName = playerName; }
+
+    public String getDimension() { return dimension; }
+    public void setDimension(String dimension) { this.dimension = dimension; }
+
+    public String getCounterKey() { return counterKey; }
+    public void setCounterKey(String counterKey) { this.counterKey = counterKey; }
+
+    public Long getKillCount() { return killCount; }
+    public void setKillCount(Long killCount) { this.killCount = killCount; }
+}
@@ -0,0 +1,125 @@
+package com.tacticore.lambda.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Totales pre-agregados de un jugador, mantenidos incrementalmente en la misma transacción
+ * que inserta sus kills (ver PlayerAggregateService). Distancia y tiempo en ronda se guardan
+ * como suma + muestras para poder reconstruir los promedios sin recorrer la tabla kills.
+ */
+@Entity
+@Table(name = "player_stats")
+public class PlayerStatsEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "player_name", unique = true, nullable = false)
+    private String playerName;
+
+    @Column(name = "kills", nullable = false)
+    private Long kills;
+
+    @Column(name = "deaths", nullable = false)
+    private Long deaths;
+
+    @Column(name = "headshots", nullable = false)
+    private Long headshots;
+
+    // Solo kills con distance > 0 (mismo criterio que getAverageDistanceByUser)
+    @Column(name = "distance_sum", nullable = false)
+    private Double distanceSum;
+
+    @Column(name = "distance_samples", nullable = false)
+    private Long distanceSamples;
+
+    @Column(name = "time_in_round_sum", nullable = false)
+    private Double timeInRoundSum;
+
+    @Column(name = "time_in_round_samples", nullable = false)
+    private Long timeInRoundSamples;
+
+    // Cantidad de matches distintos (filas en player_match_stats)
+    @Column(name = "matches", nullable = false)
+    private Integer matches;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public PlayerStatsEntity() {
+        this.kills = 0L;
+        this.deaths = 0L;
+        this.headshots = 0L;
+        this.distanceSum = 0.0;
+        this.distanceSamples = 0L;
+        this.timeInRoundSum = 0.0;
+        this.timeInRoundSamples = 0L;
+        this.matches = 0;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public PlayerStatsEntity(String playerName) {
+        this();
+        this.playerName = playerName;
+    }
+
+    /**
+     * Suma los contadores de otro agregado (delta de un batch de kills)
+     */
+    public void add(PlayerStatsEntity delta) {
+        this.kills += delta.kills;
+        this.deaths += delta.deaths;
+        this.headshots += delta.headshots;
+        this.distanceSum += delta.distanceSum;
+        this.distanceSamples += delta.distanceSamples;
+        this.timeInRoundSum += delta.timeInRoundSum;
+        this.timeInRoundSamples += delta.timeInRoundSamples;
+        this.matches += delta.matches;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public Double getAverageDistance() {
+        return distanceSamples > 0 ? distanceSum / distanceSamples : null;
+    }
+
+    public Double getAverageTimeInRound() {
+        return timeInRoundSamples > 0 ? timeInRoundSum / timeInRoundSamples : null;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getPlayerName() { return playerName; }
+    public void setPlayerName(String playerName) { this.playerName = playerName; }
+
+    public Long getKills() { return kills; }
+    public void setKills(Long kills) { this.kills = kills; }
+
+    public Long getDeaths() { return deaths; }
+    public void setDeaths(Long deaths) { this.deaths = deaths; }
+
+    public Long getHeadshots() { return headshots; }
+    public void setHeadshots(Long headshots) { this.headshots = headshots; }
+
+    public Double getDistanceSum() { return distanceSum; }
+    public void setDistanceSum(Double distanceSum) { this.distanceSum = distanceSum; }
+
+    public Long getDistanceSamples() { return distanceSamples; }
+    public void setDistanceSamples(Long distanceSamples) { this.distanceSamples = distanceSamples; }
+
+    public Double getTimeInRoundSum() { return timeInRoundSum; }
+    public void setTimeInRoundSum(Double timeInRoundSum) { this.timeInRoundSum = timeInRoundSum; }
+
+    public Long getTimeInRoundSamples() { return timeInRoundSamples; }
+    public void setTimeInRoundSamples(Long timeInRoundSamples) { this.timeInRoundSamples = timeInRoundSamples; }
+
+    public Integer getMatches() { return matches; }
+    public void setMatches(Integer matches) { this.matches = matches; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,92 @@
+package com.tacticore.lambda.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Distribución de las predicciones del ML por jugador (atacante) o por match: una fila por
+ * alcance/clave/dimensión/valor con la cantidad de filas y la suma de confianzas o fortalezas
+ */
+@Entity
+@Table(name = "prediction_counters",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"scope", "scope_key", "dimension", "counter_key"}))
+public class PredictionCounterEntity {
+
+    // Alcance: jugador atacante o match
+    public static final String PLAYER = "player";
+    public static final String MATCH = "match";
+
+    // Dimensiones: etiquetas de top_predictions, fortalezas del atacante y buenas/malas jugadas
+    public static final String LABEL = "label";
+    public static final String STRENGTH = "strength";
+    public static final String PLAY = "play";
+
+    public static final String GOOD_PLAY = "good";
+    public static final String BAD_PLAY = "bad";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "scope", nullable = false)
+    private String scope;
+
+    @Column(name = "scope_key", nullable = false)
+    private String scopeKey;
+
+    @Column(name = "dimension", nullable = false)
+    private String dimension;
+
+    @Column(name = "counter_key", nullable = false)
+    private String counterKey;
+
+    @Column(name = "prediction_count", nullable = false)
+    private Long count;
+
+    @Column(name = "value_sum", nullable = false)
+    private Double valueSum;
+
+    // Constructors
+    public PredictionCounterEntity() {
+        this.count = 0L;
+        this.valueSum = 0.0;
+    }
+
+    public PredictionCounterEntity(String scope, String scopeKey, String dimension, String counterKey) {
+        this();
+        this.scope = scope;
+        this.scopeKey = scopeKey;
+        this.dimension = dimension;
+        this.counterKey = counterKey;
+    }
+
+    public void add(PredictionCounterEntity increment) {
+        count += increment.count;
+        valueSum += increment.valueSum;
+    }
+
+    public double getAverage() {
+        return count > 0 ? valueSum / count : 0.0;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getScope() { return scope; }
+    public void setScope(String scope) { this.scope = scope; }
+
+    public String getScopeKey() { return scopeKey; }
+    public void setScopeKey(String scopeKey) { this.scopeKey = scopeKey; }
+
+    public String getDimension() { return dimension; }
+    public void setDimension(String dimension) { this.dimension = dimension; }
+
+    public String getCounterKey() { return counterKey; }
+    public void setCounterKey(String counterKey) { this.counterKey = counterKey; }
+
+    public Long getCount() { return count; }
+    public void setCount(Long count) { this.count = count; }
+
+    public Double getValueSum() { return valueSum; }
+    public void setValueSum(Double valueSum) { this.valueSum = valueSum; }
+}
@@ -2,6 +2,7 @@ package com.tacticore.lambda.repository;
 
 import com.tacticore.lambda.model.KillPredictionEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -9,7 +10,7 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface KillPredictionRepository extends JpaRepository<KillPredictionEntity, Long> {
+public interface KillPredictionRepository extends JpaRepository<KillPredictionEntity, Long>, KillPredictionRepositoryCustom {
     
     List<KillPredictionEntity> findByKillId(String killId);
     
@@ -31,4 +32,25 @@ public interface KillPredictionRepository extends JpaRepository<KillPredictionEn
     
     @Query("SELECT AVG(kp.confidence) FROM KillPredictionEntity kp WHERE kp.label = :label AND kp.isTopPrediction = true")
     Double getAverageConfidenceByLabel(@Param("label") String label);
+    
+    // Totales (cantidad, suma de confianza) por atacante/match y etiqueta para reconstruir prediction_counters
+    @Query("SELECT k.attacker, kp.label, COUNT(kp), SUM(kp.confidence) FROM KillPredictionEntity kp " +
+           "JOIN KillEntity k ON k.killId = kp.killId " +
+           "WHERE kp.kind = :kind AND kp.isTopPrediction = :top GROUP BY k.attacker, kp.label")
+    List<Object[]> getTotalsByAttacker(@Param("kind") String kind, @Param("top") Boolean top);
+    
+    @Query("SELECT k.matchId, kp.label, COUNT(kp), SUM(kp.confidence) FROM KillPredictionEntity kp " +
+           "JOIN KillEntity k ON k.killId = kp.killId " +
+           "WHERE kp.kind = :kind AND kp.isTopPrediction = :top GROUP BY k.matchId, kp.label")
+    List<Object[]> getTotalsByMatch(@Param("kind") String kind, @Param("top") Boolean top);
+    
+    // Una fila por kill con predicciones: atacante, match y fortaleza máxima (0 si no trae attacker_strengths)
+    @Query("SELECT k.attacker, k.matchId, MAX(CASE WHEN kp.kind = 'strength' THEN kp.confidence ELSE 0.0 END) " +
+           "FROM KillPredictionEntity kp JOIN KillEntity k ON k.killId = kp.killId " +
+           "GROUP BY k.killId, k.attacker, k.matchId")
+    List<Object[]> getMaxStrengthByKill();
+    
+    @Modifying
+    @Query("DELETE FROM KillPredictionEntity kp")
+    int deleteAllInBulk();
 }
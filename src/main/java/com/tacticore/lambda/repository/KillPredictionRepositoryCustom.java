@@ -0,0 +1,19 @@
+package com.tacticore.lambda.repository;
+
+import com.tacticore.lambda.model.KillPredictionEntity;
+
+import java.util.Collection;
+
+/**
+ * Escritura masiva de filas de predicción (implementada en KillPredictionRepositoryImpl)
+ */
+public interface KillPredictionRepositoryCustom {
+    
+    /**
+     * Inserta las filas en batches JDBC de hibernate.jdbc.batch_size filas, desvinculándolas
+     * del persistence context después de cada flush (igual que KillRepository.bulkInsert)
+     *
+     * @return cantidad de filas insertadas
+     */
+    int bulkInsert(Collection<KillPredictionEntity> predictions);
+}
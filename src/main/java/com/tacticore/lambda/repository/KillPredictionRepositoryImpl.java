@@ -0,0 +1,49 @@
+package com.tacticore.lambda.repository;
+
+import com.tacticore.lambda.model.KillPredictionEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class KillPredictionRepositoryImpl implements KillPredictionRepositoryCustom {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+    
+    @Override
+    @Transactional
+    public int bulkInsert(Collection<KillPredictionEntity> predictions) {
+        if (predictions == null || predictions.isEmpty()) {
+            return 0;
+        }
+        
+        int size = Math.max(batchSize, 1);
+        List<KillPredictionEntity> pending = new ArrayList<>(size);
+        for (KillPredictionEntity prediction : predictions) {
+            entityManager.persist(prediction);
+            pending.add(prediction);
+            if (pending.size() == size) {
+                flushBatch(pending);
+            }
+        }
+        flushBatch(pending);
+        return predictions.size();
+    }
+    
+    private void flushBatch(List<KillPredictionEntity> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+        pending.forEach(entityManager::detach);
+        pending.clear();
+    }
+}
@@ -1,16 +1,18 @@
 package com.tacticore.lambda.repository;
 
 import com.tacticore.lambda.model.KillEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface KillRepository extends JpaRepository<KillEntity, Long> {
+public interface KillRepository extends JpaRepository<KillEntity, Long>, KillRepositoryCustom {
     
     Optional<KillEntity> findByKillId(String killId);
     
@@ -70,11 +72,13 @@ public interface KillRepository extends JpaRepository<KillEntity, Long> {
     @Query("SELECT COUNT(k) FROM KillEntity k")
     Long getTotalKills();
     
-    // Consultas por usuario (attacker o victim)
-    @Query("SELECT k FROM KillEntity k WHERE k.attacker = :user OR k.victim = :user")
+    // Consultas por usuario (attacker o victim): UNION en lugar de OR para que H2 use
+    // idx_kills_attacker e idx_kills_victim (con OR entre columnas distintas hace table scan)
+    @Query("SELECT k FROM KillEntity k WHERE k.attacker = :user UNION SELECT k FROM KillEntity k WHERE k.victim = :user")
     List<KillEntity> findByUser(@Param("user") String user);
     
-    @Query("SELECT k FROM KillEntity k WHERE (k.attacker = :user OR k.victim = :user) AND k.round = :round")
+    @Query("SELECT k FROM KillEntity k WHERE k.attacker = :user AND k.round = :round " +
+           "UNION SELECT k FROM KillEntity k WHERE k.victim = :user AND k.round = :round")
     List<KillEntity> findByUserAndRound(@Param("user") String user, @Param("round") Integer round);
     
     @Query("SELECT COUNT(k) FROM KillEntity k WHERE k.attacker = :user")
@@ -121,7 +125,62 @@ public interface KillRepository extends JpaRepository<KillEntity, Long> {
     @Query("SELECT CASE WHEN COUNT(k) > 0 THEN true ELSE false END FROM KillEntity k WHERE k.matchId = :matchId AND k.attacker = :user")
     boolean existsByMatchIdAndAttackerName(@Param("matchId") String matchId, @Param("user") String user);
     
+    // Agregados por jugador recalculados desde kills (rebuild y chequeo de consistencia de player_stats)
+    @Query("SELECT k.attacker, COUNT(k), SUM(CASE WHEN k.headshot = true THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN k.distance > 0 THEN k.distance ELSE 0.0 END), SUM(CASE WHEN k.distance > 0 THEN 1 ELSE 0 END), " +
+           "SUM(k.timeInRound), COUNT(k.timeInRound) FROM KillEntity k GROUP BY k.attacker")
+    List<Object[]> getAttackerTotals();
+    
+    @Query("SELECT k.victim, COUNT(k) FROM KillEntity k GROUP BY k.victim")
+    List<Object[]> getVictimTotals();
+    
+    @Query("SELECT k.attacker, k.weapon, COUNT(k) FROM KillEntity k GROUP BY k.attacker, k.weapon")
+    List<Object[]> getWeaponCountsByAttacker();
+    
+    @Query("SELECT k.attacker, k.place, COUNT(k) FROM KillEntity k GROUP BY k.attacker, k.place")
+    List<Object[]> getPlaceCountsByAttacker();
+    
+    @Query("SELECT k.attacker, k.side, COUNT(k) FROM KillEntity k GROUP BY k.attacker, k.side")
+    List<Object[]> getSideCountsByAttacker();
+    
+    @Query("SELECT k.attacker, k.matchId, COUNT(k) FROM KillEntity k GROUP BY k.attacker, k.matchId")
+    List<Object[]> getKillsByAttackerAndMatch();
+    
+    @Query("SELECT k.victim, k.matchId, COUNT(k) FROM KillEntity k GROUP BY k.victim, k.matchId")
+    List<Object[]> getDeathsByVictimAndMatch();
+    
+    // Kills de un match en orden de juego (idx_kills_match_round_time cubre filtro y orden)
+    List<KillEntity> findByMatchIdOrderByRoundAscTimeInRoundAsc(String matchId);
+    
+    @Query("SELECT k FROM KillEntity k WHERE k.matchId = :matchId AND (k.attacker = :user OR k.victim = :user) " +
+           "ORDER BY k.round, k.timeInRound")
+    List<KillEntity> findByMatchIdAndUserOrderByRoundAndTime(@Param("matchId") String matchId, @Param("user") String user);
+    
+    // Columnas que carga ColumnarKillStore, por páginas ordenadas por id (keyset)
+    @Query("SELECT k.id, k.attacker, k.victim, k.weapon, k.place, k.side, k.round, k.headshot, k.distance, " +
+           "k.timeInRound, k.attackerX, k.attackerY, k.victimX, k.victimY FROM KillEntity k " +
+           "WHERE k.id > :afterId ORDER BY k.id")
+    List<Object[]> findColumnsAfter(@Param("afterId") Long afterId, Pageable page);
+    
+    // Columnas del heatmap (mapa del match, jugadores, arma, lado y posiciones), por páginas ordenadas por id
+    @Query("SELECT k.id, m.mapName, k.attacker, k.victim, k.weapon, k.side, k.attackerX, k.attackerY, " +
+           "k.victimX, k.victimY FROM KillEntity k JOIN MatchEntity m ON m.matchId = k.matchId " +
+           "WHERE k.id > :afterId AND m.mapName IS NOT NULL ORDER BY k.id")
+    List<Object[]> findHeatmapColumnsAfter(@Param("afterId") Long afterId, Pageable page);
+    
+    // Columnas del índice espacial (mapa del match, ronda, lado, arma y posiciones), por páginas ordenadas por id
+    @Query("SELECT k.id, m.mapName, k.round, k.side, k.weapon, k.attackerX, k.attackerY, k.victimX, k.victimY " +
+           "FROM KillEntity k JOIN MatchEntity m ON m.matchId = k.matchId " +
+           "WHERE k.id > :afterId AND m.mapName IS NOT NULL ORDER BY k.id")
+    List<Object[]> findSpatialColumnsAfter(@Param("afterId") Long afterId, Pageable page);
+    
+    // Kills devueltos por el índice espacial, sin cargar la entidad completa
+    @Query("SELECT k.id, k.killId, k.matchId, k.round, k.attacker, k.victim, k.weapon, k.side, k.headshot, " +
+           "k.attackerX, k.attackerY, k.victimX, k.victimY FROM KillEntity k WHERE k.id IN :ids")
+    List<Object[]> findSpatialResultsByIds(@Param("ids") Collection<Long> ids);
+    
     // Obtener matchIds únicos donde aparece un usuario (como atacante o víctima)
-    @Query("SELECT DISTINCT k.matchId FROM KillEntity k WHERE k.attacker = :user OR k.victim = :user ORDER BY k.matchId")
+    @Query("SELECT k.matchId FROM KillEntity k WHERE k.attacker = :user " +
+           "UNION SELECT k.matchId FROM KillEntity k WHERE k.victim = :user ORDER BY 1")
     List<String> findDistinctMatchIdsByUser(@Param("user") String user);
 }
@@ -0,0 +1,20 @@
+package com.tacticore.lambda.repository;
+
+import com.tacticore.lambda.model.KillEntity;
+
+import java.util.Collection;
+
+/**
+ * Operaciones de escritura masiva sobre kills (implementadas en KillRepositoryImpl)
+ */
+public interface KillRepositoryCustom {
+    
+    /**
+     * Inserta los kills en batches JDBC de hibernate.jdbc.batch_size filas.
+     * Después de cada flush los kills se desvinculan del persistence context para
+     * que la memoria no crezca con el tamaño del lote.
+     *
+     * @return cantidad de kills insertados
+     */
+    int bulkInsert(Collection<KillEntity> kills);
+}
@@ -0,0 +1,51 @@
+package com.tacticore.lambda.repository;
+
+import com.tacticore.lambda.model.KillEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class KillRepositoryImpl implements KillRepositoryCustom {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+    
+    @Override
+    @Transactional
+    public int bulkInsert(Collection<KillEntity> kills) {
+        if (kills == null || kills.isEmpty()) {
+            return 0;
+        }
+        
+        int size = Math.max(batchSize, 1);
+        List<KillEntity> pending = new ArrayList<>(size);
+        for (KillEntity kill : kills) {
+            entityManager.persist(kill);
+            pending.add(kill);
+            if (pending.size() == size) {
+                flushBatch(pending);
+            }
+        }
+        flushBatch(pending);
+        return kills.size();
+    }
+    
+    // Solo se desvinculan los kills del batch: el resto del persistence context
+    // (p.ej. el MatchEntity que está actualizando el llamador) sigue gestionado
+    private void flushBatch(List<KillEntity> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+        pending.forEach(entityManager::detach);
+        pending.clear();
+    }
+}
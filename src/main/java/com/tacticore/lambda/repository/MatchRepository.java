@@ -2,8 +2,14 @@ package com.tacticore.lambda.repository;
 
 import com.tacticore.lambda.model.MatchEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +18,51 @@ public interface MatchRepository extends JpaRepository<MatchEntity, Long> {
     Optional<MatchEntity> findByMatchId(String matchId);
     
     boolean existsByMatchId(String matchId);
+    
+    String SUMMARY_SELECT = "SELECT m.matchId AS matchId, m.fileName AS fileName, m.mapName AS mapName, " +
+           "m.hasVideo AS hasVideo, m.totalKills AS totalKills, m.goodPlays AS goodPlays, m.badPlays AS badPlays, " +
+           "m.status AS status, m.createdAt AS createdAt, m.version AS version, " +
+           "CASE WHEN m.mlResponseGz IS NULL AND m.mlResponseJson IS NULL THEN false ELSE true END AS hasMlResponse " +
+           "FROM MatchEntity m ";
+    
+    @Query(SUMMARY_SELECT + "ORDER BY m.id")
+    List<MatchSummaryView> findAllSummaries();
+    
+    @Query(SUMMARY_SELECT + "WHERE m.matchId = :matchId")
+    Optional<MatchSummaryView> findSummaryByMatchId(@Param("matchId") String matchId);
+    
+    // Matches anteriores al cálculo de plays en el ingest: tienen respuesta del ML pero no goodPlays/badPlays
+    @Query("SELECT m.id FROM MatchEntity m WHERE m.totalKills IS NOT NULL " +
+           "AND (m.mlResponseGz IS NOT NULL OR m.mlResponseJson IS NOT NULL) " +
+           "AND (m.goodPlays IS NULL OR m.badPlays IS NULL) ORDER BY m.id")
+    List<Long> findIdsMissingPlays();
+    
+    // Solo las columnas de la respuesta del ML (endpoint de kills)
+    @Query("SELECT m.mlResponseGz AS mlResponseGz, m.mlResponseJson AS mlResponseJson FROM MatchEntity m " +
+           "WHERE m.matchId = :matchId")
+    Optional<MlResponseView> findMlResponseByMatchId(@Param("matchId") String matchId);
+    
+    // Matches con la respuesta del ML todavía en el formato TEXT anterior
+    @Query("SELECT m.id FROM MatchEntity m WHERE m.mlResponseJson IS NOT NULL ORDER BY m.id")
+    List<Long> findIdsWithLegacyMlResponse();
+    
+    @Query("SELECT m.matchId, m.mapName FROM MatchEntity m WHERE m.matchId IN :matchIds AND m.mapName IS NOT NULL")
+    List<Object[]> findMapNamesByMatchIds(@Param("matchIds") Collection<String> matchIds);
+    
+    // matchId -> mapName de los matches que ya tienen mapa
+    default Map<String, String> getMapNamesByMatchIds(Collection<String> matchIds) {
+        Map<String, String> mapByMatch = new HashMap<>();
+        for (Object[] row : findMapNamesByMatchIds(matchIds)) {
+            mapByMatch.put((String) row[0], (String) row[1]);
+        }
+        return mapByMatch;
+    }
+    
+    // Matches donde el usuario tiene al menos un kill, con sus kills/deaths del match en una sola consulta
+    @Query("SELECT m.matchId AS matchId, m.fileName AS fileName, m.mapName AS mapName, m.hasVideo AS hasVideo, " +
+           "m.totalKills AS totalKills, m.goodPlays AS goodPlays, m.badPlays AS badPlays, m.status AS status, " +
+           "m.createdAt AS createdAt, pm.kills AS kills, pm.deaths AS deaths " +
+           "FROM MatchEntity m JOIN PlayerMatchStatsEntity pm ON pm.matchId = m.matchId " +
+           "WHERE pm.playerName = :user AND pm.kills > 0 ORDER BY m.id")
+    List<UserMatchView> findMatchesByUser(@Param("user") String user);
 }
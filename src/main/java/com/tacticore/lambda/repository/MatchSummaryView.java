@@ -0,0 +1,32 @@
+package com.tacticore.lambda.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Proyección de lectura de un match para los listados: columnas persistidas en el ingest
+ * más la versión (clave del cache de MatchDto). No carga ml_response_json.
+ */
+public interface MatchSummaryView {
+
+    String getMatchId();
+
+    String getFileName();
+
+    String getMapName();
+
+    Boolean getHasVideo();
+
+    Integer getTotalKills();
+
+    Integer getGoodPlays();
+
+    Integer getBadPlays();
+
+    String getStatus();
+
+    LocalDateTime getCreatedAt();
+
+    Long getVersion();
+
+    Boolean getHasMlResponse();
+}
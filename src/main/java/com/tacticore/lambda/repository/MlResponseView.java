@@ -0,0 +1,11 @@
+package com.tacticore.lambda.repository;
+
+/**
+ * Respuesta del ML de un match: formato comprimido o, en matches antiguos, el TEXT original
+ */
+public interface MlResponseView {
+
+    byte[] getMlResponseGz();
+
+    String getMlResponseJson();
+}
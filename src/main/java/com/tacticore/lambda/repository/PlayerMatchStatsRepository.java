@@ -0,0 +1,24 @@
+package com.tacticore.lambda.repository;
+
+import com.tacticore.lambda.model.PlayerMatchStatsEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PlayerMatchStatsRepository extends JpaRepository<PlayerMatchStatsEntity, Long> {
+    
+    List<PlayerMatchStatsEntity> findByPlayerName(String playerName);
+    
+    @Query("SELECT pm FROM PlayerMatchStatsEntity pm WHERE pm.matchId IN :matchIds")
+    List<PlayerMatchStatsEntity> findByMatchIds(@Param("matchIds") Collection<String> matchIds);
+    
+    @Modifying
+    @Query("DELETE FROM PlayerMatchStatsEntity pm")
+    int deleteAllInBulk();
+}
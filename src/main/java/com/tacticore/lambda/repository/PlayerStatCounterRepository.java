@@ -0,0 +1,25 @@
+package com.tacticore.lambda.repository;
+
+import com.tacticore.lambda.model.PlayerStatCounterEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PlayerStatCounterRepository extends JpaRepository<PlayerStatCounterEntity, Long> {
+    
+    @Query("SELECT c FROM PlayerStatCounterEntity c WHERE c.playerName = :player AND c.dimension = :dimension ORDER BY c.killCount DESC, c.counterKey")
+    List<PlayerStatCounterEntity> findByPlayerAndDimension(@Param("player") String player, @Param("dimension") String dimension);
+    
+    @Query("SELECT c FROM PlayerStatCounterEntity c WHERE c.playerName IN :names")
+    List<PlayerStatCounterEntity> findByPlayerNames(@Param("names") Collection<String> names);
+    
+    @Modifying
+    @Query("DELETE FROM PlayerStatCounterEntity c")
+    int deleteAllInBulk();
+}
@@ -0,0 +1,29 @@
+package com.tacticore.lambda.repository;
+
+import com.tacticore.lambda.model.PlayerStatsEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PlayerStatsRepository extends JpaRepository<PlayerStatsEntity, Long> {
+    
+    Optional<PlayerStatsEntity> findByPlayerName(String playerName);
+    
+    @Query("SELECT p FROM PlayerStatsEntity p WHERE p.playerName IN :names")
+    List<PlayerStatsEntity> findByPlayerNames(@Param("names") Collection<String> names);
+    
+    // KDR promedio entre los jugadores con kills y muertes
+    @Query("SELECT AVG(p.kills * 1.0 / p.deaths) FROM PlayerStatsEntity p WHERE p.kills > 0 AND p.deaths > 0")
+    Double findAverageKdr();
+    
+    @Modifying
+    @Query("DELETE FROM PlayerStatsEntity p")
+    int deleteAllInBulk();
+}
@@ -0,0 +1,26 @@
+package com.tacticore.lambda.repository;
+
+import com.tacticore.lambda.model.PredictionCounterEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PredictionCounterRepository extends JpaRepository<PredictionCounterEntity, Long> {
+
+    @Query("SELECT c FROM PredictionCounterEntity c WHERE c.scope = :scope AND c.scopeKey = :key AND c.dimension = :dimension ORDER BY c.count DESC, c.counterKey")
+    List<PredictionCounterEntity> findByScopeKeyAndDimension(@Param("scope") String scope, @Param("key") String key,
+                                                             @Param("dimension") String dimension);
+
+    @Query("SELECT c FROM PredictionCounterEntity c WHERE c.scope = :scope AND c.scopeKey IN :keys")
+    List<PredictionCounterEntity> findByScopeKeys(@Param("scope") String scope, @Param("keys") Collection<String> keys);
+
+    @Modifying
+    @Query("DELETE FROM PredictionCounterEntity c")
+    int deleteAllInBulk();
+}
@@ -0,0 +1,32 @@
+package com.tacticore.lambda.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Proyección de un match con los kills/deaths de un usuario (join matches + player_match_stats).
+ * No carga ml_response_json.
+ */
+public interface UserMatchView {
+
+    String getMatchId();
+
+    String getFileName();
+
+    String getMapName();
+
+    Boolean getHasVideo();
+
+    Integer getTotalKills();
+
+    Integer getGoodPlays();
+
+    Integer getBadPlays();
+
+    String getStatus();
+
+    LocalDateTime getCreatedAt();
+
+    Long getKills();
+
+    Long getDeaths();
+}
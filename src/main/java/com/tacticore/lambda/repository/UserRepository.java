@@ -1,6 +1,7 @@
 package com.tacticore.lambda.repository;
 
 import com.tacticore.lambda.model.UserEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -18,15 +19,6 @@ public interface UserRepository extends JpaRepository<UserEntity, Long> {
     
     List<UserEntity> findByRole(String role);
     
-    @Query("SELECT u FROM UserEntity u ORDER BY u.averageScore DESC")
-    List<UserEntity> findAllOrderByAverageScoreDesc();
-    
-    @Query("SELECT u FROM UserEntity u ORDER BY u.totalKills DESC")
-    List<UserEntity> findAllOrderByTotalKillsDesc();
-    
-    @Query("SELECT u FROM UserEntity u WHERE u.totalKills > 0 ORDER BY (u.totalKills * 1.0 / NULLIF(u.totalDeaths, 0)) DESC")
-    List<UserEntity> findAllOrderByKDRDesc();
-    
     @Query("SELECT u FROM UserEntity u WHERE u.name LIKE %:name%")
     List<UserEntity> findByNameContaining(@Param("name") String name);
     
@@ -48,8 +40,10 @@ public interface UserRepository extends JpaRepository<UserEntity, Long> {
     @Query("SELECT u.role, COUNT(u) FROM UserEntity u GROUP BY u.role ORDER BY COUNT(u) DESC")
     List<Object[]> getUsersCountByRole();
     
-    @Query("SELECT u FROM UserEntity u WHERE u.totalMatches >= :minMatches ORDER BY u.averageScore DESC")
-    List<UserEntity> findTopPlayersByMatches(@Param("minMatches") Integer minMatches);
+    // Columnas de los rankings (LeaderboardService), por páginas ordenadas por id
+    @Query("SELECT u.id, u.name, u.role, u.averageScore, u.totalKills, u.totalDeaths, u.totalMatches "
+         + "FROM UserEntity u WHERE u.id > :afterId ORDER BY u.id")
+    List<Object[]> findLeaderboardColumnsAfter(@Param("afterId") Long afterId, Pageable pageable);
     
     @Query("SELECT u FROM UserEntity u WHERE u.name IN :names")
     List<UserEntity> findByNames(@Param("names") List<String> names);
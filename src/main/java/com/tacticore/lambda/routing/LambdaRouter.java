@@ -0,0 +1,246 @@
+package com.tacticore.lambda.routing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Router basado en un trie de segmentos de path.
+ * Las rutas se registran una sola vez (al inicializar la clase) con templates como
+ * {@code /api/users/{name}/profile} o {@code /api/analysis/round/{round:int}}; en cada
+ * request solo se parte el path en segmentos y se recorre el trie, sin compilar regex.
+ *
+ * Los segmentos literales tienen prioridad sobre las variables; si una rama literal no
+ * termina en una ruta para el método pedido se prueba la rama variable (backtracking).
+ *
+ * @param <H> tipo del handler asociado a cada ruta
+ */
+public class LambdaRouter<H> {
+
+    private static final String MAX_INT_DIGITS = Integer.toString(Integer.MAX_VALUE);
+
+    private final Node<H> root = new Node<>();
+    private final List<Route<H>> routes = new ArrayList<>();
+
+    /**
+     * Registra una ruta. Los métodos se normalizan a mayúsculas y HEAD se resuelve como GET.
+     */
+    public LambdaRouter<H> register(String method, String template, H handler) {
+        String normalizedMethod = normalizeMethod(method);
+        String[] segments = splitPath(template);
+        List<String> variableNames = new ArrayList<>();
+
+        Node<H> node = root;
+        for (String segment : segments) {
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                String variable = segment.substring(1, segment.length() - 1);
+                boolean numeric = false;
+                int colon = variable.indexOf(':');
+                if (colon >= 0) {
+                    String type = variable.substring(colon + 1);
+                    if (!"int".equals(type)) {
+                        throw new IllegalArgumentException("Unsupported path variable type '" + type + "' in " + template);
+                    }
+                    numeric = true;
+                    variable = variable.substring(0, colon);
+                }
+                Node<H> child = numeric ? node.numericChild : node.variableChild;
+                if (child == null) {
+                    child = new Node<>();
+                    if (numeric) {
+                        node.numericChild = child;
+                    } else {
+                        node.variableChild = child;
+                    }
+                }
+                variableNames.add(variable);
+                node = child;
+            } else {
+                node = node.literalChildren.computeIfAbsent(segment, key -> new Node<>());
+            }
+        }
+
+        if (node.routes.containsKey(normalizedMethod)) {
+            throw new IllegalStateException("Duplicate route: " + normalizedMethod + " " + template);
+        }
+        Route<H> route = new Route<>(normalizedMethod, template, variableNames.toArray(new String[0]), handler);
+        node.routes.put(normalizedMethod, route);
+        routes.add(route);
+        return this;
+    }
+
+    /**
+     * Busca la ruta para el método y path dados.
+     *
+     * @return la ruta con sus variables ya extraídas, o null si no hay coincidencia
+     */
+    public RouteMatch<H> match(String method, String path) {
+        if (method == null || path == null) {
+            return null;
+        }
+        String[] segments = splitPath(path);
+        String[] values = new String[segments.length];
+        Route<H> route = find(root, normalizeMethod(method), segments, 0, values, 0);
+        if (route == null) {
+            return null;
+        }
+        return new RouteMatch<>(route, Arrays.copyOf(values, route.variableNames.length));
+    }
+
+    /**
+     * Rutas registradas, en orden de registro.
+     */
+    public List<Route<H>> getRoutes() {
+        return Collections.unmodifiableList(routes);
+    }
+
+    private Route<H> find(Node<H> node, String method, String[] segments, int index,
+                          String[] values, int valueCount) {
+        if (index == segments.length) {
+            return node.routes.get(method);
+        }
+        String segment = segments[index];
+
+        Node<H> literal = node.literalChildren.get(segment);
+        if (literal != null) {
+            Route<H> found = find(literal, method, segments, index + 1, values, valueCount);
+            if (found != null) {
+                return found;
+            }
+        }
+        if (node.numericChild != null && isNumeric(segment)) {
+            values[valueCount] = segment;
+            Route<H> found = find(node.numericChild, method, segments, index + 1, values, valueCount + 1);
+            if (found != null) {
+                return found;
+            }
+        }
+        if (node.variableChild != null) {
+            values[valueCount] = segment;
+            return find(node.variableChild, method, segments, index + 1, values, valueCount + 1);
+        }
+        return null;
+    }
+
+    /**
+     * Segmento válido para {@code {name:int}}: uno o más dígitos que entran en un int
+     * (un segmento vacío o un valor que desborda no coincide, en lugar de fallar al convertirlo)
+     */
+    private static boolean isNumeric(String segment) {
+        int length = segment.length();
+        if (length == 0 || length > MAX_INT_DIGITS.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = segment.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return length < MAX_INT_DIGITS.length() || segment.compareTo(MAX_INT_DIGITS) <= 0;
+    }
+
+    private static String normalizeMethod(String method) {
+        String upper = method.toUpperCase(Locale.ROOT);
+        return "HEAD".equals(upper) ? "GET" : upper;
+    }
+
+    /**
+     * Parte el path en segmentos ignorando la barra inicial y una barra final.
+     * Un segmento vacío intermedio ("//") se conserva para que no coincida con ninguna ruta.
+     */
+    static String[] splitPath(String path) {
+        int start = path.startsWith("/") ? 1 : 0;
+        int end = path.length();
+        if (end > start && path.charAt(end - 1) == '/') {
+            end--;
+        }
+        if (end <= start) {
+            return new String[0];
+        }
+
+        int count = 1;
+        for (int i = start; i < end; i++) {
+            if (path.charAt(i) == '/') {
+                count++;
+            }
+        }
+        String[] segments = new String[count];
+        int segmentStart = start;
+        int n = 0;
+        for (int i = start; i < end; i++) {
+            if (path.charAt(i) == '/') {
+                segments[n++] = path.substring(segmentStart, i);
+                segmentStart = i + 1;
+            }
+        }
+        segments[n] = path.substring(segmentStart, end);
+        return segments;
+    }
+
+    private static final class Node<H> {
+        private final Map<String, Node<H>> literalChildren = new HashMap<>();
+        private final Map<String, Route<H>> routes = new HashMap<>(4);
+        private Node<H> numericChild;
+        private Node<H> variableChild;
+    }
+
+    /**
+     * Ruta registrada: método, template original, nombres de variables y handler.
+     */
+    public static final class Route<H> {
+        private final String method;
+        private final String template;
+        private final String[] variableNames;
+        private final H handler;
+
+        private Route(String method, String template, String[] variableNames, H handler) {
+            this.method = method;
+            this.template = template;
+            this.variableNames = variableNames;
+            this.handler = handler;
+        }
+
+        public String getMethod() { return method; }
+        public String getTemplate() { return template; }
+        public H getHandler() { return handler; }
+
+        public List<String> getVariableNames() {
+            return List.of(variableNames);
+        }
+    }
+
+    /**
+     * Resultado de un match: handler más los valores de las variables del path.
+     */
+    public static final class RouteMatch<H> {
+        private final Route<H> route;
+        private final String[] values;
+
+        private RouteMatch(Route<H> route, String[] values) {
+            this.route = route;
+            this.values = values;
+        }
+
+        public H getHandler() { return route.handler; }
+        public String getTemplate() { return route.template; }
+
+        public String getPathVariable(String name) {
+            String[] names = route.variableNames;
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(name)) {
+                    return values[i];
+                }
+            }
+            throw new IllegalArgumentException("Unknown path variable '" + name + "' for route " + route.template);
+        }
+
+        public int getIntPathVariable(String name) {
+            return Integer.parseInt(getPathVariable(name));
+        }
+    }
+}
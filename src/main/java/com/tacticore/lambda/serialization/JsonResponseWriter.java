@@ -0,0 +1,130 @@
+package com.tacticore.lambda.serialization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Serialización JSON compartida para el path de Lambda.
+ * Un único ObjectMapper configurado una vez (JavaTimeModule, fechas ISO), con
+ * ObjectWriter/ObjectReader cacheados por tipo y un buffer de bytes reutilizable por thread,
+ * de modo que cada invocación no vuelve a registrar módulos ni a construir serializers.
+ */
+public final class JsonResponseWriter {
+
+    /** Buffers más grandes que esto se descartan después de usarlos para no retener memoria. */
+    private static final int MAX_RETAINED_BUFFER = 1024 * 1024;
+    private static final int INITIAL_BUFFER = 8 * 1024;
+
+    private static final JsonResponseWriter SHARED = new JsonResponseWriter(createMapper());
+
+    private final ObjectMapper mapper;
+    private final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final ThreadLocal<ReusableByteBuffer> buffers = ThreadLocal.withInitial(ReusableByteBuffer::new);
+
+    public JsonResponseWriter(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * Instancia compartida usada por SpringBootLambdaHandler
+     */
+    public static JsonResponseWriter shared() {
+        return SHARED;
+    }
+
+    /**
+     * Mapper con la misma configuración que usaba el handler por invocación
+     */
+    public static ObjectMapper createMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return mapper;
+    }
+
+    public ObjectMapper getMapper() {
+        return mapper;
+    }
+
+    /**
+     * Serializa el valor como UTF-8 en el buffer del thread actual y devuelve el body.
+     * Los Strings se devuelven tal cual (las rutas que ya producen JSON no se re-serializan).
+     */
+    public String writeAsString(Object value) throws IOException {
+        if (value instanceof String) {
+            return (String) value;
+        }
+        ReusableByteBuffer buffer = buffers.get();
+        try {
+            writeTo(value, buffer);
+            return buffer.toUtf8String();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Serializa el valor como bytes UTF-8 directamente en el stream dado
+     */
+    public void writeTo(Object value, OutputStream out) throws IOException {
+        if (value == null) {
+            mapper.writeValue(out, null);
+            return;
+        }
+        writerFor(value.getClass()).writeValue(out, value);
+    }
+
+    /**
+     * Deserializa un body de request con un ObjectReader cacheado por tipo
+     */
+    public <T> T read(String json, Class<T> type) throws IOException {
+        return readers.computeIfAbsent(type, mapper::readerFor).readValue(json);
+    }
+
+    /**
+     * Crea de antemano los writers y serializers de los tipos indicados (útil durante el init de la Lambda)
+     */
+    public void warmUp(Class<?>... types) {
+        for (Class<?> type : types) {
+            writerFor(type);
+            // canSerialize construye y cachea el serializer en el SerializerCache del mapper
+            mapper.canSerialize(type);
+        }
+    }
+
+    ObjectWriter writerFor(Class<?> type) {
+        return writers.computeIfAbsent(type, mapper::writerFor);
+    }
+
+    /**
+     * ByteArrayOutputStream que expone su array interno para decodificar sin copia intermedia
+     */
+    private static final class ReusableByteBuffer extends ByteArrayOutputStream {
+
+        ReusableByteBuffer() {
+            super(INITIAL_BUFFER);
+        }
+
+        String toUtf8String() {
+            return new String(buf, 0, count, StandardCharsets.UTF_8);
+        }
+
+        void release() {
+            reset();
+            if (buf.length > MAX_RETAINED_BUFFER) {
+                buf = new byte[INITIAL_BUFFER];
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.tacticore.lambda.serialization;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.tacticore.lambda.model.KillEntity;
+import com.tacticore.lambda.model.MapTransform;
+import com.tacticore.lambda.service.MapTransformRegistry;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Respuesta de /api/matches/{id}/kills armada desde la tabla kills: recibe los kills de un match
+ * ya ordenados por ronda y tiempo y los escribe directo en el JsonGenerator, sin un Map por kill.
+ * Los jugadores vivos por equipo se descuentan en el mismo recorrido (5 vs 5 al empezar cada ronda).
+ */
+public class MatchKillsJson implements JsonSerializable {
+
+    private static final int TEAM_SIZE = 5;
+
+    private final String matchId;
+    private final String filteredBy;
+    private final MapTransform transform;
+    private final List<KillEntity> kills;
+
+    /**
+     * Con los valores conocidos del mapa (MapTransformRegistry.knownFor)
+     */
+    public MatchKillsJson(String matchId, String filteredBy, String mapName, List<KillEntity> kills) {
+        this(matchId, filteredBy, kills, MapTransformRegistry.knownFor(mapName));
+    }
+
+    /**
+     * @param kills     kills del match ordenados por ronda y tiempo dentro de la ronda
+     * @param transform transformación juego -> imagen del mapa del match
+     */
+    public MatchKillsJson(String matchId, String filteredBy, List<KillEntity> kills, MapTransform transform) {
+        this.matchId = matchId;
+        this.filteredBy = filteredBy;
+        this.transform = transform;
+        this.kills = kills;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeStartObject();
+        gen.writeArrayFieldStart("kills");
+        Integer currentRound = null;
+        int ctAlive = TEAM_SIZE;
+        int tAlive = TEAM_SIZE;
+        for (KillEntity kill : kills) {
+            if (!kill.getRound().equals(currentRound)) {
+                currentRound = kill.getRound();
+                ctAlive = TEAM_SIZE;
+                tAlive = TEAM_SIZE;
+            }
+            if ("ct".equals(kill.getSide())) {
+                ctAlive = Math.max(0, ctAlive - 1);
+            } else if ("t".equals(kill.getSide())) {
+                tAlive = Math.max(0, tAlive - 1);
+            }
+            writeKill(gen, kill, ctAlive, tAlive);
+        }
+        gen.writeEndArray();
+        gen.writeStringField("matchId", matchId);
+        if (filteredBy != null) {
+            gen.writeStringField("filteredBy", filteredBy);
+        }
+        gen.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer) throws IOException {
+        serialize(gen, serializers);
+    }
+
+    private void writeKill(JsonGenerator gen, KillEntity kill, int ctAlive, int tAlive) throws IOException {
+        gen.writeStartObject();
+        gen.writeNumberField("id", kill.getKillId().hashCode());
+        gen.writeStringField("killer", kill.getAttacker());
+        gen.writeStringField("victim", kill.getVictim());
+        gen.writeStringField("weapon", kill.getWeapon());
+        gen.writeBooleanField("isGoodPlay", Boolean.TRUE.equals(kill.getHeadshot())
+            || (kill.getDistance() != null && kill.getDistance() > 500));
+        gen.writeNumberField("round", kill.getRound());
+        gen.writeStringField("time", String.format("%.1fs", kill.getTimeInRound() != null ? kill.getTimeInRound() : 0.0));
+        gen.writeObjectFieldStart("teamAlive");
+        gen.writeNumberField("ct", ctAlive);
+        gen.writeNumberField("t", tAlive);
+        gen.writeEndObject();
+        gen.writeStringField("position", kill.getPlace());
+        gen.writeStringField("attackerSide", kill.getSide());
+
+        // Posición en el juego y en la imagen del mapa (1024x1024)
+        if (kill.getAttackerX() != null && kill.getAttackerY() != null) {
+            writePosition(gen, "attackerPosition", kill.getAttackerX(), kill.getAttackerY(), kill.getAttackerZ());
+            writeImagePosition(gen, "attackerImagePosition", kill.getAttackerX(), kill.getAttackerY());
+        }
+        if (kill.getVictimX() != null && kill.getVictimY() != null) {
+            writePosition(gen, "victimPosition", kill.getVictimX(), kill.getVictimY(), kill.getVictimZ());
+            writeImagePosition(gen, "victimImagePosition", kill.getVictimX(), kill.getVictimY());
+        }
+        gen.writeEndObject();
+    }
+
+    private static void writePosition(JsonGenerator gen, String field, double x, double y, Double z) throws IOException {
+        gen.writeObjectFieldStart(field);
+        gen.writeNumberField("x", x);
+        gen.writeNumberField("y", y);
+        gen.writeNumberField("z", z != null ? z : 0.0);
+        gen.writeEndObject();
+    }
+
+    // Coordenada en la imagen del mapa, limitada a los bordes
+    private void writeImagePosition(JsonGenerator gen, String field, double gameX, double gameY) throws IOException {
+        int imageX = (int) transform.toImageX(gameX);
+        int imageY = (int) transform.toImageY(gameY);
+        gen.writeObjectFieldStart(field);
+        gen.writeNumberField("x", Math.max(0, Math.min(MapTransform.IMAGE_SIZE, imageX)));
+        gen.writeNumberField("y", Math.max(0, Math.min(MapTransform.IMAGE_SIZE, imageY)));
+        gen.writeEndObject();
+    }
+}
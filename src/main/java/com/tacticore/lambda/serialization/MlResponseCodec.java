@@ -0,0 +1,260 @@
+package com.tacticore.lambda.serialization;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Formato de almacenamiento de la respuesta del ML por match: JSON compacto (sin pretty print)
+ * comprimido con gzip. Opcionalmente descarta los campos debug_* de cada predicción.
+ * La lectura filtrada por usuario recorre el JSON en streaming y solo copia las predicciones
+ * del usuario, sin construir Maps para el resto.
+ */
+@Component
+public class MlResponseCodec {
+
+    private static final String DEBUG_PREFIX = "debug_";
+    private static final int GZIP_BUFFER = 8 * 1024;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${ml.response.strip-debug-fields:false}")
+    private boolean stripDebugFields;
+
+    public MlResponseCodec() {
+    }
+
+    public MlResponseCodec(ObjectMapper objectMapper, boolean stripDebugFields) {
+        this.objectMapper = objectMapper;
+        this.stripDebugFields = stripDebugFields;
+    }
+
+    /**
+     * Serializa y comprime la respuesta del ML (no modifica el Map recibido)
+     */
+    public byte[] encode(Map<String, Object> mlResponse) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(GZIP_BUFFER);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes, GZIP_BUFFER);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(gzip)) {
+            if (stripDebugFields) {
+                writeWithoutDebugFields(generator, mlResponse);
+            } else {
+                objectMapper.writeValue(generator, mlResponse);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error comprimiendo la respuesta del ML", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Comprime lo que {@code body} escriba en el generator (JSON compacto, mismo formato que encode).
+     * Lo usa la ingesta en streaming para guardar la respuesta mientras la parsea.
+     */
+    public byte[] encode(GeneratorBody body) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(GZIP_BUFFER);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes, GZIP_BUFFER);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(gzip)) {
+            body.write(generator);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error procesando la respuesta del ML: " + e.getMessage(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public boolean isStripDebugFields() {
+        return stripDebugFields;
+    }
+
+    /**
+     * JSON completo tal cual se guardó, sin parsearlo (para devolverlo como RawValue)
+     */
+    public String decodeToJson(byte[] compressed) {
+        try (InputStream in = open(compressed)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error descomprimiendo la respuesta del ML", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> decode(byte[] compressed) {
+        try (InputStream in = open(compressed)) {
+            return objectMapper.readValue(in, Map.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error leyendo la respuesta del ML", e);
+        }
+    }
+
+    /**
+     * Respuesta comprimida filtrada a las predicciones donde el usuario es atacante o víctima
+     * (context.attacker_name / context.victim_name); total_kills pasa a ser la cantidad filtrada
+     */
+    public String filterByUser(byte[] compressed, String user) {
+        try (InputStream in = open(compressed);
+             JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            return filterByUser(parser, user);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error filtrando la respuesta del ML", e);
+        }
+    }
+
+    /**
+     * Mismo filtro sobre el formato anterior (TEXT con JSON pretty-printed)
+     */
+    public String filterByUser(String json, String user) {
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            return filterByUser(parser, user);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error filtrando la respuesta del ML", e);
+        }
+    }
+
+    private String filterByUser(JsonParser parser, String user) throws IOException {
+        JsonFactory factory = objectMapper.getFactory();
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = factory.createGenerator(out)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("La respuesta del ML no es un objeto JSON");
+            }
+            generator.writeStartObject();
+            TokenBuffer totalKills = null;
+            int kept = -1;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("predictions".equals(field) && value == JsonToken.START_ARRAY) {
+                    kept = 0;
+                    generator.writeFieldName(field);
+                    generator.writeStartArray();
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        TokenBuffer prediction = new TokenBuffer(parser);
+                        prediction.copyCurrentStructure(parser);
+                        if (involvesUser(prediction, user)) {
+                            prediction.serialize(generator);
+                            kept++;
+                        }
+                    }
+                    generator.writeEndArray();
+                } else if ("total_kills".equals(field)) {
+                    totalKills = new TokenBuffer(parser);
+                    totalKills.copyCurrentStructure(parser);
+                } else {
+                    generator.writeFieldName(field);
+                    generator.copyCurrentStructure(parser);
+                }
+            }
+
+            if (kept >= 0) {
+                generator.writeNumberField("total_kills", kept);
+            } else if (totalKills != null) {
+                generator.writeFieldName("total_kills");
+                totalKills.serialize(generator);
+            }
+            generator.writeEndObject();
+        }
+        return out.toString();
+    }
+
+    private static boolean involvesUser(TokenBuffer prediction, String user) throws IOException {
+        try (JsonParser parser = prediction.asParser()) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (!"context".equals(field) || value != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                String attacker = null;
+                String victim = null;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String contextField = parser.currentName();
+                    JsonToken contextValue = parser.nextToken();
+                    if (contextValue.isScalarValue() && contextValue != JsonToken.VALUE_NULL) {
+                        if ("attacker_name".equals(contextField)) {
+                            attacker = parser.getText();
+                        } else if ("victim_name".equals(contextField)) {
+                            victim = parser.getText();
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                return user.equalsIgnoreCase(String.valueOf(attacker)) || user.equalsIgnoreCase(String.valueOf(victim));
+            }
+            return false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeWithoutDebugFields(JsonGenerator generator, Map<String, Object> mlResponse) throws IOException {
+        generator.writeStartObject();
+        for (Map.Entry<String, Object> entry : mlResponse.entrySet()) {
+            generator.writeFieldName(entry.getKey());
+            if ("predictions".equals(entry.getKey()) && entry.getValue() instanceof List) {
+                generator.writeStartArray();
+                for (Object prediction : (List<Object>) entry.getValue()) {
+                    if (prediction instanceof Map) {
+                        writeMapWithoutDebugFields(generator, (Map<String, Object>) prediction, true);
+                    } else {
+                        objectMapper.writeValue(generator, prediction);
+                    }
+                }
+                generator.writeEndArray();
+            } else {
+                objectMapper.writeValue(generator, entry.getValue());
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    // Predicción sin debug_*; el context también se limpia (un nivel)
+    @SuppressWarnings("unchecked")
+    private void writeMapWithoutDebugFields(JsonGenerator generator, Map<String, Object> map, boolean nested) throws IOException {
+        generator.writeStartObject();
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            if (entry.getKey().startsWith(DEBUG_PREFIX)) {
+                continue;
+            }
+            generator.writeFieldName(entry.getKey());
+            if (nested && entry.getValue() instanceof Map) {
+                writeMapWithoutDebugFields(generator, (Map<String, Object>) entry.getValue(), false);
+            } else {
+                objectMapper.writeValue(generator, entry.getValue());
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    @FunctionalInterface
+    public interface GeneratorBody {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    private static InputStream open(byte[] compressed) throws IOException {
+        return new GZIPInputStream(new ByteArrayInputStream(compressed), GZIP_BUFFER);
+    }
+}
@@ -0,0 +1,439 @@
+package com.tacticore.lambda.serialization;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tacticore.lambda.model.KillEntity;
+import com.tacticore.lambda.model.KillPredictionEntity;
+import com.tacticore.lambda.model.MapTransform;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lectura en streaming de la respuesta del servicio ML: recorre "predictions" token a token y arma cada
+ * KillEntity (y sus filas KillPredictionEntity) directo desde el JsonParser, sin Map ni JsonNode intermedios.
+ * Cada kill se entrega al sink apenas se termina de leer, así la memoria no depende de la cantidad de kills.
+ *
+ * readAndEncode además copia los tokens a un generator de MlResponseCodec para guardar la respuesta
+ * comprimida en el mismo recorrido (mismo formato que MlResponseCodec.encode, con o sin debug_*).
+ */
+@Component
+public class MlResponseStreamReader {
+
+    private static final String DEBUG_PREFIX = "debug_";
+    private static final String DEBUG_ATTACKER = "debug_attacker";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MlResponseCodec mlResponseCodec;
+
+    public MlResponseStreamReader() {
+    }
+
+    public MlResponseStreamReader(ObjectMapper objectMapper, MlResponseCodec mlResponseCodec) {
+        this.objectMapper = objectMapper;
+        this.mlResponseCodec = mlResponseCodec;
+    }
+
+    /**
+     * Lee la respuesta y entrega cada kill al sink. Con matchId, el killId queda "matchId_killId"
+     * y el kill se asigna al match; con null se usan los datos tal cual vienen.
+     */
+    public Summary read(InputStream in, String matchId, PredictionSink sink) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            return parse(parser, matchId, sink, null, false);
+        }
+    }
+
+    /**
+     * Igual que read, guardando además la respuesta comprimida (Summary.getCompressedResponse)
+     */
+    public Summary readAndEncode(InputStream in, String matchId, PredictionSink sink) throws IOException {
+        Summary[] summary = new Summary[1];
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            byte[] compressed = mlResponseCodec.encode(generator ->
+                summary[0] = parse(parser, matchId, sink, generator, mlResponseCodec.isStripDebugFields()));
+            summary[0].compressedResponse = compressed;
+        }
+        return summary[0];
+    }
+
+    private Summary parse(JsonParser parser, String matchId, PredictionSink sink, JsonGenerator tee,
+                          boolean stripDebug) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "La respuesta del ML no es un objeto JSON");
+        }
+        Summary summary = new Summary();
+        startObject(tee);
+        String field;
+        while ((field = nextField(parser, tee, false)) != null) {
+            if ("predictions".equals(field) && parser.currentToken() == JsonToken.START_ARRAY) {
+                startArray(tee);
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (parser.currentToken() == JsonToken.START_OBJECT) {
+                        readPrediction(parser, matchId, sink, tee, stripDebug, summary);
+                    } else {
+                        copyOrSkip(parser, tee);
+                    }
+                }
+                endArray(tee);
+                continue;
+            }
+            switch (field) {
+                case "status" -> summary.status = textValue(parser);
+                case "total_kills" -> summary.totalKills = intValue(parser);
+                case "map" -> summary.mapName = textValue(parser);
+                case "tickrate" -> summary.tickrate = intValue(parser);
+                default -> { }
+            }
+            copyOrSkip(parser, tee);
+        }
+        return summary;
+    }
+
+    private void readPrediction(JsonParser parser, String matchId, PredictionSink sink, JsonGenerator tee,
+                                boolean stripDebug, Summary summary) throws IOException {
+        KillEntity kill = new KillEntity();
+        List<KillPredictionEntity> predictions = new ArrayList<>();
+        String originalKillId = null;
+        boolean goodPlay = false;
+
+        startObject(tee);
+        String field;
+        while ((field = nextField(parser, tee, stripDebug)) != null) {
+            if (parser.currentToken() == JsonToken.START_OBJECT) {
+                switch (field) {
+                    case "context" -> readContext(parser, kill, tee, stripDebug, summary);
+                    case "prediction" -> readLabels(parser, predictions, tee, stripDebug);
+                    case "attacker_strengths" -> goodPlay = readStrengths(parser, predictions, tee, stripDebug);
+                    default -> copyObject(parser, tee, stripDebug);
+                }
+                continue;
+            }
+            switch (field) {
+                case "kill_id" -> originalKillId = textValue(parser);
+                case "attacker" -> kill.setAttacker(textValue(parser));
+                case "victim" -> kill.setVictim(textValue(parser));
+                case "place" -> kill.setPlace(textValue(parser));
+                case "round" -> kill.setRound(intValue(parser));
+                case "weapon" -> kill.setWeapon(textValue(parser));
+                case "headshot" -> kill.setHeadshot(booleanValue(parser));
+                case "distance" -> kill.setDistance(doubleValue(parser));
+                case "time_in_round" -> kill.setTimeInRound(doubleValue(parser));
+                default -> { }
+            }
+            copyOrSkip(parser, tee);
+        }
+
+        String killId = matchId != null ? matchId + "_" + originalKillId : originalKillId;
+        kill.setKillId(killId);
+        if (matchId != null) {
+            kill.setMatchId(matchId);
+        }
+        for (KillPredictionEntity prediction : predictions) {
+            prediction.setKillId(killId);
+        }
+
+        summary.predictions++;
+        if (goodPlay) {
+            summary.goodPlays++;
+        } else {
+            summary.badPlays++;
+        }
+        sink.accept(kill, predictions);
+    }
+
+    private void readContext(JsonParser parser, KillEntity kill, JsonGenerator tee, boolean stripDebug,
+                             Summary summary) throws IOException {
+        startObject(tee);
+        String field;
+        while ((field = nextField(parser, tee, stripDebug, DEBUG_ATTACKER)) != null) {
+            if (DEBUG_ATTACKER.equals(field) && parser.currentToken() == JsonToken.START_OBJECT) {
+                // Con stripDebug el nombre no se copió: el objeto tampoco
+                readDebugAttacker(parser, stripDebug ? null : tee, summary);
+                continue;
+            }
+            switch (field) {
+                case "kill_tick" -> kill.setKillTick(longValue(parser));
+                case "side" -> kill.setSide(textValue(parser));
+                case "attacker_x" -> kill.setAttackerX(doubleValue(parser));
+                case "attacker_y" -> kill.setAttackerY(doubleValue(parser));
+                case "attacker_z" -> kill.setAttackerZ(doubleValue(parser));
+                case "victim_x" -> kill.setVictimX(doubleValue(parser));
+                case "victim_y" -> kill.setVictimY(doubleValue(parser));
+                case "victim_z" -> kill.setVictimZ(doubleValue(parser));
+                case "attacker_health" -> kill.setAttackerHealth(doubleValue(parser));
+                case "victim_health" -> kill.setVictimHealth(doubleValue(parser));
+                case "flash_near" -> kill.setFlashNear(booleanValue(parser));
+                case "smoke_near" -> kill.setSmokeNear(booleanValue(parser));
+                case "molotov_near" -> kill.setMolotovNear(booleanValue(parser));
+                case "he_near" -> kill.setHeNear(booleanValue(parser));
+                default -> { }
+            }
+            copyOrSkip(parser, tee);
+        }
+    }
+
+    // "debug_attacker": parameters (pos_x, pos_y, scale, x_adjust, y_adjust) del primer kill que los trae
+    private void readDebugAttacker(JsonParser parser, JsonGenerator tee, Summary summary) throws IOException {
+        startObject(tee);
+        String field;
+        while ((field = nextField(parser, tee, false)) != null) {
+            if (!"parameters".equals(field) || parser.currentToken() != JsonToken.START_OBJECT) {
+                copyOrSkip(parser, tee);
+                continue;
+            }
+            Double posX = null;
+            Double posY = null;
+            Double scale = null;
+            double xAdjust = 0.0;
+            double yAdjust = 0.0;
+            startObject(tee);
+            String parameter;
+            while ((parameter = nextField(parser, tee, false)) != null) {
+                switch (parameter) {
+                    case "pos_x" -> posX = doubleValue(parser);
+                    case "pos_y" -> posY = doubleValue(parser);
+                    case "scale" -> scale = doubleValue(parser);
+                    case "x_adjust" -> xAdjust = parser.currentToken().isNumeric() ? parser.getDoubleValue() : 0.0;
+                    case "y_adjust" -> yAdjust = parser.currentToken().isNumeric() ? parser.getDoubleValue() : 0.0;
+                    default -> { }
+                }
+                copyOrSkip(parser, tee);
+            }
+            if (summary.mapTransform == null && posX != null && posY != null && scale != null && scale > 0) {
+                summary.mapTransform = MapTransform.fromMlParameters(posX, posY, scale, xAdjust, yAdjust);
+            }
+        }
+    }
+
+    // "prediction": top_predictions (isTopPrediction=true) y all_probabilities (false)
+    private void readLabels(JsonParser parser, List<KillPredictionEntity> predictions, JsonGenerator tee,
+                            boolean stripDebug) throws IOException {
+        startObject(tee);
+        String field;
+        while ((field = nextField(parser, tee, stripDebug)) != null) {
+            JsonToken token = parser.currentToken();
+            if ("top_predictions".equals(field) && token == JsonToken.START_ARRAY) {
+                startArray(tee);
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (parser.currentToken() != JsonToken.START_OBJECT) {
+                        copyOrSkip(parser, tee);
+                        continue;
+                    }
+                    String label = null;
+                    Double confidence = null;
+                    startObject(tee);
+                    String topField;
+                    while ((topField = nextField(parser, tee, false)) != null) {
+                        if ("label".equals(topField)) {
+                            label = textValue(parser);
+                        } else if ("confidence".equals(topField)) {
+                            confidence = doubleValue(parser);
+                        }
+                        copyOrSkip(parser, tee);
+                    }
+                    if (label != null && confidence != null) {
+                        predictions.add(new KillPredictionEntity(null, label, confidence, true));
+                    }
+                }
+                endArray(tee);
+            } else if ("all_probabilities".equals(field) && token == JsonToken.START_OBJECT) {
+                startObject(tee);
+                String label;
+                while ((label = nextField(parser, tee, false)) != null) {
+                    Double confidence = doubleValue(parser);
+                    if (confidence != null) {
+                        predictions.add(new KillPredictionEntity(null, label, confidence, false));
+                    }
+                    copyOrSkip(parser, tee);
+                }
+            } else {
+                copyOrSkip(parser, tee);
+            }
+        }
+    }
+
+    // "attacker_strengths": una fila STRENGTH por fortaleza; jugada buena si alguna supera GOOD_PLAY_STRENGTH
+    private boolean readStrengths(JsonParser parser, List<KillPredictionEntity> predictions, JsonGenerator tee,
+                                  boolean stripDebug) throws IOException {
+        boolean goodPlay = false;
+        startObject(tee);
+        String name;
+        while ((name = nextField(parser, tee, stripDebug)) != null) {
+            Double strength = doubleValue(parser);
+            if (strength != null) {
+                predictions.add(new KillPredictionEntity(null, KillPredictionEntity.STRENGTH, name, strength, false));
+                if (strength > KillPredictionEntity.GOOD_PLAY_STRENGTH) {
+                    goodPlay = true;
+                }
+            }
+            copyOrSkip(parser, tee);
+        }
+        return goodPlay;
+    }
+
+    private void copyObject(JsonParser parser, JsonGenerator tee, boolean stripDebug) throws IOException {
+        startObject(tee);
+        while (nextField(parser, tee, stripDebug) != null) {
+            copyOrSkip(parser, tee);
+        }
+    }
+
+    /**
+     * Avanza al valor del siguiente campo del objeto actual (copiando el nombre al tee) y descarta
+     * los debug_* si corresponde. Devuelve null al llegar al cierre del objeto, ya copiado al tee.
+     */
+    private static String nextField(JsonParser parser, JsonGenerator tee, boolean stripDebug) throws IOException {
+        return nextField(parser, tee, stripDebug, null);
+    }
+
+    /**
+     * Como nextField, pero el debug_* {@code readStripped} se devuelve aunque se descarte
+     * (sin copiar su nombre al tee) para que el llamador lo lea
+     */
+    private static String nextField(JsonParser parser, JsonGenerator tee, boolean stripDebug,
+                                    String readStripped) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (stripDebug && field.startsWith(DEBUG_PREFIX)) {
+                if (field.equals(readStripped)) {
+                    return field;
+                }
+                parser.skipChildren();
+                continue;
+            }
+            if (tee != null) {
+                tee.writeFieldName(field);
+            }
+            return field;
+        }
+        if (tee != null) {
+            tee.writeEndObject();
+        }
+        return null;
+    }
+
+    private static void copyOrSkip(JsonParser parser, JsonGenerator tee) throws IOException {
+        if (tee != null) {
+            tee.copyCurrentStructure(parser);
+        } else {
+            parser.skipChildren();
+        }
+    }
+
+    private static void startObject(JsonGenerator tee) throws IOException {
+        if (tee != null) {
+            tee.writeStartObject();
+        }
+    }
+
+    private static void startArray(JsonGenerator tee) throws IOException {
+        if (tee != null) {
+            tee.writeStartArray();
+        }
+    }
+
+    private static void endArray(JsonGenerator tee) throws IOException {
+        if (tee != null) {
+            tee.writeEndArray();
+        }
+    }
+
+    private static String textValue(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        return token.isScalarValue() && token != JsonToken.VALUE_NULL ? parser.getText() : null;
+    }
+
+    private static Integer intValue(JsonParser parser) throws IOException {
+        return parser.currentToken().isNumeric() ? parser.getValueAsInt() : null;
+    }
+
+    private static Long longValue(JsonParser parser) throws IOException {
+        return parser.currentToken().isNumeric() ? parser.getValueAsLong() : null;
+    }
+
+    private static Double doubleValue(JsonParser parser) throws IOException {
+        return parser.currentToken().isNumeric() ? parser.getDoubleValue() : null;
+    }
+
+    private static Boolean booleanValue(JsonParser parser) {
+        JsonToken token = parser.currentToken();
+        return token.isBoolean() ? token == JsonToken.VALUE_TRUE : null;
+    }
+
+    /**
+     * Recibe cada kill con sus filas de predicción (killId ya asignado) a medida que se leen
+     */
+    @FunctionalInterface
+    public interface PredictionSink {
+        void accept(KillEntity kill, List<KillPredictionEntity> predictions);
+    }
+
+    /**
+     * Campos del encabezado de la respuesta y conteos calculados en el recorrido
+     */
+    public static class Summary {
+        private String status;
+        private Integer totalKills;
+        private String mapName;
+        private Integer tickrate;
+        private int predictions;
+        private int goodPlays;
+        private int badPlays;
+        private MapTransform mapTransform;
+        private byte[] compressedResponse;
+
+        public String getStatus() {
+            return status;
+        }
+
+        public Integer getTotalKills() {
+            return totalKills;
+        }
+
+        public String getMapName() {
+            return mapName;
+        }
+
+        public Integer getTickrate() {
+            return tickrate;
+        }
+
+        public int getPredictions() {
+            return predictions;
+        }
+
+        public int getGoodPlays() {
+            return goodPlays;
+        }
+
+        public int getBadPlays() {
+            return badPlays;
+        }
+
+        /**
+         * Parámetros juego -> imagen emitidos por el ML (context.debug_attacker.parameters); null si no vinieron
+         */
+        public MapTransform getMapTransform() {
+            return mapTransform;
+        }
+
+        /**
+         * Respuesta comprimida con MlResponseCodec; null si se leyó con read
+         */
+        public byte[] getCompressedResponse() {
+            return compressedResponse;
+        }
+    }
+}
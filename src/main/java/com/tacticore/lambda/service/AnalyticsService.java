@@ -3,6 +3,8 @@ package com.tacticore.lambda.service;
 import com.tacticore.lambda.model.AnalyticsData;
 import com.tacticore.lambda.model.AnalyticsDataEntity;
 import com.tacticore.lambda.model.DashboardStats;
+import com.tacticore.lambda.model.PlayerStatsEntity;
+import com.tacticore.lambda.model.dto.MatchDto;
 import com.tacticore.lambda.repository.AnalyticsDataRepository;
 import com.tacticore.lambda.repository.KillRepository;
 import com.tacticore.lambda.repository.MatchRepository;
@@ -11,6 +13,7 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,6 +31,12 @@ public class AnalyticsService {
     @Autowired
     private DatabaseMatchService databaseMatchService;
     
+    @Autowired
+    private PlayerAggregateService playerAggregateService;
+    
+    @Autowired
+    private DashboardCache dashboardCache;
+    
     // Obtener datos históricos de analytics
     public List<AnalyticsData> getHistoricalAnalytics(String timeRange, String metric) {
         List<AnalyticsDataEntity> entities;
@@ -51,107 +60,60 @@ public class AnalyticsService {
                 .collect(Collectors.toList());
     }
     
-    // Obtener estadísticas del dashboard
+    // Obtener estadísticas del dashboard (cacheadas por usuario hasta el próximo ingest que lo afecte)
     public DashboardStats getDashboardStats(String user) {
-        // Calcular estadísticas desde los datos reales de kills y matches
-        Long totalKills;
-        Long totalMatches;
-        
-        if (user != null && !user.isEmpty()) {
-            // Filtrar por usuario específico
-            totalKills = killRepository.countKillsByUser(user);
-            totalMatches = (long) databaseMatchService.getMatchesByUser(user).size();
-        } else {
-            // Todos los datos
-            totalKills = killRepository.count();
-            totalMatches = matchRepository.count();
-        }
-        
-        // Calcular KDR
-        double averageKdr = 0.0;
-        if (user != null && !user.isEmpty()) {
-            // KDR del usuario específico
-            Long userKills = killRepository.countKillsByUser(user);
-            Long userDeaths = killRepository.countDeathsByUser(user);
-            if (userDeaths > 0) {
-                averageKdr = (double) userKills / userDeaths;
-            }
-        } else {
-            // KDR promedio de todos los usuarios
-            List<String> users = killRepository.findAllAttackers();
-            double totalKdr = 0.0;
-            int userCount = 0;
-            
-            for (String u : users) {
-                Long userKills = killRepository.countKillsByUser(u);
-                Long userDeaths = killRepository.countDeathsByUser(u);
-                if (userDeaths > 0) {
-                    totalKdr += (double) userKills / userDeaths;
-                    userCount++;
-                }
-            }
-            
-            averageKdr = userCount > 0 ? totalKdr / userCount : 0.0;
-        }
+        String key = user != null && !user.isEmpty() ? user : null;
+        return dashboardCache.get(key, () -> key != null ? computeUserDashboard(key) : computeGlobalDashboard());
+    }
+    
+    // Global: conteos de tablas, KDR promedio en un AVG sobre player_stats y score promedio
+    // en una pasada sobre los resúmenes de matches
+    private DashboardStats computeGlobalDashboard() {
+        long totalKills = killRepository.count();
+        long totalMatches = matchRepository.count();
+        double averageKdr = playerAggregateService.getAverageKdr();
+        // Para todos los usuarios, las muertes son iguales a los kills (cada kill es una muerte)
+        long totalDeaths = totalKills;
         
-        // Calcular estadísticas adicionales
-        // Calcular muertes reales del usuario
-        Long totalDeaths;
-        if (user != null && !user.isEmpty()) {
-            totalDeaths = killRepository.countDeathsByUser(user);
-        } else {
-            // Para todos los usuarios, las muertes son iguales a los kills (cada kill es una muerte)
-            totalDeaths = totalKills;
-        }
+        double averageScore = totalMatches > 0 ? averageScore(databaseMatchService.getAllMatches()) : 0.0;
+        return buildDashboard(totalMatches, totalKills, totalDeaths, averageScore, averageKdr);
+    }
+    
+    // Usuario: su fila de player_stats y sus matches (una sola consulta, para el total y el score promedio)
+    private DashboardStats computeUserDashboard(String user) {
+        Optional<PlayerStatsEntity> stats = playerAggregateService.getPlayerStats(user);
+        long totalKills = stats.map(PlayerStatsEntity::getKills).orElse(0L);
+        long totalDeaths = stats.map(PlayerStatsEntity::getDeaths).orElse(0L);
+        double averageKdr = totalDeaths > 0 ? (double) totalKills / totalDeaths : 0.0;
         
-        // Calcular promedio real de scores de las partidas
-        double averageScore = 0.0;
-        if (totalMatches > 0) {
-            if (user != null && !user.isEmpty()) {
-                // Score promedio del usuario específico en sus partidas
-                List<com.tacticore.lambda.model.dto.MatchDto> userMatches = databaseMatchService.getMatchesByUser(user);
-                
-                double totalScore = 0.0;
-                int matchesWithScore = 0;
-                
-                for (com.tacticore.lambda.model.dto.MatchDto match : userMatches) {
-                    // Usar el score específico del usuario en esta partida
-                    double userScore = match.getScore();
-                    if (userScore > 0) {
-                        totalScore += userScore;
-                        matchesWithScore++;
-                    }
-                }
-                
-                averageScore = matchesWithScore > 0 ? totalScore / matchesWithScore : 0.0;
-            } else {
-                // Score promedio de todas las partidas (usar scores ya calculados)
-                List<com.tacticore.lambda.model.dto.MatchDto> allMatches = databaseMatchService.getAllMatches();
-                
-                double totalScore = 0.0;
-                int matchesWithScore = 0;
-                
-                for (com.tacticore.lambda.model.dto.MatchDto match : allMatches) {
-                    // Usar el score ya calculado de la partida
-                    double matchScore = match.getScore();
-                    if (matchScore > 0) {
-                        totalScore += matchScore;
-                        matchesWithScore++;
-                    }
-                }
-                
-                averageScore = matchesWithScore > 0 ? totalScore / matchesWithScore : 0.0;
+        List<MatchDto> userMatches = databaseMatchService.getMatchesByUser(user);
+        return buildDashboard(userMatches.size(), totalKills, totalDeaths, averageScore(userMatches), averageKdr);
+    }
+    
+    // Promedio de los scores calculados (> 0) de las partidas
+    private static double averageScore(List<MatchDto> matches) {
+        double totalScore = 0.0;
+        int matchesWithScore = 0;
+        for (MatchDto match : matches) {
+            double score = match.getScore();
+            if (score > 0) {
+                totalScore += score;
+                matchesWithScore++;
             }
         }
-        
+        return matchesWithScore > 0 ? totalScore / matchesWithScore : 0.0;
+    }
+    
+    private static DashboardStats buildDashboard(long totalMatches, long totalKills, long totalDeaths,
+                                                 double averageScore, double averageKdr) {
         // Por ahora, usar valores calculados básicos
         int totalGoodPlays = (int) (totalKills * 0.3); // Estimación: 30% de kills son "good plays"
         int totalBadPlays = (int) (totalKills * 0.1); // Estimación: 10% de kills son "bad plays"
         
         return new DashboardStats(
-            totalMatches.intValue(),
-            totalKills.intValue(),
-            totalDeaths.intValue(),
+            (int) totalMatches,
+            (int) totalKills,
+            (int) totalDeaths,
             totalGoodPlays,
             totalBadPlays,
             averageScore,
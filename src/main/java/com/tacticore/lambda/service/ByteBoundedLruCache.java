@@ -0,0 +1,115 @@
+package com.tacticore.lambda.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache LRU acotado por bytes (peso declarado por entrada, no por cantidad de entradas).
+ * Cuenta hits, misses, evictions e invalidaciones. Cada invalidación avanza una generación:
+ * una carga que empezó antes no se guarda (putIfGeneration), así un archivo modificado
+ * mientras se parseaba no deja la versión vieja en el cache.
+ */
+public class ByteBoundedLruCache<K, V> {
+
+    private final long maxBytes;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long currentBytes;
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+    private long rejected;
+
+    public ByteBoundedLruCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Guarda la entrada si no hubo invalidaciones desde {@code expectedGeneration}.
+     * Entradas más grandes que el límite no se guardan.
+     */
+    public synchronized boolean putIfGeneration(K key, V value, long bytes, long expectedGeneration) {
+        if (generation != expectedGeneration) {
+            return false;
+        }
+        if (bytes > maxBytes) {
+            rejected++;
+            return false;
+        }
+        Entry<V> previous = entries.put(key, new Entry<>(value, bytes));
+        if (previous != null) {
+            currentBytes -= previous.bytes;
+        }
+        currentBytes += bytes;
+
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<K, Entry<V>> candidate = eldest.next();
+            if (candidate.getKey().equals(key)) {
+                continue;
+            }
+            currentBytes -= candidate.getValue().bytes;
+            eldest.remove();
+            evictions++;
+        }
+        return true;
+    }
+
+    public synchronized void invalidate(K key) {
+        generation++;
+        Entry<V> removed = entries.remove(key);
+        if (removed != null) {
+            currentBytes -= removed.bytes;
+            invalidations++;
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidations += entries.size();
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        long requests = hits + misses;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries.size());
+        stats.put("bytes", currentBytes);
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", requests > 0 ? (double) hits / requests : 0.0);
+        stats.put("evictions", evictions);
+        stats.put("invalidations", invalidations);
+        stats.put("rejected", rejected);
+        return stats;
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long bytes;
+
+        private Entry(V value, long bytes) {
+            this.value = value;
+            this.bytes = bytes;
+        }
+    }
+}
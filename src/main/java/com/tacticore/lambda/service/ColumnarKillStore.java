@@ -0,0 +1,493 @@
+package com.tacticore.lambda.service;
+
+import com.tacticore.lambda.model.KillEntity;
+import com.tacticore.lambda.model.dto.KillAnalysisDto;
+import com.tacticore.lambda.model.dto.RoundAnalysisDto;
+import com.tacticore.lambda.repository.KillRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Copia en memoria de la tabla kills en formato columnar para las consultas globales de análisis
+ * (overview, análisis por ronda, top players): un array primitivo por columna y los strings
+ * (jugadores, arma, lugar, lado) codificados como int contra un diccionario. Cada consulta es un
+ * único recorrido de los arrays con contadores indexados por código, sin pasar por la base.
+ *
+ * Se carga completa desde kills la primera vez que se consulta y después KillIngestService le
+ * agrega cada batch al confirmarse la transacción; deleteAllKills la invalida.
+ */
+@Service
+public class ColumnarKillStore {
+
+    private static final int LOAD_PAGE_SIZE = 50_000;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int TOP_PLAYERS = 10;
+    private static final int HOT_SPOTS = 3;
+
+    @Autowired
+    private KillRepository killRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean loaded;
+
+    // Diccionarios: attacker y victim comparten el de jugadores
+    private StringDictionary players = new StringDictionary();
+    private StringDictionary weapons = new StringDictionary();
+    private StringDictionary places = new StringDictionary();
+    private StringDictionary sides = new StringDictionary();
+
+    // Columnas (null en distance/timeInRound/coordenadas = NaN)
+    private int size;
+    private int loadedSize;
+    private long[] ids = new long[0];
+    private int[] attacker = new int[0];
+    private int[] victim = new int[0];
+    private int[] weapon = new int[0];
+    private int[] place = new int[0];
+    private int[] side = new int[0];
+    private int[] round = new int[0];
+    private boolean[] headshot = new boolean[0];
+    private float[] distance = new float[0];
+    private float[] timeInRound = new float[0];
+    private float[] attackerX = new float[0];
+    private float[] attackerY = new float[0];
+    private float[] victimX = new float[0];
+    private float[] victimY = new float[0];
+    private int minRound = Integer.MAX_VALUE;
+    private int maxRound = Integer.MIN_VALUE;
+
+    /**
+     * Agrega un batch de kills recién insertado cuando su transacción confirma
+     * (si se revierte, el store no lo ve). Sin transacción activa se agrega en el momento.
+     */
+    public void appendAfterCommit(Collection<KillEntity> kills) {
+        if (kills == null || kills.isEmpty()) {
+            return;
+        }
+        List<KillEntity> batch = new ArrayList<>(kills);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    append(batch);
+                }
+            });
+        } else {
+            append(batch);
+        }
+    }
+
+    /**
+     * Descarta el contenido cuando confirma el borrado de kills; la próxima consulta recarga
+     */
+    public void invalidateAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate();
+                }
+            });
+        } else {
+            invalidate();
+        }
+    }
+
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            reset();
+            loaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Recarga todo desde la tabla kills, por páginas ordenadas por id
+     */
+    public int reload() {
+        lock.writeLock().lock();
+        try {
+            long start = System.currentTimeMillis();
+            reset();
+            long afterId = Long.MIN_VALUE;
+            List<Object[]> page;
+            do {
+                page = killRepository.findColumnsAfter(afterId, PageRequest.of(0, LOAD_PAGE_SIZE));
+                ensureCapacity(size + page.size());
+                for (Object[] row : page) {
+                    addRow((Long) row[0], (String) row[1], (String) row[2], (String) row[3], (String) row[4],
+                        (String) row[5], (Integer) row[6], (Boolean) row[7], (Double) row[8], (Double) row[9],
+                        (Double) row[10], (Double) row[11], (Double) row[12], (Double) row[13]);
+                }
+                if (!page.isEmpty()) {
+                    afterId = (Long) page.get(page.size() - 1)[0];
+                }
+            } while (page.size() == LOAD_PAGE_SIZE);
+            loadedSize = size;
+            loaded = true;
+            System.out.println("📊 ColumnarKillStore: " + size + " kills cargados en "
+                + (System.currentTimeMillis() - start) + " ms (" + players.size() + " jugadores, "
+                + weapons.size() + " armas, " + places.size() + " lugares)");
+            return size;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        ensureLoaded();
+        return size;
+    }
+
+    /**
+     * Equivalente a las consultas agregadas de KillRepository que arma getOverallAnalysis
+     * (sin predictionStats, que salen de kill_predictions)
+     */
+    public KillAnalysisDto getOverallAnalysis() {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            // Una pasada por columna: cada bucle recorre un solo array en orden
+            int n = size;
+            int[] weaponCounts = histogram(weapon, n, weapons.size());
+            int[] placeCounts = histogram(place, n, places.size());
+            int[] sideCounts = histogram(side, n, sides.size());
+            int[] roundCounts = histogram(round, n, minRound, n > 0 ? maxRound - minRound + 1 : 0);
+            int[] kills = histogram(attacker, n, players.size());
+            int[] deaths = histogram(victim, n, players.size());
+
+            long headshots = 0;
+            boolean[] headshotColumn = headshot;
+            for (int i = 0; i < n; i++) {
+                headshots += headshotColumn[i] ? 1 : 0;
+            }
+
+            // NaN > 0 es false: los null quedan fuera como en AVG(...) WHERE distance > 0
+            double distanceSum = 0;
+            long distanceCount = 0;
+            float[] distanceColumn = distance;
+            for (int i = 0; i < n; i++) {
+                float d = distanceColumn[i];
+                boolean positive = d > 0;
+                distanceSum += positive ? d : 0;
+                distanceCount += positive ? 1 : 0;
+            }
+
+            double timeSum = 0;
+            long timeCount = 0;
+            float[] timeColumn = timeInRound;
+            for (int i = 0; i < n; i++) {
+                float t = timeColumn[i];
+                boolean present = t == t;
+                timeSum += present ? t : 0;
+                timeCount += present ? 1 : 0;
+            }
+
+            long totalKills = n;
+            Double headshotRate = totalKills > 0 ? (double) headshots / totalKills * 100 : 0.0;
+            Double averageDistance = distanceCount > 0 ? distanceSum / distanceCount : null;
+            Double averageTimeInRound = timeCount > 0 ? timeSum / timeCount : null;
+
+            List<Map<String, Object>> roundStats = new ArrayList<>();
+            for (int r = 0; r < roundCounts.length; r++) {
+                if (roundCounts[r] > 0) {
+                    Map<String, Object> map = new HashMap<>();
+                    map.put("round", r + minRound);
+                    map.put("kills", (long) roundCounts[r]);
+                    roundStats.add(map);
+                }
+            }
+
+            KillAnalysisDto analysis = new KillAnalysisDto();
+            analysis.setTotalKills(totalKills);
+            analysis.setTotalHeadshots(headshots);
+            analysis.setHeadshotRate(headshotRate);
+            analysis.setAverageDistance(averageDistance);
+            analysis.setAverageTimeInRound(averageTimeInRound);
+            analysis.setWeaponStats(countRows(weapons, weaponCounts, "weapon", "count", true, Integer.MAX_VALUE));
+            analysis.setLocationStats(countRows(places, placeCounts, "location", "count", true, Integer.MAX_VALUE));
+            analysis.setRoundStats(roundStats);
+            analysis.setSideStats(countRows(sides, sideCounts, "side", "count", false, Integer.MAX_VALUE));
+            analysis.setTopPlayers(topPlayers(kills, deaths));
+            return analysis;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public RoundAnalysisDto getRoundAnalysis(Integer roundNumber) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            int target = roundNumber;
+            int[] attackerCounts = new int[players.size()];
+            int[] placeCounts = new int[places.size()];
+            int[] weaponCounts = new int[weapons.size()];
+            int[] sideCounts = new int[sides.size()];
+            long totalKills = 0;
+            long headshots = 0;
+            double duration = 0.0;
+            double distanceSum = 0;
+            long distanceCount = 0;
+
+            if (target >= minRound && target <= maxRound) {
+                for (int i = 0; i < size; i++) {
+                    if (round[i] != target) {
+                        continue;
+                    }
+                    totalKills++;
+                    attackerCounts[attacker[i]]++;
+                    placeCounts[place[i]]++;
+                    weaponCounts[weapon[i]]++;
+                    sideCounts[side[i]]++;
+                    if (headshot[i]) {
+                        headshots++;
+                    }
+                    if (timeInRound[i] > duration) {
+                        duration = timeInRound[i];
+                    }
+                    float d = distance[i];
+                    if (d > 0) {
+                        distanceSum += d;
+                        distanceCount++;
+                    }
+                }
+            }
+
+            int mostActive = argMax(attackerCounts);
+            String mostActivePlayer = mostActive >= 0 ? players.value(mostActive) : "Unknown";
+            Double headshotRate = totalKills > 0 ? (double) headshots / totalKills * 100 : 0.0;
+            Double averageDistance = distanceCount > 0 ? distanceSum / distanceCount : 0.0;
+
+            return new RoundAnalysisDto(
+                roundNumber, totalKills, duration, mostActivePlayer,
+                countRows(places, placeCounts, "location", "kills", true, HOT_SPOTS),
+                countMap(weapons, weaponCounts), countMap(sides, sideCounts), headshotRate, averageDistance
+            );
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Map<String, Object>> getTopPlayers() {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return topPlayers(histogram(attacker, size, players.size()), histogram(victim, size, players.size()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            lock.writeLock().lock();
+            try {
+                if (!loaded) {
+                    reload();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void append(List<KillEntity> batch) {
+        lock.writeLock().lock();
+        try {
+            // Sin cargar: la carga inicial ya va a leer estas filas desde la tabla
+            if (!loaded) {
+                return;
+            }
+            ensureCapacity(size + batch.size());
+            long loadedMaxId = loadedSize > 0 ? ids[loadedSize - 1] : Long.MIN_VALUE;
+            for (KillEntity kill : batch) {
+                Long id = kill.getId();
+                // Un batch confirmado mientras corría la carga puede haber entrado en ella
+                if (id != null && id <= loadedMaxId && Arrays.binarySearch(ids, 0, loadedSize, id) >= 0) {
+                    continue;
+                }
+                addRow(id, kill.getAttacker(), kill.getVictim(), kill.getWeapon(), kill.getPlace(), kill.getSide(),
+                    kill.getRound(), kill.getHeadshot(), kill.getDistance(), kill.getTimeInRound(),
+                    kill.getAttackerX(), kill.getAttackerY(), kill.getVictimX(), kill.getVictimY());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addRow(Long id, String attackerName, String victimName, String weaponName, String placeName,
+                        String sideName, Integer roundNumber, Boolean isHeadshot, Double killDistance, Double time,
+                        Double ax, Double ay, Double vx, Double vy) {
+        int i = size++;
+        ids[i] = id != null ? id : Long.MAX_VALUE;
+        attacker[i] = players.encode(attackerName);
+        victim[i] = players.encode(victimName);
+        weapon[i] = weapons.encode(weaponName);
+        place[i] = places.encode(placeName);
+        side[i] = sides.encode(sideName);
+        int r = roundNumber != null ? roundNumber : 0;
+        round[i] = r;
+        minRound = Math.min(minRound, r);
+        maxRound = Math.max(maxRound, r);
+        headshot[i] = Boolean.TRUE.equals(isHeadshot);
+        distance[i] = toFloat(killDistance);
+        timeInRound[i] = toFloat(time);
+        attackerX[i] = toFloat(ax);
+        attackerY[i] = toFloat(ay);
+        victimX[i] = toFloat(vx);
+        victimY[i] = toFloat(vy);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(required, Math.max(INITIAL_CAPACITY, ids.length + (ids.length >> 1)));
+        ids = Arrays.copyOf(ids, capacity);
+        attacker = Arrays.copyOf(attacker, capacity);
+        victim = Arrays.copyOf(victim, capacity);
+        weapon = Arrays.copyOf(weapon, capacity);
+        place = Arrays.copyOf(place, capacity);
+        side = Arrays.copyOf(side, capacity);
+        round = Arrays.copyOf(round, capacity);
+        headshot = Arrays.copyOf(headshot, capacity);
+        distance = Arrays.copyOf(distance, capacity);
+        timeInRound = Arrays.copyOf(timeInRound, capacity);
+        attackerX = Arrays.copyOf(attackerX, capacity);
+        attackerY = Arrays.copyOf(attackerY, capacity);
+        victimX = Arrays.copyOf(victimX, capacity);
+        victimY = Arrays.copyOf(victimY, capacity);
+    }
+
+    private void reset() {
+        players = new StringDictionary();
+        weapons = new StringDictionary();
+        places = new StringDictionary();
+        sides = new StringDictionary();
+        size = 0;
+        loadedSize = 0;
+        ids = new long[0];
+        attacker = new int[0];
+        victim = new int[0];
+        weapon = new int[0];
+        place = new int[0];
+        side = new int[0];
+        round = new int[0];
+        headshot = new boolean[0];
+        distance = new float[0];
+        timeInRound = new float[0];
+        attackerX = new float[0];
+        attackerY = new float[0];
+        victimX = new float[0];
+        victimY = new float[0];
+        minRound = Integer.MAX_VALUE;
+        maxRound = Integer.MIN_VALUE;
+    }
+
+    // Mismo criterio que KillAnalysisService: jugadores con al menos un kill, ordenados por K/D
+    private List<Map<String, Object>> topPlayers(int[] kills, int[] deaths) {
+        List<Integer> candidates = new ArrayList<>();
+        for (int p = 0; p < kills.length; p++) {
+            if (kills[p] > 0) {
+                candidates.add(p);
+            }
+        }
+        candidates.sort((a, b) -> Double.compare(kdRatio(kills[b], deaths[b]), kdRatio(kills[a], deaths[a])));
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (int p : candidates.subList(0, Math.min(TOP_PLAYERS, candidates.size()))) {
+            Map<String, Object> map = new HashMap<>();
+            map.put("player", players.value(p));
+            map.put("kills", (long) kills[p]);
+            map.put("deaths", (long) deaths[p]);
+            map.put("kd_ratio", kdRatio(kills[p], deaths[p]));
+            result.add(map);
+        }
+        return result;
+    }
+
+    private static double kdRatio(long kills, long deaths) {
+        return deaths > 0 ? (double) kills / deaths : kills > 0 ? (double) kills : 0.0;
+    }
+
+    private static List<Map<String, Object>> countRows(StringDictionary dictionary, int[] counts, String keyName,
+                                                       String countName, boolean byCountDesc, int limit) {
+        List<Integer> codes = new ArrayList<>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                codes.add(code);
+            }
+        }
+        if (byCountDesc) {
+            codes.sort((a, b) -> Integer.compare(counts[b], counts[a]));
+        }
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int code : codes.subList(0, Math.min(limit, codes.size()))) {
+            Map<String, Object> map = new HashMap<>();
+            map.put(keyName, dictionary.value(code));
+            map.put(countName, (long) counts[code]);
+            rows.add(map);
+        }
+        return rows;
+    }
+
+    private static Map<String, Long> countMap(StringDictionary dictionary, int[] counts) {
+        Map<String, Long> map = new HashMap<>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                map.put(dictionary.value(code), (long) counts[code]);
+            }
+        }
+        return map;
+    }
+
+    private static int[] histogram(int[] codes, int n, int buckets) {
+        return histogram(codes, n, 0, buckets);
+    }
+
+    // Cuatro contadores intercalados: con rachas del mismo valor (rondas y lados de un match
+    // consecutivos) los incrementos no esperan cada uno al anterior sobre la misma posición
+    private static int[] histogram(int[] values, int n, int offset, int buckets) {
+        int[] c0 = new int[buckets];
+        int[] c1 = new int[buckets];
+        int[] c2 = new int[buckets];
+        int[] c3 = new int[buckets];
+        int i = 0;
+        for (; i + 3 < n; i += 4) {
+            c0[values[i] - offset]++;
+            c1[values[i + 1] - offset]++;
+            c2[values[i + 2] - offset]++;
+            c3[values[i + 3] - offset]++;
+        }
+        for (; i < n; i++) {
+            c0[values[i] - offset]++;
+        }
+        for (int b = 0; b < buckets; b++) {
+            c0[b] += c1[b] + c2[b] + c3[b];
+        }
+        return c0;
+    }
+
+    private static int argMax(int[] counts) {
+        int best = -1;
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0 && (best < 0 || counts[code] > counts[best])) {
+                best = code;
+            }
+        }
+        return best;
+    }
+
+    private static float toFloat(Double value) {
+        return value != null ? value.floatValue() : Float.NaN;
+    }
+}
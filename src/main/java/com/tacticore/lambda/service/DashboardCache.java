@@ -0,0 +1,97 @@
+package com.tacticore.lambda.service;
+
+import com.tacticore.lambda.model.DashboardStats;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * DashboardStats ya calculados, uno por usuario más el global. El ingest de kills invalida el global
+ * y los jugadores del batch; cambios en matches invalidan todo. Un cálculo que se cruza con una
+ * invalidación no se guarda (generación del LRU).
+ */
+@Component
+public class DashboardCache {
+
+    // Clave del dashboard sin usuario
+    private static final String GLOBAL = "";
+    // Peso aproximado de una entrada: DashboardStats + nodo del LinkedHashMap, más la clave
+    private static final long ENTRY_BYTES = 128;
+
+    @Value("${analytics.dashboard.cache.max-bytes:4194304}")
+    private long cacheMaxBytes;
+
+    private ByteBoundedLruCache<String, DashboardStats> cache;
+
+    public DashboardCache() {
+    }
+
+    public DashboardCache(long cacheMaxBytes) {
+        this.cacheMaxBytes = cacheMaxBytes;
+        init();
+    }
+
+    @PostConstruct
+    void init() {
+        cache = new ByteBoundedLruCache<>(cacheMaxBytes);
+    }
+
+    /**
+     * Devuelve el dashboard guardado para {@code user} (null o vacío = global) o lo calcula con {@code loader}
+     */
+    public DashboardStats get(String user, Supplier<DashboardStats> loader) {
+        String key = user != null ? user : GLOBAL;
+        DashboardStats cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = cache.generation();
+        DashboardStats stats = loader.get();
+        cache.putIfGeneration(key, stats, ENTRY_BYTES + 2L * key.length(), generation);
+        return stats;
+    }
+
+    /**
+     * Invalida el global y los dashboards de {@code players} cuando confirma la transacción
+     */
+    public void invalidateAfterCommit(Collection<String> players) {
+        Set<String> keys = new HashSet<>(players);
+        afterCommit(() -> {
+            cache.invalidate(GLOBAL);
+            keys.forEach(cache::invalidate);
+        });
+    }
+
+    public void invalidateAllAfterCommit() {
+        afterCommit(this::invalidateAll);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public Map<String, Object> getStats() {
+        return cache.getStats();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
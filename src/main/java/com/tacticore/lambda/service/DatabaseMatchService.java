@@ -1,15 +1,27 @@
 package com.tacticore.lambda.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tacticore.lambda.model.KillEntity;
 import com.tacticore.lambda.model.MatchEntity;
+import com.tacticore.lambda.model.PlayerStatsEntity;
 import com.tacticore.lambda.model.dto.MatchDto;
 import com.tacticore.lambda.repository.KillRepository;
 import com.tacticore.lambda.repository.MatchRepository;
+import com.tacticore.lambda.repository.MatchSummaryView;
+import com.tacticore.lambda.repository.MlResponseView;
+import com.tacticore.lambda.repository.UserMatchView;
+import com.tacticore.lambda.serialization.MlResponseCodec;
+import com.tacticore.lambda.serialization.MlResponseStreamReader;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,16 +36,55 @@ public class DatabaseMatchService {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private KillIngestService killIngestService;
+    
+    @Autowired
+    private PlayerAggregateService playerAggregateService;
+    
+    @Autowired
+    private PredictionAggregateService predictionAggregateService;
+    
+    @Autowired
+    private MapTransformRegistry mapTransformRegistry;
+    
+    @Autowired
+    private HeatmapService heatmapService;
+    
+    @Autowired
+    private DashboardCache dashboardCache;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private MlResponseCodec mlResponseCodec;
+    
+    @Autowired
+    private MlResponseStreamReader mlResponseStreamReader;
+    
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int ingestBatchSize;
+    
+    // MatchDto por matchId; una entrada solo vale para la versión (@Version) del match con la que se calculó
+    private final ConcurrentMap<String, CachedMatchDto> matchDtoCache = new ConcurrentHashMap<>();
+    
     public List<MatchDto> getAllMatches() {
-        List<MatchEntity> entities = matchRepository.findAll();
-        return entities.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        List<MatchSummaryView> summaries = matchRepository.findAllSummaries();
+        List<MatchDto> matches = new ArrayList<>(summaries.size());
+        Set<String> matchIds = new HashSet<>();
+        for (MatchSummaryView summary : summaries) {
+            matchIds.add(summary.getMatchId());
+            matches.add(getCachedDto(summary));
+        }
+        // Descartar matches borrados
+        matchDtoCache.keySet().retainAll(matchIds);
+        return matches;
     }
     
     public Optional<MatchDto> getMatchById(String matchId) {
-        return matchRepository.findByMatchId(matchId)
-                .map(this::convertToDto);
+        return matchRepository.findSummaryByMatchId(matchId)
+                .map(this::getCachedDto);
     }
     
     public boolean existsMatch(String matchId) {
@@ -43,71 +94,95 @@ public class DatabaseMatchService {
     public void deleteMatch(String matchId) {
         matchRepository.findByMatchId(matchId)
                 .ifPresent(matchRepository::delete);
+        matchDtoCache.remove(matchId);
+        dashboardCache.invalidateAllAfterCommit();
     }
     
     public MatchEntity saveMatch(MatchEntity matchEntity) {
-        return matchRepository.save(matchEntity);
+        MatchEntity saved = matchRepository.save(matchEntity);
+        dashboardCache.invalidateAllAfterCommit();
+        return saved;
     }
     
     /**
-     * Obtiene el JSON de la respuesta del ML service para un match
+     * JSON de la respuesta del ML para el endpoint de kills, filtrado por usuario si se indica.
+     * Sin usuario se devuelve el JSON guardado sin parsearlo.
      */
-    public String getMlResponseJson(String matchId) {
-        return matchRepository.findByMatchId(matchId)
-                .map(MatchEntity::getMlResponseJson)
-                .orElse(null);
+    public String getMlResponseKillsJson(String matchId, String user) {
+        Optional<MlResponseView> stored = matchRepository.findMlResponseByMatchId(matchId);
+        if (stored.isEmpty()) {
+            return null;
+        }
+        byte[] compressed = stored.get().getMlResponseGz();
+        String legacyJson = stored.get().getMlResponseJson();
+        boolean filter = user != null && !user.isEmpty();
+        
+        if (compressed != null) {
+            return filter ? mlResponseCodec.filterByUser(compressed, user) : mlResponseCodec.decodeToJson(compressed);
+        }
+        if (legacyJson != null && !legacyJson.isEmpty()) {
+            return filter ? mlResponseCodec.filterByUser(legacyJson, user) : legacyJson;
+        }
+        return null;
     }
     
     /**
-     * Actualiza un match existente con resultados y guarda todos sus kills
+     * Actualiza un match existente con resultados y guarda todos sus kills (sin respuesta del ML:
+     * goodPlays/badPlays estimados desde la cantidad de kills)
      */
     @Transactional
     public void updateMatchWithKills(String matchId, Integer totalKills, Integer tickrate, String mapName, List<KillEntity> killEntities) {
-        updateMatchWithKills(matchId, totalKills, tickrate, mapName, killEntities, null);
+        MatchEntity match = matchRepository.findByMatchId(matchId)
+                .orElseThrow(() -> new RuntimeException("Match no encontrado: " + matchId));
+        
+        match.setTotalKills(totalKills);
+        match.setTickrate(tickrate);
+        match.setMapName(mapName);
+        match.setStatus("completed");
+        match.setGoodPlays(calculateGoodPlays(totalKills));
+        match.setBadPlays(calculateBadPlays(totalKills));
+        matchRepository.save(match);
+        dashboardCache.invalidateAllAfterCommit();
+        
+        if (killEntities != null && !killEntities.isEmpty()) {
+            killIngestService.ingest(killEntities);
+            updateUserStatsFromKills(killEntities);
+        }
     }
     
     /**
-     * Actualiza un match existente con resultados y guarda todos sus kills
-     * Calcula goodPlays y badPlays desde las predicciones del ML
+     * Completa el match leyendo la respuesta del ML en streaming: los kills se escriben en batches
+     * a medida que se parsean y la respuesta comprimida se arma en el mismo recorrido,
+     * sin pasar por un Map con todas las predicciones
      */
     @Transactional
-    public void updateMatchWithKills(String matchId, Integer totalKills, Integer tickrate, String mapName, List<KillEntity> killEntities, Map<String, Object> mlResponse) {
-        // Buscar el match existente
-        Optional<MatchEntity> matchOpt = matchRepository.findByMatchId(matchId);
-        if (matchOpt.isPresent()) {
-            MatchEntity match = matchOpt.get();
-            
-            match.setTotalKills(totalKills);
-            match.setTickrate(tickrate);
-            match.setMapName(mapName);
-            match.setStatus("completed");
-            
-            if (mlResponse != null) {
-                int[] playCounts = calculatePlaysFromPredictions(mlResponse);
-                match.setGoodPlays(playCounts[0]);
-                match.setBadPlays(playCounts[1]);
-                
-                try {
-                    com.fasterxml.jackson.databind.ObjectMapper objectMapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                    String mlResponseJson = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(mlResponse);
-                    match.setMlResponseJson(mlResponseJson);
-                } catch (Exception e) {
-                    System.err.println("Error serializing ML response to JSON: " + e.getMessage());
-                }
-            } else {
-                match.setGoodPlays(calculateGoodPlays(totalKills));
-                match.setBadPlays(calculateBadPlays(totalKills));
-            }
-            
-            matchRepository.save(match);
-            
-            if (killEntities != null && !killEntities.isEmpty()) {
-                killRepository.saveAll(killEntities);
-                updateUserStatsFromKills(killEntities);
-            }
-        } else {
-            throw new RuntimeException("Match no encontrado: " + matchId);
+    public MlResponseStreamReader.Summary updateMatchFromMlResponse(String matchId, InputStream mlResponse) throws IOException {
+        MatchEntity match = matchRepository.findByMatchId(matchId)
+                .orElseThrow(() -> new RuntimeException("Match no encontrado: " + matchId));
+        
+        KillBatchWriter writer = new KillBatchWriter(ingestBatchSize, killIngestService, userService);
+        MlResponseStreamReader.Summary summary = mlResponseStreamReader.readAndEncode(mlResponse, matchId, writer);
+        writer.finish();
+        
+        match.setTotalKills(summary.getTotalKills());
+        match.setTickrate(summary.getTickrate());
+        match.setMapName(summary.getMapName());
+        match.setStatus("completed");
+        match.setGoodPlays(summary.getGoodPlays());
+        match.setBadPlays(summary.getBadPlays());
+        match.setMlResponseGz(summary.getCompressedResponse());
+        match.setMlResponseJson(null);
+        matchRepository.save(match);
+        dashboardCache.invalidateAllAfterCommit();
+        System.out.println("💾 Respuesta ML de " + matchId + ": " + writer.getWritten() + " kills, "
+                + summary.getCompressedResponse().length + " bytes (gzip)");
+        
+        updateUserStats(writer.getUsers());
+        // Parámetros del mapa emitidos por el ML: si cambian, los heatmaps de ese mapa se rebinnean
+        if (mapTransformRegistry.register(summary.getMapName(), summary.getMapTransform())) {
+            heatmapService.invalidateAfterCommit();
         }
+        return summary;
     }
     
     public void updateMatchWithResults(String matchId, int totalKills, int tickrate, String mapName) {
@@ -117,6 +192,14 @@ public class DatabaseMatchService {
             match.setMapName(mapName);
             match.setStatus("completed");
             matchRepository.save(match);
+            dashboardCache.invalidateAllAfterCommit();
+        });
+    }
+    
+    public void updateMatchStatus(String matchId, String status) {
+        matchRepository.findByMatchId(matchId).ifPresent(match -> {
+            match.setStatus(status);
+            matchRepository.save(match);
         });
     }
     
@@ -134,53 +217,49 @@ public class DatabaseMatchService {
     }
     
     public List<MatchDto> getMatchesByUser(String user) {
-        List<MatchEntity> entities = matchRepository.findAll();
-        return entities.stream()
-                .filter(match -> killRepository.existsByMatchIdAndAttackerName(match.getMatchId(), user))
-                .map(entity -> convertToDtoForUser(entity, user))
+        // Un solo round-trip: kills/deaths por match vienen de player_match_stats (agregados en el ingest)
+        return matchRepository.findMatchesByUser(user).stream()
+                .map(this::convertToDtoForUser)
                 .collect(Collectors.toList());
     }
     
-    private MatchDto convertToDto(MatchEntity entity) {
+    private MatchDto getCachedDto(MatchSummaryView summary) {
+        CachedMatchDto cached = matchDtoCache.get(summary.getMatchId());
+        if (cached != null && Objects.equals(cached.version, summary.getVersion())) {
+            return cached.dto;
+        }
+        MatchDto dto = convertToDto(summary);
+        matchDtoCache.put(summary.getMatchId(), new CachedMatchDto(summary.getVersion(), dto));
+        return dto;
+    }
+    
+    /**
+     * Sin efectos secundarios: solo usa columnas persistidas (los plays se calculan en el ingest
+     * o en backfillMatchSummaries), nunca parsea ml_response_json ni guarda el match
+     */
+    private MatchDto convertToDto(MatchSummaryView summary) {
         MatchDto dto = new MatchDto();
-        dto.setId(entity.getMatchId());
-        dto.setFileName(entity.getFileName());
-        dto.setHasVideo(entity.getHasVideo());
-        dto.setMap(entity.getMapName());
+        dto.setId(summary.getMatchId());
+        dto.setFileName(summary.getFileName());
+        dto.setHasVideo(Boolean.TRUE.equals(summary.getHasVideo()));
+        dto.setMap(summary.getMapName());
         dto.setGameType("Ranked");
         
-        Integer totalKills = entity.getTotalKills();
+        Integer totalKills = summary.getTotalKills();
         if (totalKills != null) {
             dto.setKills(totalKills);
             dto.setDeaths(calculateDeaths(totalKills));
             
-            if (entity.getGoodPlays() != null && entity.getBadPlays() != null && 
-                (entity.getGoodPlays() > 0 || entity.getBadPlays() > 0)) {
-                dto.setGoodPlays(entity.getGoodPlays());
-                dto.setBadPlays(entity.getBadPlays());
+            Integer goodPlays = summary.getGoodPlays();
+            Integer badPlays = summary.getBadPlays();
+            // 0/0 calculado desde las predicciones del ML es un valor real; sin respuesta del ML es "sin datos"
+            if (goodPlays != null && badPlays != null &&
+                (goodPlays > 0 || badPlays > 0 || Boolean.TRUE.equals(summary.getHasMlResponse()))) {
+                dto.setGoodPlays(goodPlays);
+                dto.setBadPlays(badPlays);
             } else {
-                String mlResponseJson = entity.getMlResponseJson();
-                if (mlResponseJson != null && !mlResponseJson.isEmpty()) {
-                    try {
-                        com.fasterxml.jackson.databind.ObjectMapper objectMapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                        @SuppressWarnings("unchecked")
-                        Map<String, Object> mlResponse = objectMapper.readValue(mlResponseJson, Map.class);
-                        int[] playCounts = calculatePlaysFromPredictions(mlResponse);
-                        dto.setGoodPlays(playCounts[0]);
-                        dto.setBadPlays(playCounts[1]);
-                        
-                        entity.setGoodPlays(playCounts[0]);
-                        entity.setBadPlays(playCounts[1]);
-                        matchRepository.save(entity);
-                    } catch (Exception e) {
-                        System.err.println("Error recalculating plays from JSON: " + e.getMessage());
-                        dto.setGoodPlays(calculateGoodPlays(totalKills));
-                        dto.setBadPlays(calculateBadPlays(totalKills));
-                    }
-                } else {
-                    dto.setGoodPlays(calculateGoodPlays(totalKills));
-                    dto.setBadPlays(calculateBadPlays(totalKills));
-                }
+                dto.setGoodPlays(calculateGoodPlays(totalKills));
+                dto.setBadPlays(calculateBadPlays(totalKills));
             }
             
             dto.setDuration(calculateDuration(totalKills));
@@ -195,36 +274,152 @@ public class DatabaseMatchService {
             dto.setScore(0.0);
         }
         
-        dto.setDate(entity.getCreatedAt()); // Usar fecha y hora de creación real
-        dto.setStatus(entity.getStatus()); // Incluir estado del match
+        dto.setDate(summary.getCreatedAt()); // Usar fecha y hora de creación real
+        dto.setStatus(summary.getStatus()); // Incluir estado del match
         return dto;
     }
     
-    private MatchDto convertToDtoForUser(MatchEntity entity, String user) {
+    /**
+     * Migración one-off: persiste goodPlays/badPlays de los matches guardados antes de que el ingest
+     * los calculara. Usa los agregados de predicciones del match; solo los matches cuyas predicciones
+     * nunca se guardaron se leen desde la respuesta del ML. El incremento de versión invalida el cache.
+     */
+    @Transactional
+    public Map<String, Object> backfillMatchSummaries() {
+        long start = System.currentTimeMillis();
+        List<Long> ids = matchRepository.findIdsMissingPlays();
+        int updated = 0;
+        int failed = 0;
+        
+        for (Long id : ids) {
+            Optional<MatchEntity> matchOpt = matchRepository.findById(id);
+            if (matchOpt.isEmpty()) {
+                continue;
+            }
+            MatchEntity match = matchOpt.get();
+            try {
+                int[] playCounts = predictionAggregateService.getMatchPlays(match.getMatchId())
+                        .orElseGet(() -> readPlaysFromMlResponse(match));
+                match.setGoodPlays(playCounts[0]);
+                match.setBadPlays(playCounts[1]);
+                matchRepository.save(match);
+                updated++;
+            } catch (Exception e) {
+                System.err.println("Error backfilling plays for match " + match.getMatchId() + ": " + e.getMessage());
+                failed++;
+            }
+        }
+        
+        if (updated > 0) {
+            dashboardCache.invalidateAllAfterCommit();
+        }
+        
+        long elapsedMs = System.currentTimeMillis() - start;
+        System.out.println("✅ Backfill de resúmenes de matches: " + updated + "/" + ids.size() + " actualizados en " + elapsedMs + "ms");
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("candidates", ids.size());
+        result.put("updated", updated);
+        result.put("failed", failed);
+        result.put("elapsedMs", elapsedMs);
+        return result;
+    }
+    
+    /**
+     * Migración one-off: pasa las respuestas del ML guardadas como TEXT pretty-printed al formato
+     * comprimido. Devuelve el tamaño antes/después de cada match.
+     */
+    @Transactional
+    public Map<String, Object> compactMlResponses() {
+        long start = System.currentTimeMillis();
+        List<Long> ids = matchRepository.findIdsWithLegacyMlResponse();
+        List<Map<String, Object>> sizes = new ArrayList<>();
+        long bytesBefore = 0;
+        long bytesAfter = 0;
+        int failed = 0;
+        
+        for (Long id : ids) {
+            Optional<MatchEntity> matchOpt = matchRepository.findById(id);
+            if (matchOpt.isEmpty()) {
+                continue;
+            }
+            MatchEntity match = matchOpt.get();
+            try {
+                int before = match.getMlResponseJson().getBytes(java.nio.charset.StandardCharsets.UTF_8).length;
+                byte[] compressed = mlResponseCodec.encode(readMlResponse(match));
+                match.setMlResponseGz(compressed);
+                match.setMlResponseJson(null);
+                matchRepository.save(match);
+                
+                bytesBefore += before;
+                bytesAfter += compressed.length;
+                Map<String, Object> size = new HashMap<>();
+                size.put("matchId", match.getMatchId());
+                size.put("bytesBefore", before);
+                size.put("bytesAfter", compressed.length);
+                sizes.add(size);
+            } catch (Exception e) {
+                System.err.println("Error compacting ML response for match " + match.getMatchId() + ": " + e.getMessage());
+                failed++;
+            }
+        }
+        
+        long elapsedMs = System.currentTimeMillis() - start;
+        System.out.println("✅ Respuestas ML compactadas: " + sizes.size() + " matches, " + bytesBefore + " -> " + bytesAfter + " bytes en " + elapsedMs + "ms");
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("compacted", sizes.size());
+        result.put("failed", failed);
+        result.put("bytesBefore", bytesBefore);
+        result.put("bytesAfter", bytesAfter);
+        result.put("matches", sizes);
+        result.put("elapsedMs", elapsedMs);
+        return result;
+    }
+    
+    // Plays de un match legacy (sin predicciones guardadas) con el mismo criterio que el ingest en streaming
+    private int[] readPlaysFromMlResponse(MatchEntity match) {
+        byte[] json = match.getMlResponseGz() != null
+                ? mlResponseCodec.decodeToJson(match.getMlResponseGz()).getBytes(java.nio.charset.StandardCharsets.UTF_8)
+                : match.getMlResponseJson().getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        try {
+            MlResponseStreamReader.Summary summary = mlResponseStreamReader.read(
+                    new java.io.ByteArrayInputStream(json), null, (kill, predictions) -> { });
+            return new int[]{summary.getGoodPlays(), summary.getBadPlays()};
+        } catch (IOException e) {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> readMlResponse(MatchEntity match) throws java.io.IOException {
+        if (match.getMlResponseGz() != null) {
+            return mlResponseCodec.decode(match.getMlResponseGz());
+        }
+        return objectMapper.readValue(match.getMlResponseJson(), Map.class);
+    }
+    
+    private MatchDto convertToDtoForUser(UserMatchView match) {
         MatchDto dto = new MatchDto();
-        dto.setId(entity.getMatchId());
-        dto.setFileName(entity.getFileName());
-        dto.setHasVideo(entity.getHasVideo());
-        dto.setMap(entity.getMapName());
+        dto.setId(match.getMatchId());
+        dto.setFileName(match.getFileName());
+        dto.setHasVideo(Boolean.TRUE.equals(match.getHasVideo()));
+        dto.setMap(match.getMapName());
         dto.setGameType("Ranked"); // Default value
         
-        // Calcular estadísticas específicas del usuario
-        Long userKills = killRepository.countKillsByUserAndMatchId(user, entity.getMatchId());
-        Long userDeaths = killRepository.countDeathsByUserAndMatchId(user, entity.getMatchId());
-        
-        // Debug: verificar que los valores no sean null
-        if (userKills == null) userKills = 0L;
-        if (userDeaths == null) userDeaths = 0L;
+        // Estadísticas específicas del usuario
+        Long userKills = match.getKills() != null ? match.getKills() : 0L;
+        Long userDeaths = match.getDeaths() != null ? match.getDeaths() : 0L;
         
         dto.setKills(userKills.intValue());
         dto.setDeaths(userDeaths.intValue());
         
         // Calcular good/bad plays basado en los kills del usuario
         // Usar valores guardados del match si están disponibles (proporción del usuario)
-        if (entity.getGoodPlays() != null && entity.getBadPlays() != null && entity.getTotalKills() != null && entity.getTotalKills() > 0) {
+        if (match.getGoodPlays() != null && match.getBadPlays() != null && match.getTotalKills() != null && match.getTotalKills() > 0) {
             // Calcular proporción del usuario basada en los valores reales del match
-            double matchGoodRatio = (double) entity.getGoodPlays() / entity.getTotalKills();
-            double matchBadRatio = (double) entity.getBadPlays() / entity.getTotalKills();
+            double matchGoodRatio = (double) match.getGoodPlays() / match.getTotalKills();
+            double matchBadRatio = (double) match.getBadPlays() / match.getTotalKills();
             dto.setGoodPlays((int)(userKills.intValue() * matchGoodRatio));
             dto.setBadPlays((int)(userKills.intValue() * matchBadRatio));
         } else {
@@ -234,7 +429,7 @@ public class DatabaseMatchService {
         }
         
         // Para duración y score, usar los valores del match completo
-        Integer totalKills = entity.getTotalKills();
+        Integer totalKills = match.getTotalKills();
         if (totalKills != null) {
             dto.setDuration(calculateDuration(totalKills));
             // Usar fórmula unificada para score del usuario
@@ -245,47 +440,11 @@ public class DatabaseMatchService {
             dto.setScore(0.0);
         }
         
-        dto.setDate(entity.getCreatedAt()); // Usar fecha y hora de creación real
-        dto.setStatus(entity.getStatus()); // Incluir estado del match
+        dto.setDate(match.getCreatedAt()); // Usar fecha y hora de creación real
+        dto.setStatus(match.getStatus()); // Incluir estado del match
         return dto;
     }
     
-    private int[] calculatePlaysFromPredictions(Map<String, Object> mlResponse) {
-        int goodPlays = 0;
-        int badPlays = 0;
-        
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> predictions = (List<Map<String, Object>>) mlResponse.get("predictions");
-        
-        if (predictions != null) {
-            for (Map<String, Object> prediction : predictions) {
-                boolean isGoodPlay = false;
-                
-                @SuppressWarnings("unchecked")
-                Map<String, Object> attackerStrengths = (Map<String, Object>) prediction.get("attacker_strengths");
-                if (attackerStrengths != null) {
-                    for (Object strengthValue : attackerStrengths.values()) {
-                        if (strengthValue instanceof Number) {
-                            double strength = ((Number) strengthValue).doubleValue();
-                            if (strength > 0.5) {
-                                isGoodPlay = true;
-                                break;
-                            }
-                        }
-                    }
-                }
-                
-                if (isGoodPlay) {
-                    goodPlays++;
-                } else {
-                    badPlays++;
-                }
-            }
-        }
-        
-        return new int[]{goodPlays, badPlays};
-    }
-    
     private int calculateDeaths(int kills) {
         double seed = kills * 0.98765;
         double factor = 0.7 + (seed % 0.2);
@@ -346,18 +505,21 @@ public class DatabaseMatchService {
             }
         }
         
+        updateUserStats(usersInMatch);
+    }
+    
+    private void updateUserStats(Set<String> usersInMatch) {
         usersInMatch.forEach(this::updateGlobalUserStatsFromDatabase);
     }
     
     private void updateGlobalUserStatsFromDatabase(String userName) {
         try {
-            Long totalKillsFromDB = killRepository.countKillsByUser(userName);
-            Long totalDeathsFromDB = killRepository.countDeathsByUser(userName);
-            
-            int actualKills = (totalKillsFromDB != null) ? totalKillsFromDB.intValue() : 0;
-            int actualDeaths = (totalDeathsFromDB != null) ? totalDeathsFromDB.intValue() : 0;
+            // Totales pre-agregados (actualizados en esta misma transacción junto con los kills)
+            Optional<PlayerStatsEntity> statsOpt = playerAggregateService.getPlayerStats(userName);
             
-            int totalMatches = calculateUserMatches(userName);
+            int actualKills = statsOpt.map(stats -> stats.getKills().intValue()).orElse(0);
+            int actualDeaths = statsOpt.map(stats -> stats.getDeaths().intValue()).orElse(0);
+            int totalMatches = statsOpt.map(PlayerStatsEntity::getMatches).orElse(0);
             
             int goodPlays = calculateGoodPlays(actualKills);
             int badPlays = calculateBadPlays(actualKills);
@@ -369,13 +531,13 @@ public class DatabaseMatchService {
         }
     }
     
-    private int calculateUserMatches(String userName) {
-        try {
-            List<String> matchIds = killRepository.findDistinctMatchIdsByUser(userName);
-            return matchIds != null ? matchIds.size() : 0;
-        } catch (Exception e) {
-            System.err.println("Error calculating matches for " + userName + ": " + e.getMessage());
-            return 0;
+    private static final class CachedMatchDto {
+        private final Long version;
+        private final MatchDto dto;
+        
+        private CachedMatchDto(Long version, MatchDto dto) {
+            this.version = version;
+            this.dto = dto;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,335 @@
+package com.tacticore.lambda.service;
+
+import com.tacticore.lambda.repository.KillRepository;
+import com.tacticore.lambda.repository.MatchRepository;
+import com.tacticore.lambda.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Carga de datos demo con snapshot precompilado.
+ * En build se reproducen los JSON de demos-jsons/ una vez y se vuelca la base H2 a un script
+ * SQL comprimido (snapshot/demo-data.sql.gz dentro del jar). En el init de la Lambda o del
+ * servidor se restaura ese script con un único RUNSCRIPT en vez de parsear los JSON y guardar
+ * kill por kill. Si el snapshot no está disponible se usa el camino anterior (replay de JSON).
+ */
+@Service
+public class DemoSnapshotService {
+
+    public static final String SNAPSHOT_RESOURCE = "snapshot/demo-data.sql.gz";
+
+    private static final int ROWS_PER_INSERT = 200;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private DummyDataService dummyDataService;
+
+    @Autowired
+    private PreloadedDataService preloadedDataService;
+
+    @Autowired
+    private MatchRepository matchRepository;
+
+    @Autowired
+    private KillRepository killRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${demo.snapshot.enabled:true}")
+    private boolean snapshotEnabled;
+
+    private boolean demoDataLoaded = false;
+    private Map<String, Object> initMetrics = Collections.emptyMap();
+
+    /**
+     * Carga los datos iniciales (dummy + partidas demo) una sola vez por proceso.
+     * Usa el snapshot si existe y la base está vacía; si no, reproduce los JSON.
+     */
+    public synchronized Map<String, Object> loadDemoData() {
+        if (demoDataLoaded) {
+            return initMetrics;
+        }
+
+        long start = System.nanoTime();
+        String source = "json-replay";
+
+        if (snapshotEnabled && isSnapshotAvailable() && matchRepository.count() == 0 && restoreSnapshot()) {
+            source = "snapshot";
+        } else {
+            System.out.println("Inicializando datos dummy (maps, weapons, analytics)...");
+            dummyDataService.loadDummyData();
+            System.out.println("Inicializando todas las partidas demo (incluye usuarios con roles aleatorios)...");
+            preloadedDataService.loadAllDemoMatches();
+        }
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("source", source);
+        metrics.put("elapsedMs", elapsedMs);
+        metrics.put("matches", matchRepository.count());
+        metrics.put("kills", killRepository.count());
+        metrics.put("users", userRepository.count());
+        initMetrics = Collections.unmodifiableMap(metrics);
+        demoDataLoaded = true;
+
+        System.out.println("⏱️ Datos demo cargados desde " + source + " en " + elapsedMs + " ms " + initMetrics);
+        return initMetrics;
+    }
+
+    /**
+     * Métricas de la última carga inicial (origen, duración y filas cargadas)
+     */
+    public synchronized Map<String, Object> getInitMetrics() {
+        return initMetrics;
+    }
+
+    public boolean isSnapshotAvailable() {
+        return new ClassPathResource(SNAPSHOT_RESOURCE).exists();
+    }
+
+    /**
+     * Restaura el snapshot en una sola transacción. Devuelve false (y deja la base como estaba)
+     * si el script falla, por ejemplo porque el esquema cambió y el snapshot quedó viejo.
+     */
+    public boolean restoreSnapshot() {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("RUNSCRIPT FROM 'classpath:/" + SNAPSHOT_RESOURCE + "' COMPRESSION GZIP");
+                connection.commit();
+                System.out.println("📦 Snapshot de datos demo restaurado desde " + SNAPSHOT_RESOURCE);
+                return true;
+            } catch (SQLException e) {
+                connection.rollback();
+                System.err.println("⚠️ No se pudo restaurar el snapshot, se usarán los JSON: " + e.getMessage());
+                return false;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            System.err.println("⚠️ Error obteniendo conexión para restaurar snapshot: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Vuelca todas las tablas a un script SQL comprimido con INSERTs multi-fila ordenados por PK.
+     * Las columnas created_at/updated_at se escriben como LOCALTIMESTAMP para que el archivo sea
+     * reproducible entre builds y las fechas queden en el momento del restore, como en el replay.
+     */
+    public void exportSnapshot(Path target) throws IOException, SQLException {
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+
+        try (Connection connection = dataSource.getConnection();
+             Writer writer = new BufferedWriter(new OutputStreamWriter(
+                 new GZIPOutputStream(Files.newOutputStream(target)), StandardCharsets.UTF_8))) {
+
+            writer.write("-- TactiCore demo snapshot. Generado por DemoSnapshotGenerator, no editar.\n");
+            List<String> tables = listTables(connection);
+            List<String> restarts = new ArrayList<>();
+            int totalRows = 0;
+
+            for (String table : tables) {
+                totalRows += dumpTable(connection, table, writer);
+                String identity = findIdentityColumn(connection, table);
+                if (identity != null) {
+                    long next = nextIdentityValue(connection, table, identity);
+                    restarts.add("ALTER TABLE " + quote(table) + " ALTER COLUMN " + quote(identity)
+                        + " RESTART WITH " + next + ";\n");
+                }
+            }
+            restarts.addAll(sequenceRestarts(connection));
+            for (String restart : restarts) {
+                writer.write(restart);
+            }
+
+            System.out.println("📦 Snapshot generado en " + target + ": " + tables.size() + " tablas, " + totalRows + " filas");
+        }
+    }
+
+    private List<String> listTables(Connection connection) throws SQLException {
+        List<String> tables = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                 "SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES " +
+                 "WHERE TABLE_SCHEMA = 'PUBLIC' AND TABLE_TYPE = 'BASE TABLE' ORDER BY TABLE_NAME")) {
+            while (rs.next()) {
+                tables.add(rs.getString(1));
+            }
+        }
+        return tables;
+    }
+
+    private int dumpTable(Connection connection, String table, Writer writer) throws SQLException, IOException {
+        int rows = 0;
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT * FROM " + quote(table) + " ORDER BY " + orderByPrimaryKey(connection, table))) {
+            ResultSetMetaData meta = rs.getMetaData();
+            int columns = meta.getColumnCount();
+
+            StringBuilder header = new StringBuilder("INSERT INTO ").append(quote(table)).append('(');
+            for (int i = 1; i <= columns; i++) {
+                header.append(i > 1 ? ", " : "").append(quote(meta.getColumnName(i)));
+            }
+            header.append(") VALUES\n");
+
+            int rowsInStatement = 0;
+            while (rs.next()) {
+                writer.write(rowsInStatement == 0 ? header.toString() : ",\n");
+                writer.write('(');
+                for (int i = 1; i <= columns; i++) {
+                    if (i > 1) {
+                        writer.write(", ");
+                    }
+                    writer.write(literal(rs, meta, i));
+                }
+                writer.write(')');
+                rows++;
+                if (++rowsInStatement == ROWS_PER_INSERT) {
+                    writer.write(";\n");
+                    rowsInStatement = 0;
+                }
+            }
+            if (rowsInStatement > 0) {
+                writer.write(";\n");
+            }
+        }
+        return rows;
+    }
+
+    private String orderByPrimaryKey(Connection connection, String table) throws SQLException {
+        Map<Short, String> columns = new TreeMap<>();
+        try (ResultSet rs = connection.getMetaData().getPrimaryKeys(null, "PUBLIC", table)) {
+            while (rs.next()) {
+                columns.put(rs.getShort("KEY_SEQ"), quote(rs.getString("COLUMN_NAME")));
+            }
+        }
+        return columns.isEmpty() ? "1" : String.join(", ", columns.values());
+    }
+
+    private String literal(ResultSet rs, ResultSetMetaData meta, int column) throws SQLException {
+        String name = meta.getColumnName(column);
+        int type = meta.getColumnType(column);
+
+        switch (type) {
+            case Types.CLOB, Types.NCLOB, Types.LONGVARCHAR, Types.LONGNVARCHAR, Types.VARCHAR,
+                 Types.NVARCHAR, Types.CHAR, Types.NCHAR -> {
+                String value = rs.getString(column);
+                return value == null ? "NULL" : "'" + value.replace("'", "''") + "'";
+            }
+            case Types.BLOB, Types.BINARY, Types.VARBINARY, Types.LONGVARBINARY -> {
+                byte[] value = rs.getBytes(column);
+                return value == null ? "NULL" : "X'" + toHex(value) + "'";
+            }
+            case Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE -> {
+                Object value = rs.getObject(column);
+                if (value == null) {
+                    return "NULL";
+                }
+                if ("CREATED_AT".equalsIgnoreCase(name) || "UPDATED_AT".equalsIgnoreCase(name)) {
+                    return "LOCALTIMESTAMP";
+                }
+                return "TIMESTAMP '" + rs.getTimestamp(column) + "'";
+            }
+            case Types.DATE -> {
+                java.sql.Date value = rs.getDate(column);
+                return value == null ? "NULL" : "DATE '" + value + "'";
+            }
+            case Types.BOOLEAN, Types.BIT -> {
+                boolean value = rs.getBoolean(column);
+                return rs.wasNull() ? "NULL" : (value ? "TRUE" : "FALSE");
+            }
+            default -> {
+                Object value = rs.getObject(column);
+                if (value == null) {
+                    return "NULL";
+                }
+                if (value instanceof Double d && !Double.isFinite(d)) {
+                    return "CAST('" + d + "' AS DOUBLE PRECISION)";
+                }
+                if (value instanceof Number) {
+                    return value.toString();
+                }
+                return "'" + value.toString().replace("'", "''") + "'";
+            }
+        }
+    }
+
+    private String findIdentityColumn(Connection connection, String table) throws SQLException {
+        try (var statement = connection.prepareStatement(
+                 "SELECT COLUMN_NAME FROM INFORMATION_SCHEMA.COLUMNS " +
+                 "WHERE TABLE_SCHEMA = 'PUBLIC' AND TABLE_NAME = ? AND IS_IDENTITY = 'YES'")) {
+            statement.setString(1, table);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
+    private long nextIdentityValue(Connection connection, String table, String column) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                 "SELECT COALESCE(MAX(" + quote(column) + "), 0) + 1 FROM " + quote(table))) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Secuencias explícitas (no de columnas identity) con el próximo valor a generar
+     */
+    private List<String> sequenceRestarts(Connection connection) throws SQLException {
+        List<String> restarts = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                 "SELECT SEQUENCE_NAME, BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES " +
+                 "WHERE SEQUENCE_SCHEMA = 'PUBLIC' ORDER BY SEQUENCE_NAME")) {
+            while (rs.next()) {
+                restarts.add("ALTER SEQUENCE " + quote(rs.getString(1)) + " RESTART WITH " + rs.getLong(2) + ";\n");
+            }
+        }
+        return restarts;
+    }
+
+    private static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,474 @@
+package com.tacticore.lambda.service;
+
+import com.tacticore.lambda.model.KillEntity;
+import com.tacticore.lambda.model.MapTransform;
+import com.tacticore.lambda.repository.KillRepository;
+import com.tacticore.lambda.repository.MatchRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Heatmaps de posiciones de kills por mapa sobre una grilla de la imagen del mapa (1024x1024), con la
+ * misma transformación juego -> imagen que usa el ML (MapTransformRegistry).
+ *
+ * Cada kill se binnea una sola vez a una celda de la grilla base ({@code heatmap.base-resolution} celdas
+ * por lado). Por mapa se mantienen tiles precalculados por rol (atacante/víctima) y lado, así un heatmap
+ * sin filtro de arma ni jugador es la suma de uno o dos tiles; con esos filtros se recorren las celdas ya
+ * binneadas de los kills del mapa. La grilla pedida sale de agrupar celdas base y viaja como RLE.
+ *
+ * Se carga completo desde kills la primera vez que se consulta; KillIngestService le pasa cada batch al
+ * confirmarse y se binnea en la siguiente consulta (con una consulta por los mapas de los matches nuevos).
+ */
+@Service
+public class HeatmapService {
+
+    public static final String ATTACKER = "attacker";
+    public static final String VICTIM = "victim";
+
+    private static final int LOAD_PAGE_SIZE = 50_000;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int QUANTIZED_LEVELS = 255;
+    private static final int NO_CELL = -1;
+    // Con más kills sin mapa que esto se recarga desde la tabla en lugar de seguir reintentando
+    private static final int MAX_UNRESOLVED = 10_000;
+
+    @Autowired
+    private KillRepository killRepository;
+
+    @Autowired
+    private MatchRepository matchRepository;
+
+    @Autowired
+    private MapTransformRegistry mapTransformRegistry;
+
+    @Value("${heatmap.base-resolution:128}")
+    private int baseResolution;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Queue<KillEntity> pending = new ConcurrentLinkedQueue<>();
+    // Kills confirmados cuyo match todavía no tiene mapa; siguen pendientes hasta resolverlo o recargar
+    private volatile List<KillEntity> unresolved = new ArrayList<>();
+    private volatile boolean loaded;
+
+    private StringDictionary players = new StringDictionary();
+    private StringDictionary weapons = new StringDictionary();
+    private StringDictionary sides = new StringDictionary();
+    private Map<String, MapGrid> grids = new HashMap<>();
+    private long[] loadedIds = new long[0];
+    private int loadedSize;
+
+    /**
+     * Encola un batch de kills recién insertado para cuando su transacción confirma
+     * (si se revierte, el heatmap no lo ve). Sin transacción activa se encola en el momento.
+     */
+    public void appendAfterCommit(Collection<KillEntity> kills) {
+        if (kills == null || kills.isEmpty()) {
+            return;
+        }
+        List<KillEntity> batch = new ArrayList<>(kills);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(batch);
+                }
+            });
+        } else {
+            enqueue(batch);
+        }
+    }
+
+    /**
+     * Descarta el contenido cuando confirma la transacción (borrado de kills o nueva transformación
+     * de un mapa); la próxima consulta recarga
+     */
+    public void invalidateAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate();
+                }
+            });
+        } else {
+            invalidate();
+        }
+    }
+
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            reset();
+            loaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Recarga todo desde kills (con el mapa de su match), por páginas ordenadas por id
+     */
+    public int reload() {
+        lock.writeLock().lock();
+        try {
+            long start = System.currentTimeMillis();
+            reset();
+            long afterId = Long.MIN_VALUE;
+            int rows = 0;
+            List<Object[]> page;
+            do {
+                page = killRepository.findHeatmapColumnsAfter(afterId, PageRequest.of(0, LOAD_PAGE_SIZE));
+                if (loadedIds.length < rows + page.size()) {
+                    loadedIds = Arrays.copyOf(loadedIds, Math.max(rows + page.size(), loadedIds.length * 2));
+                }
+                for (Object[] row : page) {
+                    loadedIds[rows++] = (Long) row[0];
+                    addRow((String) row[1], (String) row[2], (String) row[3], (String) row[4], (String) row[5],
+                        (Double) row[6], (Double) row[7], (Double) row[8], (Double) row[9]);
+                }
+                if (!page.isEmpty()) {
+                    afterId = (Long) page.get(page.size() - 1)[0];
+                }
+            } while (page.size() == LOAD_PAGE_SIZE);
+            loadedSize = rows;
+            loaded = true;
+            System.out.println("🗺️ HeatmapService: " + rows + " kills binneados en " + grids.size() + " mapas ("
+                + baseResolution + "x" + baseResolution + ") en " + (System.currentTimeMillis() - start) + " ms");
+            return rows;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Heatmap de un mapa: kills por celda de una grilla {@code resolution}x{@code resolution} sobre la imagen
+     * del mapa, en la posición del atacante o de la víctima según {@code role}. {@code side} filtra por la
+     * columna side del kill (lado del atacante); side, weapon y user son opcionales.
+     *
+     * @param quantize true: celdas en 0..255 relativas a la celda máxima (cualquier celda con kills >= 1);
+     *                 false: cantidades exactas
+     */
+    public Map<String, Object> getHeatmap(String mapName, String side, String weapon, String user, String role,
+                                          Integer resolution, boolean quantize) {
+        if (mapName == null || mapName.isEmpty()) {
+            throw new IllegalArgumentException("El parámetro map es obligatorio");
+        }
+        String heatmapRole = role != null ? role : ATTACKER;
+        if (!ATTACKER.equals(heatmapRole) && !VICTIM.equals(heatmapRole)) {
+            throw new IllegalArgumentException("role debe ser attacker o victim");
+        }
+        int gridSize = resolution != null ? resolution : Math.min(64, baseResolution);
+        if (gridSize <= 0 || gridSize > baseResolution || baseResolution % gridSize != 0) {
+            throw new IllegalArgumentException("resolution debe dividir a " + baseResolution);
+        }
+
+        ensureLoaded();
+        drainPending();
+        int[] base;
+        MapTransform transform;
+        lock.readLock().lock();
+        try {
+            MapGrid grid = grids.get(mapName);
+            transform = grid != null ? grid.transform : mapTransformRegistry.get(mapName);
+            base = grid != null ? grid.count(VICTIM.equals(heatmapRole), side, weapon, user) : new int[0];
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        int[] cells = downsample(base, gridSize);
+        long total = 0;
+        int max = 0;
+        for (int count : cells) {
+            total += count;
+            max = Math.max(max, count);
+        }
+
+        Map<String, Object> heatmap = new LinkedHashMap<>();
+        heatmap.put("map", mapName);
+        heatmap.put("role", heatmapRole);
+        if (side != null) heatmap.put("side", side);
+        if (weapon != null) heatmap.put("weapon", weapon);
+        if (user != null) heatmap.put("user", user);
+        heatmap.put("resolution", gridSize);
+        heatmap.put("cellSize", (double) MapTransform.IMAGE_SIZE / gridSize);
+        Map<String, Object> transformParameters = new LinkedHashMap<>();
+        transformParameters.put("pos_x", transform.getPosX());
+        transformParameters.put("pos_y", transform.getPosY());
+        transformParameters.put("scale", transform.getScale());
+        transformParameters.put("offset_x", transform.getOffsetX());
+        transformParameters.put("offset_y", transform.getOffsetY());
+        heatmap.put("transform", transformParameters);
+        heatmap.put("totalKills", total);
+        heatmap.put("maxCount", max);
+        heatmap.put("encoding", quantize ? "rle-quantized" : "rle");
+        if (quantize) {
+            heatmap.put("levels", QUANTIZED_LEVELS);
+            quantize(cells, max);
+        }
+        heatmap.put("cells", runLengthEncode(cells));
+        return heatmap;
+    }
+
+    int getBaseResolution() {
+        return baseResolution;
+    }
+
+    /**
+     * Celda de la grilla base (fila por fila desde arriba a la izquierda) de una posición del juego;
+     * -1 si no hay posición o cae fuera de la imagen
+     */
+    static int cellOf(MapTransform transform, int gridSize, double gameX, double gameY) {
+        double imageX = transform.toImageX(gameX);
+        double imageY = transform.toImageY(gameY);
+        if (!(imageX >= 0 && imageX < MapTransform.IMAGE_SIZE && imageY >= 0 && imageY < MapTransform.IMAGE_SIZE)) {
+            return NO_CELL;
+        }
+        int column = (int) (imageX * gridSize / MapTransform.IMAGE_SIZE);
+        int row = (int) (imageY * gridSize / MapTransform.IMAGE_SIZE);
+        return row * gridSize + column;
+    }
+
+    /**
+     * Pares [valor, repeticiones] en orden de celdas
+     */
+    static int[] runLengthEncode(int[] cells) {
+        int[] runs = new int[16];
+        int size = 0;
+        int i = 0;
+        while (i < cells.length) {
+            int value = cells[i];
+            int start = i;
+            while (i < cells.length && cells[i] == value) {
+                i++;
+            }
+            if (size + 2 > runs.length) {
+                runs = Arrays.copyOf(runs, runs.length * 2);
+            }
+            runs[size++] = value;
+            runs[size++] = i - start;
+        }
+        return Arrays.copyOf(runs, size);
+    }
+
+    private static void quantize(int[] cells, int max) {
+        if (max == 0) {
+            return;
+        }
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] > 0) {
+                cells[i] = Math.max(1, (int) Math.round((double) cells[i] * QUANTIZED_LEVELS / max));
+            }
+        }
+    }
+
+    private int[] downsample(int[] base, int gridSize) {
+        int[] cells = new int[gridSize * gridSize];
+        if (base.length == 0) {
+            return cells;
+        }
+        int factor = baseResolution / gridSize;
+        for (int row = 0; row < baseResolution; row++) {
+            int outRow = (row / factor) * gridSize;
+            int baseRow = row * baseResolution;
+            for (int column = 0; column < baseResolution; column++) {
+                cells[outRow + column / factor] += base[baseRow + column];
+            }
+        }
+        return cells;
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            lock.writeLock().lock();
+            try {
+                if (!loaded) {
+                    reload();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void enqueue(List<KillEntity> batch) {
+        // Sin cargar: la carga inicial ya va a leer estas filas desde la tabla
+        if (loaded) {
+            pending.addAll(batch);
+        }
+    }
+
+    // Binnea los kills confirmados desde la última consulta y los que antes no tenían mapa
+    private void drainPending() {
+        if (pending.isEmpty() && unresolved.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            List<KillEntity> batch = unresolved;
+            unresolved = new ArrayList<>();
+            KillEntity kill;
+            while ((kill = pending.poll()) != null) {
+                batch.add(kill);
+            }
+            if (batch.isEmpty() || !loaded) {
+                return;
+            }
+            Set<String> matchIds = new HashSet<>();
+            batch.forEach(k -> matchIds.add(k.getMatchId()));
+            Map<String, String> mapByMatch = matchRepository.getMapNamesByMatchIds(matchIds);
+            long loadedMaxId = loadedSize > 0 ? loadedIds[loadedSize - 1] : Long.MIN_VALUE;
+            for (KillEntity k : batch) {
+                Long id = k.getId();
+                // Un batch confirmado mientras corría la carga puede haber entrado en ella
+                if (id != null && id <= loadedMaxId && Arrays.binarySearch(loadedIds, 0, loadedSize, id) >= 0) {
+                    continue;
+                }
+                String mapName = mapByMatch.get(k.getMatchId());
+                if (mapName != null) {
+                    addRow(mapName, k.getAttacker(), k.getVictim(), k.getWeapon(), k.getSide(),
+                        k.getAttackerX(), k.getAttackerY(), k.getVictimX(), k.getVictimY());
+                } else {
+                    unresolved.add(k);
+                }
+            }
+            if (unresolved.size() > MAX_UNRESOLVED) {
+                // La carga desde la tabla toma los kills cuyo match ya tiene mapa
+                System.out.println("🗺️ HeatmapService: " + unresolved.size() + " kills sin mapa, recargando");
+                reload();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addRow(String mapName, String attackerName, String victimName, String weaponName, String sideName,
+                        Double ax, Double ay, Double vx, Double vy) {
+        MapGrid grid = grids.computeIfAbsent(mapName, name -> new MapGrid(mapTransformRegistry.get(name)));
+        int sideCode = sides.encode(sideName);
+        int attackerCell = ax != null && ay != null ? cellOf(grid.transform, baseResolution, ax, ay) : NO_CELL;
+        int victimCell = vx != null && vy != null ? cellOf(grid.transform, baseResolution, vx, vy) : NO_CELL;
+        grid.add(players.encode(attackerName), players.encode(victimName), weapons.encode(weaponName), sideCode,
+            attackerCell, victimCell);
+    }
+
+    private void reset() {
+        players = new StringDictionary();
+        weapons = new StringDictionary();
+        sides = new StringDictionary();
+        grids = new HashMap<>();
+        loadedIds = new long[0];
+        loadedSize = 0;
+        pending.clear();
+        unresolved = new ArrayList<>();
+    }
+
+    /**
+     * Kills de un mapa: celdas base de atacante y víctima ya binneadas, códigos de jugador/arma/lado
+     * y tiles por rol y lado
+     */
+    private final class MapGrid {
+        final MapTransform transform;
+        // tiles[0] atacante, tiles[1] víctima; un int[base*base] por código de lado
+        final List<List<int[]>> tiles = List.of(new ArrayList<>(), new ArrayList<>());
+
+        int size;
+        int[] attacker = new int[0];
+        int[] victim = new int[0];
+        int[] weapon = new int[0];
+        int[] side = new int[0];
+        int[] attackerCell = new int[0];
+        int[] victimCell = new int[0];
+
+        MapGrid(MapTransform transform) {
+            this.transform = transform;
+        }
+
+        void add(int attackerCode, int victimCode, int weaponCode, int sideCode, int attackerAt, int victimAt) {
+            if (size == attacker.length) {
+                int capacity = Math.max(INITIAL_CAPACITY, size + (size >> 1));
+                attacker = Arrays.copyOf(attacker, capacity);
+                victim = Arrays.copyOf(victim, capacity);
+                weapon = Arrays.copyOf(weapon, capacity);
+                side = Arrays.copyOf(side, capacity);
+                attackerCell = Arrays.copyOf(attackerCell, capacity);
+                victimCell = Arrays.copyOf(victimCell, capacity);
+            }
+            int i = size++;
+            attacker[i] = attackerCode;
+            victim[i] = victimCode;
+            weapon[i] = weaponCode;
+            side[i] = sideCode;
+            attackerCell[i] = attackerAt;
+            victimCell[i] = victimAt;
+            if (attackerAt != NO_CELL) {
+                tile(0, sideCode)[attackerAt]++;
+            }
+            if (victimAt != NO_CELL) {
+                tile(1, sideCode)[victimAt]++;
+            }
+        }
+
+        /**
+         * Cantidades por celda base; sin arma ni jugador sale de los tiles, si no recorre los kills del mapa
+         */
+        int[] count(boolean byVictim, String sideName, String weaponName, String user) {
+            int[] counts = new int[baseResolution * baseResolution];
+            int sideCode = sideName != null ? sides.find(sideName) : -1;
+            if (sideName != null && sideCode < 0) {
+                return counts;
+            }
+            List<int[]> roleTiles = tiles.get(byVictim ? 1 : 0);
+            if (weaponName == null && user == null) {
+                for (int code = 0; code < roleTiles.size(); code++) {
+                    int[] tile = roleTiles.get(code);
+                    if (tile != null && (sideName == null || code == sideCode)) {
+                        for (int cell = 0; cell < counts.length; cell++) {
+                            counts[cell] += tile[cell];
+                        }
+                    }
+                }
+                return counts;
+            }
+
+            int weaponCode = weaponName != null ? weapons.find(weaponName) : -1;
+            int playerCode = user != null ? players.find(user) : -1;
+            if ((weaponName != null && weaponCode < 0) || (user != null && playerCode < 0)) {
+                return counts;
+            }
+            int[] cells = byVictim ? victimCell : attackerCell;
+            int[] roleColumn = byVictim ? victim : attacker;
+            for (int i = 0; i < size; i++) {
+                int cell = cells[i];
+                if (cell == NO_CELL
+                    || (sideName != null && side[i] != sideCode)
+                    || (weaponName != null && weapon[i] != weaponCode)
+                    || (user != null && roleColumn[i] != playerCode)) {
+                    continue;
+                }
+                counts[cell]++;
+            }
+            return counts;
+        }
+
+        private int[] tile(int role, int sideCode) {
+            List<int[]> roleTiles = tiles.get(role);
+            while (roleTiles.size() <= sideCode) {
+                roleTiles.add(null);
+            }
+            int[] tile = roleTiles.get(sideCode);
+            if (tile == null) {
+                tile = new int[baseResolution * baseResolution];
+                roleTiles.set(sideCode, tile);
+            }
+            return tile;
+        }
+    }
+}
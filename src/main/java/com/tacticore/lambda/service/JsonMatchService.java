@@ -1,22 +1,54 @@
 package com.tacticore.lambda.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.Lifecycle;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.*;
 
 /**
  * Servicio para leer datos de partidas directamente desde archivos JSON
  * Mantiene el formato completo con coordenadas de imagen del modelo ML
+ *
+ * Los documentos parseados se cachean por ruta (LRU acotado por el tamaño de los archivos) y los
+ * nombres de archivo de los directorios de búsqueda se indexan una vez; un WatchService sobre esos
+ * directorios invalida la entrada de un archivo modificado o borrado y reconstruye el índice.
+ * El WatchService se cierra antes de un checkpoint de CRaC (Lifecycle.stop) y se reabre al restaurar.
  */
 @Service
-public class JsonMatchService {
+public class JsonMatchService implements Lifecycle {
     
     private final ObjectMapper objectMapper = new ObjectMapper();
     
+    @Value("${json.match.search-paths:demos-jsons,../PFI-2025/demos-jsons,./demos-jsons}")
+    private String[] searchPaths;
+    
+    @Value("${json.match.cache.max-bytes:33554432}")
+    private long cacheMaxBytes;
+    
+    @Value("${json.match.cache.watch:true}")
+    private boolean watchFiles;
+    
+    private ByteBoundedLruCache<Path, Map<String, Object>> documentCache;
+    
+    // Archivos .json de cada directorio de búsqueda, en el orden de searchPaths
+    private volatile List<IndexedFile> fileIndex = List.of();
+    
+    private volatile WatchService watchService;
+    private Thread watchThread;
+    
     // Mapeo de matchIds a archivos JSON
     // Puedes extender este mapa para incluir más partidas
     private static final Map<String, String> MATCH_JSON_MAP = new HashMap<>();
@@ -47,6 +79,70 @@ public class JsonMatchService {
         // Agregar más mappings según sea necesario
     }
     
+    public JsonMatchService() {
+    }
+    
+    public JsonMatchService(String[] searchPaths, long cacheMaxBytes, boolean watchFiles) {
+        this.searchPaths = searchPaths;
+        this.cacheMaxBytes = cacheMaxBytes;
+        this.watchFiles = watchFiles;
+    }
+    
+    @PostConstruct
+    void init() {
+        documentCache = new ByteBoundedLruCache<>(cacheMaxBytes);
+        rebuildFileIndex();
+        if (watchFiles) {
+            startWatching();
+        }
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        stop();
+    }
+    
+    /**
+     * Al restaurar: los archivos pudieron cambiar mientras no se observaban, se descarta el cache
+     */
+    @Override
+    public synchronized void start() {
+        if (!watchFiles || watchService != null) {
+            return;
+        }
+        documentCache.invalidateAll();
+        rebuildFileIndex();
+        startWatching();
+    }
+    
+    @Override
+    public synchronized void stop() {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.err.println("Error cerrando el WatchService de JSON de partidas: " + e.getMessage());
+        }
+        watchService = null;
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return watchService != null;
+    }
+    
+    /**
+     * Hits, misses, evictions e invalidaciones del cache de documentos, más el tamaño del índice
+     */
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(documentCache.getStats());
+        stats.put("indexedFiles", fileIndex.size());
+        stats.put("watching", watchThread != null && watchThread.isAlive());
+        return stats;
+    }
+    
     /**
      * Obtiene el archivo JSON asociado a un matchId
      */
@@ -56,22 +152,11 @@ public class JsonMatchService {
             return jsonPath;
         }
         
-        String[] searchPaths = {"demos-jsons", "../PFI-2025/demos-jsons", "./demos-jsons"};
-        
-        for (String searchPath : searchPaths) {
-            File jsonDir = new File(searchPath);
-            if (jsonDir.exists() && jsonDir.isDirectory()) {
-                File[] jsonFiles = jsonDir.listFiles((dir, name) -> name.endsWith(".json"));
-                if (jsonFiles != null) {
-                    String matchIdLower = matchId.toLowerCase();
-                    for (File jsonFile : jsonFiles) {
-                        String fileName = jsonFile.getName().toLowerCase().replace(".json", "");
-                        if (fileName.contains(matchIdLower) || matchIdLower.contains(fileName) || 
-                            fileName.equals(matchIdLower) || matchIdLower.equals(fileName)) {
-                            return jsonFile.getPath();
-                        }
-                    }
-                }
+        String matchIdLower = matchId.toLowerCase();
+        for (IndexedFile indexed : fileIndex) {
+            String fileName = indexed.baseNameLower;
+            if (fileName.contains(matchIdLower) || matchIdLower.contains(fileName)) {
+                return indexed.path;
             }
         }
         
@@ -96,30 +181,21 @@ public class JsonMatchService {
             "de_" + baseName + "1.json"
         };
         
-        String[] searchPaths = {"demos-jsons", "../PFI-2025/demos-jsons", "./demos-jsons"};
-        
+        List<IndexedFile> index = fileIndex;
         for (String searchPath : searchPaths) {
             for (String jsonFileName : jsonFileVariations) {
-                File jsonFile = new File(searchPath, jsonFileName);
-                if (jsonFile.exists()) {
-                    return jsonFile.getPath();
+                for (IndexedFile indexed : index) {
+                    if (indexed.searchPath.equals(searchPath) && indexed.fileName.equals(jsonFileName)) {
+                        return indexed.path;
+                    }
                 }
             }
         }
         
-        for (String searchPath : searchPaths) {
-            File jsonDir = new File(searchPath);
-            if (jsonDir.exists() && jsonDir.isDirectory()) {
-                File[] jsonFiles = jsonDir.listFiles((dir, name) -> name.endsWith(".json"));
-                if (jsonFiles != null) {
-                    for (File jsonFile : jsonFiles) {
-                        String jsonFileName = jsonFile.getName().toLowerCase().replace(".json", "");
-                        if (jsonFileName.contains(baseNameLower) || baseNameLower.contains(jsonFileName) ||
-                            jsonFileName.equals(baseNameLower)) {
-                            return jsonFile.getPath();
-                        }
-                    }
-                }
+        for (IndexedFile indexed : index) {
+            String jsonFileName = indexed.baseNameLower;
+            if (jsonFileName.contains(baseNameLower) || baseNameLower.contains(jsonFileName)) {
+                return indexed.path;
             }
         }
         
@@ -127,28 +203,7 @@ public class JsonMatchService {
     }
     
     public Map<String, Object> getMatchDataFromJson(String matchId) {
-        String jsonPath = getJsonPathForMatch(matchId);
-        
-        if (jsonPath == null) {
-            return null;
-        }
-        
-        File jsonFile = new File(jsonPath);
-        if (!jsonFile.exists()) {
-            return null;
-        }
-        
-        try {
-            JsonNode rootNode = objectMapper.readTree(jsonFile);
-            
-            @SuppressWarnings("unchecked")
-            Map<String, Object> result = objectMapper.convertValue(rootNode, Map.class);
-            
-            return result;
-        } catch (IOException e) {
-            System.err.println("Error reading JSON file " + jsonPath + ": " + e.getMessage());
-            return null;
-        }
+        return loadDocument(getJsonPathForMatch(matchId));
     }
     
     public Map<String, Object> getMatchKillsFromJson(String matchId, String user) {
@@ -303,58 +358,42 @@ public class JsonMatchService {
     }
     
     public Map<String, Object> getMatchKillsFromJsonByFileName(String matchId, String fileName, String user) {
-        String jsonPath = getJsonPathForMatchByFileName(matchId, fileName);
-        
-        if (jsonPath == null) {
+        Map<String, Object> fullData = loadDocument(getJsonPathForMatchByFileName(matchId, fileName));
+        if (fullData == null) {
             return null;
         }
         
-        File jsonFile = new File(jsonPath);
-        if (!jsonFile.exists()) {
-            return null;
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> predictions = (List<Map<String, Object>>) fullData.get("predictions");
+        if (predictions == null) {
+            return fullData;
         }
         
-        try {
-            JsonNode rootNode = objectMapper.readTree(jsonFile);
+        if (user != null && !user.isEmpty()) {
+            List<Map<String, Object>> filteredPredictions = new ArrayList<>();
             
-            @SuppressWarnings("unchecked")
-            Map<String, Object> fullData = objectMapper.convertValue(rootNode, Map.class);
-            
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> predictions = (List<Map<String, Object>>) fullData.get("predictions");
-            if (predictions == null) {
-                return fullData;
-            }
-            
-            if (user != null && !user.isEmpty()) {
-                List<Map<String, Object>> filteredPredictions = new ArrayList<>();
-                
-                for (Map<String, Object> prediction : predictions) {
-                    String attacker = getNestedString(prediction, "attacker");
-                    String attackerName = getNestedString(prediction, "context", "attacker_name");
-                    String victim = getNestedString(prediction, "victim");
-                    String victimName = getNestedString(prediction, "context", "victim_name");
-                    
-                    String actualAttacker = attackerName != null ? attackerName : attacker;
-                    String actualVictim = victimName != null ? victimName : victim;
-                    
-                    if (user.equalsIgnoreCase(actualAttacker) || user.equalsIgnoreCase(actualVictim)) {
-                        filteredPredictions.add(prediction);
-                    }
-                }
+            for (Map<String, Object> prediction : predictions) {
+                String attacker = getNestedString(prediction, "attacker");
+                String attackerName = getNestedString(prediction, "context", "attacker_name");
+                String victim = getNestedString(prediction, "victim");
+                String victimName = getNestedString(prediction, "context", "victim_name");
                 
-                Map<String, Object> filteredData = new HashMap<>(fullData);
-                filteredData.put("predictions", filteredPredictions);
-                filteredData.put("total_kills", filteredPredictions.size());
+                String actualAttacker = attackerName != null ? attackerName : attacker;
+                String actualVictim = victimName != null ? victimName : victim;
                 
-                return filteredData;
+                if (user.equalsIgnoreCase(actualAttacker) || user.equalsIgnoreCase(actualVictim)) {
+                    filteredPredictions.add(prediction);
+                }
             }
             
-            return fullData;
-        } catch (IOException e) {
-            System.err.println("Error reading JSON file " + jsonPath + ": " + e.getMessage());
-            return null;
+            Map<String, Object> filteredData = new HashMap<>(fullData);
+            filteredData.put("predictions", filteredPredictions);
+            filteredData.put("total_kills", filteredPredictions.size());
+            
+            return filteredData;
         }
+        
+        return fullData;
     }
     
     @SuppressWarnings("unchecked")
@@ -373,5 +412,124 @@ public class JsonMatchService {
         return current != null ? current.toString() : null;
     }
     
+    /**
+     * Documento de un archivo JSON desde el cache, o parseado una sola vez (readValue directo a Map).
+     * El Map es compartido entre requests: quien lo recibe no debe modificarlo.
+     */
+    private Map<String, Object> loadDocument(String jsonPath) {
+        if (jsonPath == null) {
+            return null;
+        }
+        
+        File jsonFile = new File(jsonPath);
+        Path key = jsonFile.toPath().toAbsolutePath().normalize();
+        Map<String, Object> cached = documentCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        if (!jsonFile.exists()) {
+            return null;
+        }
+        
+        long generation = documentCache.generation();
+        try {
+            long bytes = jsonFile.length();
+            @SuppressWarnings("unchecked")
+            Map<String, Object> document = objectMapper.readValue(jsonFile, Map.class);
+            documentCache.putIfGeneration(key, document, bytes, generation);
+            return document;
+        } catch (IOException e) {
+            System.err.println("Error reading JSON file " + jsonPath + ": " + e.getMessage());
+            return null;
+        }
+    }
+    
+    private void rebuildFileIndex() {
+        List<IndexedFile> index = new ArrayList<>();
+        for (String searchPath : searchPaths) {
+            File[] jsonFiles = new File(searchPath).listFiles((dir, name) -> name.endsWith(".json"));
+            if (jsonFiles == null) {
+                continue;
+            }
+            Arrays.sort(jsonFiles);
+            for (File jsonFile : jsonFiles) {
+                index.add(new IndexedFile(searchPath, jsonFile));
+            }
+        }
+        fileIndex = List.copyOf(index);
+    }
+    
+    private void startWatching() {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            Set<Path> watched = new HashSet<>();
+            for (String searchPath : searchPaths) {
+                File dir = new File(searchPath);
+                Path path = dir.toPath().toAbsolutePath().normalize();
+                if (dir.isDirectory() && watched.add(path)) {
+                    path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                }
+            }
+            if (watched.isEmpty()) {
+                watchService.close();
+                watchService = null;
+                return;
+            }
+            WatchService service = watchService;
+            watchThread = new Thread(() -> watchLoop(service), "json-match-watcher");
+            watchThread.setDaemon(true);
+            watchThread.start();
+        } catch (IOException e) {
+            System.err.println("⚠️ No se pueden observar los directorios de JSON de partidas: " + e.getMessage());
+        }
+    }
+    
+    // Un archivo modificado se invalida; si además se crean o borran archivos se rehace el índice
+    private void watchLoop(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                Path dir = (Path) key.watchable();
+                boolean rebuildIndex = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        documentCache.invalidateAll();
+                        rebuildIndex = true;
+                        continue;
+                    }
+                    documentCache.invalidate(dir.resolve((Path) event.context()));
+                    if (event.kind() != StandardWatchEventKinds.ENTRY_MODIFY) {
+                        rebuildIndex = true;
+                    }
+                }
+                if (!key.reset()) {
+                    rebuildIndex = true;
+                }
+                if (rebuildIndex) {
+                    rebuildFileIndex();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // stop()
+        }
+    }
+    
+    private static final class IndexedFile {
+        private final String searchPath;
+        private final String fileName;
+        private final String path;
+        private final String baseNameLower;
+        
+        private IndexedFile(String searchPath, File jsonFile) {
+            this.searchPath = searchPath;
+            this.fileName = jsonFile.getName();
+            this.path = jsonFile.getPath();
+            this.baseNameLower = fileName.toLowerCase().replace(".json", "");
+        }
+    }
+    
 }
 
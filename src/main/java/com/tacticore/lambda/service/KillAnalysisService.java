@@ -1,12 +1,14 @@
 package com.tacticore.lambda.service;
 
 import com.tacticore.lambda.model.KillEntity;
+import com.tacticore.lambda.model.PredictionCounterEntity;
 import com.tacticore.lambda.model.dto.KillAnalysisDto;
 import com.tacticore.lambda.model.dto.PlayerStatsDto;
 import com.tacticore.lambda.model.dto.RoundAnalysisDto;
 import com.tacticore.lambda.repository.KillPredictionRepository;
 import com.tacticore.lambda.repository.KillRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -21,7 +23,23 @@ public class KillAnalysisService {
     @Autowired
     private KillPredictionRepository killPredictionRepository;
     
+    @Autowired
+    private ColumnarKillStore columnarKillStore;
+    
+    @Autowired
+    private PredictionAggregateService predictionAggregateService;
+    
+    // Overview, rondas y top players desde el store columnar en memoria; en false, consultas sobre kills
+    @Value("${analytics.columnar-store.enabled:true}")
+    private boolean columnarStoreEnabled;
+    
     public KillAnalysisDto getOverallAnalysis() {
+        if (columnarStoreEnabled) {
+            KillAnalysisDto analysis = columnarKillStore.getOverallAnalysis();
+            analysis.setPredictionStats(getPredictionStats());
+            return analysis;
+        }
+        
         Long totalKills = killRepository.getTotalKills();
         Long totalHeadshots = killRepository.getTotalHeadshots();
         Double headshotRate = totalKills > 0 ? (double) totalHeadshots / totalKills * 100 : 0.0;
@@ -111,6 +129,10 @@ public class KillAnalysisService {
     }
     
     public RoundAnalysisDto getRoundAnalysis(Integer roundNumber) {
+        if (columnarStoreEnabled) {
+            return columnarKillStore.getRoundAnalysis(roundNumber);
+        }
+        
         List<KillEntity> roundKills = killRepository.findByRound(roundNumber);
         Long totalKills = (long) roundKills.size();
         
@@ -170,6 +192,10 @@ public class KillAnalysisService {
     }
     
     public List<Map<String, Object>> getTopPlayers() {
+        if (columnarStoreEnabled) {
+            return columnarKillStore.getTopPlayers();
+        }
+        
         List<KillEntity> allKills = killRepository.findAll();
         
         Map<String, Long> killsByPlayer = allKills.stream()
@@ -314,6 +340,16 @@ public class KillAnalysisService {
         return killRepository.findByUserAndRound(user, round);
     }
     
+    /**
+     * Kills de un match ordenados por ronda y tiempo; con user, solo donde es atacante o víctima
+     */
+    public List<KillEntity> getMatchKills(String matchId, String user) {
+        if (user != null && !user.isEmpty()) {
+            return killRepository.findByMatchIdAndUserOrderByRoundAndTime(matchId, user);
+        }
+        return killRepository.findByMatchIdOrderByRoundAscTimeInRoundAsc(matchId);
+    }
+    
     public List<KillEntity> getAllKills() {
         return killRepository.findAll();
     }
@@ -329,9 +365,20 @@ public class KillAnalysisService {
         return allUsers.stream().sorted().collect(Collectors.toList());
     }
     
+    /**
+     * Top predictions de los kills del usuario (como atacante) desde los agregados de predicciones,
+     * mismo formato que getPredictionStats
+     */
     private List<Map<String, Object>> getPredictionStatsByUser(String user) {
-        // Implementar estadísticas de predicciones por usuario
-        return new ArrayList<>();
+        return predictionAggregateService.getCounters(PredictionCounterEntity.PLAYER, user, PredictionCounterEntity.LABEL).stream()
+            .map(counter -> {
+                Map<String, Object> map = new HashMap<>();
+                map.put("label", counter.getCounterKey());
+                map.put("count", counter.getCount());
+                map.put("average_confidence", counter.getAverage());
+                return map;
+            })
+            .collect(Collectors.toList());
     }
     
     private Double calculatePerformanceScore(Long kills, Long deaths, Double headshotRate, Double averageDistance) {
@@ -0,0 +1,88 @@
+package com.tacticore.lambda.service;
+
+import com.tacticore.lambda.model.KillEntity;
+import com.tacticore.lambda.model.KillPredictionEntity;
+import com.tacticore.lambda.serialization.MlResponseStreamReader;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Sink de la ingesta en streaming de un match: junta los kills y sus filas de predicción a medida que se
+ * parsean y los escribe con KillIngestService cada {@code batchSize} kills, creando antes los usuarios nuevos del batch.
+ * Se usa dentro de la transacción del match, así todos los batches se confirman juntos. Los agregados por
+ * jugador y por predicción se acumulan y se aplican en finish, ya leída toda la respuesta: sus locks
+ * serializan a todos los writers y no se retienen mientras se espera la red.
+ */
+class KillBatchWriter implements MlResponseStreamReader.PredictionSink {
+
+    private final int batchSize;
+    private final KillIngestService killIngestService;
+    private final UserService userService;
+
+    private final KillIngestService.PendingAggregates pendingAggregates = new KillIngestService.PendingAggregates();
+    private final Set<String> users = new LinkedHashSet<>();
+    private List<String> pendingUsers = new ArrayList<>();
+    private List<KillEntity> batch;
+    private List<KillPredictionEntity> predictionBatch = new ArrayList<>();
+    private int written;
+
+    KillBatchWriter(int batchSize, KillIngestService killIngestService, UserService userService) {
+        this.batchSize = Math.max(batchSize, 1);
+        this.killIngestService = killIngestService;
+        this.userService = userService;
+        this.batch = new ArrayList<>(this.batchSize);
+    }
+
+    @Override
+    public void accept(KillEntity kill, List<KillPredictionEntity> predictions) {
+        addUser(kill.getAttacker());
+        addUser(kill.getVictim());
+        batch.add(kill);
+        predictionBatch.addAll(predictions);
+        if (batch.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Escribe lo pendiente y aplica los agregados del match; llamar al terminar de leer la respuesta
+     */
+    void finish() {
+        flush();
+        killIngestService.applyPending(pendingAggregates);
+    }
+
+    private void flush() {
+        if (!pendingUsers.isEmpty()) {
+            userService.ensureUsersExist(pendingUsers);
+            pendingUsers = new ArrayList<>();
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        written += killIngestService.ingestDeferred(batch, predictionBatch, pendingAggregates);
+        // ColumnarKillStore retiene la lista hasta el commit: no se reutiliza
+        batch = new ArrayList<>(batchSize);
+        predictionBatch = new ArrayList<>();
+    }
+
+    /**
+     * Jugadores que aparecen como atacante o víctima en el match
+     */
+    Set<String> getUsers() {
+        return users;
+    }
+
+    int getWritten() {
+        return written;
+    }
+
+    private void addUser(String user) {
+        if (user != null && users.add(user)) {
+            pendingUsers.add(user);
+        }
+    }
+}
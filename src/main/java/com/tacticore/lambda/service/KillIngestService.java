@@ -0,0 +1,142 @@
+package com.tacticore.lambda.service;
+
+import com.tacticore.lambda.model.KillEntity;
+import com.tacticore.lambda.model.KillPredictionEntity;
+import com.tacticore.lambda.repository.KillPredictionRepository;
+import com.tacticore.lambda.repository.KillRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Punto único de escritura de kills: el batch, sus predicciones y los agregados por jugador
+ * y por predicción se confirman en la misma transacción; el store columnar, los heatmaps
+ * y el índice espacial los reciben al confirmar, y los dashboards afectados se invalidan
+ */
+@Service
+public class KillIngestService {
+
+    @Autowired
+    private KillRepository killRepository;
+
+    @Autowired
+    private PlayerAggregateService playerAggregateService;
+
+    @Autowired
+    private KillPredictionRepository killPredictionRepository;
+
+    @Autowired
+    private PredictionAggregateService predictionAggregateService;
+
+    @Autowired
+    private ColumnarKillStore columnarKillStore;
+
+    @Autowired
+    private HeatmapService heatmapService;
+
+    @Autowired
+    private KillSpatialIndex killSpatialIndex;
+
+    @Autowired
+    private DashboardCache dashboardCache;
+
+    @Transactional
+    public int ingest(List<KillEntity> kills) {
+        return ingest(kills, List.of());
+    }
+
+    /**
+     * Inserta los kills junto con sus filas de kill_predictions (killId ya asignado)
+     */
+    @Transactional
+    public int ingest(List<KillEntity> kills, List<KillPredictionEntity> predictions) {
+        if (kills == null || kills.isEmpty()) {
+            return 0;
+        }
+        int inserted = insert(kills, predictions);
+        playerAggregateService.applyKills(kills);
+        if (predictions != null && !predictions.isEmpty()) {
+            predictionAggregateService.applyPredictions(kills, predictions);
+        }
+        return inserted;
+    }
+
+    /**
+     * Como ingest, pero los agregados del batch se suman a {@code pending} en lugar de aplicarse:
+     * no se toman los locks de agregados hasta applyPending. Para ingestas de varios batches en una
+     * transacción que entre batch y batch esperan I/O (la respuesta del ML en streaming).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int ingestDeferred(List<KillEntity> kills, List<KillPredictionEntity> predictions, PendingAggregates pending) {
+        if (kills == null || kills.isEmpty()) {
+            return 0;
+        }
+        int inserted = insert(kills, predictions);
+        pending.kills.add(kills);
+        pending.predictions.add(kills, predictions);
+        return inserted;
+    }
+
+    /**
+     * Aplica los agregados acumulados por ingestDeferred; llamar una sola vez, antes del commit
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyPending(PendingAggregates pending) {
+        playerAggregateService.applyDelta(pending.kills);
+        predictionAggregateService.applyDelta(pending.predictions);
+        pending.kills = new PlayerAggregateService.KillDelta();
+        pending.predictions = new PredictionAggregateService.PredictionDelta();
+    }
+
+    private int insert(List<KillEntity> kills, List<KillPredictionEntity> predictions) {
+        int inserted = killRepository.bulkInsert(kills);
+        if (predictions != null && !predictions.isEmpty()) {
+            killPredictionRepository.bulkInsert(predictions);
+        }
+        columnarKillStore.appendAfterCommit(kills);
+        heatmapService.appendAfterCommit(kills);
+        killSpatialIndex.appendAfterCommit(kills);
+        dashboardCache.invalidateAfterCommit(players(kills));
+        return inserted;
+    }
+
+    /**
+     * Los locks de agregados se toman siempre en el mismo orden que en ingest (jugadores y después
+     * predicciones) y se retienen hasta el commit: con el orden invertido un ingest concurrente
+     * se bloquea con este borrado, cada uno esperando el lock que tiene el otro
+     */
+    @Transactional
+    public void deleteAllKills() {
+        playerAggregateService.clear();
+        // kill_predictions referencia kills: se borra antes
+        predictionAggregateService.clear();
+        killRepository.deleteAll();
+        columnarKillStore.invalidateAfterCommit();
+        heatmapService.invalidateAfterCommit();
+        killSpatialIndex.invalidateAfterCommit();
+        dashboardCache.invalidateAllAfterCommit();
+    }
+
+    /**
+     * Agregados de jugadores y de predicciones pendientes de una ingesta diferida
+     */
+    public static final class PendingAggregates {
+        private PlayerAggregateService.KillDelta kills = new PlayerAggregateService.KillDelta();
+        private PredictionAggregateService.PredictionDelta predictions = new PredictionAggregateService.PredictionDelta();
+    }
+
+    // Atacantes y víctimas del batch: sus dashboards cambian
+    private static Set<String> players(List<KillEntity> kills) {
+        Set<String> players = new HashSet<>();
+        for (KillEntity kill : kills) {
+            if (kill.getAttacker() != null) players.add(kill.getAttacker());
+            if (kill.getVictim() != null) players.add(kill.getVictim());
+        }
+        return players;
+    }
+}
@@ -0,0 +1,654 @@
+package com.tacticore.lambda.service;
+
+import com.tacticore.lambda.model.KillEntity;
+import com.tacticore.lambda.model.MapTransform;
+import com.tacticore.lambda.repository.KillRepository;
+import com.tacticore.lambda.repository.MatchRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Índice espacial de kills por mapa sobre las posiciones del juego (attackerX/Y o victimX/Y):
+ * una grilla uniforme de {@code spatial.cell-size} unidades que cubre la imagen del mapa (las posiciones
+ * fuera de la imagen van a la celda del borde). Resuelve consultas por caja, polígono, radio y los k kills
+ * más cercanos a un punto recorriendo solo las celdas que tocan la región, con filtros opcionales de
+ * ronda, lado y arma; los kills devueltos se leen de la tabla por id.
+ *
+ * Igual que HeatmapService: se carga completo la primera vez que se consulta y KillIngestService
+ * le pasa cada batch al confirmarse, que se indexa en la siguiente consulta.
+ */
+@Service
+public class KillSpatialIndex {
+
+    public static final int MAX_LIMIT = 1000;
+
+    private static final int LOAD_PAGE_SIZE = 50_000;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_CELLS_PER_SIDE = 1024;
+
+    @Autowired
+    private KillRepository killRepository;
+
+    @Autowired
+    private MatchRepository matchRepository;
+
+    @Autowired
+    private MapTransformRegistry mapTransformRegistry;
+
+    @Value("${spatial.cell-size:64}")
+    private double cellSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Queue<KillEntity> pending = new ConcurrentLinkedQueue<>();
+    private volatile boolean loaded;
+
+    private StringDictionary sides = new StringDictionary();
+    private StringDictionary weapons = new StringDictionary();
+    private Map<String, MapPoints> maps = new HashMap<>();
+    private long[] loadedIds = new long[0];
+    private int loadedSize;
+
+    /**
+     * Filtros opcionales de una consulta (null = sin filtrar)
+     */
+    public static final class Filter {
+        private final Integer round;
+        private final String side;
+        private final String weapon;
+
+        public Filter(Integer round, String side, String weapon) {
+            this.round = round;
+            this.side = side;
+            this.weapon = weapon;
+        }
+
+        public static Filter none() {
+            return new Filter(null, null, null);
+        }
+    }
+
+    public void appendAfterCommit(Collection<KillEntity> kills) {
+        if (kills == null || kills.isEmpty()) {
+            return;
+        }
+        List<KillEntity> batch = new ArrayList<>(kills);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(batch);
+                }
+            });
+        } else {
+            enqueue(batch);
+        }
+    }
+
+    public void invalidateAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate();
+                }
+            });
+        } else {
+            invalidate();
+        }
+    }
+
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            reset();
+            loaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Recarga todo desde kills (con el mapa de su match), por páginas ordenadas por id
+     */
+    public int reload() {
+        lock.writeLock().lock();
+        try {
+            long start = System.currentTimeMillis();
+            reset();
+            long afterId = Long.MIN_VALUE;
+            int rows = 0;
+            List<Object[]> page;
+            do {
+                page = killRepository.findSpatialColumnsAfter(afterId, PageRequest.of(0, LOAD_PAGE_SIZE));
+                if (loadedIds.length < rows + page.size()) {
+                    loadedIds = Arrays.copyOf(loadedIds, Math.max(rows + page.size(), loadedIds.length * 2));
+                }
+                for (Object[] row : page) {
+                    long id = (Long) row[0];
+                    loadedIds[rows++] = id;
+                    addRow((String) row[1], id, (Integer) row[2], (String) row[3], (String) row[4],
+                        (Double) row[5], (Double) row[6], (Double) row[7], (Double) row[8]);
+                }
+                if (!page.isEmpty()) {
+                    afterId = (Long) page.get(page.size() - 1)[0];
+                }
+            } while (page.size() == LOAD_PAGE_SIZE);
+            loadedSize = rows;
+            loaded = true;
+            System.out.println("📍 KillSpatialIndex: " + rows + " kills indexados en " + maps.size() + " mapas en "
+                + (System.currentTimeMillis() - start) + " ms");
+            return rows;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Kills con la posición del rol dentro de la caja (bordes incluidos), ordenados por id
+     */
+    public Map<String, Object> findInBox(String mapName, String role, double minX, double minY, double maxX, double maxY,
+                                         Filter filter, int limit) {
+        if (!(minX <= maxX) || !(minY <= maxY)) {
+            throw new IllegalArgumentException("La caja necesita minX <= maxX y minY <= maxY");
+        }
+        boolean byVictim = isVictim(role);
+        checkLimit(limit);
+        return query(mapName, role, "box", limit, points -> {
+            TopHits hits = new TopHits(limit);
+            points.scan(byVictim, minX, minY, maxX, maxY, filter, (index, x, y) -> hits.offer(points.ids[index], 0.0));
+            return hits;
+        }, false);
+    }
+
+    /**
+     * Kills con la posición del rol dentro del polígono ({@code polygon} = x0, y0, x1, y1, ...), ordenados por id
+     */
+    public Map<String, Object> findInPolygon(String mapName, String role, double[] polygon, Filter filter, int limit) {
+        if (polygon == null || polygon.length < 6 || polygon.length % 2 != 0) {
+            throw new IllegalArgumentException("El polígono necesita al menos 3 vértices x,y");
+        }
+        boolean byVictim = isVictim(role);
+        checkLimit(limit);
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < polygon.length; i += 2) {
+            minX = Math.min(minX, polygon[i]);
+            maxX = Math.max(maxX, polygon[i]);
+            minY = Math.min(minY, polygon[i + 1]);
+            maxY = Math.max(maxY, polygon[i + 1]);
+        }
+        double boxMinX = minX, boxMinY = minY, boxMaxX = maxX, boxMaxY = maxY;
+        return query(mapName, role, "polygon", limit, points -> {
+            TopHits hits = new TopHits(limit);
+            points.scan(byVictim, boxMinX, boxMinY, boxMaxX, boxMaxY, filter, (index, x, y) -> {
+                if (contains(polygon, x, y)) {
+                    hits.offer(points.ids[index], 0.0);
+                }
+            });
+            return hits;
+        }, false);
+    }
+
+    /**
+     * Kills a distancia <= radius del punto, del más cercano al más lejano
+     */
+    public Map<String, Object> findInRadius(String mapName, String role, double x, double y, double radius,
+                                            Filter filter, int limit) {
+        if (!(radius >= 0)) {
+            throw new IllegalArgumentException("radius debe ser >= 0");
+        }
+        boolean byVictim = isVictim(role);
+        checkLimit(limit);
+        double radiusSquared = radius * radius;
+        return query(mapName, role, "radius", limit, points -> {
+            TopHits hits = new TopHits(limit);
+            points.scan(byVictim, x - radius, y - radius, x + radius, y + radius, filter, (index, px, py) -> {
+                double dx = px - x;
+                double dy = py - y;
+                if (dx * dx + dy * dy <= radiusSquared) {
+                    hits.offer(points.ids[index], Math.sqrt(dx * dx + dy * dy));
+                }
+            });
+            return hits;
+        }, true);
+    }
+
+    /**
+     * Los k kills más cercanos al punto (empates por id)
+     */
+    public Map<String, Object> findNearest(String mapName, String role, double x, double y, int k, Filter filter) {
+        boolean byVictim = isVictim(role);
+        checkLimit(k);
+        return query(mapName, role, "nearest", k, points -> points.nearest(byVictim, x, y, k, filter), true);
+    }
+
+    double getCellSize() {
+        return cellSize;
+    }
+
+    // Ray casting: el punto está dentro si un rayo horizontal cruza un número impar de lados
+    static boolean contains(double[] polygon, double x, double y) {
+        boolean inside = false;
+        int vertices = polygon.length / 2;
+        for (int i = 0, j = vertices - 1; i < vertices; j = i++) {
+            double xi = polygon[2 * i], yi = polygon[2 * i + 1];
+            double xj = polygon[2 * j], yj = polygon[2 * j + 1];
+            if ((yi > y) != (yj > y) && x < (xj - xi) * (y - yi) / (yj - yi) + xi) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    private static boolean isVictim(String role) {
+        String queryRole = role != null ? role : HeatmapService.VICTIM;
+        if (!HeatmapService.ATTACKER.equals(queryRole) && !HeatmapService.VICTIM.equals(queryRole)) {
+            throw new IllegalArgumentException("role debe ser attacker o victim");
+        }
+        return HeatmapService.VICTIM.equals(queryRole);
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit debe estar entre 1 y " + MAX_LIMIT);
+        }
+    }
+
+    private Map<String, Object> query(String mapName, String role, String type, int limit,
+                                      Function<MapPoints, TopHits> search, boolean withDistance) {
+        if (mapName == null || mapName.isEmpty()) {
+            throw new IllegalArgumentException("El parámetro map es obligatorio");
+        }
+        ensureLoaded();
+        drainPending();
+        TopHits top;
+        lock.readLock().lock();
+        try {
+            MapPoints points = maps.get(mapName);
+            top = points != null ? search.apply(points) : new TopHits(limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Hit> hits = top.sorted();
+        Map<Long, Object[]> byId = new HashMap<>();
+        if (!hits.isEmpty()) {
+            List<Long> ids = new ArrayList<>(hits.size());
+            hits.forEach(hit -> ids.add(hit.id));
+            killRepository.findSpatialResultsByIds(ids).forEach(row -> byId.put((Long) row[0], row));
+        }
+        boolean victim = HeatmapService.VICTIM.equals(role != null ? role : HeatmapService.VICTIM);
+        List<Map<String, Object>> kills = new ArrayList<>(hits.size());
+        for (Hit hit : hits) {
+            Object[] row = byId.get(hit.id);
+            if (row == null) {
+                continue; // borrado después de indexarse
+            }
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("killId", row[1]);
+            item.put("matchId", row[2]);
+            item.put("round", row[3]);
+            item.put("attacker", row[4]);
+            item.put("victim", row[5]);
+            item.put("weapon", row[6]);
+            item.put("side", row[7]);
+            item.put("headshot", row[8]);
+            item.put("x", victim ? row[11] : row[9]);
+            item.put("y", victim ? row[12] : row[10]);
+            if (withDistance) {
+                item.put("distance", hit.distance);
+            }
+            kills.add(item);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("map", mapName);
+        result.put("role", victim ? HeatmapService.VICTIM : HeatmapService.ATTACKER);
+        result.put("query", type);
+        result.put("total", top.total);
+        result.put("returned", kills.size());
+        result.put("kills", kills);
+        return result;
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            lock.writeLock().lock();
+            try {
+                if (!loaded) {
+                    reload();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void enqueue(List<KillEntity> batch) {
+        // Sin cargar: la carga inicial ya va a leer estas filas desde la tabla
+        if (loaded) {
+            pending.addAll(batch);
+        }
+    }
+
+    // Indexa los kills confirmados desde la última consulta
+    private void drainPending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            List<KillEntity> batch = new ArrayList<>();
+            KillEntity kill;
+            while ((kill = pending.poll()) != null) {
+                batch.add(kill);
+            }
+            if (batch.isEmpty() || !loaded) {
+                return;
+            }
+            Set<String> matchIds = new HashSet<>();
+            batch.forEach(k -> matchIds.add(k.getMatchId()));
+            Map<String, String> mapByMatch = matchRepository.getMapNamesByMatchIds(matchIds);
+            long loadedMaxId = loadedSize > 0 ? loadedIds[loadedSize - 1] : Long.MIN_VALUE;
+            for (KillEntity k : batch) {
+                Long id = k.getId();
+                // Un batch confirmado mientras corría la carga puede haber entrado en ella
+                if (id == null || (id <= loadedMaxId && Arrays.binarySearch(loadedIds, 0, loadedSize, id) >= 0)) {
+                    continue;
+                }
+                String mapName = mapByMatch.get(k.getMatchId());
+                if (mapName != null) {
+                    addRow(mapName, id, k.getRound(), k.getSide(), k.getWeapon(),
+                        k.getAttackerX(), k.getAttackerY(), k.getVictimX(), k.getVictimY());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addRow(String mapName, long id, Integer round, String side, String weapon,
+                        Double ax, Double ay, Double vx, Double vy) {
+        MapPoints points = maps.computeIfAbsent(mapName, name -> new MapPoints(mapTransformRegistry.get(name)));
+        points.add(id, round != null ? round : Integer.MIN_VALUE, sides.encode(side), weapons.encode(weapon),
+            ax != null && ay != null ? ax : Double.NaN, ax != null && ay != null ? ay : Double.NaN,
+            vx != null && vy != null ? vx : Double.NaN, vx != null && vy != null ? vy : Double.NaN);
+    }
+
+    private void reset() {
+        sides = new StringDictionary();
+        weapons = new StringDictionary();
+        maps = new HashMap<>();
+        loadedIds = new long[0];
+        loadedSize = 0;
+        pending.clear();
+    }
+
+    private static final class Hit {
+        final long id;
+        final double distance;
+
+        Hit(long id, double distance) {
+            this.id = id;
+            this.distance = distance;
+        }
+    }
+
+    /**
+     * Los {@code limit} mejores de lo ofrecido (menor distancia y después menor id) en un heap acotado,
+     * más el total de coincidencias: no hace falta ordenar todo lo que cae en la región
+     */
+    private static final class TopHits {
+        private static final Comparator<Hit> CLOSEST_FIRST =
+            Comparator.<Hit>comparingDouble(hit -> hit.distance).thenComparingLong(hit -> hit.id);
+
+        private final int limit;
+        private final PriorityQueue<Hit> worstFirst;
+        private int total;
+
+        TopHits(int limit) {
+            this.limit = limit;
+            this.worstFirst = new PriorityQueue<>(limit + 1, CLOSEST_FIRST.reversed());
+        }
+
+        void offer(long id, double distance) {
+            total++;
+            if (worstFirst.size() < limit) {
+                worstFirst.add(new Hit(id, distance));
+                return;
+            }
+            Hit worst = worstFirst.peek();
+            if (distance < worst.distance || (distance == worst.distance && id < worst.id)) {
+                worstFirst.poll();
+                worstFirst.add(new Hit(id, distance));
+            }
+        }
+
+        boolean isFull() {
+            return worstFirst.size() == limit;
+        }
+
+        double worstDistance() {
+            return worstFirst.peek().distance;
+        }
+
+        List<Hit> sorted() {
+            List<Hit> hits = new ArrayList<>(worstFirst);
+            hits.sort(CLOSEST_FIRST);
+            return hits;
+        }
+    }
+
+    @FunctionalInterface
+    private interface PointVisitor {
+        void visit(int index, double x, double y);
+    }
+
+    /**
+     * Kills de un mapa: id y códigos de filtro por fila, y por rol una grilla de celdas
+     */
+    private final class MapPoints {
+        final double minX;
+        final double minY;
+        final int columns;
+        final int rows;
+        final CellGrid attackerGrid;
+        final CellGrid victimGrid;
+
+        int size;
+        long[] ids = new long[0];
+        int[] round = new int[0];
+        int[] side = new int[0];
+        int[] weapon = new int[0];
+
+        MapPoints(MapTransform transform) {
+            // Extensión de la imagen (1024x1024) en coordenadas del juego
+            double extent = MapTransform.IMAGE_SIZE * transform.getScale();
+            minX = transform.getPosX() - transform.getOffsetX() * transform.getScale();
+            minY = transform.getPosY() + transform.getOffsetY() * transform.getScale() - extent;
+            int cells = (int) Math.min(MAX_CELLS_PER_SIDE, Math.max(1, Math.ceil(extent / cellSize)));
+            columns = cells;
+            rows = cells;
+            attackerGrid = new CellGrid(columns * rows);
+            victimGrid = new CellGrid(columns * rows);
+        }
+
+        void add(long id, int roundNumber, int sideCode, int weaponCode, double attackerX, double attackerY,
+                 double victimX, double victimY) {
+            if (size == ids.length) {
+                int capacity = Math.max(INITIAL_CAPACITY, size + (size >> 1));
+                ids = Arrays.copyOf(ids, capacity);
+                round = Arrays.copyOf(round, capacity);
+                side = Arrays.copyOf(side, capacity);
+                weapon = Arrays.copyOf(weapon, capacity);
+            }
+            int i = size++;
+            ids[i] = id;
+            round[i] = roundNumber;
+            side[i] = sideCode;
+            weapon[i] = weaponCode;
+            if (!Double.isNaN(attackerX)) {
+                attackerGrid.add(cell(attackerX, attackerY), i, attackerX, attackerY);
+            }
+            if (!Double.isNaN(victimX)) {
+                victimGrid.add(cell(victimX, victimY), i, victimX, victimY);
+            }
+        }
+
+        /**
+         * Visita las filas que pasan el filtro con la posición del rol dentro de la caja
+         */
+        void scan(boolean byVictim, double minQueryX, double minQueryY, double maxQueryX, double maxQueryY,
+                  Filter filter, PointVisitor visitor) {
+            int[] codes = codes(filter);
+            if (codes == null) {
+                return;
+            }
+            CellGrid grid = byVictim ? victimGrid : attackerGrid;
+            int c0 = column(minQueryX), c1 = column(maxQueryX);
+            int r0 = row(minQueryY), r1 = row(maxQueryY);
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    int cell = r * columns + c;
+                    int[] members = grid.members[cell];
+                    double[] xy = grid.coordinates[cell];
+                    for (int m = 0; m < grid.counts[cell]; m++) {
+                        double x = xy[2 * m];
+                        double y = xy[2 * m + 1];
+                        if (x >= minQueryX && x <= maxQueryX && y >= minQueryY && y <= maxQueryY
+                            && matches(members[m], filter, codes)) {
+                            visitor.visit(members[m], x, y);
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * k más cercanos: recorre anillos de celdas alrededor del punto hasta que ninguna celda sin visitar
+         * pueda tener algo más cerca que el k-ésimo encontrado
+         */
+        TopHits nearest(boolean byVictim, double x, double y, int k, Filter filter) {
+            TopHits best = new TopHits(k);
+            int[] codes = codes(filter);
+            if (codes == null) {
+                return best;
+            }
+            CellGrid grid = byVictim ? victimGrid : attackerGrid;
+            boolean inside = x >= minX && x < minX + columns * cellSize && y >= minY && y < minY + rows * cellSize;
+            int cx = column(x), cy = row(y);
+            int maxRing = Math.max(Math.max(cx, columns - 1 - cx), Math.max(cy, rows - 1 - cy));
+            for (int d = 0; d <= maxRing; d++) {
+                for (int r = Math.max(0, cy - d); r <= Math.min(rows - 1, cy + d); r++) {
+                    boolean edgeRow = r == cy - d || r == cy + d;
+                    for (int c = Math.max(0, cx - d); c <= Math.min(columns - 1, cx + d); c++) {
+                        if (!edgeRow && c != cx - d && c != cx + d) {
+                            c = cx + d - 1; // interior del anillo ya visitado
+                            continue;
+                        }
+                        int cell = r * columns + c;
+                        int[] members = grid.members[cell];
+                        double[] xy = grid.coordinates[cell];
+                        for (int m = 0; m < grid.counts[cell]; m++) {
+                            double dx = xy[2 * m] - x;
+                            double dy = xy[2 * m + 1] - y;
+                            double distance = Math.sqrt(dx * dx + dy * dy);
+                            if ((!best.isFull() || distance <= best.worstDistance()) && matches(members[m], filter, codes)) {
+                                best.offer(ids[members[m]], distance);
+                            }
+                        }
+                    }
+                }
+                // Lo no visitado queda fuera del rectángulo de anillos 0..d: distancia mínima a sus lados abiertos
+                if (inside && best.isFull()) {
+                    double bound = Double.POSITIVE_INFINITY;
+                    if (cx - d > 0) bound = Math.min(bound, x - (minX + (cx - d) * cellSize));
+                    if (cx + d < columns - 1) bound = Math.min(bound, minX + (cx + d + 1) * cellSize - x);
+                    if (cy - d > 0) bound = Math.min(bound, y - (minY + (cy - d) * cellSize));
+                    if (cy + d < rows - 1) bound = Math.min(bound, minY + (cy + d + 1) * cellSize - y);
+                    if (best.worstDistance() <= bound) {
+                        break;
+                    }
+                }
+            }
+            // En nearest el total son los devueltos, no todo lo que se comparó
+            best.total = best.worstFirst.size();
+            return best;
+        }
+
+        // Códigos de lado/arma del filtro; null si alguno no existe (ningún kill puede coincidir)
+        private int[] codes(Filter filter) {
+            if (filter == null) {
+                return new int[]{-1, -1};
+            }
+            int sideCode = filter.side != null ? sides.find(filter.side) : -1;
+            int weaponCode = filter.weapon != null ? weapons.find(filter.weapon) : -1;
+            if ((filter.side != null && sideCode < 0) || (filter.weapon != null && weaponCode < 0)) {
+                return null;
+            }
+            return new int[]{sideCode, weaponCode};
+        }
+
+        private boolean matches(int i, Filter filter, int[] codes) {
+            return filter == null || ((filter.round == null || round[i] == filter.round)
+                && (filter.side == null || side[i] == codes[0])
+                && (filter.weapon == null || weapon[i] == codes[1]));
+        }
+
+        private int cell(double x, double y) {
+            return row(y) * columns + column(x);
+        }
+
+        private int column(double x) {
+            return clamp((int) Math.floor((x - minX) / cellSize), columns);
+        }
+
+        private int row(double y) {
+            return clamp((int) Math.floor((y - minY) / cellSize), rows);
+        }
+    }
+
+    /**
+     * Filas de cada celda con su posición al lado (x, y intercalados): recorrer una celda no salta por
+     * las columnas de todo el mapa
+     */
+    private static final class CellGrid {
+        final int[][] members;
+        final double[][] coordinates;
+        final int[] counts;
+
+        CellGrid(int cells) {
+            members = new int[cells][];
+            coordinates = new double[cells][];
+            counts = new int[cells];
+        }
+
+        void add(int cell, int index, double x, double y) {
+            int count = counts[cell];
+            if (members[cell] == null) {
+                members[cell] = new int[4];
+                coordinates[cell] = new double[8];
+            } else if (count == members[cell].length) {
+                members[cell] = Arrays.copyOf(members[cell], count * 2);
+                coordinates[cell] = Arrays.copyOf(coordinates[cell], count * 4);
+            }
+            members[cell][count] = index;
+            coordinates[cell][2 * count] = x;
+            coordinates[cell][2 * count + 1] = y;
+            counts[cell] = count + 1;
+        }
+    }
+
+    private static int clamp(int value, int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+}
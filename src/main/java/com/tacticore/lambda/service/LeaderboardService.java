@@ -0,0 +1,461 @@
+package com.tacticore.lambda.service;
+
+import com.tacticore.lambda.model.UserEntity;
+import com.tacticore.lambda.model.dto.UserDto;
+import com.tacticore.lambda.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Rankings de jugadores (score promedio, kills, KDR) en memoria, sin ordenar la tabla users en cada request.
+ *
+ * Cada ranking es un RankedTree ordenado por su valor (descendente) y después por nombre: una página sale
+ * en O(log n + limit) y la posición de un jugador en O(log n). El KDR es kills / deaths (kills si no tiene
+ * deaths) y solo rankea a quien tiene kills, como la consulta anterior.
+ *
+ * Se carga completo desde users la primera vez que se consulta; UserService y la carga de usuarios demo le
+ * pasan cada usuario guardado al confirmarse la transacción y se reubica en la siguiente consulta.
+ */
+@Service
+public class LeaderboardService {
+
+    public static final String SCORE = "score";
+    public static final String KILLS = "kills";
+    public static final String KDR = "kdr";
+    public static final int MAX_LIMIT = 1000;
+
+    private static final int LOAD_PAGE_SIZE = 50_000;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Queue<Standing> pending = new ConcurrentLinkedQueue<>();
+    private volatile boolean loaded;
+    private volatile boolean loading;
+
+    private final Map<String, Board> boards = new LinkedHashMap<>();
+    private Map<String, Standing> byName = new HashMap<>();
+
+    public LeaderboardService() {
+        boards.put(SCORE, new Board(s -> s.score, s -> true));
+        boards.put(KILLS, new Board(s -> s.kills, s -> true));
+        boards.put(KDR, new Board(s -> s.kdr, s -> s.kills > 0));
+    }
+
+    /**
+     * Encola los valores actuales del usuario para cuando su transacción confirma (si se revierte, el ranking
+     * no los ve). Sin transacción activa se encola en el momento.
+     */
+    public void updateAfterCommit(UserEntity user) {
+        if (user == null || user.getName() == null) {
+            return;
+        }
+        Standing standing = Standing.of(user);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(standing);
+                }
+            });
+        } else {
+            enqueue(standing);
+        }
+    }
+
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            reset();
+            pending.clear();
+            loaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Recarga todo desde users, por páginas ordenadas por id, y arma cada ranking ya balanceado
+     */
+    public int reload() {
+        lock.writeLock().lock();
+        try {
+            long start = System.currentTimeMillis();
+            loading = true;
+            // Lo confirmado antes de este punto lo trae la lectura de la tabla
+            pending.clear();
+            reset();
+            List<Standing> standings = new ArrayList<>();
+            long afterId = Long.MIN_VALUE;
+            List<Object[]> page;
+            do {
+                page = userRepository.findLeaderboardColumnsAfter(afterId, PageRequest.of(0, LOAD_PAGE_SIZE));
+                for (Object[] row : page) {
+                    Standing standing = new Standing((Long) row[0], (String) row[1], (String) row[2],
+                        (Double) row[3], (Integer) row[4], (Integer) row[5], (Integer) row[6]);
+                    standings.add(standing);
+                    byName.put(standing.name, standing);
+                }
+                if (!page.isEmpty()) {
+                    afterId = (Long) page.get(page.size() - 1)[0];
+                }
+            } while (page.size() == LOAD_PAGE_SIZE);
+            // Por nombre una sola vez: cada ranking después ordena solo por valor, con claves primitivas
+            standings.sort(Comparator.comparing(standing -> standing.name));
+            for (Board board : boards.values()) {
+                List<Standing> sorted = new ArrayList<>(standings.size());
+                for (Standing standing : standings) {
+                    if (board.includes.test(standing)) {
+                        sorted.add(standing);
+                    }
+                }
+                board.tree.build(sortByValue(sorted, board.value));
+            }
+            loaded = true;
+            System.out.println("🏆 LeaderboardService: " + standings.size() + " jugadores rankeados en "
+                + (System.currentTimeMillis() - start) + " ms");
+            return standings.size();
+        } finally {
+            loading = false;
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Página de un ranking. Con {@code cursor} (el nextCursor de la página anterior) sigue justo después de ese
+     * jugador aunque el ranking haya cambiado en el medio; {@code offset} se suma a partir de ahí.
+     * {@code minMatches} deja afuera a quien jugó menos partidas (el rank sigue siendo el del ranking completo).
+     */
+    public Map<String, Object> getPage(String board, int offset, int limit, String cursor, Integer minMatches) {
+        Board ranking = board(board);
+        checkPage(offset, limit);
+        Standing after = cursor != null && !cursor.isEmpty() ? decodeCursor(cursor) : null;
+
+        ensureLoaded();
+        drainPending();
+        List<Map<String, Object>> items = new ArrayList<>();
+        int total;
+        boolean more;
+        lock.readLock().lock();
+        try {
+            total = ranking.tree.size();
+            int start = 0;
+            if (after != null) {
+                start = ranking.tree.rank(after);
+                if (start < total && ranking.order.compare(ranking.tree.get(start), after) == 0) {
+                    start++;
+                }
+            }
+            more = collect(ranking, start, offset, limit + 1, minMatches, (position, standing) ->
+                items.add(item(position, standing, ranking)));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (more) {
+            items.remove(items.size() - 1);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("board", board);
+        result.put("total", total);
+        result.put("offset", offset);
+        result.put("limit", limit);
+        if (minMatches != null) result.put("minMatches", minMatches);
+        result.put("items", items);
+        result.put("nextCursor", more && !items.isEmpty() ? encodeCursor(items.get(items.size() - 1)) : null);
+        return result;
+    }
+
+    /**
+     * Los jugadores de una página de un ranking, como los devolvía /api/users/top/*
+     */
+    public List<UserDto> getTop(String board, int offset, int limit, Integer minMatches) {
+        Board ranking = board(board);
+        checkPage(offset, limit);
+        ensureLoaded();
+        drainPending();
+        List<UserDto> users = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            collect(ranking, 0, offset, limit, minMatches, (position, standing) -> users.add(standing.toDto()));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return users;
+    }
+
+    /**
+     * Posición (1 = primero) y valor del jugador en cada ranking; null si el usuario no existe.
+     * En kdr la posición es null mientras no tenga kills.
+     */
+    public Map<String, Object> getRank(String name) {
+        ensureLoaded();
+        drainPending();
+        lock.readLock().lock();
+        try {
+            Standing standing = byName.get(name);
+            if (standing == null) {
+                return null;
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("name", standing.name);
+            result.put("totalPlayers", byName.size());
+            for (Map.Entry<String, Board> entry : boards.entrySet()) {
+                Board board = entry.getValue();
+                Map<String, Object> rank = new LinkedHashMap<>();
+                boolean ranked = board.includes.test(standing);
+                rank.put("rank", ranked ? board.tree.rank(standing) + 1 : null);
+                rank.put("value", board.value.applyAsDouble(standing));
+                rank.put("total", board.tree.size());
+                result.put(entry.getKey(), rank);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private interface RankVisitor {
+        void visit(int position, Standing standing);
+    }
+
+    // Visita hasta count jugadores desde la posición start, salteando los primeros skip que pasan el filtro.
+    // Devuelve true si llegó a count
+    private static boolean collect(Board ranking, int start, int skip, int count, Integer minMatches, RankVisitor visitor) {
+        if (minMatches == null || minMatches <= 0) {
+            int from = start + skip;
+            int to = Math.min(ranking.tree.size(), from + count);
+            int[] position = {from};
+            if (from < to) {
+                ranking.tree.forEachFrom(from, standing -> {
+                    visitor.visit(position[0]++, standing);
+                    return position[0] < to;
+                });
+            }
+            return to - from == count;
+        }
+        int[] position = {start};
+        int[] skipped = {0};
+        int[] visited = {0};
+        if (start < ranking.tree.size()) {
+            ranking.tree.forEachFrom(start, standing -> {
+                int current = position[0]++;
+                if (standing.matches < minMatches) {
+                    return true;
+                }
+                if (skipped[0] < skip) {
+                    skipped[0]++;
+                    return true;
+                }
+                visitor.visit(current, standing);
+                return ++visited[0] < count;
+            });
+        }
+        return visited[0] == count;
+    }
+
+    private static Map<String, Object> item(int position, Standing standing, Board ranking) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("rank", position + 1);
+        item.put("value", ranking.value.applyAsDouble(standing));
+        item.put("id", standing.id);
+        item.put("name", standing.name);
+        item.put("role", standing.role);
+        item.put("averageScore", standing.score);
+        item.put("totalKills", standing.kills);
+        item.put("totalDeaths", standing.deaths);
+        item.put("totalMatches", standing.matches);
+        item.put("kdr", standing.kdr);
+        return item;
+    }
+
+    // Cursor opaco: valor y nombre del último jugador de la página, en base64 url
+    private static String encodeCursor(Map<String, Object> item) {
+        String raw = item.get("value") + ":" + item.get("name");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Standing decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return Standing.probe(raw.substring(separator + 1), Double.parseDouble(raw.substring(0, separator)));
+        } catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("cursor inválido");
+        }
+    }
+
+    // Ordena por valor descendente una lista ya ordenada por nombre, sin comparador: clave long con la posición
+    // del valor entre los distintos (invertida) arriba y la posición por nombre abajo
+    private static List<Standing> sortByValue(List<Standing> byName, ToDoubleFunction<Standing> value) {
+        int size = byName.size();
+        double[] distinct = new double[size];
+        for (int i = 0; i < size; i++) {
+            distinct[i] = value.applyAsDouble(byName.get(i));
+        }
+        Arrays.sort(distinct);
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (count == 0 || Double.compare(distinct[i], distinct[count - 1]) != 0) {
+                distinct[count++] = distinct[i];
+            }
+        }
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            int ascending = Arrays.binarySearch(distinct, 0, count, value.applyAsDouble(byName.get(i)));
+            keys[i] = ((long) (count - 1 - ascending) << 32) | i;
+        }
+        Arrays.sort(keys);
+        List<Standing> sorted = new ArrayList<>(size);
+        for (long key : keys) {
+            sorted.add(byName.get((int) key));
+        }
+        return sorted;
+    }
+
+    private Board board(String board) {
+        Board ranking = board != null ? boards.get(board) : null;
+        if (ranking == null) {
+            throw new IllegalArgumentException("board debe ser uno de " + boards.keySet());
+        }
+        return ranking;
+    }
+
+    private static void checkPage(int offset, int limit) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset no puede ser negativo");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit debe estar entre 1 y " + MAX_LIMIT);
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            lock.writeLock().lock();
+            try {
+                if (!loaded) {
+                    reload();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void enqueue(Standing standing) {
+        // Sin cargar ni cargando: la carga inicial ya va a leer la fila desde la tabla
+        if (loaded || loading) {
+            pending.add(standing);
+        }
+    }
+
+    // Reubica a los usuarios confirmados desde la última consulta. Reaplicar valores ya leídos por la carga
+    // no cambia nada: cada evento trae la fila completa
+    private void drainPending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Standing standing;
+            while ((standing = pending.poll()) != null) {
+                if (loaded) {
+                    apply(standing);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(Standing standing) {
+        Standing previous = byName.put(standing.name, standing);
+        for (Board board : boards.values()) {
+            if (previous != null && board.includes.test(previous)) {
+                board.tree.remove(previous);
+            }
+            if (board.includes.test(standing)) {
+                board.tree.add(standing);
+            }
+        }
+    }
+
+    private void reset() {
+        byName = new HashMap<>();
+        boards.values().forEach(board -> board.tree.build(List.of()));
+    }
+
+    private static final class Board {
+        final ToDoubleFunction<Standing> value;
+        final Predicate<Standing> includes;
+        final Comparator<Standing> order;
+        final RankedTree<Standing> tree;
+
+        Board(ToDoubleFunction<Standing> value, Predicate<Standing> includes) {
+            this.value = value;
+            this.includes = includes;
+            this.order = Comparator.comparingDouble(value).reversed().thenComparing(standing -> standing.name);
+            this.tree = new RankedTree<>(order);
+        }
+    }
+
+    // Valores de un usuario al momento de guardarse; inmutable, así cada ranking lo encuentra para borrarlo
+    private static final class Standing {
+        final Long id;
+        final String name;
+        final String role;
+        final double score;
+        final int kills;
+        final int deaths;
+        final int matches;
+        final double kdr;
+
+        Standing(Long id, String name, String role, Double score, Integer kills, Integer deaths, Integer matches) {
+            this.id = id;
+            this.name = name;
+            this.role = role;
+            this.score = score != null ? score : 0.0;
+            this.kills = kills != null ? kills : 0;
+            this.deaths = deaths != null ? deaths : 0;
+            this.matches = matches != null ? matches : 0;
+            this.kdr = this.deaths > 0 ? (double) this.kills / this.deaths : this.kills;
+        }
+
+        private Standing(String name, double value) {
+            this.id = null;
+            this.name = name;
+            this.role = null;
+            this.score = value;
+            this.kills = (int) value;
+            this.deaths = 0;
+            this.matches = 0;
+            this.kdr = value;
+        }
+
+        static Standing of(UserEntity user) {
+            return new Standing(user.getId(), user.getName(), user.getRole(), user.getAverageScore(),
+                user.getTotalKills(), user.getTotalDeaths(), user.getTotalMatches());
+        }
+
+        // Clave de búsqueda con el mismo valor en todos los rankings
+        static Standing probe(String name, double value) {
+            return new Standing(name, value);
+        }
+
+        UserDto toDto() {
+            return new UserDto(id, name, role, score, kills, deaths, matches, kdr);
+        }
+    }
+}
@@ -5,22 +5,34 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.Map;
 
 import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.core.io.Resource;
 
 @Service
 public class MLServiceClient {
     
+    // Buffer para copiar el demo al body del request en la subida streaming
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+    
     @Value("${ml.service.url:http://3.91.78.196:8000}")
     private String mlServiceUrl;
     
@@ -36,10 +48,22 @@ public class MLServiceClient {
     @Autowired
     private ObjectMapper objectMapper;
     
-    private final RestTemplate restTemplate;
+    // Pool de conexiones, timeouts y límites por ruta (ml.service.http.*)
+    @Autowired
+    private MlServiceTransport transport;
+    
+    // Cuánto vale el resultado de isServiceAvailable antes de volver a consultar al servicio
+    @Value("${ml.service.resilience.probe-cache-ms:10000}")
+    private long probeCacheMs = 10_000;
+    
+    private volatile ProbeResult lastProbe;
+    private final Object probeLock = new Object();
     
     public MLServiceClient() {
-        this.restTemplate = new RestTemplate();
+    }
+    
+    public MLServiceClient(MlServiceTransport transport) {
+        this.transport = transport;
     }
     
     /**
@@ -49,10 +73,18 @@ public class MLServiceClient {
      * @return Respuesta del servicio ML con análisis de kills
      */
     public Map<String, Object> analyzeDemoFile(MultipartFile file) {
+        return analyzeDemoFile(file, this::readMap);
+    }
+    
+    /**
+     * Igual que {@link #analyzeDemoFile(MultipartFile)}, entregando el body de la respuesta
+     * sin parsear al handler (p.ej. para leerlo en streaming)
+     */
+    public <T> T analyzeDemoFile(MultipartFile file, ResponseHandler<T> handler) {
         if (simulationEnabled) {
-            return simulateMLResponse(file.getOriginalFilename());
+            return simulateMLResponse(file.getOriginalFilename(), handler);
         } else {
-            return callRealMLService(file);
+            return callRealMLService(file.getResource(), handler);
         }
     }
     
@@ -65,14 +97,65 @@ public class MLServiceClient {
      * @return Respuesta del servicio ML con análisis de kills
      */
     public Map<String, Object> analyzeDemoFile(byte[] fileContent, String fileName) {
+        return analyzeDemoFile(fileContent, fileName, this::readMap);
+    }
+    
+    public <T> T analyzeDemoFile(byte[] fileContent, String fileName, ResponseHandler<T> handler) {
+        if (simulationEnabled) {
+            return simulateMLResponse(fileName, handler);
+        } else {
+            return callRealMLServiceWithBytes(fileContent, fileName, handler);
+        }
+    }
+    
+    /**
+     * Envía un archivo .dem guardado en disco al servicio ML para análisis.
+     * Lo usa el procesamiento asíncrono: el upload se copia a un temporal y se analiza fuera del request.
+     * 
+     * @param file Archivo .dem en disco
+     * @param fileName Nombre original del archivo
+     * @return Respuesta del servicio ML con análisis de kills
+     */
+    public Map<String, Object> analyzeDemoFile(Path file, String fileName) {
+        return analyzeDemoFile(file, fileName, this::readMap);
+    }
+    
+    public <T> T analyzeDemoFile(Path file, String fileName, ResponseHandler<T> handler) {
+        if (simulationEnabled) {
+            return simulateMLResponse(fileName, handler);
+        } else {
+            FileSystemResource fileResource = new FileSystemResource(file) {
+                @Override
+                public String getFilename() {
+                    return fileName;
+                }
+            };
+            return callRealMLService(fileResource, handler);
+        }
+    }
+    
+    /**
+     * Envía un archivo .dem al servicio ML leyéndolo desde un stream (p.ej. S3 + gzip),
+     * con memoria constante: el contenido se copia al body del request a medida que se lee.
+     * El llamador es responsable de cerrar el stream.
+     * 
+     * @param content Stream con el contenido del archivo
+     * @param fileName Nombre original del archivo
+     * @return Respuesta del servicio ML con análisis de kills
+     */
+    public Map<String, Object> analyzeDemoStream(InputStream content, String fileName) {
+        return analyzeDemoStream(content, fileName, this::readMap);
+    }
+    
+    public <T> T analyzeDemoStream(InputStream content, String fileName, ResponseHandler<T> handler) {
         if (simulationEnabled) {
-            return simulateMLResponse(fileName);
+            return simulateMLResponse(fileName, handler);
         } else {
-            return callRealMLServiceWithBytes(fileContent, fileName);
+            return callRealMLServiceStreaming(content, fileName, handler);
         }
     }
     
-    private Map<String, Object> simulateMLResponse(String fileName) {
+    private <T> T simulateMLResponse(String fileName, ResponseHandler<T> handler) {
         try {
             if (fileName == null || !fileName.endsWith(".dem")) {
                 throw new RuntimeException("Invalid DEM file: " + fileName);
@@ -102,92 +185,134 @@ public class MLServiceClient {
                     " (searched for: " + fileName + ")");
             }
             
-            String jsonContent = Files.readString(jsonPath);
-            @SuppressWarnings("unchecked")
-            Map<String, Object> response = objectMapper.readValue(jsonContent, Map.class);
-            
-            return response;
+            try (InputStream in = Files.newInputStream(jsonPath)) {
+                return handler.handle(in);
+            }
             
         } catch (IOException e) {
             throw new RuntimeException("Error reading simulation JSON file: " + e.getMessage(), e);
         }
     }
     
-    private Map<String, Object> callRealMLService(MultipartFile file) {
-        String analyzeUrl = mlServiceUrl + "/analyze-demo";
-        
+    /**
+     * Archivo con tamaño conocido (upload, bytes, temporal en disco): se sube en streaming con Content-Length
+     */
+    private <T> T callRealMLService(Resource fileResource, ResponseHandler<T> handler) {
+        long contentLength;
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.MULTIPART_FORM_DATA);
-            
-            MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-            body.add(fileParamName, file.getResource());
-            
-            HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
-            
-            @SuppressWarnings("rawtypes")
-            ResponseEntity<Map> response = restTemplate.postForEntity(analyzeUrl, requestEntity, Map.class);
-            
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> responseBody = (Map<String, Object>) response.getBody();
-                return responseBody;
-            } else {
-                String errorMsg = "Error in ML service response: " + response.getStatusCode();
-                System.err.println(errorMsg);
-                throw new RuntimeException(errorMsg);
-            }
-            
-        } catch (org.springframework.web.client.HttpClientErrorException e) {
-            String errorMsg = "HTTP error communicating with ML service (" + analyzeUrl + "): " + 
-                            e.getStatusCode() + " - " + e.getResponseBodyAsString();
-            System.err.println(errorMsg);
-            throw new RuntimeException(errorMsg, e);
-        } catch (org.springframework.web.client.ResourceAccessException e) {
-            String errorMsg = "Could not connect to ML service (" + analyzeUrl + "). " +
-                            "Verify that the service is running and accessible. Error: " + e.getMessage();
-            System.err.println(errorMsg);
-            throw new RuntimeException(errorMsg, e);
-        } catch (Exception e) {
-            String errorMsg = "Unexpected error communicating with ML service: " + e.getMessage();
-            System.err.println(errorMsg);
-            throw new RuntimeException(errorMsg, e);
+            contentLength = fileResource.contentLength();
+        } catch (IOException e) {
+            contentLength = -1;
         }
+        return uploadMultipart(fileResource, fileResource.getFilename(), contentLength, handler);
+    }
+    
+    /**
+     * Stream del llamador (p.ej. S3 + gzip): tamaño desconocido, se sube chunked y no se cierra
+     */
+    private <T> T callRealMLServiceStreaming(InputStream content, String fileName, ResponseHandler<T> handler) {
+        return uploadMultipart(() -> StreamUtils.nonClosing(content), fileName, -1, handler);
     }
     
-    private Map<String, Object> callRealMLServiceWithBytes(byte[] fileContent, String fileName) {
+    /**
+     * Sube el demo como multipart escribiendo el contenido directamente en el body del request,
+     * sin pasar por FormHttpMessageConverter ni copiar el archivo a memoria. Con {@code contentLength}
+     * conocido se manda Content-Length; si no, chunked.
+     */
+    private <T> T uploadMultipart(InputStreamSource source, String fileName, long contentLength, ResponseHandler<T> handler) {
         String analyzeUrl = mlServiceUrl + "/analyze-demo";
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        byte[] head = multipartHead(boundary, fileName);
+        byte[] tail = multipartTail(boundary);
         
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.MULTIPART_FORM_DATA);
-            
-            // Crear un Resource desde los bytes
-            ByteArrayResource fileResource = new ByteArrayResource(fileContent) {
-                @Override
-                public String getFilename() {
-                    return fileName;
+        RequestCallback requestCallback = request -> {
+            HttpHeaders headers = request.getHeaders();
+            headers.setContentType(new MediaType(MediaType.MULTIPART_FORM_DATA, Map.of("boundary", boundary)));
+            headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+            if (contentLength >= 0) {
+                headers.setContentLength(head.length + contentLength + tail.length);
+            }
+            StreamingHttpOutputMessage.Body body = out -> {
+                try (InputStream content = source.getInputStream()) {
+                    writeMultipartFile(out, head, content, tail);
                 }
             };
-            
-            MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-            body.add(fileParamName, fileResource);
-            
-            HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
-            
-            @SuppressWarnings("rawtypes")
-            ResponseEntity<Map> response = restTemplate.postForEntity(analyzeUrl, requestEntity, Map.class);
-            
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> responseBody = (Map<String, Object>) response.getBody();
-                return responseBody;
+            if (request instanceof StreamingHttpOutputMessage streamingRequest) {
+                streamingRequest.setBody(body);
             } else {
+                body.writeTo(request.getBody());
+            }
+        };
+        
+        return callAnalyzeEndpoint(analyzeUrl, () -> executeAnalyze(analyzeUrl, requestCallback, handler));
+    }
+    
+    /**
+     * POST a /analyze-demo; el body de la respuesta se entrega al handler mientras se recibe
+     */
+    private <T> T executeAnalyze(String analyzeUrl, RequestCallback requestCallback, ResponseHandler<T> handler) {
+        ResponseExtractor<T> responseExtractor = response -> {
+            if (response.getStatusCode() != HttpStatus.OK) {
                 String errorMsg = "Error in ML service response: " + response.getStatusCode();
                 System.err.println(errorMsg);
                 throw new RuntimeException(errorMsg);
             }
-            
+            try {
+                // Jackson cierra el stream al terminar el último '}', antes del EOF, y eso hace que el
+                // HttpClient descarte la conexión: se lee hasta el final para devolverla al pool
+                InputStream body = response.getBody();
+                T result = handler.handle(StreamUtils.nonClosing(body));
+                StreamUtils.drain(body);
+                return result;
+            } catch (IOException e) {
+                // Sin esto RestTemplate lo reporta como error de conexión
+                throw new UncheckedIOException("Error reading ML service response: " + e.getMessage(), e);
+            }
+        };
+        T result = transport().execute(MlServiceTransport.Route.ANALYZE,
+            rest -> rest.execute(analyzeUrl, HttpMethod.POST, requestCallback, responseExtractor));
+        if (result == null) {
+            throw new RuntimeException("Empty ML service response");
+        }
+        return result;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> readMap(InputStream body) throws IOException {
+        return objectMapper.readValue(body, Map.class);
+    }
+    
+    private byte[] multipartHead(String boundary, String fileName) {
+        String safeFileName = fileName != null ? fileName.replace("\"", "%22") : "demo.dem";
+        String partHeader = "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"" + fileParamName + "\"; filename=\"" + safeFileName + "\"\r\n"
+                + "Content-Type: " + MediaType.APPLICATION_OCTET_STREAM_VALUE + "\r\n\r\n";
+        return partHeader.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static byte[] multipartTail(String boundary) {
+        return ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static void writeMultipartFile(OutputStream out, byte[] head, InputStream content, byte[] tail) throws IOException {
+        out.write(head);
+        
+        byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+        int read;
+        while ((read = content.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        
+        out.write(tail);
+        out.flush();
+    }
+    
+    /**
+     * Ejecuta la llamada a /analyze-demo traduciendo los errores HTTP/conexión a RuntimeException
+     */
+    private <T> T callAnalyzeEndpoint(String analyzeUrl, AnalyzeCall<T> call) {
+        try {
+            return call.execute();
         } catch (org.springframework.web.client.HttpClientErrorException e) {
             String errorMsg = "HTTP error communicating with ML service (" + analyzeUrl + "): " + 
                             e.getStatusCode() + " - " + e.getResponseBodyAsString();
@@ -205,22 +330,86 @@ public class MLServiceClient {
         }
     }
     
+    @FunctionalInterface
+    private interface AnalyzeCall<T> {
+        T execute() throws Exception;
+    }
+    
+    /**
+     * Recibe el body de la respuesta del servicio ML (JSON) sin parsear
+     */
+    @FunctionalInterface
+    public interface ResponseHandler<T> {
+        T handle(InputStream body) throws IOException;
+    }
+    
+    private <T> T callRealMLServiceWithBytes(byte[] fileContent, String fileName, ResponseHandler<T> handler) {
+        // Crear un Resource desde los bytes
+        ByteArrayResource fileResource = new ByteArrayResource(fileContent) {
+            @Override
+            public String getFilename() {
+                return fileName;
+            }
+        };
+        return callRealMLService(fileResource, handler);
+    }
+    
+    private synchronized MlServiceTransport transport() {
+        // Construido sin Spring (tests, herramientas): transporte con la configuración por defecto
+        if (transport == null) {
+            transport = new MlServiceTransport();
+        }
+        return transport;
+    }
+    
+    /**
+     * Health check del servicio ML, cacheado por ml.service.resilience.probe-cache-ms
+     * para no golpear al servicio en cada consulta de estado
+     */
     public boolean isServiceAvailable() {
+        ProbeResult probe = lastProbe;
+        if (probe != null && probe.isFresh(probeCacheMs)) {
+            return probe.available;
+        }
+        // Un solo probe a la vez; los demás esperan su resultado
+        synchronized (probeLock) {
+            probe = lastProbe;
+            if (probe == null || !probe.isFresh(probeCacheMs)) {
+                probe = new ProbeResult(probeServiceAvailable(), System.nanoTime());
+                lastProbe = probe;
+            }
+            return probe.available;
+        }
+    }
+    
+    public Map<String, Object> getTransportStats() {
+        return transport().getStats();
+    }
+    
+    private boolean probeServiceAvailable() {
         try {
             String healthUrl = mlServiceUrl + "/";
             @SuppressWarnings("rawtypes")
-            ResponseEntity<Map> response = restTemplate.getForEntity(healthUrl, Map.class);
+            ResponseEntity<Map> response = transport().execute(MlServiceTransport.Route.PROBE,
+                rest -> rest.getForEntity(healthUrl, Map.class));
             return response.getStatusCode() == HttpStatus.OK;
         } catch (Exception e) {
             return false;
         }
     }
     
+    private record ProbeResult(boolean available, long checkedAtNanos) {
+        boolean isFresh(long maxAgeMs) {
+            return System.nanoTime() - checkedAtNanos < maxAgeMs * 1_000_000;
+        }
+    }
+    
     public Map<String, Object> getModelInfo() {
         try {
             String modelInfoUrl = mlServiceUrl + "/model-info";
             @SuppressWarnings("rawtypes")
-            ResponseEntity<Map> response = restTemplate.getForEntity(modelInfoUrl, Map.class);
+            ResponseEntity<Map> response = transport().execute(MlServiceTransport.Route.PROBE,
+                rest -> rest.getForEntity(modelInfoUrl, Map.class));
             
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
                 @SuppressWarnings("unchecked")
@@ -0,0 +1,60 @@
+package com.tacticore.lambda.service;
+
+import com.tacticore.lambda.model.MapTransform;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Transformaciones juego -> imagen por mapa: los valores conocidos de cada mapa y, por encima,
+ * los que trae la respuesta del ML (debug_attacker.parameters) al procesar un match de ese mapa.
+ * Los aprendidos viven en memoria: al reiniciar se vuelve a los valores conocidos.
+ */
+@Component
+public class MapTransformRegistry {
+
+    private static final Map<String, MapTransform> KNOWN = Map.of(
+        "de_mirage", new MapTransform(-3230.0, 1713.0, 5.0),
+        "de_dust2", new MapTransform(-2476.0, 3239.0, 4.4),
+        "de_inferno", new MapTransform(-2087.0, 3870.0, 4.9),
+        "de_nuke", new MapTransform(-3453.0, 2887.0, 7.0),
+        "de_overpass", new MapTransform(-4831.0, 1781.0, 5.2),
+        "de_train", new MapTransform(-2477.0, 2392.0, 4.7),
+        "de_vertigo", new MapTransform(-3168.0, 1762.0, 4.0),
+        "de_cache", new MapTransform(-2000.0, 3250.0, 5.5),
+        "de_ancient", new MapTransform(-2953.0, 2164.0, 5.0),
+        "de_anubis", new MapTransform(-2796.0, 3328.0, 5.22)
+    );
+    private static final MapTransform DEFAULT = new MapTransform(-2000.0, 3000.0, 5.0);
+
+    private final ConcurrentMap<String, MapTransform> learned = new ConcurrentHashMap<>();
+
+    /**
+     * Valores conocidos del mapa (o los genéricos), sin los aprendidos del ML
+     */
+    public static MapTransform knownFor(String mapName) {
+        return mapName != null ? KNOWN.getOrDefault(mapName, DEFAULT) : DEFAULT;
+    }
+
+    public MapTransform get(String mapName) {
+        MapTransform transform = mapName != null ? learned.get(mapName) : null;
+        return transform != null ? transform : knownFor(mapName);
+    }
+
+    /**
+     * Registra los parámetros emitidos por el ML para un mapa
+     *
+     * @return true si cambia la transformación vigente del mapa
+     */
+    public boolean register(String mapName, MapTransform transform) {
+        if (mapName == null || transform == null) {
+            return false;
+        }
+        MapTransform previous = get(mapName);
+        learned.put(mapName, transform);
+        return !Objects.equals(previous, transform);
+    }
+}
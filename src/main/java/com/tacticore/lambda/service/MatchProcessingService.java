@@ -0,0 +1,259 @@
+package com.tacticore.lambda.service;
+
+import com.tacticore.lambda.serialization.MlResponseStreamReader;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Procesamiento de matches subidos: llamada al servicio ML, mapeo a kills y persistencia.
+ * La respuesta del ML se lee en streaming mientras llega (DatabaseMatchService.updateMatchFromMlResponse):
+ * los kills se escriben por batches sin armar el Map completo de predicciones.
+ *
+ * En modo asíncrono (match.processing.async=true) el upload solo encola el trabajo y responde
+ * con el matchId; un pool acotado de workers con cola de capacidad fija procesa los matches
+ * (queued -> processing -> completed/failed, visible en /api/matches/{id}/status).
+ * Las llamadas al servicio ML pasan por MlServiceGuard (bulkhead, circuit breaker y reintentos):
+ * con el breaker abierto un match asíncrono vuelve a "queued" y se reintenta más tarde,
+ * uno síncrono queda "failed" sin esperar al servicio.
+ * En Lambda el entorno se congela al devolver la respuesta, por eso ahí se procesa en línea.
+ */
+@Service
+public class MatchProcessingService {
+
+    @Autowired
+    private MLServiceClient mlServiceClient;
+
+    @Autowired
+    private DatabaseMatchService databaseMatchService;
+
+    @Autowired
+    private MlServiceGuard mlServiceGuard;
+
+    @Value("${match.processing.async:true}")
+    private boolean async;
+
+    @Value("${match.processing.workers:4}")
+    private int workers;
+
+    @Value("${match.processing.queue-capacity:32}")
+    private int queueCapacity;
+
+    @Value("${match.processing.ml-concurrency:2}")
+    private int mlConcurrency;
+
+    @Value("${match.processing.max-requeues:10}")
+    private int maxRequeues;
+
+    private final AtomicLong lastMatchIdMillis = new AtomicLong();
+    private final AtomicLong requeued = new AtomicLong();
+
+    private ThreadPoolExecutor executor;
+    // Re-encola matches diferidos por el circuit breaker cuando vence su espera
+    private ScheduledExecutorService requeueScheduler;
+
+    @PostConstruct
+    void init() {
+        if (!async) {
+            return;
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        int poolSize = Math.max(workers, 1);
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)),
+            runnable -> {
+                Thread thread = new Thread(runnable, "match-processor-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        requeueScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "match-requeue");
+            thread.setDaemon(true);
+            return thread;
+        });
+        System.out.println("⚙️ Procesamiento asíncrono de matches: " + poolSize + " workers, cola de "
+            + queueCapacity + ", " + mlConcurrency + " llamadas ML concurrentes");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor == null) {
+            return;
+        }
+        requeueScheduler.shutdownNow();
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Genera un matchId "match_<millis>" único aunque lleguen varios uploads en el mismo milisegundo
+     */
+    public String newMatchId() {
+        long millis = lastMatchIdMillis.updateAndGet(last -> Math.max(last + 1, System.currentTimeMillis()));
+        return "match_" + millis;
+    }
+
+    /**
+     * Encola el procesamiento del match. El match ya debe existir con status "queued".
+     *
+     * @throws QueueFullException si la cola está llena; el match queda como "failed"
+     */
+    public void enqueue(String matchId, String fileName, MlAnalysis analysis, Runnable cleanup) {
+        if (executor == null) {
+            throw new IllegalStateException("Async match processing is disabled (match.processing.async=false)");
+        }
+        try {
+            executor.execute(() -> runJob(matchId, fileName, analysis, cleanup, 0));
+        } catch (RejectedExecutionException e) {
+            runCleanup(cleanup);
+            databaseMatchService.updateMatchWithError(matchId, "Processing queue full");
+            throw new QueueFullException("Processing queue full (" + queueCapacity + " pending matches)");
+        }
+    }
+
+    /**
+     * Procesa el match en el thread actual (modo síncrono). Si falla, el match queda como "failed"
+     * y se relanza la excepción.
+     *
+     * @throws MlServiceGuard.MlUnavailableException si el breaker está abierto o no hubo lugar en el bulkhead
+     */
+    public void process(String matchId, String fileName, MlAnalysis analysis) throws Exception {
+        process(matchId, fileName, analysis, true);
+    }
+
+    /**
+     * @param replayable false si {@code analysis} consume un stream que no se puede volver a leer
+     *                   (la llamada ML no se reintenta)
+     */
+    public void process(String matchId, String fileName, MlAnalysis analysis, boolean replayable) throws Exception {
+        databaseMatchService.updateMatchStatus(matchId, "processing");
+        try {
+            analyzeAndPersist(matchId, analysis, false, replayable);
+        } catch (Exception e) {
+            databaseMatchService.updateMatchWithError(matchId, "Processing failed: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    public Map<String, Object> getMlStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("serviceAvailable", mlServiceClient.isServiceAvailable());
+        status.put("resilience", mlServiceGuard.getStats());
+        status.put("requeued", requeued.get());
+        status.put("transport", mlServiceClient.getTransportStats());
+        return status;
+    }
+
+    private void runJob(String matchId, String fileName, MlAnalysis analysis, Runnable cleanup, int requeues) {
+        boolean deferred = false;
+        try {
+            databaseMatchService.updateMatchStatus(matchId, "processing");
+            // Los workers esperan lugar en el bulkhead: la cola ya acota cuántos matches hay pendientes
+            analyzeAndPersist(matchId, analysis, true, true);
+            System.out.println("✅ Match processed successfully: " + matchId);
+        } catch (MlServiceGuard.MlUnavailableException e) {
+            deferred = requeues < maxRequeues && requeue(matchId, fileName, analysis, cleanup, requeues + 1, e.getRetryAfterMs());
+            if (!deferred) {
+                databaseMatchService.updateMatchWithError(matchId, "Processing failed: " + e.getMessage());
+                System.err.println("❌ Error processing match: " + matchId + " - " + e.getMessage());
+            }
+        } catch (Exception e) {
+            databaseMatchService.updateMatchWithError(matchId, "Processing failed: " + e.getMessage());
+            System.err.println("❌ Error processing match: " + matchId + " - " + e.getMessage());
+        } finally {
+            if (!deferred) {
+                runCleanup(cleanup);
+            }
+        }
+    }
+
+    /**
+     * Vuelve el match a "queued" y lo re-encola cuando el breaker debería dejar pasar llamadas,
+     * con un jitter para que los matches diferidos no vuelvan todos juntos
+     */
+    private boolean requeue(String matchId, String fileName, MlAnalysis analysis, Runnable cleanup,
+                            int requeues, long retryAfterMs) {
+        long delayMs = Math.max(retryAfterMs, 100) + ThreadLocalRandom.current().nextLong(Math.max(retryAfterMs / 4, 1) + 1);
+        try {
+            databaseMatchService.updateMatchStatus(matchId, "queued");
+            requeueScheduler.schedule(() -> {
+                try {
+                    executor.execute(() -> runJob(matchId, fileName, analysis, cleanup, requeues));
+                } catch (RejectedExecutionException e) {
+                    databaseMatchService.updateMatchWithError(matchId, "Processing queue full");
+                    runCleanup(cleanup);
+                }
+            }, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+        requeued.incrementAndGet();
+        System.out.println("⏸️ ML service unavailable, match " + matchId + " queued again in " + delayMs
+            + " ms (" + requeues + "/" + maxRequeues + ")");
+        return true;
+    }
+
+    private void analyzeAndPersist(String matchId, MlAnalysis analysis, boolean waitForPermit, boolean replayable) throws Exception {
+        // El bulkhead cubre también la lectura de la respuesta: se ingesta mientras llega del servicio ML
+        mlServiceGuard.execute(waitForPermit, replayable, responseReceived ->
+            analysis.analyze(mlServiceClient, body -> {
+                responseReceived.run();
+                return databaseMatchService.updateMatchFromMlResponse(matchId, body);
+            }));
+    }
+
+    private void runCleanup(Runnable cleanup) {
+        if (cleanup == null) {
+            return;
+        }
+        try {
+            cleanup.run();
+        } catch (Exception e) {
+            System.err.println("Error cleaning up match upload: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Llamada al servicio ML de un match (se ejecuta dentro del límite de concurrencia);
+     * debe pasarle al cliente el handler que ingesta la respuesta
+     */
+    @FunctionalInterface
+    public interface MlAnalysis {
+        MlResponseStreamReader.Summary analyze(MLServiceClient client,
+                                               MLServiceClient.ResponseHandler<MlResponseStreamReader.Summary> ingest) throws Exception;
+    }
+
+    public static class QueueFullException extends RuntimeException {
+        public QueueFullException(String message) {
+            super(message);
+        }
+    }
+}
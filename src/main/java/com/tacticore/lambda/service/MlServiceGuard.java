@@ -0,0 +1,315 @@
+package com.tacticore.lambda.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.nio.file.FileSystemException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resiliencia de las llamadas de análisis al servicio ML (las hace MatchProcessingService):
+ * <ul>
+ *   <li>bulkhead: como mucho match.processing.ml-concurrency llamadas en vuelo; los requests síncronos
+ *       esperan lugar hasta bulkhead-wait-ms y si no fallan rápido, los workers asíncronos esperan</li>
+ *   <li>circuit breaker: después de failure-threshold fallas seguidas del servicio (5xx, conexión,
+ *       timeouts) se abre por open-ms y las llamadas fallan sin tocar la red; luego deja pasar una
+ *       llamada de prueba que lo cierra o lo vuelve a abrir</li>
+ *   <li>retry con backoff exponencial y jitter, solo si el request no pudo tener efecto
+ *       (conexión rechazada, 429, 502/503/504), el body se puede volver a mandar y todavía
+ *       no se empezó a ingerir la respuesta</li>
+ * </ul>
+ * Los 4xx y los errores al ingerir la respuesta no cuentan como fallas (el servicio respondió), ni los
+ * errores locales como leer el demo o esperar lugar en MlServiceTransport.
+ */
+@Component
+public class MlServiceGuard {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    @Value("${match.processing.ml-concurrency:2}")
+    private int maxConcurrentCalls = 2;
+
+    @Value("${ml.service.resilience.bulkhead-wait-ms:2000}")
+    private long bulkheadWaitMs = 2000;
+
+    @Value("${ml.service.resilience.failure-threshold:5}")
+    private int failureThreshold = 5;
+
+    @Value("${ml.service.resilience.open-ms:30000}")
+    private long openMs = 30_000;
+
+    @Value("${ml.service.resilience.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    @Value("${ml.service.resilience.initial-backoff-ms:500}")
+    private long initialBackoffMs = 500;
+
+    @Value("${ml.service.resilience.max-backoff-ms:8000}")
+    private long maxBackoffMs = 8000;
+
+    private Semaphore bulkhead;
+    private int bulkheadLimit;
+
+    // Estado del breaker, protegido por this
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+    private boolean trialInFlight;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong successes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong rejectedOpen = new AtomicLong();
+    private final AtomicLong rejectedBulkhead = new AtomicLong();
+    private final AtomicLong timesOpened = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        bulkheadLimit = Math.max(maxConcurrentCalls, 1);
+        bulkhead = new Semaphore(bulkheadLimit, true);
+        System.out.println("🛡️ ML resilience: " + bulkheadLimit + " llamadas concurrentes, breaker a las "
+            + failureThreshold + " fallas por " + openMs + " ms, " + maxAttempts + " intentos");
+    }
+
+    /**
+     * Ejecuta la llamada dentro del bulkhead y el breaker, reintentando las fallas transitorias.
+     *
+     * @param waitForPermit true para esperar lugar en el bulkhead sin límite (workers asíncronos)
+     * @param replayable false si la llamada consume un stream del llamador y no se puede repetir
+     * @throws MlUnavailableException si el breaker está abierto o el bulkhead sigue lleno
+     */
+    public <T> T execute(boolean waitForPermit, boolean replayable, GuardedCall<T> call) throws Exception {
+        acquireBulkhead(waitForPermit);
+        try {
+            for (int attempt = 1; ; attempt++) {
+                boolean trial = permitCall();
+                calls.incrementAndGet();
+                boolean[] responseReceived = {false};
+                boolean recorded = false;
+                try {
+                    T result = call.call(() -> responseReceived[0] = true);
+                    recordSuccess();
+                    recorded = true;
+                    return result;
+                } catch (Exception e) {
+                    boolean serviceFailure = isServiceFailure(e);
+                    if (responseReceived[0] || (!serviceFailure && isServiceResponse(e))) {
+                        recordSuccess();
+                        recorded = true;
+                        throw e;
+                    }
+                    if (!serviceFailure) {
+                        // Error local (lectura del demo, transporte saturado): no dice nada del servicio
+                        throw e;
+                    }
+                    recordFailure(e);
+                    recorded = true;
+                    if (!replayable || attempt >= maxAttempts || !isRetryable(e)) {
+                        throw e;
+                    }
+                    retries.incrementAndGet();
+                    long delay = backoffMs(attempt);
+                    System.out.println("🔁 Reintento " + (attempt + 1) + "/" + maxAttempts + " de la llamada ML en "
+                        + delay + " ms: " + e.getMessage());
+                    Thread.sleep(delay);
+                } finally {
+                    if (trial && !recorded) {
+                        releaseTrial();
+                    }
+                }
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("state", state.name());
+            stats.put("consecutiveFailures", consecutiveFailures);
+            if (state == State.OPEN) {
+                stats.put("retryAfterMs", remainingOpenMs());
+            }
+        }
+        stats.put("inFlight", bulkheadLimit - bulkhead.availablePermits());
+        stats.put("maxConcurrentCalls", bulkheadLimit);
+        stats.put("calls", calls.get());
+        stats.put("successes", successes.get());
+        stats.put("failures", failures.get());
+        stats.put("retries", retries.get());
+        stats.put("rejectedOpen", rejectedOpen.get());
+        stats.put("rejectedBulkhead", rejectedBulkhead.get());
+        stats.put("timesOpened", timesOpened.get());
+        return stats;
+    }
+
+    private void acquireBulkhead(boolean waitForPermit) throws InterruptedException {
+        if (waitForPermit) {
+            bulkhead.acquire();
+        } else if (!bulkhead.tryAcquire(bulkheadWaitMs, TimeUnit.MILLISECONDS)) {
+            rejectedBulkhead.incrementAndGet();
+            throw new MlUnavailableException("ML service busy: " + bulkheadLimit + " analyses in flight for more than "
+                + bulkheadWaitMs + " ms", bulkheadWaitMs);
+        }
+    }
+
+    /**
+     * @return true si la llamada es la de prueba del estado HALF_OPEN
+     */
+    private synchronized boolean permitCall() {
+        if (state == State.OPEN) {
+            long remaining = remainingOpenMs();
+            if (remaining > 0) {
+                rejectedOpen.incrementAndGet();
+                throw new MlUnavailableException("ML service circuit open, retry in " + remaining + " ms", remaining);
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                rejectedOpen.incrementAndGet();
+                throw new MlUnavailableException("ML service circuit half-open, trial call in flight", initialBackoffMs);
+            }
+            trialInFlight = true;
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized void recordSuccess() {
+        successes.incrementAndGet();
+        consecutiveFailures = 0;
+        trialInFlight = false;
+        if (state != State.CLOSED) {
+            transition(State.CLOSED);
+        }
+    }
+
+    private synchronized void recordFailure(Exception e) {
+        failures.incrementAndGet();
+        consecutiveFailures++;
+        trialInFlight = false;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            openedAtNanos = System.nanoTime();
+            timesOpened.incrementAndGet();
+            transition(State.OPEN);
+            System.err.println("⚡ ML service circuit open for " + openMs + " ms after " + consecutiveFailures
+                + " consecutive failures: " + e.getMessage());
+        }
+    }
+
+    private synchronized void releaseTrial() {
+        trialInFlight = false;
+    }
+
+    private void transition(State next) {
+        if (state != next) {
+            System.out.println("🛡️ ML service circuit " + state + " -> " + next);
+            state = next;
+        }
+    }
+
+    private long remainingOpenMs() {
+        return openMs - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - openedAtNanos);
+    }
+
+    /**
+     * Backoff exponencial con "equal jitter": la mitad fija y la otra mitad al azar,
+     * para que los reintentos de varios matches no lleguen juntos
+     */
+    long backoffMs(int attempt) {
+        long exponential = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+        long half = exponential / 2;
+        return half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+
+    /**
+     * Falla atribuible al servicio: 5xx, 429 o errores de red/timeouts
+     */
+    static boolean isServiceFailure(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof HttpServerErrorException) {
+                return true;
+            }
+            if (t instanceof HttpClientErrorException clientError) {
+                return clientError.getStatusCode().value() == 429;
+            }
+            // Leer el demo (archivo local, S3) no es culpa del servicio
+            if (t instanceof IOException && !(t instanceof FileSystemException)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * El servicio respondió con un status de error
+     */
+    static boolean isServiceResponse(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof RestClientResponseException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Fallas en las que el servicio no procesó el request y repetirlo es seguro
+     */
+    static boolean isRetryable(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof ConnectException || t instanceof HttpConnectTimeoutException) {
+                return true;
+            }
+            if (t instanceof HttpServerErrorException serverError) {
+                int status = serverError.getStatusCode().value();
+                return status == 502 || status == 503 || status == 504;
+            }
+            if (t instanceof HttpClientErrorException clientError) {
+                return clientError.getStatusCode().value() == 429;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Llamada protegida; debe ejecutar {@code responseReceived} al empezar a leer la respuesta
+     * del servicio (desde ahí ya no se reintenta)
+     */
+    @FunctionalInterface
+    public interface GuardedCall<T> {
+        T call(Runnable responseReceived) throws Exception;
+    }
+
+    public static class MlUnavailableException extends RuntimeException {
+        private final long retryAfterMs;
+
+        public MlUnavailableException(String message, long retryAfterMs) {
+            super(message);
+            this.retryAfterMs = Math.max(retryAfterMs, 0);
+        }
+
+        public long getRetryAfterMs() {
+            return retryAfterMs;
+        }
+    }
+}
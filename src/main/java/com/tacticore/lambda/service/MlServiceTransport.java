@@ -0,0 +1,184 @@
+package com.tacticore.lambda.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Transporte HTTP de MLServiceClient, elegido con ml.service.http.transport:
+ * <ul>
+ *   <li>{@code jdk} (default): un único java.net.http.HttpClient compartido, con pool de conexiones
+ *       keep-alive, connect timeout y HTTP/2 opcional (ALPN en https; en http plano conviene HTTP_1_1)</li>
+ *   <li>{@code simple}: HttpURLConnection como antes (SimpleClientHttpRequestFactory), ahora con timeouts</li>
+ * </ul>
+ * Cada ruta tiene su propio límite de requests en vuelo: las subidas de demos no pueden ocupar
+ * todas las conexiones y dejar sin respuesta a los probes (isServiceAvailable / getModelInfo),
+ * que además tienen un read timeout corto.
+ */
+@Component
+public class MlServiceTransport {
+
+    public static final String JDK = "jdk";
+    public static final String SIMPLE = "simple";
+
+    public enum Route {
+        /** POST /analyze-demo: upload multipart y análisis, read timeout largo */
+        ANALYZE,
+        /** GET / y /model-info */
+        PROBE
+    }
+
+    // Defaults también como inicializadores: MLServiceClient crea uno sin Spring si no se lo inyectan
+    @Value("${ml.service.http.transport:jdk}")
+    private String type = JDK;
+
+    @Value("${ml.service.http.version:HTTP_1_1}")
+    private String httpVersion = "HTTP_1_1";
+
+    @Value("${ml.service.http.connect-timeout-ms:5000}")
+    private long connectTimeoutMs = 5000;
+
+    @Value("${ml.service.http.read-timeout-ms:300000}")
+    private long readTimeoutMs = 300_000;
+
+    @Value("${ml.service.http.probe-timeout-ms:3000}")
+    private long probeTimeoutMs = 3000;
+
+    @Value("${ml.service.http.max-concurrent-uploads:16}")
+    private int maxConcurrentUploads = 16;
+
+    @Value("${ml.service.http.max-concurrent-probes:4}")
+    private int maxConcurrentProbes = 4;
+
+    @Value("${ml.service.http.acquire-timeout-ms:60000}")
+    private long acquireTimeoutMs = 60_000;
+
+    private final Map<Route, RestTemplate> templates = new EnumMap<>(Route.class);
+    private final Map<Route, Semaphore> permits = new EnumMap<>(Route.class);
+    private final Map<Route, Integer> limits = new EnumMap<>(Route.class);
+    private ExecutorService executor;
+    private volatile boolean initialized;
+
+    public MlServiceTransport() {
+    }
+
+    public MlServiceTransport(String type, long readTimeoutMs, int maxConcurrentUploads, long acquireTimeoutMs) {
+        this.type = type;
+        this.readTimeoutMs = readTimeoutMs;
+        this.maxConcurrentUploads = maxConcurrentUploads;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        init();
+    }
+
+    @PostConstruct
+    synchronized void init() {
+        if (initialized) {
+            return;
+        }
+        HttpClient httpClient = null;
+        if (JDK.equals(type)) {
+            AtomicInteger threadCount = new AtomicInteger();
+            executor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "ml-http-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.valueOf(httpVersion))
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+        } else if (!SIMPLE.equals(type)) {
+            throw new IllegalArgumentException("ml.service.http.transport desconocido: " + type + " (jdk | simple)");
+        }
+
+        register(Route.ANALYZE, requestFactory(httpClient, readTimeoutMs), maxConcurrentUploads);
+        register(Route.PROBE, requestFactory(httpClient, probeTimeoutMs), maxConcurrentProbes);
+        initialized = true;
+        System.out.println("🔌 ML service transport: " + type + (httpClient != null ? " " + httpVersion : "")
+            + ", " + maxConcurrentUploads + " uploads / " + maxConcurrentProbes + " probes concurrentes");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Ejecuta {@code call} con el RestTemplate de la ruta, esperando un lugar libre hasta
+     * ml.service.http.acquire-timeout-ms
+     */
+    public <T> T execute(Route route, Function<RestTemplate, T> call) {
+        if (!initialized) {
+            init();
+        }
+        Semaphore semaphore = permits.get(route);
+        try {
+            if (!semaphore.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("ML service busy: " + limits.get(route) + " concurrent "
+                    + route + " requests for more than " + acquireTimeoutMs + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for an ML service connection", e);
+        }
+        try {
+            return call.apply(templates.get(route));
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("transport", type);
+        stats.put("httpVersion", JDK.equals(type) ? httpVersion : "HTTP_1_1");
+        for (Route route : Route.values()) {
+            Semaphore semaphore = permits.get(route);
+            if (semaphore != null) {
+                stats.put(route.name().toLowerCase() + "InFlight", limits.get(route) - semaphore.availablePermits());
+                stats.put(route.name().toLowerCase() + "Limit", limits.get(route));
+            }
+        }
+        return stats;
+    }
+
+    private void register(Route route, ClientHttpRequestFactory requestFactory, int limit) {
+        int permitsForRoute = Math.max(limit, 1);
+        templates.put(route, new RestTemplate(requestFactory));
+        permits.put(route, new Semaphore(permitsForRoute, true));
+        limits.put(route, permitsForRoute);
+    }
+
+    private ClientHttpRequestFactory requestFactory(HttpClient httpClient, long readTimeoutMs) {
+        if (httpClient != null) {
+            JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient, executor);
+            requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+            return requestFactory;
+        }
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout((int) connectTimeoutMs);
+        requestFactory.setReadTimeout((int) readTimeoutMs);
+        return requestFactory;
+    }
+}
@@ -0,0 +1,429 @@
+package com.tacticore.lambda.service;
+
+import com.tacticore.lambda.model.KillEntity;
+import com.tacticore.lambda.model.PlayerMatchStatsEntity;
+import com.tacticore.lambda.model.PlayerStatCounterEntity;
+import com.tacticore.lambda.model.PlayerStatsEntity;
+import com.tacticore.lambda.repository.KillRepository;
+import com.tacticore.lambda.repository.PlayerMatchStatsRepository;
+import com.tacticore.lambda.repository.PlayerStatCounterRepository;
+import com.tacticore.lambda.repository.PlayerStatsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Agregados por jugador (player_stats, player_stat_counters, player_match_stats) mantenidos
+ * incrementalmente en la misma transacción que inserta cada batch de kills, para que las
+ * estadísticas de usuario lean una fila por jugador en lugar de recorrer la tabla kills.
+ *
+ * Incluye rebuild completo desde kills y un chequeo de consistencia contra los kills crudos.
+ */
+@Service
+public class PlayerAggregateService {
+
+    private static final int MAX_REPORTED_MISMATCHES = 50;
+    private static final double SUM_TOLERANCE = 1e-6;
+
+    @Autowired
+    private KillRepository killRepository;
+
+    @Autowired
+    private PlayerStatsRepository playerStatsRepository;
+
+    @Autowired
+    private PlayerStatCounterRepository playerStatCounterRepository;
+
+    @Autowired
+    private PlayerMatchStatsRepository playerMatchStatsRepository;
+
+    // La base es H2 en memoria dentro del mismo proceso: un lock de JVM retenido hasta el fin de la
+    // transacción serializa las escrituras de agregados (workers concurrentes no pierden incrementos
+    // ni insertan dos veces la fila de un jugador nuevo)
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /**
+     * Suma un batch de kills ya insertado a los agregados. Debe ejecutarse dentro de la transacción
+     * que inserta los kills para que ambos se confirmen (o se reviertan) juntos.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyKills(Collection<KillEntity> kills) {
+        if (kills == null || kills.isEmpty()) {
+            return;
+        }
+        apply(Aggregates.fromKills(kills));
+    }
+
+    /**
+     * Aplica de una vez los deltas acumulados de varios batches. El lock se toma recién acá:
+     * quien ingiere en streaming acumula mientras lee y no lo retiene durante la lectura.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyDelta(KillDelta delta) {
+        if (delta == null || delta.isEmpty()) {
+            return;
+        }
+        apply(delta.aggregates);
+    }
+
+    private void apply(Aggregates delta) {
+        lockUntilTransactionEnds();
+
+        // Matches: una fila nueva por jugador/match suma 1 al total de matches distintos del jugador
+        Map<String, PlayerMatchStatsEntity> storedMatches = index(
+            playerMatchStatsRepository.findByMatchIds(delta.matchIds()), Aggregates::matchKey);
+        List<PlayerMatchStatsEntity> newMatches = new ArrayList<>();
+        delta.playerMatches.forEach((key, increment) -> {
+            PlayerMatchStatsEntity stored = storedMatches.get(key);
+            if (stored == null) {
+                newMatches.add(increment);
+                PlayerStatsEntity playerDelta = delta.stats.get(increment.getPlayerName());
+                playerDelta.setMatches(playerDelta.getMatches() + 1);
+            } else {
+                stored.setKills(stored.getKills() + increment.getKills());
+                stored.setDeaths(stored.getDeaths() + increment.getDeaths());
+            }
+        });
+        playerMatchStatsRepository.saveAll(newMatches);
+
+        Map<String, PlayerStatsEntity> storedStats = index(
+            playerStatsRepository.findByPlayerNames(delta.stats.keySet()), PlayerStatsEntity::getPlayerName);
+        List<PlayerStatsEntity> newStats = new ArrayList<>();
+        delta.stats.forEach((player, increment) -> {
+            PlayerStatsEntity stored = storedStats.get(player);
+            if (stored == null) {
+                newStats.add(increment);
+            } else {
+                stored.add(increment);
+            }
+        });
+        playerStatsRepository.saveAll(newStats);
+
+        Map<String, PlayerStatCounterEntity> storedCounters = index(
+            playerStatCounterRepository.findByPlayerNames(delta.counterPlayers()), Aggregates::counterKey);
+        List<PlayerStatCounterEntity> newCounters = new ArrayList<>();
+        delta.counters.forEach((key, increment) -> {
+            PlayerStatCounterEntity stored = storedCounters.get(key);
+            if (stored == null) {
+                newCounters.add(increment);
+            } else {
+                stored.setKillCount(stored.getKillCount() + increment.getKillCount());
+            }
+        });
+        playerStatCounterRepository.saveAll(newCounters);
+    }
+
+    /**
+     * Elimina todos los agregados (acompaña a un borrado completo de la tabla kills)
+     */
+    @Transactional
+    public void clear() {
+        lockUntilTransactionEnds();
+        playerMatchStatsRepository.deleteAllInBulk();
+        playerStatCounterRepository.deleteAllInBulk();
+        playerStatsRepository.deleteAllInBulk();
+    }
+
+    /**
+     * Recalcula todos los agregados desde la tabla kills (GROUP BY, sin cargar los kills en memoria)
+     */
+    @Transactional
+    public Map<String, Object> rebuild() {
+        long start = System.currentTimeMillis();
+        clear();
+
+        Aggregates rebuilt = Aggregates.fromKillTable(killRepository);
+        playerStatsRepository.saveAll(rebuilt.stats.values());
+        playerStatCounterRepository.saveAll(rebuilt.counters.values());
+        playerMatchStatsRepository.saveAll(rebuilt.playerMatches.values());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("players", rebuilt.stats.size());
+        result.put("counters", rebuilt.counters.size());
+        result.put("playerMatches", rebuilt.playerMatches.size());
+        result.put("elapsedMs", System.currentTimeMillis() - start);
+        System.out.println("🔄 Agregados de jugadores reconstruidos: " + result);
+        return result;
+    }
+
+    /**
+     * Compara los agregados guardados con los recalculados desde los kills crudos
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> checkConsistency() {
+        lockUntilTransactionEnds();
+        Aggregates expected = Aggregates.fromKillTable(killRepository);
+        Aggregates stored = new Aggregates();
+        playerStatsRepository.findAll().forEach(s -> stored.stats.put(s.getPlayerName(), s));
+        playerStatCounterRepository.findAll().forEach(c -> stored.counters.put(Aggregates.counterKey(c), c));
+        playerMatchStatsRepository.findAll().forEach(pm -> stored.playerMatches.put(Aggregates.matchKey(pm), pm));
+
+        List<Map<String, Object>> mismatches = new ArrayList<>();
+        compare(expected.stats, stored.stats, "stats", mismatches, (e, s) -> {
+            List<String> fields = new ArrayList<>();
+            if (!e.getKills().equals(s.getKills())) fields.add("kills");
+            if (!e.getDeaths().equals(s.getDeaths())) fields.add("deaths");
+            if (!e.getHeadshots().equals(s.getHeadshots())) fields.add("headshots");
+            if (!e.getMatches().equals(s.getMatches())) fields.add("matches");
+            if (!e.getDistanceSamples().equals(s.getDistanceSamples())
+                || !sumsMatch(e.getDistanceSum(), s.getDistanceSum())) fields.add("distance");
+            if (!e.getTimeInRoundSamples().equals(s.getTimeInRoundSamples())
+                || !sumsMatch(e.getTimeInRoundSum(), s.getTimeInRoundSum())) fields.add("timeInRound");
+            return fields;
+        });
+        compare(expected.counters, stored.counters, "counter", mismatches,
+            (e, s) -> e.getKillCount().equals(s.getKillCount()) ? List.of() : List.of("killCount"));
+        compare(expected.playerMatches, stored.playerMatches, "playerMatch", mismatches, (e, s) -> {
+            List<String> fields = new ArrayList<>();
+            if (!e.getKills().equals(s.getKills())) fields.add("kills");
+            if (!e.getDeaths().equals(s.getDeaths())) fields.add("deaths");
+            return fields;
+        });
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("consistent", mismatches.isEmpty());
+        result.put("players", expected.stats.size());
+        result.put("counters", expected.counters.size());
+        result.put("playerMatches", expected.playerMatches.size());
+        result.put("mismatchCount", mismatches.size());
+        result.put("mismatches", mismatches.size() > MAX_REPORTED_MISMATCHES
+            ? mismatches.subList(0, MAX_REPORTED_MISMATCHES) : mismatches);
+        return result;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<PlayerStatsEntity> getPlayerStats(String playerName) {
+        return playerStatsRepository.findByPlayerName(playerName);
+    }
+
+    /**
+     * KDR promedio de los jugadores con kills y muertes (0 si no hay ninguno)
+     */
+    @Transactional(readOnly = true)
+    public double getAverageKdr() {
+        Double average = playerStatsRepository.findAverageKdr();
+        return average != null ? average : 0.0;
+    }
+
+    @Transactional(readOnly = true)
+    public List<PlayerStatsEntity> getAllPlayerStats() {
+        return playerStatsRepository.findAll();
+    }
+
+    /**
+     * Contadores de un jugador en una dimensión (weapon/place/side), de mayor a menor
+     */
+    @Transactional(readOnly = true)
+    public List<PlayerStatCounterEntity> getCounters(String playerName, String dimension) {
+        return playerStatCounterRepository.findByPlayerAndDimension(playerName, dimension);
+    }
+
+    @Transactional(readOnly = true)
+    public List<PlayerMatchStatsEntity> getPlayerMatches(String playerName) {
+        return playerMatchStatsRepository.findByPlayerName(playerName);
+    }
+
+    private void lockUntilTransactionEnds() {
+        writeLock.lock();
+        try {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    writeLock.unlock();
+                }
+            });
+        } catch (RuntimeException e) {
+            writeLock.unlock();
+            throw e;
+        }
+    }
+
+    private static boolean sumsMatch(double expected, double actual) {
+        return Math.abs(expected - actual) <= SUM_TOLERANCE * Math.max(1.0, Math.abs(expected));
+    }
+
+    private static <T> void compare(Map<String, T> expected, Map<String, T> stored, String type,
+                                    List<Map<String, Object>> mismatches, DifferingFields<T> differingFields) {
+        Set<String> keys = new TreeSet<>(expected.keySet());
+        keys.addAll(stored.keySet());
+        for (String key : keys) {
+            T e = expected.get(key);
+            T s = stored.get(key);
+            List<String> fields = e == null ? List.of("unexpected")
+                : s == null ? List.of("missing")
+                : differingFields.between(e, s);
+            if (!fields.isEmpty()) {
+                Map<String, Object> mismatch = new LinkedHashMap<>();
+                mismatch.put("type", type);
+                mismatch.put("key", key);
+                mismatch.put("fields", fields);
+                mismatches.add(mismatch);
+            }
+        }
+    }
+
+    private static <T> Map<String, T> index(Collection<T> values, Function<T, String> key) {
+        Map<String, T> indexed = new HashMap<>();
+        for (T value : values) {
+            indexed.put(key.apply(value), value);
+        }
+        return indexed;
+    }
+
+    @FunctionalInterface
+    private interface DifferingFields<T> {
+        List<String> between(T expected, T stored);
+    }
+
+    /**
+     * Deltas de kills de varios batches, acumulados sin tocar la base ni el lock
+     */
+    public static final class KillDelta {
+
+        private final Aggregates aggregates = new Aggregates();
+
+        public void add(Collection<KillEntity> kills) {
+            if (kills != null) {
+                aggregates.addKills(kills);
+            }
+        }
+
+        public boolean isEmpty() {
+            return aggregates.stats.isEmpty();
+        }
+    }
+
+    /**
+     * Agregados en memoria, indexados por jugador, jugador/dimensión/valor y jugador/match
+     */
+    private static class Aggregates {
+
+        private static final String KEY_SEPARATOR = "|";
+
+        final Map<String, PlayerStatsEntity> stats = new LinkedHashMap<>();
+        final Map<String, PlayerStatCounterEntity> counters = new LinkedHashMap<>();
+        final Map<String, PlayerMatchStatsEntity> playerMatches = new LinkedHashMap<>();
+
+        static Aggregates fromKills(Collection<KillEntity> kills) {
+            Aggregates aggregates = new Aggregates();
+            aggregates.addKills(kills);
+            return aggregates;
+        }
+
+        void addKills(Collection<KillEntity> kills) {
+            for (KillEntity kill : kills) {
+                PlayerStatsEntity attacker = stats(kill.getAttacker());
+                attacker.setKills(attacker.getKills() + 1);
+                if (Boolean.TRUE.equals(kill.getHeadshot())) {
+                    attacker.setHeadshots(attacker.getHeadshots() + 1);
+                }
+                if (kill.getDistance() != null && kill.getDistance() > 0) {
+                    attacker.setDistanceSum(attacker.getDistanceSum() + kill.getDistance());
+                    attacker.setDistanceSamples(attacker.getDistanceSamples() + 1);
+                }
+                if (kill.getTimeInRound() != null) {
+                    attacker.setTimeInRoundSum(attacker.getTimeInRoundSum() + kill.getTimeInRound());
+                    attacker.setTimeInRoundSamples(attacker.getTimeInRoundSamples() + 1);
+                }
+                addCounter(kill.getAttacker(), PlayerStatCounterEntity.WEAPON, kill.getWeapon(), 1);
+                addCounter(kill.getAttacker(), PlayerStatCounterEntity.PLACE, kill.getPlace(), 1);
+                addCounter(kill.getAttacker(), PlayerStatCounterEntity.SIDE, kill.getSide(), 1);
+                PlayerMatchStatsEntity attackerMatch = playerMatch(kill.getAttacker(), kill.getMatchId());
+                attackerMatch.setKills(attackerMatch.getKills() + 1);
+
+                PlayerStatsEntity victim = stats(kill.getVictim());
+                victim.setDeaths(victim.getDeaths() + 1);
+                PlayerMatchStatsEntity victimMatch = playerMatch(kill.getVictim(), kill.getMatchId());
+                victimMatch.setDeaths(victimMatch.getDeaths() + 1);
+            }
+        }
+
+        static Aggregates fromKillTable(KillRepository killRepository) {
+            Aggregates aggregates = new Aggregates();
+            for (Object[] row : killRepository.getAttackerTotals()) {
+                PlayerStatsEntity stats = aggregates.stats((String) row[0]);
+                stats.setKills(toLong(row[1]));
+                stats.setHeadshots(toLong(row[2]));
+                stats.setDistanceSum(toDouble(row[3]));
+                stats.setDistanceSamples(toLong(row[4]));
+                stats.setTimeInRoundSum(toDouble(row[5]));
+                stats.setTimeInRoundSamples(toLong(row[6]));
+            }
+            for (Object[] row : killRepository.getVictimTotals()) {
+                aggregates.stats((String) row[0]).setDeaths(toLong(row[1]));
+            }
+            for (Object[] row : killRepository.getWeaponCountsByAttacker()) {
+                aggregates.addCounter((String) row[0], PlayerStatCounterEntity.WEAPON, (String) row[1], toLong(row[2]));
+            }
+            for (Object[] row : killRepository.getPlaceCountsByAttacker()) {
+                aggregates.addCounter((String) row[0], PlayerStatCounterEntity.PLACE, (String) row[1], toLong(row[2]));
+            }
+            for (Object[] row : killRepository.getSideCountsByAttacker()) {
+                aggregates.addCounter((String) row[0], PlayerStatCounterEntity.SIDE, (String) row[1], toLong(row[2]));
+            }
+            for (Object[] row : killRepository.getKillsByAttackerAndMatch()) {
+                aggregates.playerMatch((String) row[0], (String) row[1]).setKills(toLong(row[2]));
+            }
+            for (Object[] row : killRepository.getDeathsByVictimAndMatch()) {
+                aggregates.playerMatch((String) row[0], (String) row[1]).setDeaths(toLong(row[2]));
+            }
+            for (PlayerMatchStatsEntity playerMatch : aggregates.playerMatches.values()) {
+                PlayerStatsEntity stats = aggregates.stats(playerMatch.getPlayerName());
+                stats.setMatches(stats.getMatches() + 1);
+            }
+            return aggregates;
+        }
+
+        Set<String> matchIds() {
+            Set<String> matchIds = new HashSet<>();
+            playerMatches.values().forEach(pm -> matchIds.add(pm.getMatchId()));
+            return matchIds;
+        }
+
+        Set<String> counterPlayers() {
+            Set<String> players = new HashSet<>();
+            counters.values().forEach(c -> players.add(c.getPlayerName()));
+            return players;
+        }
+
+        private PlayerStatsEntity stats(String player) {
+            return stats.computeIfAbsent(player, PlayerStatsEntity::new);
+        }
+
+        private PlayerMatchStatsEntity playerMatch(String player, String matchId) {
+            return playerMatches.computeIfAbsent(player + KEY_SEPARATOR + matchId,
+                key -> new PlayerMatchStatsEntity(player, matchId));
+        }
+
+        private void addCounter(String player, String dimension, String value, long count) {
+            String counterValue = value != null ? value : PlayerStatCounterEntity.UNKNOWN_KEY;
+            PlayerStatCounterEntity counter = counters.computeIfAbsent(
+                player + KEY_SEPARATOR + dimension + KEY_SEPARATOR + counterValue,
+                key -> new PlayerStatCounterEntity(player, dimension, counterValue));
+            counter.setKillCount(counter.getKillCount() + count);
+        }
+
+        static String matchKey(PlayerMatchStatsEntity playerMatch) {
+            return playerMatch.getPlayerName() + KEY_SEPARATOR + playerMatch.getMatchId();
+        }
+
+        static String counterKey(PlayerStatCounterEntity counter) {
+            return counter.getPlayerName() + KEY_SEPARATOR + counter.getDimension() + KEY_SEPARATOR + counter.getCounterKey();
+        }
+
+        private static long toLong(Object value) {
+            return value != null ? ((Number) value).longValue() : 0L;
+        }
+
+        private static double toDouble(Object value) {
+            return value != null ? ((Number) value).doubleValue() : 0.0;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.tacticore.lambda.service;
+
+import com.tacticore.lambda.model.KillEntity;
+import com.tacticore.lambda.model.KillPredictionEntity;
+import com.tacticore.lambda.model.PredictionCounterEntity;
+import com.tacticore.lambda.repository.KillPredictionRepository;
+import com.tacticore.lambda.repository.PredictionCounterRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Distribución de las predicciones del ML por jugador atacante y por match (prediction_counters):
+ * etiquetas de top_predictions, fortalezas del atacante y buenas/malas jugadas. Se mantiene
+ * incrementalmente en la transacción que inserta cada batch de kills y sus filas de kill_predictions,
+ * así las estadísticas de predicciones no recorren kill_predictions ni la respuesta cruda del ML.
+ */
+@Service
+public class PredictionAggregateService {
+
+    @Autowired
+    private KillPredictionRepository killPredictionRepository;
+
+    @Autowired
+    private PredictionCounterRepository predictionCounterRepository;
+
+    // Mismo esquema que PlayerAggregateService: lock de JVM retenido hasta el fin de la transacción
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /**
+     * Suma a los agregados las filas de predicción de un batch de kills ya insertado. Solo cuentan
+     * los kills con al menos una fila (los que vienen del ML). Debe ejecutarse dentro de la
+     * transacción que inserta los kills y las predicciones.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyPredictions(Collection<KillEntity> kills, Collection<KillPredictionEntity> predictions) {
+        if (kills == null || kills.isEmpty() || predictions == null || predictions.isEmpty()) {
+            return;
+        }
+        apply(Counters.fromPredictions(kills, predictions));
+    }
+
+    /**
+     * Aplica de una vez los contadores acumulados de varios batches (el lock se toma recién acá)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyDelta(PredictionDelta delta) {
+        if (delta == null || delta.isEmpty()) {
+            return;
+        }
+        apply(delta.counters);
+    }
+
+    private void apply(Counters delta) {
+        lockUntilTransactionEnds();
+
+        List<PredictionCounterEntity> newCounters = new ArrayList<>();
+        for (String scope : List.of(PredictionCounterEntity.PLAYER, PredictionCounterEntity.MATCH)) {
+            Map<String, PredictionCounterEntity> stored = new HashMap<>();
+            predictionCounterRepository.findByScopeKeys(scope, delta.scopeKeys(scope))
+                .forEach(counter -> stored.put(Counters.key(counter), counter));
+            delta.counters.forEach((key, increment) -> {
+                if (!scope.equals(increment.getScope())) {
+                    return;
+                }
+                PredictionCounterEntity counter = stored.get(key);
+                if (counter == null) {
+                    newCounters.add(increment);
+                } else {
+                    counter.add(increment);
+                }
+            });
+        }
+        predictionCounterRepository.saveAll(newCounters);
+    }
+
+    /**
+     * Elimina las filas de predicción y sus agregados (acompaña a un borrado completo de kills)
+     */
+    @Transactional
+    public void clear() {
+        lockUntilTransactionEnds();
+        killPredictionRepository.deleteAllInBulk();
+        predictionCounterRepository.deleteAllInBulk();
+    }
+
+    /**
+     * Recalcula prediction_counters desde kill_predictions (GROUP BY contra kills, sin cargar filas)
+     */
+    @Transactional
+    public Map<String, Object> rebuild() {
+        long start = System.currentTimeMillis();
+        lockUntilTransactionEnds();
+        predictionCounterRepository.deleteAllInBulk();
+
+        Counters rebuilt = Counters.fromPredictionTable(killPredictionRepository);
+        predictionCounterRepository.saveAll(rebuilt.counters.values());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("counters", rebuilt.counters.size());
+        result.put("elapsedMs", System.currentTimeMillis() - start);
+        System.out.println("🔄 Agregados de predicciones reconstruidos: " + result);
+        return result;
+    }
+
+    /**
+     * Contadores de un jugador o match en una dimensión (label/strength/play), de mayor a menor
+     */
+    @Transactional(readOnly = true)
+    public List<PredictionCounterEntity> getCounters(String scope, String scopeKey, String dimension) {
+        return predictionCounterRepository.findByScopeKeyAndDimension(scope, scopeKey, dimension);
+    }
+
+    /**
+     * Buenas y malas jugadas de un match según las predicciones guardadas; vacío si el match no tiene
+     */
+    @Transactional(readOnly = true)
+    public Optional<int[]> getMatchPlays(String matchId) {
+        List<PredictionCounterEntity> plays = getCounters(PredictionCounterEntity.MATCH, matchId, PredictionCounterEntity.PLAY);
+        if (plays.isEmpty()) {
+            return Optional.empty();
+        }
+        int[] counts = new int[2];
+        for (PredictionCounterEntity play : plays) {
+            counts[PredictionCounterEntity.GOOD_PLAY.equals(play.getCounterKey()) ? 0 : 1] += play.getCount().intValue();
+        }
+        return Optional.of(counts);
+    }
+
+    private void lockUntilTransactionEnds() {
+        writeLock.lock();
+        try {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    writeLock.unlock();
+                }
+            });
+        } catch (RuntimeException e) {
+            writeLock.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * Contadores de predicciones de varios batches, acumulados sin tocar la base ni el lock
+     */
+    public static final class PredictionDelta {
+
+        private final Counters counters = new Counters();
+
+        public void add(Collection<KillEntity> kills, Collection<KillPredictionEntity> predictions) {
+            if (kills != null && predictions != null && !predictions.isEmpty()) {
+                counters.addPredictions(kills, predictions);
+            }
+        }
+
+        public boolean isEmpty() {
+            return counters.counters.isEmpty();
+        }
+    }
+
+    /**
+     * Contadores en memoria indexados por alcance/clave/dimensión/valor
+     */
+    private static class Counters {
+
+        private static final String KEY_SEPARATOR = "|";
+
+        final Map<String, PredictionCounterEntity> counters = new LinkedHashMap<>();
+
+        static Counters fromPredictions(Collection<KillEntity> kills, Collection<KillPredictionEntity> predictions) {
+            Counters counters = new Counters();
+            counters.addPredictions(kills, predictions);
+            return counters;
+        }
+
+        void addPredictions(Collection<KillEntity> kills, Collection<KillPredictionEntity> predictions) {
+            Map<String, List<KillPredictionEntity>> byKill = new HashMap<>();
+            for (KillPredictionEntity prediction : predictions) {
+                byKill.computeIfAbsent(prediction.getKillId(), id -> new ArrayList<>()).add(prediction);
+            }
+
+            for (KillEntity kill : kills) {
+                List<KillPredictionEntity> rows = byKill.get(kill.getKillId());
+                if (rows == null) {
+                    continue;
+                }
+                boolean goodPlay = false;
+                for (KillPredictionEntity row : rows) {
+                    if (KillPredictionEntity.STRENGTH.equals(row.getKind())) {
+                        add(kill, PredictionCounterEntity.STRENGTH, row.getLabel(), 1, row.getConfidence());
+                        goodPlay |= row.getConfidence() > KillPredictionEntity.GOOD_PLAY_STRENGTH;
+                    } else if (Boolean.TRUE.equals(row.getIsTopPrediction())) {
+                        add(kill, PredictionCounterEntity.LABEL, row.getLabel(), 1, row.getConfidence());
+                    }
+                }
+                add(kill, PredictionCounterEntity.PLAY,
+                    goodPlay ? PredictionCounterEntity.GOOD_PLAY : PredictionCounterEntity.BAD_PLAY, 1, 0.0);
+            }
+        }
+
+        static Counters fromPredictionTable(KillPredictionRepository repository) {
+            Counters counters = new Counters();
+            addTotals(counters, PredictionCounterEntity.PLAYER, PredictionCounterEntity.LABEL,
+                repository.getTotalsByAttacker(KillPredictionEntity.LABEL, true));
+            addTotals(counters, PredictionCounterEntity.MATCH, PredictionCounterEntity.LABEL,
+                repository.getTotalsByMatch(KillPredictionEntity.LABEL, true));
+            addTotals(counters, PredictionCounterEntity.PLAYER, PredictionCounterEntity.STRENGTH,
+                repository.getTotalsByAttacker(KillPredictionEntity.STRENGTH, false));
+            addTotals(counters, PredictionCounterEntity.MATCH, PredictionCounterEntity.STRENGTH,
+                repository.getTotalsByMatch(KillPredictionEntity.STRENGTH, false));
+            for (Object[] row : repository.getMaxStrengthByKill()) {
+                String play = ((Number) row[2]).doubleValue() > KillPredictionEntity.GOOD_PLAY_STRENGTH
+                    ? PredictionCounterEntity.GOOD_PLAY : PredictionCounterEntity.BAD_PLAY;
+                counters.add(PredictionCounterEntity.PLAYER, (String) row[0], PredictionCounterEntity.PLAY, play, 1, 0.0);
+                counters.add(PredictionCounterEntity.MATCH, (String) row[1], PredictionCounterEntity.PLAY, play, 1, 0.0);
+            }
+            return counters;
+        }
+
+        private static void addTotals(Counters counters, String scope, String dimension, List<Object[]> rows) {
+            for (Object[] row : rows) {
+                counters.add(scope, (String) row[0], dimension, (String) row[1],
+                    ((Number) row[2]).longValue(), ((Number) row[3]).doubleValue());
+            }
+        }
+
+        Set<String> scopeKeys(String scope) {
+            Set<String> keys = new HashSet<>();
+            counters.values().stream()
+                .filter(counter -> scope.equals(counter.getScope()))
+                .forEach(counter -> keys.add(counter.getScopeKey()));
+            return keys;
+        }
+
+        private void add(KillEntity kill, String dimension, String counterKey, long count, double value) {
+            add(PredictionCounterEntity.PLAYER, kill.getAttacker(), dimension, counterKey, count, value);
+            add(PredictionCounterEntity.MATCH, kill.getMatchId(), dimension, counterKey, count, value);
+        }
+
+        private void add(String scope, String scopeKey, String dimension, String counterKey, long count, double value) {
+            if (scopeKey == null || counterKey == null) {
+                return;
+            }
+            PredictionCounterEntity counter = counters.computeIfAbsent(
+                scope + KEY_SEPARATOR + scopeKey + KEY_SEPARATOR + dimension + KEY_SEPARATOR + counterKey,
+                key -> new PredictionCounterEntity(scope, scopeKey, dimension, counterKey));
+            counter.setCount(counter.getCount() + count);
+            counter.setValueSum(counter.getValueSum() + value);
+        }
+
+        static String key(PredictionCounterEntity counter) {
+            return counter.getScope() + KEY_SEPARATOR + counter.getScopeKey() + KEY_SEPARATOR
+                + counter.getDimension() + KEY_SEPARATOR + counter.getCounterKey();
+        }
+    }
+}
@@ -1,28 +1,32 @@
 package com.tacticore.lambda.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tacticore.lambda.model.ChatMessageEntity;
 import com.tacticore.lambda.model.KillEntity;
+import com.tacticore.lambda.model.KillPredictionEntity;
 import com.tacticore.lambda.model.MatchEntity;
+import com.tacticore.lambda.model.PlayerStatsEntity;
 import com.tacticore.lambda.repository.ChatMessageRepository;
 import com.tacticore.lambda.repository.KillRepository;
 import com.tacticore.lambda.repository.MatchRepository;
 import com.tacticore.lambda.repository.UserRepository;
 import com.tacticore.lambda.model.UserEntity;
 import com.tacticore.lambda.model.UserRole;
+import com.tacticore.lambda.serialization.MlResponseStreamReader;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.ThreadLocalRandom;
 
 @Service
 public class PreloadedDataService {
@@ -39,10 +43,20 @@ public class PreloadedDataService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private LeaderboardService leaderboardService;
+    
     @Autowired
     private UserService userService;
     
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    @Autowired
+    private KillIngestService killIngestService;
+    
+    @Autowired
+    private PlayerAggregateService playerAggregateService;
+    
+    @Autowired
+    private MlResponseStreamReader mlResponseStreamReader;
     
     public void loadPreloadedData() {
         loadPreloadedMatches();
@@ -229,80 +243,70 @@ public class PreloadedDataService {
                 return;
             }
             
-            JsonNode rootNode = objectMapper.readTree(infernoFile);
-            JsonNode predictionsNode = rootNode.path("predictions");
-            
-            if (predictionsNode.isArray()) {
-                int loadedKills = 0;
-                for (JsonNode killNode : predictionsNode) {
-                    try {
-                        KillEntity kill = createKillFromJson(killNode, "inferno_demo");
-                        if (kill != null) {
-                            killRepository.save(kill);
-                            loadedKills++;
-                        }
-                    } catch (Exception e) {
-                        System.err.println("Error cargando kill: " + e.getMessage());
-                    }
-                }
-                System.out.println("Kills de Inferno cargados: " + loadedKills);
-            }
+            List<KillPredictionEntity> predictions = new ArrayList<>();
+            List<KillEntity> kills = readDemoKills(infernoFile, "inferno_demo", predictions);
+            int loadedKills = killIngestService.ingest(kills, predictions);
+            System.out.println("Kills de Inferno cargados: " + loadedKills);
             
         } catch (IOException e) {
             System.err.println("Error leyendo archivo inferno1.json: " + e.getMessage());
         }
     }
     
-    private KillEntity createKillFromJson(JsonNode killNode, String matchId) {
-        try {
-            KillEntity kill = new KillEntity();
-            
-            // Datos básicos del kill - generar ID único incluyendo matchId
-            String originalKillId = killNode.path("kill_id").asText();
-            String uniqueKillId = matchId + "_" + originalKillId;
-            kill.setKillId(uniqueKillId);
-            kill.setMatchId(matchId);
-            String attacker = mapUserName(killNode.path("attacker").asText());
-            String victim = mapUserName(killNode.path("victim").asText());
-            
-            // Asegurar que los usuarios existan
-            ensureUserExists(attacker);
-            ensureUserExists(victim);
-            
-            kill.setAttacker(attacker);
-            kill.setVictim(victim);
-            kill.setPlace(killNode.path("place").asText("Unknown"));
-            kill.setRound(killNode.path("round").asInt());
-            kill.setWeapon(killNode.path("weapon").asText());
-            kill.setHeadshot(killNode.path("headshot").asBoolean(false));
-            kill.setDistance(killNode.path("distance").asDouble(0.0));
-            kill.setTimeInRound(killNode.path("time_in_round").asDouble(0.0));
-            
-            // Contexto del kill
-            JsonNode contextNode = killNode.path("context");
-            if (!contextNode.isMissingNode()) {
-                kill.setKillTick(contextNode.path("kill_tick").asLong(0));
-                kill.setSide(contextNode.path("side").asText("t"));
-                kill.setAttackerX(contextNode.path("attacker_x").asDouble(0.0));
-                kill.setAttackerY(contextNode.path("attacker_y").asDouble(0.0));
-                kill.setAttackerZ(contextNode.path("attacker_z").asDouble(0.0));
-                kill.setVictimX(contextNode.path("victim_x").asDouble(0.0));
-                kill.setVictimY(contextNode.path("victim_y").asDouble(0.0));
-                kill.setVictimZ(contextNode.path("victim_z").asDouble(0.0));
-                kill.setAttackerHealth(contextNode.path("attacker_health").asDouble(100.0));
-                kill.setVictimHealth(contextNode.path("victim_health").asDouble(100.0));
-                kill.setFlashNear(contextNode.path("flash_near").asBoolean(false));
-                kill.setSmokeNear(contextNode.path("smoke_near").asBoolean(false));
-                kill.setMolotovNear(contextNode.path("molotov_near").asBoolean(false));
-                kill.setHeNear(contextNode.path("he_near").asBoolean(false));
-            }
-            
-            return kill;
-            
-        } catch (Exception e) {
-            System.err.println("Error creando KillEntity desde JSON: " + e.getMessage());
-            return null;
+    /**
+     * Lee los kills de un JSON del servicio ML en streaming (sin armar el árbol completo);
+     * las filas de predicción de los kills leídos se agregan a {@code predictions}
+     */
+    private List<KillEntity> readDemoKills(File jsonFile, String matchId, List<KillPredictionEntity> predictions) throws IOException {
+        List<KillEntity> kills = new ArrayList<>();
+        try (InputStream in = new FileInputStream(jsonFile)) {
+            mlResponseStreamReader.read(in, matchId, (kill, rows) -> {
+                try {
+                    kills.add(prepareDemoKill(kill));
+                    predictions.addAll(rows);
+                } catch (Exception e) {
+                    System.err.println("Error creando KillEntity desde JSON: " + e.getMessage());
+                }
+            });
         }
+        return kills;
+    }
+    
+    // Usuarios mapeados a los preloaded y valores por defecto para los campos que falten
+    private KillEntity prepareDemoKill(KillEntity kill) {
+        String attacker = mapUserName(Objects.toString(kill.getAttacker(), ""));
+        String victim = mapUserName(Objects.toString(kill.getVictim(), ""));
+        
+        // Asegurar que los usuarios existan
+        ensureUserExists(attacker);
+        ensureUserExists(victim);
+        
+        kill.setAttacker(attacker);
+        kill.setVictim(victim);
+        kill.setPlace(Objects.requireNonNullElse(kill.getPlace(), "Unknown"));
+        kill.setRound(Objects.requireNonNullElse(kill.getRound(), 0));
+        kill.setWeapon(Objects.toString(kill.getWeapon(), ""));
+        kill.setHeadshot(Objects.requireNonNullElse(kill.getHeadshot(), false));
+        kill.setDistance(Objects.requireNonNullElse(kill.getDistance(), 0.0));
+        kill.setTimeInRound(Objects.requireNonNullElse(kill.getTimeInRound(), 0.0));
+        
+        // Contexto del kill
+        kill.setKillTick(Objects.requireNonNullElse(kill.getKillTick(), 0L));
+        kill.setSide(Objects.requireNonNullElse(kill.getSide(), "t"));
+        kill.setAttackerX(Objects.requireNonNullElse(kill.getAttackerX(), 0.0));
+        kill.setAttackerY(Objects.requireNonNullElse(kill.getAttackerY(), 0.0));
+        kill.setAttackerZ(Objects.requireNonNullElse(kill.getAttackerZ(), 0.0));
+        kill.setVictimX(Objects.requireNonNullElse(kill.getVictimX(), 0.0));
+        kill.setVictimY(Objects.requireNonNullElse(kill.getVictimY(), 0.0));
+        kill.setVictimZ(Objects.requireNonNullElse(kill.getVictimZ(), 0.0));
+        kill.setAttackerHealth(Objects.requireNonNullElse(kill.getAttackerHealth(), 100.0));
+        kill.setVictimHealth(Objects.requireNonNullElse(kill.getVictimHealth(), 100.0));
+        kill.setFlashNear(Objects.requireNonNullElse(kill.getFlashNear(), false));
+        kill.setSmokeNear(Objects.requireNonNullElse(kill.getSmokeNear(), false));
+        kill.setMolotovNear(Objects.requireNonNullElse(kill.getMolotovNear(), false));
+        kill.setHeNear(Objects.requireNonNullElse(kill.getHeNear(), false));
+        
+        return kill;
     }
     
     public void loadMirageMatch() {
@@ -379,22 +383,23 @@ public class PreloadedDataService {
             // Crear nuevo usuario con rol aleatorio
             UserEntity newUser = new UserEntity();
             newUser.setName(userName);
-            newUser.setRole(getRandomRole()); // Rol aleatorio
+            newUser.setRole(getDemoRole(userName)); // Rol aleatorio (estable por nombre)
             newUser.setAverageScore(5.0);
             newUser.setTotalKills(0);
             newUser.setTotalDeaths(0);
             newUser.setTotalMatches(0);
             
             userRepository.save(newUser);
+            leaderboardService.updateAfterCommit(newUser);
             System.out.println("Usuario creado dinámicamente: " + userName + " con rol: " + newUser.getRole());
         }
     }
     
-    // Get a random role from available roles
-    private String getRandomRole() {
+    // Rol "aleatorio" derivado del nombre: los datos demo (y el snapshot de build) son reproducibles
+    private String getDemoRole(String userName) {
         UserRole[] roles = UserRole.values();
-        int randomIndex = ThreadLocalRandom.current().nextInt(roles.length);
-        return roles[randomIndex].getDisplayName();
+        int index = Math.floorMod(userName.hashCode(), roles.length);
+        return roles[index].getDisplayName();
     }
     
     private void loadKillsFromJson(String matchId, String jsonPath) {
@@ -406,20 +411,10 @@ public class PreloadedDataService {
                 return;
             }
             
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode rootNode = mapper.readTree(jsonFile);
-            JsonNode predictionsNode = rootNode.path("predictions");
-            
-            if (predictionsNode.isArray()) {
-                for (JsonNode predictionNode : predictionsNode) {
-                    KillEntity kill = createKillFromJson(predictionNode, matchId);
-                    if (kill != null) {
-                        // El matchId ya se asigna en createKillFromJson
-                        killRepository.save(kill);
-                    }
-                }
-                System.out.println("Kills cargados para " + matchId + ": " + predictionsNode.size() + " kills");
-            }
+            List<KillPredictionEntity> predictions = new ArrayList<>();
+            List<KillEntity> kills = readDemoKills(jsonFile, matchId, predictions);
+            killIngestService.ingest(kills, predictions);
+            System.out.println("Kills cargados para " + matchId + ": " + kills.size() + " kills");
             
         } catch (IOException e) {
             System.err.println("Error leyendo archivo " + jsonPath + ": " + e.getMessage());
@@ -429,13 +424,13 @@ public class PreloadedDataService {
     public void clearPreloadedData() {
         chatMessageRepository.deleteAll();
         matchRepository.deleteAll();
-        killRepository.deleteAll();
+        killIngestService.deleteAllKills();
         System.out.println("Datos precargados eliminados");
     }
     
     public void reloadKillsWithMapping() {
-        // Limpiar solo los kills para recargar con mapeo
-        killRepository.deleteAll();
+        // Limpiar solo los kills (y sus agregados) para recargar con mapeo
+        killIngestService.deleteAllKills();
         System.out.println("Kills eliminados, recargando con mapeo de usuarios...");
         
         // Recargar kills con mapeo
@@ -451,23 +446,20 @@ public class PreloadedDataService {
     }
     
     /**
-     * Actualiza las estadísticas de todos los usuarios basándose en los datos reales de kills
+     * Actualiza las estadísticas de todos los usuarios desde los agregados por jugador
+     * (una fila por jugador en player_stats, sin recorrer la tabla kills)
      */
     public void updateAllUserStatsFromKills() {
-        System.out.println("Actualizando estadísticas de todos los usuarios desde kills...");
+        System.out.println("Actualizando estadísticas de todos los usuarios desde player_stats...");
         
-        // Obtener todos los usuarios únicos de los kills
-        List<String> attackers = killRepository.findAllAttackers();
-        List<String> victims = killRepository.findAllVictims();
+        List<PlayerStatsEntity> allPlayerStats = playerAggregateService.getAllPlayerStats();
         
         Set<String> allKillsUsers = new HashSet<>();
-        allKillsUsers.addAll(attackers);
-        allKillsUsers.addAll(victims);
-        
-        // Actualizar usuarios que tienen datos de kills
-        for (String userName : allKillsUsers) {
+        for (PlayerStatsEntity stats : allPlayerStats) {
+            String userName = stats.getPlayerName();
             if (userName != null && !userName.trim().isEmpty()) {
-                updateUserStatsFromKills(userName);
+                allKillsUsers.add(userName);
+                updateUserStatsFromAggregate(stats);
             }
         }
         
@@ -485,19 +477,14 @@ public class PreloadedDataService {
     }
     
     /**
-     * Actualiza las estadísticas de un usuario específico basándose en los datos reales de kills
+     * Actualiza las estadísticas de un usuario específico desde su fila de player_stats
      */
-    private void updateUserStatsFromKills(String userName) {
+    private void updateUserStatsFromAggregate(PlayerStatsEntity stats) {
+        String userName = stats.getPlayerName();
         try {
-            // Obtener estadísticas reales de kills
-            Long totalKillsFromKills = killRepository.countKillsByUser(userName);
-            Long totalDeathsFromKills = killRepository.countDeathsByUser(userName);
-            
-            int actualKills = (totalKillsFromKills != null) ? totalKillsFromKills.intValue() : 0;
-            int actualDeaths = (totalDeathsFromKills != null) ? totalDeathsFromKills.intValue() : 0;
-            
-            // Calcular cuántas partidas diferentes ha jugado este usuario
-            int totalMatches = calculateUserMatches(userName);
+            int actualKills = stats.getKills().intValue();
+            int actualDeaths = stats.getDeaths().intValue();
+            int totalMatches = stats.getMatches();
             
             // Calcular estadísticas usando los métodos del sistema
             int goodPlays = calculateGoodPlays(actualKills);
@@ -515,23 +502,6 @@ public class PreloadedDataService {
         }
     }
     
-    /**
-     * Calcula cuántas partidas diferentes ha jugado un usuario
-     */
-    private int calculateUserMatches(String userName) {
-        try {
-            // Obtener todos los matchIds únicos donde aparece este usuario
-            List<String> matchIds = killRepository.findDistinctMatchIdsByUser(userName);
-            int matches = matchIds != null ? matchIds.size() : 0;
-            System.out.println("Usuario " + userName + " aparece en " + matches + " matches: " + matchIds);
-            return matches;
-        } catch (Exception e) {
-            System.err.println("Error calculando matches para " + userName + ": " + e.getMessage());
-            e.printStackTrace();
-            return 0;
-        }
-    }
-    
     // Métodos de cálculo reutilizados del DatabaseMatchService
     private int calculateGoodPlays(int kills) {
         // Deterministic calculation: good plays are 30-50% of kills
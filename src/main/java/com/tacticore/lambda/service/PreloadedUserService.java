@@ -15,6 +15,8 @@ public class PreloadedUserService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private LeaderboardService leaderboardService;
     
     // Lista de usuarios precargados con sus roles (solo usuarios que existen en las demos)
     private static final List<PreloadedUser> PRELOADED_USERS = Arrays.asList(
@@ -45,6 +47,7 @@ public class PreloadedUserService {
                 user.setAverageScore(generateInitialScore());
                 
                 userRepository.save(user);
+                leaderboardService.updateAfterCommit(user);
                 System.out.println("Created preloaded user: " + preloadedUser.getName() + " (" + preloadedUser.getRole() + ")");
             } else {
                 System.out.println("User already exists: " + preloadedUser.getName());
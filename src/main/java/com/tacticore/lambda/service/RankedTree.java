@@ -0,0 +1,226 @@
+package com.tacticore.lambda.service;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Predicate;
+
+/**
+ * Conjunto ordenado con estadísticos de orden: treap con el tamaño de cada subárbol, así la posición de un
+ * elemento (rank) y el elemento en una posición salen en O(log n) esperado, igual que agregar o borrar.
+ * Los elementos tienen que ser distintos según el comparador.
+ * Sin sincronización: lo protege el lock del store que lo usa.
+ */
+final class RankedTree<T> {
+
+    private static final class Node<T> {
+        final T value;
+        int priority;
+        int size = 1;
+        Node<T> left;
+        Node<T> right;
+
+        Node(T value, int priority) {
+            this.value = value;
+            this.priority = priority;
+        }
+    }
+
+    private final Comparator<? super T> comparator;
+    private final SplittableRandom random = new SplittableRandom(19);
+    private Node<T> root;
+
+    RankedTree(Comparator<? super T> comparator) {
+        this.comparator = comparator;
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    /**
+     * Reemplaza el contenido por {@code sorted} (ya ordenado y sin repetidos): árbol balanceado sin comparar,
+     * con prioridades al azar repartidas de mayor a menor por niveles para que siga siendo un treap
+     */
+    void build(List<T> sorted) {
+        root = build(sorted, 0, sorted.size());
+        int[] priorities = random.ints(sorted.size()).sorted().toArray();
+        int next = priorities.length;
+        Deque<Node<T>> level = new ArrayDeque<>();
+        if (root != null) {
+            level.add(root);
+        }
+        while (!level.isEmpty()) {
+            Node<T> node = level.poll();
+            node.priority = priorities[--next];
+            if (node.left != null) level.add(node.left);
+            if (node.right != null) level.add(node.right);
+        }
+    }
+
+    void add(T value) {
+        root = insert(root, new Node<>(value, random.nextInt()));
+    }
+
+    boolean remove(T value) {
+        int before = size(root);
+        root = delete(root, value);
+        return size(root) < before;
+    }
+
+    /**
+     * Cantidad de elementos menores que {@code value}: su posición (base 0) si está en el árbol
+     */
+    int rank(T value) {
+        int rank = 0;
+        Node<T> node = root;
+        while (node != null) {
+            int cmp = comparator.compare(value, node.value);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp == 0) {
+                return rank + size(node.left);
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    T get(int index) {
+        if (index < 0 || index >= size(root)) {
+            throw new IndexOutOfBoundsException("index " + index + " fuera de 0.." + size(root));
+        }
+        Node<T> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.value;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Recorre en orden desde la posición {@code index} hasta el final o hasta que {@code visitor} devuelva false
+     */
+    void forEachFrom(int index, Predicate<? super T> visitor) {
+        // Pila con los nodos pendientes: al bajar a la izquierda el nodo queda para después de su subárbol
+        Deque<Node<T>> path = new ArrayDeque<>();
+        Node<T> node = root;
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                path.push(node);
+                node = node.left;
+            } else if (index == leftSize) {
+                path.push(node);
+                break;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+        while (!path.isEmpty()) {
+            Node<T> current = path.pop();
+            if (!visitor.test(current.value)) {
+                return;
+            }
+            for (Node<T> next = current.right; next != null; next = next.left) {
+                path.push(next);
+            }
+        }
+    }
+
+    private Node<T> build(List<T> sorted, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        Node<T> node = new Node<>(sorted.get(middle), 0);
+        node.left = build(sorted, from, middle);
+        node.right = build(sorted, middle + 1, to);
+        return update(node);
+    }
+
+    private Node<T> insert(Node<T> node, Node<T> added) {
+        if (node == null) {
+            return added;
+        }
+        if (added.priority > node.priority) {
+            split(node, added.value, added);
+            return update(added);
+        }
+        if (comparator.compare(added.value, node.value) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return update(node);
+    }
+
+    // Parte node en los menores que key (target.left) y los mayores o iguales (target.right)
+    private void split(Node<T> node, T key, Node<T> target) {
+        if (node == null) {
+            target.left = null;
+            target.right = null;
+            return;
+        }
+        if (comparator.compare(node.value, key) < 0) {
+            split(node.right, key, target);
+            node.right = target.left;
+            target.left = update(node);
+        } else {
+            split(node.left, key, target);
+            node.left = target.right;
+            target.right = update(node);
+        }
+    }
+
+    private Node<T> delete(Node<T> node, T value) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = comparator.compare(value, node.value);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            node.left = delete(node.left, value);
+        } else {
+            node.right = delete(node.right, value);
+        }
+        return update(node);
+    }
+
+    private Node<T> merge(Node<T> left, Node<T> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return update(left);
+        }
+        right.left = merge(left, right.left);
+        return update(right);
+    }
+
+    private static <T> Node<T> update(Node<T> node) {
+        node.size = 1 + size(node.left) + size(node.right);
+        return node;
+    }
+
+    private static int size(Node<?> node) {
+        return node != null ? node.size : 0;
+    }
+}
@@ -1,11 +1,13 @@
 package com.tacticore.lambda.service;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.Lifecycle;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
@@ -13,35 +15,78 @@ import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 import software.amazon.awssdk.services.s3.model.S3Exception;
 
 import jakarta.annotation.PostConstruct;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
 import java.util.zip.GZIPInputStream;
 
 /**
  * Servicio para interactuar con AWS S3.
  * Permite descargar archivos desde buckets de S3.
+ * Como Lifecycle, Spring lo detiene antes de un checkpoint de CRaC y lo vuelve a iniciar al restaurar.
  */
 @Service
-public class S3Service {
+public class S3Service implements Lifecycle {
+
+    /** Buffer del GZIPInputStream: lecturas grandes sobre el stream HTTP de S3 */
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
 
     @Value("${aws.region:us-east-1}")
     private String awsRegion;
 
-    private S3Client s3Client;
+    // Endpoint alternativo compatible con S3 (stub local, MinIO, etc.); vacío = AWS
+    @Value("${aws.s3.endpoint:}")
+    private String s3Endpoint;
+
+    private volatile S3Client s3Client;
 
     @PostConstruct
     public void init() {
-        this.s3Client = S3Client.builder()
+        start();
+    }
+
+    /**
+     * Después de un restore (SnapStart / CRaC): cliente nuevo, con credenciales leídas de nuevo
+     * (las del entorno cambian entre el snapshot y el restore)
+     */
+    @Override
+    public synchronized void start() {
+        if (s3Client != null) {
+            return;
+        }
+        S3ClientBuilder builder = S3Client.builder()
                 .region(Region.of(awsRegion))
-                .credentialsProvider(DefaultCredentialsProvider.create())
-                .build();
+                .credentialsProvider(DefaultCredentialsProvider.builder().build());
+        if (s3Endpoint != null && !s3Endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(s3Endpoint))
+                    .forcePathStyle(true);
+            System.out.println("🪣 S3 endpoint override: " + s3Endpoint);
+        }
+        this.s3Client = builder.build();
+    }
+
+    /**
+     * Antes del checkpoint: cierra el cliente y su pool de conexiones HTTP (un socket abierto
+     * no sobrevive al restore)
+     */
+    @Override
+    public synchronized void stop() {
+        if (s3Client != null) {
+            s3Client.close();
+            s3Client = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return s3Client != null;
     }
 
     /**
      * Descarga un archivo de S3 y devuelve su contenido como byte array.
      * Si el archivo está comprimido con gzip (.gz), lo descomprime automáticamente.
+     * Carga el archivo completo en memoria: para demos usar downloadFileAsStream.
      *
      * @param bucketName Nombre del bucket de S3
      * @param objectKey  Key (ruta) del objeto en S3
@@ -49,69 +94,102 @@ public class S3Service {
      * @throws RuntimeException si ocurre un error al descargar el archivo
      */
     public byte[] downloadFile(String bucketName, String objectKey) {
-        try {
-            System.out.println("📥 Downloading file from S3: s3://" + bucketName + "/" + objectKey);
-            
-            GetObjectRequest getObjectRequest = GetObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(objectKey)
-                    .build();
+        try (InputStream content = downloadFileAsStream(bucketName, objectKey)) {
+            byte[] bytes = content.readAllBytes();
+            System.out.println("✅ File downloaded successfully. Size: " + bytes.length + " bytes");
+            return bytes;
+        } catch (IOException e) {
+            String errorMsg = "IO error reading S3 file: " + e.getMessage();
+            System.err.println("❌ " + errorMsg);
+            throw new RuntimeException(errorMsg, e);
+        }
+    }
 
-            try (ResponseInputStream<GetObjectResponse> response = s3Client.getObject(getObjectRequest)) {
-                byte[] content = response.readAllBytes();
-                System.out.println("✅ File downloaded successfully. Size: " + content.length + " bytes");
-                
-                // Si el archivo está comprimido con gzip, descomprimirlo
-                if (objectKey.toLowerCase().endsWith(".gz")) {
-                    System.out.println("🗜️ File is gzip compressed, decompressing...");
-                    content = decompressGzip(content);
-                    System.out.println("✅ File decompressed successfully. New size: " + content.length + " bytes");
-                }
-                
-                return content;
-            }
+    /**
+     * Abre el objeto de S3 como stream, sin cargarlo en memoria.
+     * Si el archivo está comprimido con gzip (.gz) se descomprime mientras se lee.
+     * El llamador debe cerrar el stream (libera la conexión HTTP con S3).
+     *
+     * @param bucketName Nombre del bucket de S3
+     * @param objectKey  Key (ruta) del objeto en S3
+     * @return InputStream con el contenido del archivo (descomprimido si era .gz)
+     */
+    public InputStream downloadFileAsStream(String bucketName, String objectKey) {
+        System.out.println("📥 Streaming file from S3: s3://" + bucketName + "/" + objectKey);
+
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(objectKey)
+                .build();
+
+        AbortOnCloseInputStream response;
+        try {
+            response = new AbortOnCloseInputStream(s3Client.getObject(getObjectRequest));
         } catch (S3Exception e) {
             String errorMsg = "Error downloading file from S3 (s3://" + bucketName + "/" + objectKey + "): " + e.getMessage();
             System.err.println("❌ " + errorMsg);
             throw new RuntimeException(errorMsg, e);
+        }
+
+        if (!objectKey.toLowerCase().endsWith(".gz")) {
+            return response;
+        }
+
+        try {
+            System.out.println("🗜️ File is gzip compressed, decompressing while streaming...");
+            return new GZIPInputStream(response, GZIP_BUFFER_SIZE);
         } catch (IOException e) {
-            String errorMsg = "IO error reading S3 file: " + e.getMessage();
+            // Cabecera gzip inválida: cortar la descarga en lugar de drenar el objeto entero
+            response.abort();
+            String errorMsg = "Invalid gzip content in S3 file (s3://" + bucketName + "/" + objectKey + "): " + e.getMessage();
             System.err.println("❌ " + errorMsg);
             throw new RuntimeException(errorMsg, e);
         }
     }
-    
+
     /**
-     * Descomprime un byte array que está en formato gzip.
-     *
-     * @param compressed Datos comprimidos en formato gzip
-     * @return Datos descomprimidos
-     * @throws IOException si ocurre un error durante la descompresión
+     * Si el stream se cierra antes de llegar al final (p.ej. falló el servicio ML), aborta la
+     * conexión en lugar de dejar que el cliente HTTP drene el resto del objeto para reutilizarla.
      */
-    private byte[] decompressGzip(byte[] compressed) throws IOException {
-        try (ByteArrayInputStream bis = new ByteArrayInputStream(compressed);
-             GZIPInputStream gis = new GZIPInputStream(bis);
-             ByteArrayOutputStream bos = new ByteArrayOutputStream()) {
-            
-            byte[] buffer = new byte[8192];
-            int len;
-            while ((len = gis.read(buffer)) != -1) {
-                bos.write(buffer, 0, len);
+    private static final class AbortOnCloseInputStream extends FilterInputStream {
+
+        private final ResponseInputStream<GetObjectResponse> response;
+        private boolean endOfStream;
+
+        AbortOnCloseInputStream(ResponseInputStream<GetObjectResponse> response) {
+            super(response);
+            this.response = response;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value == -1) {
+                endOfStream = true;
             }
-            return bos.toByteArray();
+            return value;
         }
-    }
 
-    /**
-     * Descarga un archivo de S3 y devuelve un InputStream.
-     *
-     * @param bucketName Nombre del bucket de S3
-     * @param objectKey  Key (ruta) del objeto en S3
-     * @return InputStream con el contenido del archivo
-     */
-    public InputStream downloadFileAsStream(String bucketName, String objectKey) {
-        byte[] content = downloadFile(bucketName, objectKey);
-        return new ByteArrayInputStream(content);
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read == -1) {
+                endOfStream = true;
+            }
+            return read;
+        }
+
+        void abort() {
+            response.abort();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!endOfStream) {
+                response.abort();
+            }
+            super.close();
+        }
     }
 
     /**
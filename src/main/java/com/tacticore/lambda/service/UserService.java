@@ -1,5 +1,7 @@
 package com.tacticore.lambda.service;
 
+import com.tacticore.lambda.model.PlayerStatCounterEntity;
+import com.tacticore.lambda.model.PlayerStatsEntity;
 import com.tacticore.lambda.model.UserEntity;
 import com.tacticore.lambda.model.UserRole;
 import com.tacticore.lambda.model.dto.UserDto;
@@ -23,6 +25,12 @@ public class UserService {
     @Autowired
     private KillRepository killRepository;
     
+    @Autowired
+    private PlayerAggregateService playerAggregateService;
+    
+    @Autowired
+    private LeaderboardService leaderboardService;
+    
     // Create or get user
     public UserEntity createOrGetUser(String name, String role) {
         Optional<UserEntity> existingUser = userRepository.findByName(name);
@@ -31,7 +39,9 @@ public class UserService {
         }
         
         UserEntity newUser = new UserEntity(name, role);
-        return userRepository.save(newUser);
+        UserEntity saved = userRepository.save(newUser);
+        leaderboardService.updateAfterCommit(saved);
+        return saved;
     }
     
     // Create or get user with random role
@@ -71,24 +81,24 @@ public class UserService {
         return userRepository.findByNameContaining(name);
     }
     
-    // Get top players by average score
-    public List<UserEntity> getTopPlayersByScore() {
-        return userRepository.findAllOrderByAverageScoreDesc();
+    // Get top players by average score (from the in-memory leaderboard)
+    public List<UserDto> getTopPlayersByScore(int offset, int limit) {
+        return leaderboardService.getTop(LeaderboardService.SCORE, offset, limit, null);
     }
     
     // Get top players by kills
-    public List<UserEntity> getTopPlayersByKills() {
-        return userRepository.findAllOrderByTotalKillsDesc();
+    public List<UserDto> getTopPlayersByKills(int offset, int limit) {
+        return leaderboardService.getTop(LeaderboardService.KILLS, offset, limit, null);
     }
     
     // Get top players by KDR
-    public List<UserEntity> getTopPlayersByKDR() {
-        return userRepository.findAllOrderByKDRDesc();
+    public List<UserDto> getTopPlayersByKDR(int offset, int limit) {
+        return leaderboardService.getTop(LeaderboardService.KDR, offset, limit, null);
     }
     
-    // Get top players with minimum matches
-    public List<UserEntity> getTopPlayersByMatches(int minMatches) {
-        return userRepository.findTopPlayersByMatches(minMatches);
+    // Get top players by average score with minimum matches
+    public List<UserDto> getTopPlayersByMatches(int minMatches, int offset, int limit) {
+        return leaderboardService.getTop(LeaderboardService.SCORE, offset, limit, minMatches);
     }
     
     // Update user stats after a match
@@ -102,6 +112,7 @@ public class UserService {
             user.setAverageScore(score);
             // Mantener totalMatches como está o calcularlo basándose en datos reales
             userRepository.save(user);
+            leaderboardService.updateAfterCommit(user);
         }
     }
     
@@ -115,6 +126,7 @@ public class UserService {
             user.setAverageScore(score);
             user.setTotalMatches(totalMatches);
             userRepository.save(user);
+            leaderboardService.updateAfterCommit(user);
         }
     }
     
@@ -222,23 +234,23 @@ public class UserService {
         double winRate = 65.0; // Por ahora un valor fijo, se puede calcular después
         double hoursPlayed = user.getTotalMatches() * 0.75; // Estimación: 45 min promedio por partida
         
-        // Obtener arma favorita desde los datos de kills (simplificado temporalmente)
+        // Obtener arma favorita desde los contadores pre-agregados del jugador
         String favoriteWeapon = "AK-47"; // Default
         try {
-            List<Object[]> weaponStats = killRepository.getWeaponUsageStatsByUser(userName);
+            List<PlayerStatCounterEntity> weaponStats = playerAggregateService.getCounters(userName, PlayerStatCounterEntity.WEAPON);
             if (!weaponStats.isEmpty()) {
-                favoriteWeapon = (String) weaponStats.get(0)[0]; // Primera arma (más usada)
+                favoriteWeapon = weaponStats.get(0).getCounterKey(); // Primera arma (más usada)
             }
         } catch (Exception e) {
             System.err.println("Error obteniendo arma favorita para " + userName + ": " + e.getMessage());
         }
 
-        // Obtener mapa favorito desde los datos de kills (simplificado temporalmente)
+        // Obtener mapa favorito desde los contadores pre-agregados del jugador
         String favoriteMap = "Dust 2"; // Default
         try {
-            List<Object[]> locationStats = killRepository.getLocationStatsByUser(userName);
+            List<PlayerStatCounterEntity> locationStats = playerAggregateService.getCounters(userName, PlayerStatCounterEntity.PLACE);
             if (!locationStats.isEmpty()) {
-                String location = (String) locationStats.get(0)[0];
+                String location = locationStats.get(0).getCounterKey();
                 // Mapear location a mapa (simplificado)
                 if (location != null) {
                     if (location.toLowerCase().contains("dust")) favoriteMap = "Dust 2";
@@ -345,14 +357,13 @@ public class UserService {
         Map<String, Object> result = new HashMap<>();
         
         try {
-            // Obtener estadísticas reales directamente del killRepository
-            Long totalKillsFromKills = killRepository.countKillsByUser(userName);
-            Long totalDeathsFromKills = killRepository.countDeathsByUser(userName);
-            Long totalHeadshots = killRepository.countHeadshotsByUser(userName);
+            // Obtener estadísticas reales de la fila pre-agregada del jugador (player_stats)
+            Optional<PlayerStatsEntity> statsOpt = playerAggregateService.getPlayerStats(userName);
             
-            int actualKills = (totalKillsFromKills != null) ? totalKillsFromKills.intValue() : 0;
-            int actualDeaths = (totalDeathsFromKills != null) ? totalDeathsFromKills.intValue() : 0;
-            int headshots = (totalHeadshots != null) ? totalHeadshots.intValue() : 0;
+            int actualKills = statsOpt.map(stats -> stats.getKills().intValue()).orElse(0);
+            int actualDeaths = statsOpt.map(stats -> stats.getDeaths().intValue()).orElse(0);
+            int headshots = statsOpt.map(stats -> stats.getHeadshots().intValue()).orElse(0);
+            int matches = statsOpt.map(PlayerStatsEntity::getMatches).orElse(0);
             
             // Calcular estadísticas
             int goodPlays = calculateGoodPlays(actualKills);
@@ -364,6 +375,8 @@ public class UserService {
             result.put("killsFromRepository", actualKills);
             result.put("deathsFromRepository", actualDeaths);
             result.put("headshotsFromRepository", headshots);
+            result.put("matchesFromRepository", matches);
+            result.put("averageDistance", statsOpt.map(PlayerStatsEntity::getAverageDistance).orElse(null));
             result.put("calculatedGoodPlays", goodPlays);
             result.put("calculatedBadPlays", badPlays);
             result.put("calculatedKDR", kdr);
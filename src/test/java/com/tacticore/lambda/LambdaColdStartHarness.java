@@ -0,0 +1,74 @@
+package com.tacticore.lambda;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Latencia del primer request de cada ruta GET de la Lambda, medida por el handler completo
+ * (ruteo, controller, serialización). Modos:
+ * <ul>
+ *   <li>{@code cold}: arranca el handler en este proceso y mide enseguida</li>
+ *   <li>{@code checkpoint}: arranca el handler, hace checkpoint con CRaC y mide en el proceso restaurado
+ *       (correr con -XX:CRaCCheckpointTo=dir y restaurar con -XX:CRaCRestoreFrom=dir)</li>
+ * </ul>
+ * El priming se controla con -Dlambda.priming=true/false. Usuario, match y mapa de los requests:
+ * -Dharness.user, -Dharness.match, -Dharness.map (por defecto, datos de las partidas demo).
+ *
+ * scripts/crac-cold-start.sh corre las cuatro combinaciones en un JDK con CRaC.
+ */
+public class LambdaColdStartHarness {
+
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "cold";
+
+        long initStart = System.nanoTime();
+        Class.forName(SpringBootLambdaHandler.class.getName());
+        System.out.printf("HARNESS init priming=%s %.0f ms%n", LambdaPriming.isEnabled(),
+            (System.nanoTime() - initStart) / 1e6);
+
+        if ("checkpoint".equals(mode)) {
+            // Reflexión: org.crac está en el classpath de runtime, pero el harness no depende de él para compilar
+            Class.forName("org.crac.Core").getMethod("checkpointRestore").invoke(null);
+            System.out.println("HARNESS restored");
+        }
+
+        LambdaPriming.Samples samples = new LambdaPriming.Samples(
+            System.getProperty("harness.user", "jcobbb"),
+            System.getProperty("harness.match", "mirage_demo"),
+            System.getProperty("harness.map", "de_mirage"));
+        SpringBootLambdaHandler handler = new SpringBootLambdaHandler();
+        Map<String, Double> latencies = new LinkedHashMap<>();
+        int errors = 0;
+        for (LambdaPriming.SyntheticRequest request : LambdaPriming.syntheticRequests(SpringBootLambdaHandler.routes(), samples)) {
+            if (request.dryRun) {
+                continue;
+            }
+            APIGatewayProxyRequestEvent event = new APIGatewayProxyRequestEvent()
+                .withHttpMethod(request.method)
+                .withPath(request.path)
+                .withQueryStringParameters(request.query);
+            long start = System.nanoTime();
+            APIGatewayProxyResponseEvent response = handler.handleRequest(event, null);
+            latencies.put(request.toString(), (System.nanoTime() - start) / 1e6);
+            if (response.getStatusCode() != 200) {
+                errors++;
+            }
+        }
+
+        List<Double> sorted = new ArrayList<>(latencies.values());
+        sorted.sort(null);
+        double total = sorted.stream().mapToDouble(Double::doubleValue).sum();
+        latencies.forEach((route, ms) -> System.out.printf("HARNESS route %-60s %8.1f ms%n", route, ms));
+        System.out.printf("HARNESS summary mode=%s priming=%s routes=%d errors=%d first=%.1f ms p50=%.1f ms "
+                + "p99=%.1f ms max=%.1f ms total=%.1f ms%n", mode, LambdaPriming.isEnabled(), sorted.size(), errors,
+            latencies.values().iterator().next(), sorted.get(sorted.size() / 2),
+            sorted.get(Math.min(sorted.size() - 1, (int) Math.ceil(sorted.size() * 0.99) - 1)),
+            sorted.get(sorted.size() - 1), total);
+        System.exit(0);
+    }
+}
@@ -0,0 +1,96 @@
+package com.tacticore.lambda;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ciclo del custom runtime contra el emulador local del Runtime API, con un handler de prueba
+ * en lugar del contexto de Spring
+ */
+class LambdaCustomRuntimeTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private LambdaRuntimeApiEmulator emulator;
+
+    @BeforeEach
+    void startEmulator() throws Exception {
+        emulator = new LambdaRuntimeApiEmulator(0);
+    }
+
+    @AfterEach
+    void stopEmulator() {
+        emulator.close();
+    }
+
+    @Test
+    void testInvocationIsHandledAndResponsePosted() throws Exception {
+        LambdaCustomRuntime runtime = new LambdaCustomRuntime(emulator.address(), (event, context) -> {
+            APIGatewayProxyResponseEvent response = new APIGatewayProxyResponseEvent();
+            response.setStatusCode(200);
+            response.setHeaders(Map.of("Content-Type", "application/json"));
+            response.setBody("{\"path\":\"" + event.getPath() + "\",\"requestId\":\"" + context.getAwsRequestId()
+                + "\",\"remaining\":" + context.getRemainingTimeInMillis() + "}");
+            return response;
+        });
+
+        // El evento trae campos de requestContext que aws-lambda-java-events no modela
+        CompletableFuture<LambdaRuntimeApiEmulator.Result> result =
+            emulator.invoke(LambdaRuntimeApiEmulator.apiGatewayGet("/api/matches"), 30_000);
+        runtime.processNext();
+
+        LambdaRuntimeApiEmulator.Result posted = result.get(5, TimeUnit.SECONDS);
+        assertFalse(posted.error);
+        JsonNode response = mapper.readTree(posted.body);
+        assertEquals(200, response.get("statusCode").asInt());
+        assertEquals("application/json", response.get("headers").get("Content-Type").asText());
+        assertFalse(response.has("multiValueHeaders"), "API Gateway recibe la respuesta sin campos nulos");
+
+        JsonNode body = mapper.readTree(response.get("body").asText());
+        assertEquals("/api/matches", body.get("path").asText());
+        assertTrue(body.get("requestId").asText().startsWith("req-"));
+        assertTrue(body.get("remaining").asInt() > 0 && body.get("remaining").asInt() <= 30_000);
+    }
+
+    @Test
+    void testHandlerExceptionIsPostedAsInvocationError() throws Exception {
+        LambdaCustomRuntime runtime = new LambdaCustomRuntime(emulator.address(), (event, context) -> {
+            throw new IllegalStateException("boom " + event.getPath());
+        });
+
+        CompletableFuture<LambdaRuntimeApiEmulator.Result> failed =
+            emulator.invoke(LambdaRuntimeApiEmulator.apiGatewayGet("/api/users"), 30_000);
+        runtime.processNext();
+
+        LambdaRuntimeApiEmulator.Result posted = failed.get(5, TimeUnit.SECONDS);
+        assertTrue(posted.error);
+        assertEquals("Unhandled", posted.errorType);
+        JsonNode error = mapper.readTree(posted.body);
+        assertEquals(IllegalStateException.class.getName(), error.get("errorType").asText());
+        assertEquals("boom /api/users", error.get("errorMessage").asText());
+
+        // El loop sigue con la próxima invocación
+        CompletableFuture<LambdaRuntimeApiEmulator.Result> malformed = emulator.invoke("{not json", 30_000);
+        runtime.processNext();
+        assertTrue(malformed.get(5, TimeUnit.SECONDS).error);
+    }
+
+    @Test
+    void testInitErrorIsReported() throws Exception {
+        LambdaCustomRuntime.reportInitError(emulator.address(),
+            new ExceptionInInitializerError(new RuntimeException("Could not initialize Spring Boot")));
+
+        JsonNode error = mapper.readTree(emulator.initError().get(5, TimeUnit.SECONDS));
+        assertEquals(RuntimeException.class.getName(), error.get("errorType").asText());
+        assertEquals("Could not initialize Spring Boot", error.get("errorMessage").asText());
+    }
+}
@@ -0,0 +1,53 @@
+package com.tacticore.lambda;
+
+import com.tacticore.lambda.routing.LambdaRouter;
+import com.tacticore.lambda.service.LeaderboardService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Requests sintéticos del priming: uno por ruta, que vuelve a rutear a la misma ruta con los valores
+ * de ejemplo, y en seco para todo lo que no es GET.
+ */
+class LambdaPrimingTest {
+
+    @Test
+    void testEverySyntheticRequestRoutesBackToItsRoute() {
+        LambdaRouter<String> router = new LambdaRouter<>();
+        router.register("GET", "/api/users/roles", "roles");
+        router.register("GET", "/api/users/{name}/rank", "rank");
+        router.register("GET", "/api/users/leaderboard/{board}", "leaderboard");
+        router.register("GET", "/api/analysis/user/{user}/round/{round:int}", "userRound");
+        router.register("GET", "/api/analysis/spatial/box", "box");
+        router.register("POST", "/api/matches/{id}/chat", "chat");
+        router.register("DELETE", "/api/matches/{id}", "deleteMatch");
+
+        LambdaPriming.Samples samples = new LambdaPriming.Samples("flameZ", "mirage_demo", "de_mirage");
+        List<LambdaPriming.SyntheticRequest> requests = LambdaPriming.syntheticRequests(router.getRoutes(), samples);
+
+        assertEquals(router.getRoutes().size(), requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            LambdaPriming.SyntheticRequest request = requests.get(i);
+            LambdaRouter.RouteMatch<String> match = router.match(request.method, request.path);
+            assertNotNull(match, request.toString());
+            assertEquals(router.getRoutes().get(i).getHandler(), match.getHandler());
+            assertEquals(!"GET".equals(request.method), request.dryRun, request.toString());
+            assertFalse(request.path.contains("{"), request.toString());
+        }
+
+        LambdaRouter.RouteMatch<String> userRound = router.match("GET", "/api/analysis/user/flameZ/round/1");
+        assertEquals("userRound", userRound.getHandler());
+        assertTrue(requests.stream().anyMatch(r -> r.path.equals("/api/users/leaderboard/" + LeaderboardService.SCORE)));
+        assertTrue(requests.stream().anyMatch(r -> r.path.equals("/api/matches/mirage_demo/chat") && r.dryRun));
+
+        // Parámetros que exigen las consultas espaciales
+        LambdaPriming.SyntheticRequest box = requests.stream().filter(r -> r.path.endsWith("/box")).findFirst().orElseThrow();
+        for (String param : List.of("map", "minX", "minY", "maxX", "maxY")) {
+            assertNotNull(box.query.get(param), param);
+        }
+        assertEquals("de_mirage", box.query.get("map"));
+    }
+}
@@ -0,0 +1,175 @@
+package com.tacticore.lambda;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Emulador local del Lambda Runtime API (solo JDK): encola invocaciones, las entrega en
+ * GET /runtime/invocation/next y completa cada una cuando el runtime publica la respuesta o el error.
+ *
+ * Uso standalone (scripts/native-startup.sh):
+ *   java -cp target/test-classes com.tacticore.lambda.LambdaRuntimeApiEmulator &lt;port&gt; &lt;path&gt; &lt;invocaciones&gt;
+ * imprime "EMULATOR response &lt;n&gt; &lt;epochMillis&gt; &lt;ok|error&gt;" por invocación y termina.
+ */
+public class LambdaRuntimeApiEmulator implements AutoCloseable {
+
+    private static final String PREFIX = "/" + LambdaCustomRuntime.API_VERSION + "/runtime";
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final BlockingQueue<Invocation> pending = new LinkedBlockingQueue<>();
+    private final Map<String, Invocation> inFlight = new ConcurrentHashMap<>();
+    private final CompletableFuture<String> initError = new CompletableFuture<>();
+    private final AtomicLong nextId = new AtomicLong();
+
+    public LambdaRuntimeApiEmulator(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.createContext(PREFIX + "/invocation/next", this::next);
+        server.createContext(PREFIX + "/invocation/", this::result);
+        server.createContext(PREFIX + "/init/error", exchange -> {
+            initError.complete(readBody(exchange));
+            respond(exchange, 202, "");
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /** host:port para AWS_LAMBDA_RUNTIME_API */
+    public String address() {
+        return "127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Encola un evento; el future se completa cuando el runtime publica la respuesta o el error
+     */
+    public CompletableFuture<Result> invoke(String eventJson, long timeoutMs) {
+        Invocation invocation = new Invocation("req-" + nextId.incrementAndGet(), eventJson,
+            System.currentTimeMillis() + timeoutMs);
+        inFlight.put(invocation.requestId, invocation);
+        pending.add(invocation);
+        return invocation.result;
+    }
+
+    public CompletableFuture<String> initError() {
+        return initError;
+    }
+
+    /** Evento GET de API Gateway (REST, proxy) para el path */
+    public static String apiGatewayGet(String path) {
+        return "{\"resource\":\"/{proxy+}\",\"path\":\"" + path + "\",\"httpMethod\":\"GET\","
+            + "\"headers\":{\"Accept\":\"application/json\"},\"queryStringParameters\":null,"
+            + "\"requestContext\":{\"requestId\":\"emulator\",\"stage\":\"prod\",\"domainPrefix\":\"api\","
+            + "\"requestTimeEpoch\":0,\"protocol\":\"HTTP/1.1\"},\"body\":null,\"isBase64Encoded\":false}";
+    }
+
+    private void next(HttpExchange exchange) throws IOException {
+        Invocation invocation;
+        try {
+            // Long poll, como el Runtime API real
+            invocation = pending.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 500, "");
+            return;
+        }
+        exchange.getResponseHeaders().add("Lambda-Runtime-Aws-Request-Id", invocation.requestId);
+        exchange.getResponseHeaders().add("Lambda-Runtime-Deadline-Ms", String.valueOf(invocation.deadlineMs));
+        exchange.getResponseHeaders().add("Lambda-Runtime-Invoked-Function-Arn",
+            "arn:aws:lambda:us-east-1:000000000000:function:tacticore-emulator");
+        exchange.getResponseHeaders().add("Lambda-Runtime-Trace-Id", "Root=1-emulator-" + invocation.requestId);
+        respond(exchange, 200, invocation.event);
+    }
+
+    // POST /invocation/{requestId}/response | /invocation/{requestId}/error
+    private void result(HttpExchange exchange) throws IOException {
+        String[] parts = exchange.getRequestURI().getPath().substring((PREFIX + "/invocation/").length()).split("/");
+        Invocation invocation = parts.length == 2 ? inFlight.remove(parts[0]) : null;
+        if (!"POST".equals(exchange.getRequestMethod()) || invocation == null) {
+            respond(exchange, 400, "{\"errorMessage\":\"unknown invocation\"}");
+            return;
+        }
+        // Se completa antes del 202: cuando el runtime vuelve de processNext el resultado ya está
+        invocation.result.complete(new Result("error".equals(parts[1]), readBody(exchange),
+            exchange.getRequestHeaders().getFirst("Lambda-Runtime-Function-Error-Type")));
+        respond(exchange, 202, "");
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length == 0) {
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = Integer.parseInt(args[0]);
+        String path = args.length > 1 ? args[1] : "/api/matches";
+        int invocations = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        try (LambdaRuntimeApiEmulator emulator = new LambdaRuntimeApiEmulator(port)) {
+            System.out.println("EMULATOR listening " + emulator.address());
+            for (int i = 1; i <= invocations; i++) {
+                Result result = emulator.invoke(apiGatewayGet(path), 30_000).get(10, TimeUnit.MINUTES);
+                System.out.println("EMULATOR response " + i + " " + System.currentTimeMillis() + " "
+                    + (result.error ? "error" : "ok"));
+            }
+        }
+    }
+
+    private static final class Invocation {
+        final String requestId;
+        final String event;
+        final long deadlineMs;
+        final CompletableFuture<Result> result = new CompletableFuture<>();
+
+        Invocation(String requestId, String event, long deadlineMs) {
+            this.requestId = requestId;
+            this.event = event;
+            this.deadlineMs = deadlineMs;
+        }
+    }
+
+    public static final class Result {
+        public final boolean error;
+        public final String body;
+        public final String errorType;
+
+        Result(boolean error, String body, String errorType) {
+            this.error = error;
+            this.body = body;
+            this.errorType = errorType;
+        }
+    }
+}
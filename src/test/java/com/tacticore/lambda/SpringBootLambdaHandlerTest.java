@@ -0,0 +1,109 @@
+package com.tacticore.lambda;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.tacticore.lambda.model.MatchResponse;
+import com.tacticore.lambda.serialization.JsonResponseWriter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Status de las respuestas de la Lambda: parámetros inválidos son 400 y paths sin ruta 404, no 500;
+ * los ResponseEntity de los controllers conservan status y headers.
+ * Sin instanciar el handler: su inicialización estática levanta el contexto de la Lambda y deja
+ * propiedades de sistema (perfil lambda, sin web) que rompen los tests MockMvc de la misma JVM.
+ */
+class SpringBootLambdaHandlerTest {
+
+    private static final JsonResponseWriter JSON = JsonResponseWriter.shared();
+
+    @Test
+    void testIntQueryRejectsNonNumericValues() {
+        assertEquals(64, request(Map.of()).intQuery("resolution", 64));
+        assertEquals(32, request(Map.of("resolution", "32")).intQuery("resolution", 64));
+
+        LambdaResponses.BadRequestException error = assertThrows(LambdaResponses.BadRequestException.class,
+            () -> request(Map.of("resolution", "abc")).intQuery("resolution", 64));
+        assertTrue(error.getMessage().contains("resolution"), error.getMessage());
+        assertThrows(LambdaResponses.BadRequestException.class,
+            () -> request(Map.of("resolution", "99999999999")).intQuery("resolution", 64));
+    }
+
+    @Test
+    void testSpatialParametersAreValidated() {
+        SpringBootLambdaHandler.RouteRequest box = request(Map.of("minX", "-120.5", "minY", "abc", "maxX", "NaN", "round", "3"));
+        assertEquals(-120.5, box.doubleQuery("minX"));
+        assertThrows(LambdaResponses.BadRequestException.class, () -> box.doubleQuery("minY"));
+        assertThrows(LambdaResponses.BadRequestException.class, () -> box.doubleQuery("maxX"));
+        // Obligatorio: falta -> 400
+        assertThrows(LambdaResponses.BadRequestException.class, () -> box.doubleQuery("maxY"));
+
+        assertEquals(3, box.intQuery("round"));
+        assertNull(box.intQuery("limit"));
+        assertThrows(LambdaResponses.BadRequestException.class, () -> request(Map.of("round", "1.5")).intQuery("round"));
+        assertThrows(LambdaResponses.BadRequestException.class, () -> request(Map.of("k", "ten")).intQuery("k", 10));
+    }
+
+    @Test
+    void testPaginationParametersAreValidated() throws Exception {
+        SpringBootLambdaHandler.RouteRequest page = request(Map.of("offset", "20", "limit", "abc", "minMatches", "x5"));
+        assertEquals(20, page.intQuery("offset", 0));
+        assertThrows(LambdaResponses.BadRequestException.class, () -> page.intQuery("limit", 50));
+        assertThrows(LambdaResponses.BadRequestException.class, () -> page.intQuery("minMatches"));
+
+        // Board desconocido o cursor inválido: el 404/400 del controller llega como tal
+        assertEquals(404, LambdaResponses.of(ResponseEntity.notFound().build(), JSON).getStatusCode());
+    }
+
+    @Test
+    void testErrorsMapToStatus() {
+        APIGatewayProxyResponseEvent badRequest = LambdaResponses.error(
+            new LambdaResponses.BadRequestException("El parámetro resolution debe ser un entero: \"abc\""), JSON);
+        assertEquals(400, badRequest.getStatusCode());
+        assertTrue(badRequest.getBody().contains("\\\"abc\\\""), badRequest.getBody());
+
+        assertEquals(404, LambdaResponses.error(
+            new LambdaResponses.RouteNotFoundException("Route not found: GET /api/analysis/round//"), JSON).getStatusCode());
+        assertEquals(500, LambdaResponses.error(new IllegalStateException("boom"), JSON).getStatusCode());
+    }
+
+    @Test
+    void testResponseEntityKeepsControllerStatus() throws Exception {
+        APIGatewayProxyResponseEvent rejected = LambdaResponses.of(
+            ResponseEntity.badRequest().body(Map.of("error", "resolution debe dividir a 128")), JSON);
+        assertEquals(400, rejected.getStatusCode());
+        assertEquals("{\"error\":\"resolution debe dividir a 128\"}", rejected.getBody());
+
+        APIGatewayProxyResponseEvent ok = LambdaResponses.of(Map.of("status", "healthy"), JSON);
+        assertEquals(200, ok.getStatusCode());
+        assertEquals("application/json", ok.getHeaders().get("Content-Type"));
+    }
+
+    @Test
+    void testResponseEntityHeadersAreKept() throws Exception {
+        // Breaker abierto en un upload síncrono: 503 con Retry-After
+        APIGatewayProxyResponseEvent unavailable = LambdaResponses.of(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "30")
+            .body(MatchResponse.failed("m1", "ML service circuit open")), JSON);
+
+        assertEquals(503, unavailable.getStatusCode());
+        assertEquals("30", unavailable.getHeaders().get(HttpHeaders.RETRY_AFTER));
+        assertEquals("*", unavailable.getHeaders().get("Access-Control-Allow-Origin"));
+        assertTrue(unavailable.getBody().contains("ML service circuit open"), unavailable.getBody());
+    }
+
+    @AfterAll
+    static void handlerWasNotInitialized() {
+        assertNull(System.getProperty("spring.main.web-application-type"));
+    }
+
+    private static SpringBootLambdaHandler.RouteRequest request(Map<String, String> query) {
+        return new SpringBootLambdaHandler.RouteRequest(null, query, null, false);
+    }
+}
@@ -0,0 +1,67 @@
+package com.tacticore.lambda.config;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.tacticore.lambda.model.KillContext;
+import com.tacticore.lambda.model.KillEntity;
+import com.tacticore.lambda.model.KillPrediction;
+import com.tacticore.lambda.model.MatchEntity;
+import com.tacticore.lambda.model.dto.MatchDto;
+import com.tacticore.lambda.service.DemoSnapshotService;
+import com.tacticore.lambda.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hints de la imagen nativa: DTOs serializables por Jackson, entidades para Hibernate, tipos propios
+ * de los servicios, eventos del Runtime API y recursos del classpath
+ */
+class NativeRuntimeHintsTest {
+
+    private final RuntimeHints hints = registerHints();
+
+    private static RuntimeHints registerHints() {
+        RuntimeHints hints = new RuntimeHints();
+        new NativeRuntimeHints().registerHints(hints, NativeRuntimeHintsTest.class.getClassLoader());
+        return hints;
+    }
+
+    @Test
+    void testJacksonDtosAreBindable() throws Exception {
+        for (Class<?> type : new Class<?>[]{KillContext.class, KillPrediction.class, MatchDto.class}) {
+            assertTrue(RuntimeHintsPredicates.reflection().onType(type)
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints), type.getName());
+        }
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(MatchDto.class.getMethod("getId")).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(KillContext.class.getMethod("setKillTick", Integer.class))
+            .test(hints));
+    }
+
+    @Test
+    void testEntitiesExposeFieldsForHibernate() {
+        for (Class<?> entity : new Class<?>[]{MatchEntity.class, KillEntity.class}) {
+            assertTrue(RuntimeHintsPredicates.reflection().onType(entity)
+                .withMemberCategories(MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)
+                .test(hints), entity.getName());
+        }
+    }
+
+    @Test
+    void testServiceTypesAndRuntimeApiEvents() {
+        assertTrue(RuntimeHintsPredicates.reflection().onType(UserService.UserStats.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(APIGatewayProxyRequestEvent.class).test(hints));
+        // Tipos anidados del evento, alcanzados por las propiedades
+        assertTrue(RuntimeHintsPredicates.reflection().onType(APIGatewayProxyRequestEvent.ProxyRequestContext.class)
+            .test(hints));
+    }
+
+    @Test
+    void testClasspathResources() {
+        assertTrue(RuntimeHintsPredicates.resource().forResource(DemoSnapshotService.SNAPSHOT_RESOURCE).test(hints));
+        assertTrue(RuntimeHintsPredicates.resource().forResource("ai_model_response_example.json").test(hints));
+        assertFalse(RuntimeHintsPredicates.resource().forResource("keystore.p12").test(hints));
+    }
+}
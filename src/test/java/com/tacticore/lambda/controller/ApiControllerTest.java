@@ -8,6 +8,7 @@ import com.tacticore.lambda.service.DatabaseMatchService;
 import com.tacticore.lambda.service.GameDataService;
 import com.tacticore.lambda.service.JsonMatchService;
 import com.tacticore.lambda.service.KillAnalysisService;
+import com.tacticore.lambda.service.MapTransformRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -46,6 +47,9 @@ class ApiControllerTest {
     @MockBean
     private JsonMatchService jsonMatchService;
 
+    @MockBean
+    private MapTransformRegistry mapTransformRegistry;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -0,0 +1,215 @@
+package com.tacticore.lambda.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+
+/**
+ * Upload asíncrono contra un servicio ML local (stub con com.sun.net.httpserver):
+ * el upload responde antes de que termine el análisis, el status pasa por queued/processing
+ * hasta completed, la cola rechaza con 503 cuando está llena y nunca hay más llamadas
+ * ML en vuelo que match.processing.ml-concurrency.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class MatchUploadAsyncIntegrationTest {
+
+    private static final long ANALYSIS_DELAY_MS = 1500;
+
+    private static final String ML_RESPONSE = "{\"status\":\"success\",\"total_kills\":2,\"map\":\"de_mirage\",\"tickrate\":64,"
+        + "\"predictions\":[" + prediction("1001_stubA_stubB", "stubA", "stubB") + "," + prediction("1002_stubB_stubA", "stubB", "stubA") + "]}";
+
+    private static final HttpServer ML_SERVER = startStubMlServer();
+    private static final AtomicInteger inFlight = new AtomicInteger();
+    private static final AtomicInteger maxInFlight = new AtomicInteger();
+    private static final AtomicInteger requests = new AtomicInteger();
+    private static volatile CountDownLatch gate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @DynamicPropertySource
+    static void mlServiceProperties(DynamicPropertyRegistry registry) {
+        registry.add("ml.service.url", () -> "http://localhost:" + ML_SERVER.getAddress().getPort());
+        registry.add("simulation.enabled", () -> "false");
+        registry.add("match.processing.async", () -> "true");
+        registry.add("match.processing.workers", () -> "2");
+        registry.add("match.processing.queue-capacity", () -> "2");
+        registry.add("match.processing.ml-concurrency", () -> "1");
+    }
+
+    @AfterAll
+    static void stopStubMlServer() {
+        ML_SERVER.stop(0);
+    }
+
+    @BeforeEach
+    void resetStub() {
+        gate = null;
+        maxInFlight.set(0);
+        requests.set(0);
+    }
+
+    @Test
+    void testUploadReturnsBeforeAnalysisCompletes() throws Exception {
+        long start = System.nanoTime();
+        MvcResult result = upload();
+        long uploadMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(202, result.getResponse().getStatus());
+        JsonNode body = objectMapper.readTree(result.getResponse().getContentAsString());
+        assertEquals("queued", body.path("status").asText());
+        assertTrue(uploadMs < ANALYSIS_DELAY_MS, "Upload tardó " + uploadMs + " ms con un análisis de " + ANALYSIS_DELAY_MS + " ms");
+
+        String matchId = body.path("id").asText();
+        String status = statusOf(matchId);
+        assertTrue(status.equals("queued") || status.equals("processing"), "Status inicial: " + status);
+
+        awaitStatus(matchId, "completed");
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= ANALYSIS_DELAY_MS);
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void testQueueFullIsRejectedAndMlConcurrencyIsLimited() throws Exception {
+        gate = new CountDownLatch(1);
+        List<String> accepted = new ArrayList<>();
+
+        // A: primer worker, bloqueado dentro de la llamada ML
+        accepted.add(uploadAndGetId(202));
+        awaitCondition(() -> requests.get() == 1, "el stub ML no recibió el primer match");
+        // B: segundo worker, esperando el permiso ML
+        String second = uploadAndGetId(202);
+        accepted.add(second);
+        awaitStatus(second, "processing");
+        // C y D: llenan la cola (capacidad 2)
+        accepted.add(uploadAndGetId(202));
+        accepted.add(uploadAndGetId(202));
+
+        // E: cola llena
+        MvcResult rejected = upload();
+        assertEquals(503, rejected.getResponse().getStatus());
+        String rejectedId = objectMapper.readTree(rejected.getResponse().getContentAsString()).path("id").asText();
+        assertEquals("failed", statusOf(rejectedId));
+
+        gate.countDown();
+        for (String matchId : accepted) {
+            awaitStatus(matchId, "completed");
+        }
+        assertEquals(4, requests.get());
+        assertEquals(1, maxInFlight.get());
+    }
+
+    private MvcResult upload() throws Exception {
+        MockMultipartFile demFile = new MockMultipartFile("demFile", "stub_match.dem",
+            "application/octet-stream", new byte[64 * 1024]);
+        return mockMvc.perform(multipart("/api/matches").file(demFile)).andReturn();
+    }
+
+    private String uploadAndGetId(int expectedStatus) throws Exception {
+        MvcResult result = upload();
+        assertEquals(expectedStatus, result.getResponse().getStatus());
+        return objectMapper.readTree(result.getResponse().getContentAsString()).path("id").asText();
+    }
+
+    private String statusOf(String matchId) throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/matches/{matchId}/status", matchId)).andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).path("status").asText();
+    }
+
+    private void awaitStatus(String matchId, String expected) throws Exception {
+        awaitCondition(() -> expected.equals(statusOf(matchId)), "match " + matchId + " no llegó a " + expected);
+    }
+
+    private static void awaitCondition(Condition condition, String message) throws Exception {
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.check()) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        fail(message);
+    }
+
+    @FunctionalInterface
+    private interface Condition {
+        boolean check() throws Exception;
+    }
+
+    private static HttpServer startStubMlServer() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.createContext("/analyze-demo", exchange -> {
+                int current = inFlight.incrementAndGet();
+                maxInFlight.accumulateAndGet(current, Math::max);
+                requests.incrementAndGet();
+                try (InputStream in = exchange.getRequestBody()) {
+                    in.transferTo(OutputStream.nullOutputStream());
+                    CountDownLatch currentGate = gate;
+                    if (currentGate != null) {
+                        currentGate.await(30, TimeUnit.SECONDS);
+                    } else {
+                        Thread.sleep(ANALYSIS_DELAY_MS);
+                    }
+                    byte[] response = ML_RESPONSE.getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().add("Content-Type", "application/json");
+                    exchange.sendResponseHeaders(200, response.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(response);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    exchange.sendResponseHeaders(500, -1);
+                } finally {
+                    inFlight.decrementAndGet();
+                    exchange.close();
+                }
+            });
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo levantar el stub del servicio ML", e);
+        }
+    }
+
+    private static String prediction(String killId, String attacker, String victim) {
+        return "{\"kill_id\":\"" + killId + "\",\"attacker\":\"" + attacker + "\",\"victim\":\"" + victim + "\","
+            + "\"place\":\"BombsiteA\",\"round\":1,\"weapon\":\"ak47\",\"headshot\":true,\"distance\":512.5,\"time_in_round\":31.25,"
+            + "\"context\":{\"kill_tick\":2348,\"side\":\"t\",\"attacker_x\":-1720.0,\"attacker_y\":-1896.0,\"attacker_z\":-267.6,"
+            + "\"victim_x\":-1500.0,\"victim_y\":-1700.0,\"victim_z\":-267.6,\"attacker_health\":100.0,\"victim_health\":0.0,"
+            + "\"flash_near\":false,\"smoke_near\":false,\"molotov_near\":false,\"he_near\":false},"
+            + "\"attacker_strengths\":{\"aim\":0.8}}";
+    }
+}
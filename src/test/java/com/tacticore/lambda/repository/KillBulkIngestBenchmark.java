@@ -0,0 +1,124 @@
+package com.tacticore.lambda.repository;
+
+import com.tacticore.lambda.LambdaApplication;
+import com.tacticore.lambda.model.KillEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingesta de kills sintéticos contra el H2 del perfil lambda: bulkInsert (batches JDBC)
+ * contra un save() por kill en su propia transacción, que es como se escribían antes.
+ * Cada iteración inserta un lote nuevo y lo borra al terminar.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.include=KillBulkIngestBenchmark
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KillBulkIngestBenchmark {
+
+    private static final String BENCH_MATCH_PREFIX = "bench_";
+    private static final String[] PLAYERS = {"flameZ", "ropz", "sh1ro", "bLitz", "Senzu", "tabseN", "broky", "jL", "m0NESY", "NiKo"};
+    private static final String[] WEAPONS = {"ak47", "m4a1_silencer", "awp", "deagle", "usp_silencer", "glock", "mp9"};
+    private static final String[] PLACES = {"TSpawn", "CTSpawn", "BombsiteA", "BombsiteB", "Middle", "Connector", "Palace"};
+
+    @Param({"10000", "100000"})
+    private int kills;
+
+    private ConfigurableApplicationContext context;
+    private KillRepository killRepository;
+    private JdbcTemplate jdbcTemplate;
+    private List<KillEntity> batch;
+    private int iteration;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = new SpringApplicationBuilder(LambdaApplication.class)
+                .profiles("lambda")
+                .web(WebApplicationType.NONE)
+                .properties("logging.level.root=WARN")
+                .run();
+        killRepository = context.getBean(KillRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void createBatch() {
+        // Entidades nuevas en cada iteración: las del lote anterior ya tienen ID asignado
+        batch = createKills(BENCH_MATCH_PREFIX + iteration++, kills);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteBatch() {
+        jdbcTemplate.update("DELETE FROM kills WHERE match_id LIKE ?", BENCH_MATCH_PREFIX + "%");
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public int bulkInsert() {
+        return killRepository.bulkInsert(batch);
+    }
+
+    @Benchmark
+    public int saveOnePerTransaction() {
+        for (KillEntity kill : batch) {
+            killRepository.save(kill);
+        }
+        return batch.size();
+    }
+
+    static List<KillEntity> createKills(String matchId, int count) {
+        List<KillEntity> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            KillEntity kill = new KillEntity();
+            kill.setKillId(matchId + "_kill_" + i);
+            kill.setMatchId(matchId);
+            kill.setAttacker(PLAYERS[i % PLAYERS.length]);
+            kill.setVictim(PLAYERS[(i * 7 + 3) % PLAYERS.length]);
+            kill.setPlace(PLACES[i % PLACES.length]);
+            kill.setRound(1 + (i / 5) % 30);
+            kill.setWeapon(WEAPONS[i % WEAPONS.length]);
+            kill.setHeadshot(i % 4 == 0);
+            kill.setDistance(100.0 + (i % 2000));
+            kill.setTimeInRound((double) (i % 115));
+            kill.setKillTick(64L * i);
+            kill.setSide(i % 2 == 0 ? "t" : "ct");
+            kill.setAttackerX((double) (i % 4000) - 2000);
+            kill.setAttackerY((double) (i % 3000) - 1500);
+            kill.setAttackerZ(0.0);
+            kill.setVictimX((double) (i % 3500) - 1700);
+            kill.setVictimY((double) (i % 2500) - 1200);
+            kill.setVictimZ(0.0);
+            kill.setAttackerHealth(100.0);
+            kill.setVictimHealth(0.0);
+            result.add(kill);
+        }
+        return result;
+    }
+}
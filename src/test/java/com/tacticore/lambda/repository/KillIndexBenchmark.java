@@ -0,0 +1,121 @@
+package com.tacticore.lambda.repository;
+
+import com.tacticore.lambda.LambdaApplication;
+import com.tacticore.lambda.model.KillEntity;
+import com.tacticore.lambda.model.dto.KillAnalysisDto;
+import com.tacticore.lambda.service.KillAnalysisService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencia de los endpoints por usuario (/api/analysis/user/{user}/..., stats de un usuario
+ * dentro de un match) sobre una tabla kills de 1M filas, con y sin los índices de KillEntity.
+ * Las filas sintéticas se generan con un INSERT ... SELECT en H2 (1000 jugadores, 2000 matches).
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.include=KillIndexBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class KillIndexBenchmark {
+
+    private static final int PLAYERS = 1000;
+    private static final int MATCHES = 2000;
+    private static final String[] INDEXES = {
+        "IDX_KILLS_ATTACKER", "IDX_KILLS_VICTIM", "IDX_KILLS_MATCH_ATTACKER",
+        "IDX_KILLS_MATCH_VICTIM", "IDX_KILLS_ROUND", "IDX_KILLS_MATCH_ROUND_TIME"
+    };
+
+    @Param({"1000000"})
+    private int rows;
+
+    @Param({"indexed", "unindexed"})
+    private String schema;
+
+    private ConfigurableApplicationContext context;
+    private KillRepository killRepository;
+    private KillAnalysisService killAnalysisService;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void loadKills() {
+        context = new SpringApplicationBuilder(LambdaApplication.class)
+                .profiles("lambda")
+                .web(WebApplicationType.NONE)
+                .properties("logging.level.root=WARN")
+                .run();
+        killRepository = context.getBean(KillRepository.class);
+        killAnalysisService = context.getBean(KillAnalysisService.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        if ("unindexed".equals(schema)) {
+            for (String index : INDEXES) {
+                jdbcTemplate.execute("DROP INDEX IF EXISTS " + index);
+            }
+        }
+        // Ids negativos: no consumen la secuencia kills_seq
+        jdbcTemplate.execute("INSERT INTO kills (id, kill_id, match_id, attacker, victim, place, round_number, weapon, "
+                + "headshot, distance, time_in_round, side) "
+                + "SELECT -X, 'bench_kill_' || X, 'bench_match_' || MOD(X, " + MATCHES + "), "
+                + "'bench_player_' || MOD(X, " + PLAYERS + "), 'bench_player_' || MOD(X * 7 + 3, " + PLAYERS + "), "
+                + "'place_' || MOD(X, 40), MOD(X, 30) + 1, 'weapon_' || MOD(X, 25), MOD(X, 4) = 0, "
+                + "MOD(X, 2000) + 1, MOD(X, 115), CASE WHEN MOD(X, 2) = 0 THEN 't' ELSE 'ct' END "
+                + "FROM SYSTEM_RANGE(1, " + rows + ")");
+        jdbcTemplate.execute("ANALYZE TABLE kills");
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public KillAnalysisDto userOverview() {
+        return killAnalysisService.getAnalysisByUser(nextPlayer());
+    }
+
+    @Benchmark
+    public List<KillEntity> userKills() {
+        return killAnalysisService.getKillsByUser(nextPlayer());
+    }
+
+    @Benchmark
+    public List<KillEntity> userKillsByRound() {
+        return killAnalysisService.getKillsByUserAndRound(nextPlayer(), 1 + next % 30);
+    }
+
+    @Benchmark
+    public long userStatsInMatch() {
+        int player = next++ % PLAYERS;
+        // Un match donde el jugador aparece: MOD(X, MATCHES) con X = player (mod PLAYERS)
+        String matchId = "bench_match_" + player;
+        String user = "bench_player_" + player;
+        return killRepository.countKillsByUserAndMatchId(user, matchId)
+                + killRepository.countDeathsByUserAndMatchId(user, matchId);
+    }
+
+    private String nextPlayer() {
+        return "bench_player_" + (next++ % PLAYERS);
+    }
+}
@@ -0,0 +1,178 @@
+package com.tacticore.lambda.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Regresión de planes de consulta sobre kills (y kill_predictions): captura el SQL que Hibernate genera para cada
+ * método de KillRepository y verifica con EXPLAIN de H2 que use el índice esperado y no un table scan.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+    + "com.tacticore.lambda.repository.KillQueryPlanTest$CapturingInspector")
+class KillQueryPlanTest {
+
+    private static final String USER = "plan_user_7";
+    private static final String MATCH = "plan_match_3";
+    private static final int SYNTHETIC_KILLS = 20_000;
+
+    @Autowired
+    private KillRepository killRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    void loadSyntheticKills() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            // Ids negativos para no chocar con la secuencia kills_seq; 500 jugadores en 100 matches
+            statement.execute("MERGE INTO kills (id, kill_id, match_id, attacker, victim, round_number, weapon, headshot, "
+                + "distance, time_in_round, place, side) KEY (id) "
+                + "SELECT -X, 'plan_kill_' || X, 'plan_match_' || MOD(X, 100), 'plan_user_' || MOD(X, 500), "
+                + "'plan_user_' || MOD(X * 7 + 3, 500), MOD(X, 30) + 1, 'ak47', MOD(X, 3) = 0, MOD(X, 2000), "
+                + "MOD(X, 115), 'BombsiteA', CASE WHEN MOD(X, 2) = 0 THEN 't' ELSE 'ct' END "
+                + "FROM SYSTEM_RANGE(1, " + SYNTHETIC_KILLS + ")");
+            statement.execute("ANALYZE TABLE kills");
+        }
+    }
+
+    // La base H2 en memoria es compartida con los demás tests: las filas sintéticas no pasan por
+    // KillIngestService (no hay agregados por jugador para ellas) y no deben quedar en la tabla
+    @AfterEach
+    void removeSyntheticKills() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DELETE FROM kills WHERE id BETWEEN -" + SYNTHETIC_KILLS + " AND -1");
+        }
+    }
+
+    @Test
+    void testUserQueriesUseAttackerAndVictimIndexes() throws SQLException {
+        assertPlanUses(() -> killRepository.countKillsByUser(USER), List.of(USER), "IDX_KILLS_ATTACKER");
+        assertPlanUses(() -> killRepository.countDeathsByUser(USER), List.of(USER), "IDX_KILLS_VICTIM");
+        assertPlanUses(() -> killRepository.countHeadshotsByUser(USER), List.of(USER), "IDX_KILLS_ATTACKER");
+        assertPlanUses(() -> killRepository.getWeaponUsageStatsByUser(USER), List.of(USER), "IDX_KILLS_ATTACKER");
+        assertPlanUses(() -> killRepository.findByAttacker(USER), List.of(USER), "IDX_KILLS_ATTACKER");
+        assertPlanUses(() -> killRepository.findByUser(USER), List.of(USER, USER),
+            "IDX_KILLS_ATTACKER", "IDX_KILLS_VICTIM");
+        assertPlanUses(() -> killRepository.findDistinctMatchIdsByUser(USER), List.of(USER, USER),
+            "IDX_KILLS_ATTACKER", "IDX_KILLS_VICTIM");
+    }
+
+    @Test
+    void testUserWithinMatchQueriesUseCompositeIndexes() throws SQLException {
+        assertPlanUses(() -> killRepository.countKillsByUserAndMatchId(USER, MATCH), List.of(USER, MATCH),
+            "IDX_KILLS_MATCH_ATTACKER");
+        assertPlanUses(() -> killRepository.countDeathsByUserAndMatchId(USER, MATCH), List.of(USER, MATCH),
+            "IDX_KILLS_MATCH_VICTIM");
+        assertPlanUses(() -> killRepository.existsByMatchIdAndAttackerName(MATCH, USER), List.of(MATCH, USER),
+            "IDX_KILLS_MATCH_ATTACKER");
+    }
+
+    @Test
+    void testRoundQueriesUseRoundIndexes() throws SQLException {
+        assertPlanUses(() -> killRepository.findByRound(5), List.of(5), "IDX_KILLS_ROUND");
+        assertPlanUses(() -> killRepository.getKillsPerRound(), List.of(), "IDX_KILLS_ROUND");
+        // Filtrado por atacante debe ganarle al orden de idx_kills_round
+        assertPlanUses(() -> killRepository.getKillsPerRoundByUser(USER), List.of(USER), "IDX_KILLS_ATTACKER");
+        assertPlanUses(() -> killRepository.findByUserAndRound(USER, 5), List.of(USER, 5, USER, 5),
+            "IDX_KILLS_ATTACKER", "IDX_KILLS_VICTIM");
+
+        String plan = explain("SELECT * FROM kills WHERE match_id = ? AND round_number = ? ORDER BY time_in_round",
+            List.of(MATCH, 5));
+        assertTrue(plan.contains("PUBLIC.IDX_KILLS_MATCH_ROUND_TIME"), plan);
+    }
+
+    @Test
+    void testMatchKillsQueriesUseMatchIndexes() throws SQLException {
+        // Cualquiera de los índices con prefijo match_id (H2 elige según estadísticas)
+        assertPlanUses(() -> killRepository.findByMatchIdOrderByRoundAscTimeInRoundAsc(MATCH), List.of(MATCH),
+            "IDX_KILLS_MATCH_");
+        assertPlanUses(() -> killRepository.findByMatchIdAndUserOrderByRoundAndTime(MATCH, USER), List.of(MATCH, USER, USER),
+            "IDX_KILLS_MATCH_");
+    }
+
+    @Test
+    void testPredictionQueriesUsePredictionIndexes() throws SQLException {
+        String byKill = explain("SELECT * FROM kill_predictions WHERE kill_id = ?", List.of("plan_kill_1"));
+        assertTrue(byKill.contains("PUBLIC.IDX_KILL_PREDICTIONS_KILL"), byKill);
+
+        String byLabel = explain("SELECT AVG(confidence) FROM kill_predictions WHERE label = ? AND is_top_prediction = TRUE",
+            List.of("good_decision"));
+        assertTrue(byLabel.contains("PUBLIC.IDX_KILL_PREDICTIONS_LABEL_TOP"), byLabel);
+    }
+
+    private void assertPlanUses(Runnable query, List<Object> parameters, String... indexes) throws SQLException {
+        CapturingInspector.clear();
+        query.run();
+        String sql = CapturingInspector.lastKillsQuery();
+        assertNotNull(sql, "No se capturó SQL sobre kills");
+
+        String plan = explain(sql, parameters);
+        assertFalse(plan.contains("KILLS.tableScan"), "Table scan en kills:\n" + plan);
+        for (String index : indexes) {
+            assertTrue(plan.contains("PUBLIC." + index), "Se esperaba " + index + " en:\n" + plan);
+        }
+    }
+
+    private String explain(String sql, List<Object> parameters) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getString(1);
+            }
+        }
+    }
+
+    /**
+     * Registra el SQL que Hibernate envía a la base (configurado como statement_inspector)
+     */
+    public static class CapturingInspector implements StatementInspector {
+
+        private static final List<String> statements = new ArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            synchronized (statements) {
+                statements.add(sql);
+            }
+            return sql;
+        }
+
+        static void clear() {
+            synchronized (statements) {
+                statements.clear();
+            }
+        }
+
+        static String lastKillsQuery() {
+            synchronized (statements) {
+                for (int i = statements.size() - 1; i >= 0; i--) {
+                    String sql = statements.get(i);
+                    String normalized = sql.toLowerCase().replaceFirst("^[\\s(]+", "");
+                    if (normalized.startsWith("select") && normalized.contains(" kills ")) {
+                        return sql;
+                    }
+                }
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.tacticore.lambda.routing;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compara el router precompilado con la cadena if/else + regex que usaba
+ * SpringBootLambdaHandler.routeRequest. Ambos resuelven solo la ruta (sin invocar
+ * controllers) para medir el costo del ruteo.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.include=LambdaRouterBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LambdaRouterBenchmark {
+
+    @Param({"/api/users/flameZ/profile", "/api/analysis/user/flameZ/kills", "/api/matches/mirage_demo/kills", "/api/maps"})
+    private String path;
+
+    private LambdaRouter<String> router;
+
+    @Setup
+    public void setUp() {
+        router = new LambdaRouter<>();
+        String[] getRoutes = {
+            "/ping", "/hello", "/api/health", "/api/maps", "/api/weapons",
+            "/api/analytics/dashboard", "/api/analytics/historical", "/api/data/status",
+            "/api/users", "/api/users/roles", "/api/users/stats", "/api/users/top/score",
+            "/api/users/top/kills", "/api/users/top/kdr", "/api/users/top/matches", "/api/users/search",
+            "/api/users/debug/kills-users", "/api/users/exists/{name}", "/api/users/role/{role}",
+            "/api/users/debug/{name}/real-stats", "/api/users/{name}/profile", "/api/users/{name}",
+            "/api/analysis/overview", "/api/analysis/players", "/api/analysis/rounds", "/api/analysis/users",
+            "/api/analysis/player/{player}", "/api/analysis/round/{round:int}",
+            "/api/analysis/user/{user}/overview", "/api/analysis/user/{user}/kills",
+            "/api/analysis/user/{user}/round/{round:int}", "/api/matches", "/api/matches/{id}",
+            "/api/matches/{id}/kills", "/api/matches/{id}/chat", "/api/matches/{id}/status"
+        };
+        for (String template : getRoutes) {
+            router.register("GET", template, template);
+        }
+        router.register("POST", "/api/matches/s3", "/api/matches/s3");
+        router.register("POST", "/api/users", "/api/users");
+        router.register("POST", "/api/matches/{id}/chat", "/api/matches/{id}/chat");
+        router.register("DELETE", "/api/matches/{id}", "/api/matches/{id}");
+    }
+
+    @Benchmark
+    public String precompiledRouter() {
+        LambdaRouter.RouteMatch<String> match = router.match("GET", path);
+        return match.getHandler();
+    }
+
+    @Benchmark
+    public String legacyIfElseChain() {
+        return legacyRoute("GET", path);
+    }
+
+    /**
+     * Copia de la lógica de matching del routeRequest anterior (sin las llamadas a controllers).
+     */
+    private static String legacyRoute(String method, String path) {
+        Pattern matchIdPattern = Pattern.compile("/api/matches/([^/]+)(?:/(.*))?");
+        Pattern userNamePattern = Pattern.compile("/api/users/([^/]+)(?:/(.*))?");
+        Pattern analysisPattern = Pattern.compile("/api/analysis/(.+)");
+
+        Matcher matchIdMatcher = matchIdPattern.matcher(path);
+        userNamePattern.matcher(path);
+        analysisPattern.matcher(path);
+
+        if ("GET".equals(method) || "HEAD".equals(method)) {
+            String[] literals = {
+                "/ping", "/hello", "/api/health", "/api/maps", "/api/weapons", "/api/analytics/dashboard",
+                "/api/analytics/historical", "/api/data/status", "/api/users", "/api/users/roles",
+                "/api/users/stats", "/api/users/top/score", "/api/users/top/kills", "/api/users/top/kdr",
+                "/api/users/top/matches", "/api/users/search", "/api/users/debug/kills-users"
+            };
+            for (String literal : literals) {
+                if (literal.equals(path)) {
+                    return literal;
+                }
+            }
+            if (path.matches("/api/users/exists/[^/]+")) {
+                return path.substring("/api/users/exists/".length());
+            }
+            if (path.matches("/api/users/role/[^/]+")) {
+                return path.substring("/api/users/role/".length());
+            }
+            if (path.matches("/api/users/debug/[^/]+/real-stats")) {
+                return path.replaceAll("/api/users/debug/([^/]+)/real-stats", "$1");
+            }
+            if (path.matches("/api/users/[^/]+/profile")) {
+                return path.replaceAll("/api/users/([^/]+)/profile", "$1");
+            }
+            if (path.matches("/api/users/[^/]+")) {
+                return path.substring("/api/users/".length());
+            }
+            String[] analysisLiterals = {"/api/analysis/overview", "/api/analysis/players", "/api/analysis/rounds", "/api/analysis/users"};
+            for (String literal : analysisLiterals) {
+                if (literal.equals(path)) {
+                    return literal;
+                }
+            }
+            if (path.matches("/api/analysis/player/[^/]+")) {
+                return path.substring("/api/analysis/player/".length());
+            }
+            if (path.matches("/api/analysis/round/[0-9]+")) {
+                return path.substring("/api/analysis/round/".length());
+            }
+            if (path.matches("/api/analysis/user/[^/]+/overview")) {
+                return path.replaceAll("/api/analysis/user/([^/]+)/overview", "$1");
+            }
+            if (path.matches("/api/analysis/user/[^/]+/kills")) {
+                return path.replaceAll("/api/analysis/user/([^/]+)/kills", "$1");
+            }
+            if (path.matches("/api/analysis/user/[^/]+/round/[0-9]+")) {
+                Matcher m = Pattern.compile("/api/analysis/user/([^/]+)/round/([0-9]+)").matcher(path);
+                if (m.matches()) {
+                    return m.group(1);
+                }
+            }
+            if ("/api/matches".equals(path)) {
+                return path;
+            }
+            if (matchIdMatcher.matches()) {
+                String subPath = matchIdMatcher.group(2);
+                return subPath == null ? matchIdMatcher.group(1) : subPath;
+            }
+        }
+        throw new IllegalArgumentException("Route not found: " + method + " " + path);
+    }
+}
@@ -0,0 +1,97 @@
+package com.tacticore.lambda.routing;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LambdaRouterTest {
+
+    private LambdaRouter<String> router;
+
+    @BeforeEach
+    void setUp() {
+        router = new LambdaRouter<>();
+        router.register("GET", "/api/users", "allUsers");
+        router.register("GET", "/api/users/roles", "roles");
+        router.register("GET", "/api/users/{name}", "userByName");
+        router.register("GET", "/api/users/{name}/profile", "profile");
+        router.register("GET", "/api/analysis/round/{round:int}", "round");
+        router.register("GET", "/api/analysis/user/{user}/round/{round:int}", "userRound");
+        router.register("GET", "/api/matches/{id}", "match");
+        router.register("POST", "/api/matches/s3", "s3Upload");
+        router.register("DELETE", "/api/matches/{id}", "deleteMatch");
+    }
+
+    @Test
+    void testLiteralTakesPrecedenceOverVariable() {
+        assertEquals("roles", router.match("GET", "/api/users/roles").getHandler());
+        assertEquals("userByName", router.match("GET", "/api/users/flameZ").getHandler());
+    }
+
+    @Test
+    void testExtractsPathVariables() {
+        LambdaRouter.RouteMatch<String> match = router.match("GET", "/api/analysis/user/flameZ/round/12");
+
+        assertNotNull(match);
+        assertEquals("userRound", match.getHandler());
+        assertEquals("flameZ", match.getPathVariable("user"));
+        assertEquals(12, match.getIntPathVariable("round"));
+    }
+
+    @Test
+    void testNumericVariableRejectsNonDigits() {
+        assertNull(router.match("GET", "/api/analysis/round/abc"));
+        assertEquals("round", router.match("GET", "/api/analysis/round/7").getHandler());
+    }
+
+    @Test
+    void testNumericVariableRejectsEmptySegment() {
+        assertNull(router.match("GET", "/api/analysis/round//"));
+        assertNull(router.match("GET", "/api/analysis/user/flameZ/round//"));
+    }
+
+    @Test
+    void testNumericVariableRejectsIntOverflow() {
+        assertEquals(Integer.MAX_VALUE, router.match("GET", "/api/analysis/round/2147483647").getIntPathVariable("round"));
+        assertEquals(7, router.match("GET", "/api/analysis/round/0000000007").getIntPathVariable("round"));
+        assertNull(router.match("GET", "/api/analysis/round/2147483648"));
+        assertNull(router.match("GET", "/api/analysis/round/99999999999"));
+        assertNull(router.match("GET", "/api/analysis/user/flameZ/round/12345678901234567890"));
+    }
+
+    @Test
+    void testFallsBackToVariableWhenLiteralHasNoRouteForMethod() {
+        // /api/matches/s3 solo existe como POST; un GET debe resolver /api/matches/{id}
+        LambdaRouter.RouteMatch<String> match = router.match("GET", "/api/matches/s3");
+
+        assertEquals("match", match.getHandler());
+        assertEquals("s3", match.getPathVariable("id"));
+        assertEquals("s3Upload", router.match("POST", "/api/matches/s3").getHandler());
+    }
+
+    @Test
+    void testMethodsAreMatchedAndHeadMapsToGet() {
+        assertEquals("profile", router.match("HEAD", "/api/users/flameZ/profile").getHandler());
+        assertEquals("deleteMatch", router.match("DELETE", "/api/matches/abc").getHandler());
+        assertNull(router.match("PUT", "/api/matches/abc"));
+    }
+
+    @Test
+    void testUnknownPathsReturnNull() {
+        assertNull(router.match("GET", "/api/users/flameZ/unknown"));
+        assertNull(router.match("GET", "/api/unknown"));
+        assertNull(router.match("GET", "/"));
+        assertNull(router.match("GET", null));
+    }
+
+    @Test
+    void testTrailingSlashIsIgnored() {
+        assertEquals("allUsers", router.match("GET", "/api/users/").getHandler());
+    }
+
+    @Test
+    void testDuplicateRouteIsRejected() {
+        assertThrows(IllegalStateException.class, () -> router.register("GET", "/api/users/{other}", "dup"));
+    }
+}
@@ -0,0 +1,111 @@
+package com.tacticore.lambda.serialization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.tacticore.lambda.model.dto.KillAnalysisDto;
+import com.tacticore.lambda.model.dto.MatchDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización de respuestas de la Lambda: mapper nuevo por invocación (como hacía
+ * SpringBootLambdaHandler) contra el JsonResponseWriter compartido.
+ *
+ * Para ver allocations por operación:
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.include="JsonResponseWriterBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonResponseWriterBenchmark {
+
+    @Param({"matchList", "killAnalysis", "mlPredictions"})
+    private String payload;
+
+    private Object value;
+    private JsonResponseWriter writer;
+
+    @Setup
+    public void setUp() throws Exception {
+        writer = new JsonResponseWriter(JsonResponseWriter.createMapper());
+        switch (payload) {
+            case "matchList" -> value = createMatchList(200);
+            case "killAnalysis" -> value = createKillAnalysis();
+            default -> value = loadPredictions();
+        }
+    }
+
+    @Benchmark
+    public String newMapperPerCall() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return mapper.writeValueAsString(value);
+    }
+
+    @Benchmark
+    public String sharedWriter() throws Exception {
+        return writer.writeAsString(value);
+    }
+
+    private static List<MatchDto> createMatchList(int size) {
+        List<MatchDto> matches = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            matches.add(new MatchDto("match_" + i, "demo_" + i + ".dem", false, "de_mirage", "Ranked",
+                20 + i % 10, 15 + i % 7, i % 6, i % 4, "45:30", 6.5 + (i % 30) / 10.0,
+                LocalDateTime.of(2025, 1, 1, 10, 0).plusHours(i)));
+        }
+        return matches;
+    }
+
+    private static KillAnalysisDto createKillAnalysis() {
+        List<Map<String, Object>> weapons = stats("weapon", 30);
+        List<Map<String, Object>> places = stats("location", 40);
+        List<Map<String, Object>> rounds = stats("round", 30);
+        List<Map<String, Object>> sides = stats("side", 2);
+        List<Map<String, Object>> players = stats("player", 10);
+        List<Map<String, Object>> predictions = stats("label", 8);
+        return new KillAnalysisDto(2400L, 1100L, 45.8, 812.3, 41.2, weapons, places, rounds, sides, players, predictions);
+    }
+
+    private static List<Map<String, Object>> stats(String key, int size) {
+        List<Map<String, Object>> stats = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put(key, key + "_" + i);
+            entry.put("count", (long) (size - i) * 7);
+            stats.add(entry);
+        }
+        return stats;
+    }
+
+    /**
+     * Predicciones crudas del modelo ML (mismo formato que devuelve el servicio)
+     */
+    private static Object loadPredictions() throws Exception {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> response = new ObjectMapper().readValue(new File("demos-jsons/de_mirage.json"), Map.class);
+        return response.get("predictions");
+    }
+}
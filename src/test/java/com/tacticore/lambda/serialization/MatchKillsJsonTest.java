@@ -0,0 +1,115 @@
+package com.tacticore.lambda.serialization;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tacticore.lambda.model.KillEntity;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchKillsJsonTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void testMatchesMapBasedResponse() throws Exception {
+        List<KillEntity> kills = List.of(
+            kill("k1", 1, 10.0, "ct", true, 200.0, -1000.0, 500.0),
+            kill("k2", 1, 25.5, "ct", false, 800.0, null, null),
+            kill("k3", 1, 40.0, "t", false, 100.0, 1200.0, -300.0),
+            kill("k4", 2, 5.0, "t", false, null, -3000.0, 1500.0)
+        );
+
+        JsonNode streamed = mapper.readTree(mapper.writeValueAsString(new MatchKillsJson("m1", "alice", "de_mirage", kills)));
+        JsonNode expected = mapper.valueToTree(buildWithMaps("m1", "alice", "de_mirage", kills));
+
+        assertEquals(expected, streamed);
+        assertEquals(3, streamed.get("kills").get(1).get("teamAlive").get("ct").asInt());
+        assertEquals(4, streamed.get("kills").get(3).get("teamAlive").get("t").asInt());
+        assertFalse(streamed.get("kills").get(1).has("attackerPosition"));
+    }
+
+    @Test
+    void testEmptyMatchWithoutUserOrMap() throws Exception {
+        JsonNode streamed = mapper.readTree(mapper.writeValueAsString(new MatchKillsJson("m2", null, null, List.of())));
+
+        assertEquals(0, streamed.get("kills").size());
+        assertEquals("m2", streamed.get("matchId").asText());
+        assertFalse(streamed.has("filteredBy"));
+    }
+
+    // Respuesta que armaba ApiController con un HashMap por kill
+    private static Map<String, Object> buildWithMaps(String matchId, String user, String mapName, List<KillEntity> sortedKills) {
+        List<Map<String, Object>> kills = new ArrayList<>();
+        Map<Integer, Map<String, Integer>> roundTeamCounts = new HashMap<>();
+        for (KillEntity kill : sortedKills) {
+            Map<String, Integer> teamCounts = roundTeamCounts.computeIfAbsent(kill.getRound(), r -> new HashMap<>(Map.of("ct", 5, "t", 5)));
+            if ("ct".equals(kill.getSide())) {
+                teamCounts.put("ct", Math.max(0, teamCounts.get("ct") - 1));
+            } else if ("t".equals(kill.getSide())) {
+                teamCounts.put("t", Math.max(0, teamCounts.get("t") - 1));
+            }
+
+            Map<String, Object> killDto = new HashMap<>();
+            killDto.put("id", kill.getKillId().hashCode());
+            killDto.put("killer", kill.getAttacker());
+            killDto.put("victim", kill.getVictim());
+            killDto.put("weapon", kill.getWeapon());
+            killDto.put("isGoodPlay", kill.getHeadshot() || (kill.getDistance() != null && kill.getDistance() > 500));
+            killDto.put("round", kill.getRound());
+            killDto.put("time", String.format("%.1fs", kill.getTimeInRound() != null ? kill.getTimeInRound() : 0.0));
+            killDto.put("teamAlive", Map.of("ct", teamCounts.get("ct"), "t", teamCounts.get("t")));
+            killDto.put("position", kill.getPlace());
+            killDto.put("attackerSide", kill.getSide());
+            if (kill.getAttackerX() != null && kill.getAttackerY() != null) {
+                killDto.put("attackerPosition", Map.of("x", kill.getAttackerX(), "y", kill.getAttackerY(), "z", 0.0));
+                killDto.put("attackerImagePosition", imagePosition(kill.getAttackerX(), kill.getAttackerY(), mapName));
+            }
+            if (kill.getVictimX() != null && kill.getVictimY() != null) {
+                killDto.put("victimPosition", Map.of("x", kill.getVictimX(), "y", kill.getVictimY(), "z", 0.0));
+                killDto.put("victimImagePosition", imagePosition(kill.getVictimX(), kill.getVictimY(), mapName));
+            }
+            kills.add(killDto);
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("kills", kills);
+        response.put("matchId", matchId);
+        if (user != null) {
+            response.put("filteredBy", user);
+        }
+        return response;
+    }
+
+    private static Map<String, Integer> imagePosition(double gameX, double gameY, String mapName) {
+        double[] data = "de_mirage".equals(mapName) ? new double[]{-3230.0, 1713.0, 5.0} : new double[]{-2000.0, 3000.0, 5.0};
+        int imageX = Math.max(0, Math.min(1024, (int) ((gameX - data[0]) / data[2])));
+        int imageY = Math.max(0, Math.min(1024, (int) ((data[1] - gameY) / data[2])));
+        return Map.of("x", imageX, "y", imageY);
+    }
+
+    private static KillEntity kill(String killId, int round, double time, String side, boolean headshot, Double distance,
+                                   Double x, Double y) {
+        KillEntity kill = new KillEntity();
+        kill.setKillId(killId);
+        kill.setMatchId("m1");
+        kill.setAttacker("alice");
+        kill.setVictim("bob");
+        kill.setWeapon("ak47");
+        kill.setPlace("Mid");
+        kill.setSide(side);
+        kill.setRound(round);
+        kill.setTimeInRound(time);
+        kill.setHeadshot(headshot);
+        kill.setDistance(distance);
+        kill.setAttackerX(x);
+        kill.setAttackerY(y);
+        kill.setVictimX(x != null ? x + 100 : null);
+        kill.setVictimY(y != null ? y - 100 : null);
+        return kill;
+    }
+}
@@ -0,0 +1,107 @@
+package com.tacticore.lambda.serialization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MlResponseCodecTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final MlResponseCodec codec = new MlResponseCodec(mapper, false);
+
+    @Test
+    void testRoundTripIsSmallerThanPrettyJson() throws Exception {
+        Map<String, Object> response = mlResponse(40);
+        byte[] compressed = codec.encode(response);
+
+        assertEquals(response, codec.decode(compressed));
+        assertEquals(response, mapper.readValue(codec.decodeToJson(compressed), Map.class));
+        int prettySize = mapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(response).length;
+        assertTrue(compressed.length * 5 < prettySize, compressed.length + " vs " + prettySize);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStripDebugFields() {
+        Map<String, Object> response = mlResponse(5);
+        MlResponseCodec stripping = new MlResponseCodec(mapper, true);
+        Map<String, Object> decoded = stripping.decode(stripping.encode(response));
+
+        Map<String, Object> prediction = ((List<Map<String, Object>>) decoded.get("predictions")).get(0);
+        assertFalse(prediction.containsKey("debug_attacker"));
+        assertFalse(((Map<String, Object>) prediction.get("context")).containsKey("debug_trace"));
+        assertEquals("player_0", ((Map<String, Object>) prediction.get("context")).get("attacker_name"));
+        assertTrue(prediction.containsKey("prediction"));
+        // El Map original no se modifica
+        assertTrue(((List<Map<String, Object>>) response.get("predictions")).get(0).containsKey("debug_attacker"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFilterByUserMatchesMapBasedFilter() throws Exception {
+        Map<String, Object> response = mlResponse(40);
+        String prettyJson = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(response);
+
+        Map<String, Object> expected = filterWithMaps(response, "PLAYER_3");
+        Map<String, Object> fromCompressed = mapper.readValue(codec.filterByUser(codec.encode(response), "PLAYER_3"), Map.class);
+        Map<String, Object> fromLegacyText = mapper.readValue(codec.filterByUser(prettyJson, "PLAYER_3"), Map.class);
+
+        assertEquals(expected, fromCompressed);
+        assertEquals(expected, fromLegacyText);
+        assertEquals(8, fromCompressed.get("total_kills"));
+
+        Map<String, Object> none = mapper.readValue(codec.filterByUser(codec.encode(response), "nobody"), Map.class);
+        assertEquals(0, none.get("total_kills"));
+        assertEquals("de_mirage", none.get("map"));
+    }
+
+    // Filtro que hacía ApiController sobre el Map completo
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> filterWithMaps(Map<String, Object> response, String user) {
+        List<Map<String, Object>> filtered = new ArrayList<>();
+        for (Map<String, Object> prediction : (List<Map<String, Object>>) response.get("predictions")) {
+            Map<String, Object> context = (Map<String, Object>) prediction.get("context");
+            if (user.equalsIgnoreCase(String.valueOf(context.get("attacker_name")))
+                || user.equalsIgnoreCase(String.valueOf(context.get("victim_name")))) {
+                filtered.add(prediction);
+            }
+        }
+        Map<String, Object> result = new HashMap<>(response);
+        result.put("predictions", filtered);
+        result.put("total_kills", filtered.size());
+        return result;
+    }
+
+    private static Map<String, Object> mlResponse(int kills) {
+        List<Map<String, Object>> predictions = new ArrayList<>();
+        for (int i = 0; i < kills; i++) {
+            Map<String, Object> context = new LinkedHashMap<>();
+            context.put("attacker_name", "player_" + (i % 10));
+            context.put("victim_name", "player_" + ((i + 3) % 10));
+            context.put("attacker_health", 100 - i % 50);
+            context.put("distance", 400.5 + i);
+            context.put("debug_trace", List.of(i, i + 1, i + 2));
+
+            Map<String, Object> prediction = new LinkedHashMap<>();
+            prediction.put("kill_id", "kill_" + i);
+            prediction.put("round", 1 + i / 5);
+            prediction.put("context", context);
+            prediction.put("prediction", Map.of("label", i % 2 == 0 ? "good" : "bad", "confidence", 0.75));
+            prediction.put("debug_attacker", Map.of("raw", "x".repeat(200)));
+            predictions.add(prediction);
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", "success");
+        response.put("total_kills", kills);
+        response.put("map", "de_mirage");
+        response.put("predictions", predictions);
+        return response;
+    }
+}
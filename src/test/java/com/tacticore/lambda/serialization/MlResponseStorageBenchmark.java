@@ -0,0 +1,101 @@
+package com.tacticore.lambda.serialization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Endpoint /api/matches/{id}/kills sobre respuestas reales del ML (demos-jsons): TEXT pretty-printed
+ * parseado a Map (formato anterior) contra MlResponseCodec (gzip, RawValue / filtro en streaming).
+ * SampleTime para ver p99; el setup imprime el tamaño guardado por match en cada formato.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.include=MlResponseStorageBenchmark
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MlResponseStorageBenchmark {
+
+    @Param({"de_mirage", "inferno1"})
+    private String demo;
+
+    private ObjectMapper mapper;
+    private MlResponseCodec codec;
+    private String prettyJson;
+    private byte[] compressed;
+    private String user;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        mapper = JsonResponseWriter.createMapper();
+        codec = new MlResponseCodec(mapper, false);
+        Map<String, Object> response = mapper.readValue(new File("demos-jsons/" + demo + ".json"), Map.class);
+
+        prettyJson = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(response);
+        compressed = codec.encode(response);
+        byte[] stripped = new MlResponseCodec(mapper, true).encode(response);
+
+        List<Map<String, Object>> predictions = (List<Map<String, Object>>) response.get("predictions");
+        user = String.valueOf(((Map<String, Object>) predictions.get(0).get("context")).get("attacker_name"));
+
+        System.out.printf("%n%s: %d kills, TEXT pretty %d bytes, gzip %d bytes, gzip sin debug_* %d bytes%n",
+            demo, predictions.size(), prettyJson.getBytes(StandardCharsets.UTF_8).length, compressed.length, stripped.length);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public byte[] legacyTextAllKills() throws Exception {
+        Map<String, Object> jsonData = mapper.readValue(prettyJson, Map.class);
+        return mapper.writeValueAsBytes(jsonData);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public byte[] legacyTextUserKills() throws Exception {
+        Map<String, Object> jsonData = mapper.readValue(prettyJson, Map.class);
+        List<Map<String, Object>> filtered = new ArrayList<>();
+        for (Map<String, Object> prediction : (List<Map<String, Object>>) jsonData.get("predictions")) {
+            Map<String, Object> context = (Map<String, Object>) prediction.get("context");
+            if (user.equalsIgnoreCase(String.valueOf(context.get("attacker_name")))
+                || user.equalsIgnoreCase(String.valueOf(context.get("victim_name")))) {
+                filtered.add(prediction);
+            }
+        }
+        Map<String, Object> filteredData = new HashMap<>(jsonData);
+        filteredData.put("predictions", filtered);
+        filteredData.put("total_kills", filtered.size());
+        return mapper.writeValueAsBytes(filteredData);
+    }
+
+    @Benchmark
+    public byte[] compactAllKills() throws Exception {
+        return mapper.writeValueAsBytes(new RawValue(codec.decodeToJson(compressed)));
+    }
+
+    @Benchmark
+    public byte[] compactUserKills() throws Exception {
+        return mapper.writeValueAsBytes(new RawValue(codec.filterByUser(compressed, user)));
+    }
+}
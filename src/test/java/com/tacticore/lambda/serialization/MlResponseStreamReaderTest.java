@@ -0,0 +1,186 @@
+package com.tacticore.lambda.serialization;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tacticore.lambda.model.KillEntity;
+import com.tacticore.lambda.model.KillPredictionEntity;
+import com.tacticore.lambda.model.MapTransform;
+import com.tacticore.lambda.service.SimulationDataMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MlResponseStreamReaderTest {
+
+    private static final Path DEMO_JSON = Path.of("demos-jsons/de_mirage.json");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testKillsMatchMapBasedMapper() throws Exception {
+        Map<String, Object> response = mapper.readValue(DEMO_JSON.toFile(), Map.class);
+        List<Map<String, Object>> predictions = (List<Map<String, Object>>) response.get("predictions");
+        SimulationDataMapper simulationDataMapper = new SimulationDataMapper();
+
+        List<KillEntity> kills = new ArrayList<>();
+        List<List<KillPredictionEntity>> labels = new ArrayList<>();
+        MlResponseStreamReader.Summary summary;
+        try (InputStream in = Files.newInputStream(DEMO_JSON)) {
+            summary = reader(false).read(in, "m1", (kill, rows) -> {
+                kills.add(kill);
+                labels.add(rows);
+            });
+        }
+
+        assertEquals(response.get("total_kills"), summary.getTotalKills());
+        assertEquals(response.get("map"), summary.getMapName());
+        assertEquals(response.get("tickrate"), summary.getTickrate());
+        assertEquals(predictions.size(), summary.getPredictions());
+        assertNull(summary.getCompressedResponse());
+
+        assertEquals(predictions.size(), kills.size());
+        for (int i = 0; i < kills.size(); i++) {
+            KillEntity expected = ReflectionTestUtils.invokeMethod(simulationDataMapper, "mapPredictionToKillEntity", predictions.get(i), "m1");
+            expected.setMatchId("m1");
+            assertEquals(fields(expected), fields(kills.get(i)), "kill " + i);
+
+            Map<String, Object> prediction = (Map<String, Object>) predictions.get(i).get("prediction");
+            int expectedRows = ((List<?>) prediction.get("top_predictions")).size() + ((Map<?, ?>) prediction.get("all_probabilities")).size();
+            assertEquals(expectedRows, labels.get(i).size());
+            assertTrue(labels.get(i).stream().allMatch(row -> expected.getKillId().equals(row.getKillId())));
+        }
+        KillPredictionEntity top = labels.get(0).get(0);
+        assertTrue(top.getIsTopPrediction());
+        assertEquals("other", top.getLabel());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testEncodedResponseMatchesCodec() throws Exception {
+        for (boolean stripDebug : new boolean[]{false, true}) {
+            Map<String, Object> response = mlResponse(12);
+            byte[] json = mapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(response);
+            MlResponseCodec codec = new MlResponseCodec(mapper, stripDebug);
+
+            MlResponseStreamReader.Summary summary = new MlResponseStreamReader(mapper, codec)
+                .readAndEncode(new ByteArrayInputStream(json), null, (kill, rows) -> { });
+
+            assertEquals(codec.decodeToJson(codec.encode(response)), codec.decodeToJson(summary.getCompressedResponse()));
+            Map<String, Object> decoded = codec.decode(summary.getCompressedResponse());
+            Map<String, Object> prediction = ((List<Map<String, Object>>) decoded.get("predictions")).get(0);
+            assertEquals(!stripDebug, prediction.containsKey("debug_attacker"));
+            assertEquals(!stripDebug, ((Map<String, Object>) prediction.get("context")).containsKey("debug_victim"));
+        }
+    }
+
+    @Test
+    void testCountsGoodAndBadPlaysFromAttackerStrengths() throws Exception {
+        byte[] json = mapper.writeValueAsBytes(mlResponse(10));
+
+        List<KillPredictionEntity> strengths = new ArrayList<>();
+        MlResponseStreamReader.Summary summary = reader(false).read(new ByteArrayInputStream(json), null, (kill, rows) ->
+            rows.stream().filter(row -> KillPredictionEntity.STRENGTH.equals(row.getKind())).forEach(strengths::add));
+
+        // attacker_strengths.aim > 0.5 en los kills pares
+        assertEquals(5, summary.getGoodPlays());
+        assertEquals(5, summary.getBadPlays());
+        assertEquals("success", summary.getStatus());
+        assertEquals(10, strengths.size());
+        assertEquals("aim", strengths.get(0).getLabel());
+        assertEquals(0.9, strengths.get(0).getConfidence(), 1e-9);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testReadsMapTransformFromDebugAttacker() throws Exception {
+        Map<String, Object> response = mapper.readValue(DEMO_JSON.toFile(), Map.class);
+        Map<String, Object> context = (Map<String, Object>) ((List<Map<String, Object>>) response.get("predictions")).get(0).get("context");
+        Map<String, Object> debug = (Map<String, Object>) context.get("debug_attacker");
+
+        MlResponseStreamReader.Summary summary;
+        try (InputStream in = Files.newInputStream(DEMO_JSON)) {
+            summary = reader(true).readAndEncode(in, null, (kill, rows) -> { });
+        }
+
+        // Misma posición final en la imagen que el recorrido de debug del ML
+        MapTransform transform = summary.getMapTransform();
+        List<Number> original = (List<Number>) debug.get("original");
+        List<Number> expected = (List<Number>) debug.get("final");
+        assertEquals(expected.get(0).doubleValue(), transform.toImageX(original.get(0).doubleValue()), 1e-3);
+        assertEquals(expected.get(1).doubleValue(), transform.toImageY(original.get(1).doubleValue()), 1e-3);
+        assertNull(reader(false).read(new ByteArrayInputStream(mapper.writeValueAsBytes(mlResponse(2))), null,
+            (kill, rows) -> { }).getMapTransform());
+    }
+
+    @Test
+    void testRejectsMalformedResponses() {
+        MlResponseStreamReader reader = reader(false);
+        assertThrows(JsonProcessingException.class, () -> read(reader, "[1, 2]"));
+        assertThrows(IOException.class, () -> read(reader, "{\"predictions\":[{\"kill_id\":\"k1\","));
+    }
+
+    private MlResponseStreamReader reader(boolean stripDebug) {
+        return new MlResponseStreamReader(mapper, new MlResponseCodec(mapper, stripDebug));
+    }
+
+    private static void read(MlResponseStreamReader reader, String json) throws IOException {
+        reader.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), null, (kill, rows) -> { });
+    }
+
+    private static List<Object> fields(KillEntity kill) {
+        return List.of(String.valueOf(kill.getKillId()), String.valueOf(kill.getMatchId()), String.valueOf(kill.getAttacker()),
+            String.valueOf(kill.getVictim()), String.valueOf(kill.getPlace()), String.valueOf(kill.getRound()),
+            String.valueOf(kill.getWeapon()), String.valueOf(kill.getHeadshot()), String.valueOf(kill.getDistance()),
+            String.valueOf(kill.getTimeInRound()), String.valueOf(kill.getKillTick()), String.valueOf(kill.getSide()),
+            String.valueOf(kill.getAttackerX()), String.valueOf(kill.getAttackerY()), String.valueOf(kill.getAttackerZ()),
+            String.valueOf(kill.getVictimX()), String.valueOf(kill.getVictimY()), String.valueOf(kill.getVictimZ()),
+            String.valueOf(kill.getAttackerHealth()), String.valueOf(kill.getVictimHealth()), String.valueOf(kill.getFlashNear()),
+            String.valueOf(kill.getSmokeNear()), String.valueOf(kill.getMolotovNear()), String.valueOf(kill.getHeNear()));
+    }
+
+    private static Map<String, Object> mlResponse(int kills) {
+        List<Map<String, Object>> predictions = new ArrayList<>();
+        for (int i = 0; i < kills; i++) {
+            Map<String, Object> context = new LinkedHashMap<>();
+            context.put("kill_tick", 1000 + i);
+            context.put("side", i % 2 == 0 ? "t" : "ct");
+            context.put("attacker_x", -1000.5 + i);
+            context.put("debug_victim", Map.of("trace", List.of(1, 2, 3)));
+
+            Map<String, Object> prediction = new LinkedHashMap<>();
+            prediction.put("kill_id", "k" + i);
+            prediction.put("attacker", "player_" + i % 4);
+            prediction.put("victim", "player_" + (i + 1) % 4);
+            prediction.put("round", 1 + i / 5);
+            prediction.put("headshot", i % 3 == 0);
+            prediction.put("distance", 100.0 * i);
+            prediction.put("context", context);
+            prediction.put("debug_attacker", "trace_" + i);
+            prediction.put("attacker_strengths", Map.of("aim", i % 2 == 0 ? 0.9 : 0.2));
+            prediction.put("prediction", Map.of("predicted_label", "good_decision",
+                "top_predictions", List.of(Map.of("label", "good_decision", "confidence", 0.7)),
+                "all_probabilities", Map.of("good_decision", 0.7, "other", 0.3)));
+            predictions.add(prediction);
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", "success");
+        response.put("total_kills", kills);
+        response.put("map", "de_mirage");
+        response.put("tickrate", 64);
+        response.put("predictions", predictions);
+        return response;
+    }
+}
@@ -0,0 +1,107 @@
+package com.tacticore.lambda.service;
+
+import com.tacticore.lambda.model.DashboardStats;
+import com.tacticore.lambda.model.KillEntity;
+import com.tacticore.lambda.repository.KillRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Dashboard contra H2 real: el KDR promedio del AVG sobre player_stats igual al recorrido por atacante,
+ * y el cache invalidado solo por ingests confirmados que tocan al jugador.
+ */
+@SpringBootTest
+class AnalyticsServiceDashboardTest {
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private KillIngestService killIngestService;
+
+    @Autowired
+    private KillRepository killRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private static int killSequence;
+
+    private String alice;
+    private String bob;
+    private String carol;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = Long.toString(System.nanoTime());
+        alice = "dash_alice_" + suffix;
+        bob = "dash_bob_" + suffix;
+        carol = "dash_carol_" + suffix;
+        killIngestService.ingest(List.of(kill(alice, bob), kill(alice, bob), kill(bob, alice), kill(carol, alice)));
+    }
+
+    @Test
+    void testGlobalDashboardMatchesPerAttackerCounts() {
+        DashboardStats stats = analyticsService.getDashboardStats(null);
+
+        // Cálculo anterior: dos COUNT por atacante
+        double totalKdr = 0.0;
+        int userCount = 0;
+        for (String attacker : killRepository.findAllAttackers()) {
+            long deaths = killRepository.countDeathsByUser(attacker);
+            if (deaths > 0) {
+                totalKdr += (double) killRepository.countKillsByUser(attacker) / deaths;
+                userCount++;
+            }
+        }
+        assertEquals(userCount > 0 ? totalKdr / userCount : 0.0, stats.getKdr(), 1e-9);
+        assertEquals(killRepository.count(), stats.getTotalKills());
+        assertSame(stats, analyticsService.getDashboardStats(""));
+    }
+
+    @Test
+    void testIngestInvalidatesAffectedDashboardsOnCommit() {
+        DashboardStats aliceBefore = analyticsService.getDashboardStats(alice);
+        DashboardStats carolBefore = analyticsService.getDashboardStats(carol);
+        DashboardStats globalBefore = analyticsService.getDashboardStats(null);
+        assertEquals(2, aliceBefore.getTotalKills());
+        assertEquals(2, aliceBefore.getTotalDeaths());
+        assertEquals(1.0, aliceBefore.getKdr(), 1e-9);
+
+        // Revertido: no cambia nada ni invalida
+        transactionTemplate.executeWithoutResult(status -> {
+            killIngestService.ingest(List.of(kill(alice, carol)));
+            status.setRollbackOnly();
+        });
+        assertSame(aliceBefore, analyticsService.getDashboardStats(alice));
+        assertSame(globalBefore, analyticsService.getDashboardStats(null));
+
+        killIngestService.ingest(List.of(kill(alice, bob)));
+        DashboardStats aliceAfter = analyticsService.getDashboardStats(alice);
+        assertEquals(3, aliceAfter.getTotalKills());
+        assertEquals(1.5, aliceAfter.getKdr(), 1e-9);
+        assertEquals(globalBefore.getTotalKills() + 1, analyticsService.getDashboardStats(null).getTotalKills());
+        // carol no estaba en el batch
+        assertSame(carolBefore, analyticsService.getDashboardStats(carol));
+    }
+
+    private static KillEntity kill(String attacker, String victim) {
+        KillEntity kill = new KillEntity();
+        kill.setKillId("dash_" + System.nanoTime() + "_" + (++killSequence));
+        kill.setMatchId("dash_match_" + attacker.substring(attacker.lastIndexOf('_') + 1));
+        kill.setAttacker(attacker);
+        kill.setVictim(victim);
+        kill.setWeapon("ak47");
+        kill.setSide("t");
+        kill.setRound(1);
+        kill.setHeadshot(false);
+        return kill;
+    }
+}
@@ -3,6 +3,7 @@ package com.tacticore.lambda.service;
 import com.tacticore.lambda.model.AnalyticsData;
 import com.tacticore.lambda.model.AnalyticsDataEntity;
 import com.tacticore.lambda.model.DashboardStats;
+import com.tacticore.lambda.model.PlayerStatsEntity;
 import com.tacticore.lambda.model.dto.MatchDto;
 import com.tacticore.lambda.repository.AnalyticsDataRepository;
 import com.tacticore.lambda.repository.KillRepository;
@@ -12,12 +13,15 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import static org.mockito.Mockito.times;
 
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -36,6 +40,12 @@ class AnalyticsServiceTest {
     
     @Mock
     private DatabaseMatchService databaseMatchService;
+    
+    @Mock
+    private PlayerAggregateService playerAggregateService;
+    
+    @Spy
+    private DashboardCache dashboardCache = new DashboardCache(1 << 20);
 
     @InjectMocks
     private AnalyticsService analyticsService;
@@ -92,11 +102,8 @@ class AnalyticsServiceTest {
         // Given
         when(killRepository.count()).thenReturn(143L);
         when(matchRepository.count()).thenReturn(6L);
-        when(killRepository.findAllAttackers()).thenReturn(Arrays.asList("player1", "player2"));
-        when(killRepository.countKillsByUser("player1")).thenReturn(20L);
-        when(killRepository.countDeathsByUser("player1")).thenReturn(15L);
-        when(killRepository.countKillsByUser("player2")).thenReturn(18L);
-        when(killRepository.countDeathsByUser("player2")).thenReturn(12L);
+        // KDR promedio de player1 (20/15) y player2 (18/12), calculado en un AVG sobre player_stats
+        when(playerAggregateService.getAverageKdr()).thenReturn((20.0 / 15 + 18.0 / 12) / 2);
         
         // Mock MatchDto objects for score calculation
         com.tacticore.lambda.model.dto.MatchDto match1 = new com.tacticore.lambda.model.dto.MatchDto();
@@ -115,19 +122,26 @@ class AnalyticsServiceTest {
         assertEquals(6, result.getTotalMatches()); // El mock devuelve 6 matches
         assertEquals(143, result.getTotalKills()); // El mock devuelve 143 kills
         assertEquals(143, result.getTotalDeaths()); // Ahora las deaths son iguales a kills para todos los usuarios
-        assertTrue(result.getKdr() > 0);
-        assertTrue(result.getAverageScore() > 0);
+        assertEquals((20.0 / 15 + 18.0 / 12) / 2, result.getKdr(), 0.0001);
+        assertEquals((7.5 + 6.8) / 2, result.getAverageScore(), 0.0001);
         
+        // Segunda consulta desde el cache, sin consultas por atacante
+        assertSame(result, analyticsService.getDashboardStats(""));
         verify(killRepository).count();
         verify(matchRepository).count();
+        verify(databaseMatchService, times(1)).getAllMatches();
+        verify(killRepository, never()).findAllAttackers();
+        verify(killRepository, never()).countKillsByUser(anyString());
     }
 
     @Test
     void testGetDashboardStatsWithUser() {
         // Given
         String user = "flameZ";
-        when(killRepository.countKillsByUser(user)).thenReturn(11L);
-        when(killRepository.countDeathsByUser(user)).thenReturn(18L);
+        PlayerStatsEntity stats = new PlayerStatsEntity(user);
+        stats.setKills(11L);
+        stats.setDeaths(18L);
+        when(playerAggregateService.getPlayerStats(user)).thenReturn(Optional.of(stats));
         when(databaseMatchService.getMatchesByUser(user)).thenReturn(Arrays.asList(
             new MatchDto("match1", "demo1.dem", false, "Dust2", "Ranked", 11, 18, 3, 1, "45:30", 1.42, java.time.LocalDateTime.of(2025, 1, 15, 10, 30))
         ));
@@ -140,12 +154,35 @@ class AnalyticsServiceTest {
         assertEquals(1, result.getTotalMatches());
         assertEquals(11, result.getTotalKills());
         assertEquals(18, result.getTotalDeaths()); // Ahora las deaths se calculan correctamente por usuario
-        assertTrue(result.getKdr() > 0);
+        assertEquals(11.0 / 18, result.getKdr(), 0.0001);
         assertTrue(result.getAverageScore() > 0);
         
-        verify(killRepository, times(2)).countKillsByUser(user); // Se llama 2 veces: línea 62 y 74
-        verify(killRepository, times(2)).countDeathsByUser(user); // Se llama 2 veces: línea 75 y 101
-        verify(databaseMatchService, times(2)).getMatchesByUser(user); // Se llama 2 veces: línea 63 y 112
+        verify(playerAggregateService, times(1)).getPlayerStats(user);
+        verify(databaseMatchService, times(1)).getMatchesByUser(user); // Una sola vez: se reutiliza para total y score
+        verify(killRepository, never()).countKillsByUser(anyString());
+    }
+
+    @Test
+    void testGetDashboardStatsCachedUntilIngestInvalidates() {
+        // Given
+        String user = "flameZ";
+        when(playerAggregateService.getPlayerStats(anyString())).thenReturn(Optional.empty());
+        when(databaseMatchService.getMatchesByUser(anyString())).thenReturn(List.of());
+
+        // When: un ingest con kills de otro jugador no invalida el dashboard de flameZ
+        DashboardStats first = analyticsService.getDashboardStats(user);
+        DashboardStats other = analyticsService.getDashboardStats("ZywOo");
+        dashboardCache.invalidateAfterCommit(Set.of("ZywOo"));
+
+        // Then
+        assertSame(first, analyticsService.getDashboardStats(user));
+        assertNotSame(other, analyticsService.getDashboardStats("ZywOo"));
+        verify(playerAggregateService, times(1)).getPlayerStats(user);
+        verify(playerAggregateService, times(2)).getPlayerStats("ZywOo");
+
+        dashboardCache.invalidateAllAfterCommit();
+        analyticsService.getDashboardStats(user);
+        verify(playerAggregateService, times(2)).getPlayerStats(user);
     }
 
     @Test
@@ -0,0 +1,114 @@
+package com.tacticore.lambda.service;
+
+import com.tacticore.lambda.LambdaApplication;
+import com.tacticore.lambda.model.dto.KillAnalysisDto;
+import com.tacticore.lambda.model.dto.RoundAnalysisDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overview global, análisis por ronda y top players sobre 1M kills: consultas de KillRepository
+ * (KillAnalysisService con analytics.columnar-store.enabled=false) contra ColumnarKillStore.
+ * Mismas filas sintéticas que KillIndexBenchmark; el setup imprime el tiempo de carga del store.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.include=ColumnarKillStoreBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class ColumnarKillStoreBenchmark {
+
+    private static final int PLAYERS = 1000;
+    private static final int MATCHES = 2000;
+
+    @Param({"1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private KillAnalysisService killAnalysisService;
+    private ColumnarKillStore columnarKillStore;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void loadKills() {
+        context = new SpringApplicationBuilder(LambdaApplication.class)
+                .profiles("lambda")
+                .web(WebApplicationType.NONE)
+                .properties("logging.level.root=WARN")
+                // Argumento y no default property: application.properties lo pone en true
+                .run("--analytics.columnar-store.enabled=false");
+        killAnalysisService = context.getBean(KillAnalysisService.class);
+        columnarKillStore = context.getBean(ColumnarKillStore.class);
+
+        context.getBean(JdbcTemplate.class).execute("INSERT INTO kills (id, kill_id, match_id, attacker, victim, place, "
+                + "round_number, weapon, headshot, distance, time_in_round, side, attacker_x, attacker_y, victim_x, victim_y) "
+                + "SELECT -X, 'bench_kill_' || X, 'bench_match_' || MOD(X, " + MATCHES + "), "
+                + "'bench_player_' || MOD(X, " + PLAYERS + "), 'bench_player_' || MOD(X * 7 + 3, " + PLAYERS + "), "
+                + "'place_' || MOD(X, 40), MOD(X, 30) + 1, 'weapon_' || MOD(X, 25), MOD(X, 4) = 0, "
+                + "MOD(X, 2000) + 1, MOD(X, 115), CASE WHEN MOD(X, 2) = 0 THEN 't' ELSE 'ct' END, "
+                + "MOD(X, 4000) - 2000, MOD(X * 3, 4000) - 2000, MOD(X * 5, 4000) - 2000, MOD(X * 11, 4000) - 2000 "
+                + "FROM SYSTEM_RANGE(1, " + rows + ")");
+        columnarKillStore.reload();
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public KillAnalysisDto repositoryOverview() {
+        return killAnalysisService.getOverallAnalysis();
+    }
+
+    @Benchmark
+    public KillAnalysisDto columnarOverview() {
+        return columnarKillStore.getOverallAnalysis();
+    }
+
+    @Benchmark
+    public RoundAnalysisDto repositoryRoundAnalysis() {
+        return killAnalysisService.getRoundAnalysis(nextRound());
+    }
+
+    @Benchmark
+    public RoundAnalysisDto columnarRoundAnalysis() {
+        return columnarKillStore.getRoundAnalysis(nextRound());
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> repositoryTopPlayers() {
+        return killAnalysisService.getTopPlayers();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> columnarTopPlayers() {
+        return columnarKillStore.getTopPlayers();
+    }
+
+    private int nextRound() {
+        return 1 + next++ % 30;
+    }
+}
@@ -0,0 +1,156 @@
+package com.tacticore.lambda.service;
+
+import com.tacticore.lambda.model.KillEntity;
+import com.tacticore.lambda.model.dto.KillAnalysisDto;
+import com.tacticore.lambda.model.dto.RoundAnalysisDto;
+import com.tacticore.lambda.repository.KillRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Store columnar contra H2 real: mismos resultados que las consultas agregadas de KillRepository,
+ * batches agregados solo al confirmar la transacción y recarga completa desde la tabla.
+ */
+@SpringBootTest
+class ColumnarKillStoreTest {
+
+    @Autowired
+    private ColumnarKillStore columnarKillStore;
+
+    @Autowired
+    private KillIngestService killIngestService;
+
+    @Autowired
+    private KillRepository killRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private String suffix;
+    private int roundNumber;
+
+    @BeforeEach
+    void setUp() {
+        suffix = Long.toString(System.nanoTime());
+        // Ronda que ningún otro test usa
+        roundNumber = 10_000 + (int) Math.floorMod(System.nanoTime(), 100_000L);
+    }
+
+    @Test
+    void testOverviewMatchesRepositoryAggregates() {
+        killIngestService.ingest(List.of(
+            kill("alice", "bob", "ak47", "BombsiteA", "t", true, 500.0, 20.0),
+            kill("alice", "bob", "awp", "Mid", "t", false, 1500.0, 40.0),
+            kill("bob", "alice", "m4a1", null, "ct", false, 0.0, null)
+        ));
+
+        KillAnalysisDto analysis = columnarKillStore.getOverallAnalysis();
+
+        assertEquals(killRepository.getTotalKills(), analysis.getTotalKills());
+        assertEquals(killRepository.getTotalHeadshots(), analysis.getTotalHeadshots());
+        assertEquals(killRepository.getAverageDistance().doubleValue(), analysis.getAverageDistance(), 1e-3);
+        assertEquals(killRepository.getAverageTimeInRound().doubleValue(), analysis.getAverageTimeInRound(), 1e-3);
+        assertEquals(toMap(killRepository.getWeaponUsageStats()), toMap(analysis.getWeaponStats(), "weapon", "count"));
+        assertEquals(toMap(killRepository.getLocationStats()), toMap(analysis.getLocationStats(), "location", "count"));
+        assertEquals(toMap(killRepository.getKillsBySide()), toMap(analysis.getSideStats(), "side", "count"));
+
+        List<Object[]> rounds = killRepository.getKillsPerRound();
+        assertEquals(rounds.size(), analysis.getRoundStats().size());
+        for (int i = 0; i < rounds.size(); i++) {
+            assertEquals(rounds.get(i)[0], analysis.getRoundStats().get(i).get("round"));
+            assertEquals(rounds.get(i)[1], analysis.getRoundStats().get(i).get("kills"));
+        }
+
+        List<Map<String, Object>> topPlayers = analysis.getTopPlayers();
+        assertTrue(topPlayers.size() <= 10);
+        for (Map<String, Object> player : topPlayers) {
+            String name = (String) player.get("player");
+            assertEquals(killRepository.countKillsByAttacker(name), player.get("kills"));
+            assertEquals(killRepository.countDeathsByVictim(name), player.get("deaths"));
+        }
+    }
+
+    @Test
+    void testRoundAnalysisSeesCommittedBatchesOnly() {
+        columnarKillStore.size();
+        killIngestService.ingest(List.of(
+            kill("alice", "bob", "ak47", "BombsiteA", "ct", true, 500.0, 30.5),
+            kill("alice", "carol", "ak47", "BombsiteA", "ct", false, 600.0, 45.0),
+            kill("bob", "alice", "awp", "Mid", "t", false, 0.0, 12.0)
+        ));
+        transactionTemplate.executeWithoutResult(status -> {
+            killIngestService.ingest(List.of(kill("dave", "alice", "deagle", "Mid", "t", true, 100.0, 80.0)));
+            status.setRollbackOnly();
+        });
+
+        RoundAnalysisDto round = columnarKillStore.getRoundAnalysis(roundNumber);
+
+        assertEquals(3L, round.getTotalKills());
+        assertEquals(45.0, round.getDuration(), 1e-3);
+        assertEquals(name("alice"), round.getMostActivePlayer());
+        assertEquals(name("BombsiteA"), round.getHotSpots().get(0).get("location"));
+        assertEquals(2L, round.getHotSpots().get(0).get("kills"));
+        assertEquals(2L, round.getWeaponDistribution().get(name("ak47")));
+        assertEquals(Map.of(name("ct"), 2L, name("t"), 1L), round.getCtTBalance());
+        assertEquals(100.0 / 3, round.getHeadshotRate(), 1e-6);
+        assertEquals(550.0, round.getAverageDistance(), 1e-3);
+
+        RoundAnalysisDto empty = columnarKillStore.getRoundAnalysis(-roundNumber);
+        assertEquals(0L, empty.getTotalKills());
+        assertEquals("Unknown", empty.getMostActivePlayer());
+    }
+
+    @Test
+    void testReloadMatchesTable() {
+        killIngestService.ingest(List.of(kill("alice", "bob", "ak47", "Mid", "t", true, 500.0, 20.0)));
+        int appended = columnarKillStore.size();
+
+        columnarKillStore.invalidate();
+
+        assertEquals(appended, columnarKillStore.size());
+        assertEquals(killRepository.count(), columnarKillStore.size());
+        assertEquals(1L, columnarKillStore.getRoundAnalysis(roundNumber).getTotalKills());
+    }
+
+    private KillEntity kill(String attacker, String victim, String weapon, String place, String side,
+                            boolean headshot, Double distance, Double timeInRound) {
+        KillEntity kill = new KillEntity();
+        kill.setKillId("columnar_" + suffix + "_" + System.nanoTime());
+        kill.setMatchId("columnar_match_" + suffix);
+        kill.setAttacker(name(attacker));
+        kill.setVictim(name(victim));
+        kill.setWeapon(name(weapon));
+        kill.setPlace(place != null ? name(place) : null);
+        kill.setSide(name(side));
+        kill.setRound(roundNumber);
+        kill.setHeadshot(headshot);
+        kill.setDistance(distance);
+        kill.setTimeInRound(timeInRound);
+        return kill;
+    }
+
+    private String name(String value) {
+        return value + "_" + suffix;
+    }
+
+    private static Map<Object, Object> toMap(List<Object[]> rows) {
+        Map<Object, Object> map = new HashMap<>();
+        rows.forEach(row -> map.put(row[0], row[1]));
+        return map;
+    }
+
+    private static Map<Object, Object> toMap(List<Map<String, Object>> rows, String key, String value) {
+        Map<Object, Object> map = new HashMap<>();
+        rows.forEach(row -> map.put(row.get(key), row.get(value)));
+        return map;
+    }
+}
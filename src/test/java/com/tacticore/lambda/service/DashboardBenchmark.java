@@ -0,0 +1,144 @@
+package com.tacticore.lambda.service;
+
+import com.tacticore.lambda.LambdaApplication;
+import com.tacticore.lambda.model.DashboardStats;
+import com.tacticore.lambda.model.dto.MatchDto;
+import com.tacticore.lambda.repository.KillRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dashboard global y por usuario con 10k jugadores y 10k matches (200k kills). legacy* reproduce el cálculo
+ * anterior (dos COUNT por atacante para el KDR promedio, cuatro COUNT por usuario); *Computed recalcula
+ * con el cache recién invalidado y *Cached es el caso normal entre ingests.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.include=DashboardBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class DashboardBenchmark {
+
+    private static final int KILLS_PER_MATCH = 20;
+
+    @Param({"10000"})
+    private int users;
+
+    @Param({"10000"})
+    private int matches;
+
+    private ConfigurableApplicationContext context;
+    private AnalyticsService analyticsService;
+    private DashboardCache dashboardCache;
+    private DatabaseMatchService databaseMatchService;
+    private KillRepository killRepository;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void loadData() {
+        context = new SpringApplicationBuilder(LambdaApplication.class)
+                .profiles("lambda")
+                .web(WebApplicationType.NONE)
+                .properties("logging.level.root=WARN")
+                .run();
+        analyticsService = context.getBean(AnalyticsService.class);
+        dashboardCache = context.getBean(DashboardCache.class);
+        databaseMatchService = context.getBean(DatabaseMatchService.class);
+        killRepository = context.getBean(KillRepository.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.execute("INSERT INTO matches (match_id, file_name, map_name, tickrate, total_kills, good_plays, "
+                + "bad_plays, status, has_video, created_at, updated_at) "
+                + "SELECT 'bench_match_' || X, 'bench_' || X || '.dem', 'de_dust2', 64, " + KILLS_PER_MATCH + ", "
+                + "MOD(X, 9), MOD(X, 5), 'completed', FALSE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP "
+                + "FROM SYSTEM_RANGE(1, " + matches + ")");
+        // Kills sintéticos (ids negativos, fuera de kills_seq) repartidos entre todos los jugadores
+        jdbcTemplate.execute("INSERT INTO kills (id, kill_id, match_id, attacker, victim, place, round_number, weapon, "
+                + "headshot, distance, time_in_round, side) "
+                + "SELECT -X, 'bench_kill_' || X, 'bench_match_' || (1 + MOD(X, " + matches + ")), "
+                + "'bench_player_' || MOD(X * 7919, " + users + "), 'bench_player_' || MOD(X * 104729 + 1, " + users + "), "
+                + "'BombsiteA', 1 + MOD(X, 24), 'ak47', FALSE, 500, 30, 't' "
+                + "FROM SYSTEM_RANGE(1, " + ((long) matches * KILLS_PER_MATCH) + ")");
+        context.getBean(PlayerAggregateService.class).rebuild();
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public double legacyGlobal() {
+        long totalKills = killRepository.count();
+        double totalKdr = 0.0;
+        int userCount = 0;
+        for (String user : killRepository.findAllAttackers()) {
+            Long kills = killRepository.countKillsByUser(user);
+            Long deaths = killRepository.countDeathsByUser(user);
+            if (deaths > 0) {
+                totalKdr += (double) kills / deaths;
+                userCount++;
+            }
+        }
+        double totalScore = 0.0;
+        for (MatchDto match : databaseMatchService.getAllMatches()) {
+            totalScore += match.getScore();
+        }
+        return totalKills + totalScore + (userCount > 0 ? totalKdr / userCount : 0.0);
+    }
+
+    @Benchmark
+    public DashboardStats globalComputed() {
+        dashboardCache.invalidateAll();
+        return analyticsService.getDashboardStats(null);
+    }
+
+    @Benchmark
+    public DashboardStats globalCached() {
+        return analyticsService.getDashboardStats(null);
+    }
+
+    @Benchmark
+    public int legacyUser() {
+        String user = nextUser();
+        long kills = killRepository.countKillsByUser(user) + killRepository.countKillsByUser(user);
+        long deaths = killRepository.countDeathsByUser(user) + killRepository.countDeathsByUser(user);
+        return (int) (kills + deaths) + databaseMatchService.getMatchesByUser(user).size();
+    }
+
+    @Benchmark
+    public DashboardStats userComputed() {
+        dashboardCache.invalidateAll();
+        return analyticsService.getDashboardStats(nextUser());
+    }
+
+    @Benchmark
+    public DashboardStats userCached() {
+        return analyticsService.getDashboardStats(nextUser());
+    }
+
+    private String nextUser() {
+        return "bench_player_" + (next++ * 7919) % users;
+    }
+}
@@ -0,0 +1,146 @@
+package com.tacticore.lambda.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tacticore.lambda.model.KillEntity;
+import com.tacticore.lambda.model.MatchEntity;
+import com.tacticore.lambda.repository.KillRepository;
+import com.tacticore.lambda.repository.MatchRepository;
+import com.tacticore.lambda.repository.UserRepository;
+import com.tacticore.lambda.serialization.MlResponseCodec;
+import com.tacticore.lambda.serialization.MlResponseStreamReader;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ingesta en streaming de la respuesta del ML contra H2: kills en batches, match completado
+ * con la respuesta comprimida, agregados aplicados recién al terminar de leer y rollback
+ * completo si la respuesta viene cortada.
+ */
+@SpringBootTest
+class DatabaseMatchServiceMlIngestTest {
+
+    private static final Path DEMO_JSON = Path.of("demos-jsons/de_mirage.json");
+
+    @Autowired
+    private DatabaseMatchService databaseMatchService;
+
+    @Autowired
+    private MatchRepository matchRepository;
+
+    @Autowired
+    private KillRepository killRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MlResponseCodec mlResponseCodec;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlayerAggregateService playerAggregateService;
+
+    @Autowired
+    private PredictionAggregateService predictionAggregateService;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStreamsKillsAndStoresCompressedResponse() throws Exception {
+        String matchId = createMatch("ingest");
+        Map<String, Object> response = objectMapper.readValue(DEMO_JSON.toFile(), Map.class);
+        List<Map<String, Object>> predictions = (List<Map<String, Object>>) response.get("predictions");
+
+        MlResponseStreamReader.Summary summary;
+        try (InputStream in = Files.newInputStream(DEMO_JSON)) {
+            summary = databaseMatchService.updateMatchFromMlResponse(matchId, in);
+        }
+
+        List<KillEntity> kills = killRepository.findByMatchIdOrderByRoundAscTimeInRoundAsc(matchId);
+        assertEquals(predictions.size(), kills.size());
+        assertTrue(kills.stream().allMatch(kill -> kill.getKillId().startsWith(matchId + "_")));
+        assertTrue(userRepository.existsByName((String) predictions.get(0).get("attacker")));
+
+        MatchEntity match = matchRepository.findByMatchId(matchId).orElseThrow();
+        assertEquals("completed", match.getStatus());
+        assertEquals(response.get("map"), match.getMapName());
+        assertEquals(response.get("total_kills"), match.getTotalKills());
+        assertEquals(response.get("tickrate"), match.getTickrate());
+        assertEquals(0, match.getGoodPlays());
+        assertEquals(predictions.size(), match.getBadPlays());
+        assertNull(match.getMlResponseJson());
+        assertEquals(response, mlResponseCodec.decode(match.getMlResponseGz()));
+        assertEquals(predictions.size(), summary.getPredictions());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testAggregateLocksAreNotHeldWhileReadingResponse() throws Exception {
+        String matchId = createMatch("locks");
+        Map<String, Object> response = objectMapper.readValue(DEMO_JSON.toFile(), Map.class);
+        int kills = ((List<Object>) response.get("predictions")).size();
+        // Varios batches: el primero se escribe mientras todavía queda respuesta por leer
+        assertTrue(kills > (Integer) ReflectionTestUtils.getField(databaseMatchService, "ingestBatchSize"));
+
+        ReentrantLock playerLock = (ReentrantLock) ReflectionTestUtils.getField(playerAggregateService, "writeLock");
+        ReentrantLock predictionLock = (ReentrantLock) ReflectionTestUtils.getField(predictionAggregateService, "writeLock");
+        AtomicInteger readsWithLock = new AtomicInteger();
+        InputStream in = new FilterInputStream(new ByteArrayInputStream(Files.readAllBytes(DEMO_JSON))) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (playerLock.isHeldByCurrentThread() || predictionLock.isHeldByCurrentThread()) {
+                    readsWithLock.incrementAndGet();
+                }
+                return super.read(b, off, Math.min(len, 512));
+            }
+        };
+
+        databaseMatchService.updateMatchFromMlResponse(matchId, in);
+
+        assertEquals(0, readsWithLock.get(), "aggregate lock held while reading the ML response");
+        assertFalse(playerLock.isLocked());
+        assertFalse(predictionLock.isLocked());
+        assertEquals(kills, killRepository.findByMatchIdOrderByRoundAscTimeInRoundAsc(matchId).size());
+        assertEquals(true, playerAggregateService.checkConsistency().get("consistent"));
+        assertTrue(predictionAggregateService.getMatchPlays(matchId).isPresent());
+        assertEquals(kills, Arrays.stream(predictionAggregateService.getMatchPlays(matchId).get()).sum());
+    }
+
+    @Test
+    void testTruncatedResponseRollsBackKills() throws Exception {
+        String matchId = createMatch("truncated");
+        byte[] json = Files.readAllBytes(DEMO_JSON);
+        String truncated = new String(json, StandardCharsets.UTF_8).substring(0, json.length * 3 / 4);
+
+        assertThrows(RuntimeException.class, () -> databaseMatchService.updateMatchFromMlResponse(matchId,
+            new ByteArrayInputStream(truncated.getBytes(StandardCharsets.UTF_8))));
+
+        assertTrue(killRepository.findByMatchIdOrderByRoundAscTimeInRoundAsc(matchId).isEmpty());
+        MatchEntity match = matchRepository.findByMatchId(matchId).orElseThrow();
+        assertEquals("processing", match.getStatus());
+        assertNull(match.getMlResponseGz());
+    }
+
+    private String createMatch(String name) {
+        MatchEntity match = new MatchEntity(name + "_" + System.nanoTime(), name + ".dem", null, null, null, "processing", false);
+        return databaseMatchService.saveMatch(match).getMatchId();
+    }
+}
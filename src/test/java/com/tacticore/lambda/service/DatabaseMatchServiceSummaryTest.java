@@ -0,0 +1,120 @@
+package com.tacticore.lambda.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tacticore.lambda.model.MatchEntity;
+import com.tacticore.lambda.model.dto.MatchDto;
+import com.tacticore.lambda.repository.MatchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lecturas de matches contra H2 real: no escriben, se sirven del cache por versión
+ * y los backfills (plays, compactación de la respuesta del ML) corren aparte
+ */
+@SpringBootTest
+class DatabaseMatchServiceSummaryTest {
+
+    private static final String ML_RESPONSE = "{\"predictions\": ["
+        + "{\"attacker_strengths\": {\"aim\": 0.9}},"
+        + "{\"attacker_strengths\": {\"aim\": 0.1}},"
+        + "{\"attacker_strengths\": {\"aim\": 0.2}}]}";
+
+    @Autowired
+    private DatabaseMatchService databaseMatchService;
+
+    @Autowired
+    private MatchRepository matchRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String matchId;
+
+    @BeforeEach
+    void setUp() {
+        matchId = "summary_" + System.nanoTime();
+    }
+
+    @Test
+    void testReadsDoNotParseOrSaveTheMatch() {
+        MatchEntity legacy = new MatchEntity(matchId, "legacy.dem", "de_nuke", 64, 30, "completed", false);
+        legacy.setMlResponseJson(ML_RESPONSE);
+        Long version = databaseMatchService.saveMatch(legacy).getVersion();
+
+        MatchDto dto = databaseMatchService.getMatchById(matchId).orElseThrow();
+        databaseMatchService.getAllMatches();
+
+        MatchEntity stored = matchRepository.findByMatchId(matchId).orElseThrow();
+        assertEquals(version, stored.getVersion());
+        assertNull(stored.getGoodPlays());
+        assertEquals(30, dto.getKills());
+        assertTrue(dto.getGoodPlays() > 0);
+    }
+
+    @Test
+    void testCacheIsInvalidatedByVersion() {
+        databaseMatchService.saveMatch(new MatchEntity(matchId, "cached.dem", "de_inferno", 64, 12, "processing", false));
+
+        MatchDto first = databaseMatchService.getMatchById(matchId).orElseThrow();
+        assertSame(first, databaseMatchService.getMatchById(matchId).orElseThrow());
+        assertTrue(databaseMatchService.getAllMatches().contains(first));
+
+        databaseMatchService.updateMatchStatus(matchId, "completed");
+
+        MatchDto updated = databaseMatchService.getMatchById(matchId).orElseThrow();
+        assertNotSame(first, updated);
+        assertEquals("completed", updated.getStatus());
+
+        databaseMatchService.deleteMatch(matchId);
+        assertTrue(databaseMatchService.getMatchById(matchId).isEmpty());
+    }
+
+    @Test
+    void testBackfillPersistsPlaysFromMlResponse() {
+        MatchEntity legacy = new MatchEntity(matchId, "legacy.dem", "de_nuke", 64, 3, "completed", false);
+        legacy.setMlResponseJson(ML_RESPONSE);
+        databaseMatchService.saveMatch(legacy);
+        MatchDto before = databaseMatchService.getMatchById(matchId).orElseThrow();
+
+        Map<String, Object> result = databaseMatchService.backfillMatchSummaries();
+        assertTrue((Integer) result.get("updated") >= 1);
+
+        MatchEntity stored = matchRepository.findByMatchId(matchId).orElseThrow();
+        assertEquals(1, stored.getGoodPlays());
+        assertEquals(2, stored.getBadPlays());
+
+        MatchDto after = databaseMatchService.getMatchById(matchId).orElseThrow();
+        assertNotSame(before, after);
+        assertEquals(1, after.getGoodPlays());
+        assertEquals(2, after.getBadPlays());
+        assertFalse(matchRepository.findIdsMissingPlays().contains(stored.getId()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCompactMlResponsesMovesLegacyTextToCompressedColumn() throws Exception {
+        MatchEntity legacy = new MatchEntity(matchId, "legacy.dem", "de_nuke", 64, 3, "completed", false);
+        legacy.setMlResponseJson(objectMapper.writerWithDefaultPrettyPrinter()
+            .writeValueAsString(objectMapper.readValue(ML_RESPONSE, Map.class)));
+        databaseMatchService.saveMatch(legacy);
+        String before = databaseMatchService.getMlResponseKillsJson(matchId, null);
+
+        Map<String, Object> result = databaseMatchService.compactMlResponses();
+        Map<String, Object> size = ((List<Map<String, Object>>) result.get("matches")).stream()
+            .filter(m -> matchId.equals(m.get("matchId"))).findFirst().orElseThrow();
+        assertTrue((Integer) size.get("bytesAfter") < (Integer) size.get("bytesBefore"));
+
+        MatchEntity stored = matchRepository.findByMatchId(matchId).orElseThrow();
+        assertNull(stored.getMlResponseJson());
+        assertNotNull(stored.getMlResponseGz());
+        assertEquals(objectMapper.readTree(before),
+            objectMapper.readTree(databaseMatchService.getMlResponseKillsJson(matchId, null)));
+    }
+}
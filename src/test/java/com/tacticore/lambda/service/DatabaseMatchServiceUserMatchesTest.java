@@ -0,0 +1,99 @@
+package com.tacticore.lambda.service;
+
+import com.tacticore.lambda.model.KillEntity;
+import com.tacticore.lambda.model.MatchEntity;
+import com.tacticore.lambda.model.dto.MatchDto;
+import com.tacticore.lambda.repository.KillRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * getMatchesByUser contra H2 real: el join con player_match_stats debe devolver lo mismo
+ * que el cálculo anterior por match (exists + counts sobre kills)
+ */
+@SpringBootTest
+class DatabaseMatchServiceUserMatchesTest {
+
+    @Autowired
+    private DatabaseMatchService databaseMatchService;
+
+    @Autowired
+    private KillRepository killRepository;
+
+    private String alice;
+    private String bob;
+    private String suffix;
+
+    @BeforeEach
+    void setUp() {
+        suffix = Long.toString(System.nanoTime());
+        alice = "alice_" + suffix;
+        bob = "bob_" + suffix;
+    }
+
+    @Test
+    void testReturnsOnlyMatchesWhereUserHasKillsWithPerMatchStats() {
+        String m1 = createMatch("m1", 4, 2, 1);
+        String m2 = createMatch("m2", 2, 1, 1);
+        String m3 = createMatch("m3", 1, 0, 1);
+
+        databaseMatchService.updateMatchWithKills(m1, 4, 64, "de_dust2", List.of(
+            kill(m1, alice, bob), kill(m1, alice, bob), kill(m1, alice, bob), kill(m1, bob, alice)));
+        databaseMatchService.updateMatchWithKills(m2, 2, 64, "de_mirage", List.of(
+            kill(m2, alice, bob), kill(m2, bob, alice)));
+        // En m3 alice solo muere: no cuenta como match suyo
+        databaseMatchService.updateMatchWithKills(m3, 1, 64, "de_inferno", List.of(kill(m3, bob, alice)));
+
+        Map<String, MatchDto> matches = databaseMatchService.getMatchesByUser(alice).stream()
+            .collect(Collectors.toMap(MatchDto::getId, dto -> dto));
+
+        assertEquals(2, matches.size());
+        assertFalse(matches.containsKey(m3));
+        for (MatchDto dto : matches.values()) {
+            assertEquals(killRepository.countKillsByUserAndMatchId(alice, dto.getId()).intValue(), dto.getKills());
+            assertEquals(killRepository.countDeathsByUserAndMatchId(alice, dto.getId()).intValue(), dto.getDeaths());
+        }
+        assertEquals(3, matches.get(m1).getKills());
+        assertEquals(1, matches.get(m1).getDeaths());
+        assertEquals("de_mirage", matches.get(m2).getMap());
+        assertEquals("completed", matches.get(m2).getStatus());
+        assertTrue(matches.get(m1).getScore() > 0);
+
+        List<String> bobMatches = databaseMatchService.getMatchesByUser(bob).stream()
+            .map(MatchDto::getId).collect(Collectors.toList());
+        assertEquals(List.of(m1, m2, m3), bobMatches);
+    }
+
+    private String createMatch(String name, int totalKills, int goodPlays, int badPlays) {
+        MatchEntity match = new MatchEntity(name + "_" + suffix, name + ".dem", null, null, totalKills, "processing", false);
+        match.setGoodPlays(goodPlays);
+        match.setBadPlays(badPlays);
+        return databaseMatchService.saveMatch(match).getMatchId();
+    }
+
+    private static int killSequence = 0;
+
+    private static KillEntity kill(String matchId, String attacker, String victim) {
+        KillEntity kill = new KillEntity();
+        kill.setKillId("um_" + System.nanoTime() + "_" + (++killSequence));
+        kill.setMatchId(matchId);
+        kill.setAttacker(attacker);
+        kill.setVictim(victim);
+        kill.setWeapon("ak47");
+        kill.setPlace("BombsiteA");
+        kill.setSide("t");
+        kill.setRound(1);
+        kill.setHeadshot(false);
+        kill.setDistance(500.0);
+        kill.setTimeInRound(20.0);
+        return kill;
+    }
+}
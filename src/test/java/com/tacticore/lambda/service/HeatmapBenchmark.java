@@ -0,0 +1,123 @@
+package com.tacticore.lambda.service;
+
+import com.tacticore.lambda.LambdaApplication;
+import com.tacticore.lambda.model.MapTransform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heatmap 64x64 de de_mirage sobre 1M kills repartidos en 4 mapas: leer las posiciones con JDBC y
+ * binnearlas en cada request contra los tiles de HeatmapService (sin filtro, por lado) y el recorrido
+ * de las celdas ya binneadas (por jugador, por arma). El setup imprime el tiempo de carga.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.include=HeatmapBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class HeatmapBenchmark {
+
+    private static final String MAP = "de_mirage";
+    private static final String[] MAPS = {MAP, "de_dust2", "de_inferno", "de_nuke"};
+    private static final int PLAYERS = 1000;
+    private static final int MATCHES = 2000;
+    private static final int RESOLUTION = 64;
+
+    @Param({"1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private HeatmapService heatmapService;
+    private MapTransform transform;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void loadKills() {
+        context = new SpringApplicationBuilder(LambdaApplication.class)
+                .profiles("lambda")
+                .web(WebApplicationType.NONE)
+                .properties("logging.level.root=WARN")
+                .run();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        heatmapService = context.getBean(HeatmapService.class);
+        transform = context.getBean(MapTransformRegistry.class).get(MAP);
+
+        jdbcTemplate.execute("INSERT INTO matches (match_id, file_name, map_name, tickrate, total_kills, status, has_video, "
+                + "created_at, updated_at) "
+                + "SELECT 'bench_match_' || X, 'bench_' || X || '.dem', CASE MOD(X, 4) WHEN 0 THEN '" + MAPS[0] + "' "
+                + "WHEN 1 THEN '" + MAPS[1] + "' WHEN 2 THEN '" + MAPS[2] + "' ELSE '" + MAPS[3] + "' END, 64, 0, "
+                + "'completed', FALSE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP FROM SYSTEM_RANGE(0, " + (MATCHES - 1) + ")");
+        jdbcTemplate.execute("INSERT INTO kills (id, kill_id, match_id, attacker, victim, place, "
+                + "round_number, weapon, headshot, distance, time_in_round, side, attacker_x, attacker_y, victim_x, victim_y) "
+                + "SELECT -X, 'bench_kill_' || X, 'bench_match_' || MOD(X, " + MATCHES + "), "
+                + "'bench_player_' || MOD(X, " + PLAYERS + "), 'bench_player_' || MOD(X * 7 + 3, " + PLAYERS + "), "
+                + "'place_' || MOD(X, 40), MOD(X, 30) + 1, 'weapon_' || MOD(X, 25), MOD(X, 4) = 0, "
+                + "MOD(X, 2000) + 1, MOD(X, 115), CASE WHEN MOD(X, 2) = 0 THEN 't' ELSE 'ct' END, "
+                + "MOD(X, 4000) - 2000, MOD(X * 3, 4000) - 2000, MOD(X * 5, 4000) - 2000, MOD(X * 11, 4000) - 2000 "
+                + "FROM SYSTEM_RANGE(1, " + rows + ")");
+        jdbcTemplate.execute("ANALYZE");
+        heatmapService.reload();
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public int[] jdbcBinning() {
+        int[] cells = new int[RESOLUTION * RESOLUTION];
+        jdbcTemplate.query("SELECT k.attacker_x, k.attacker_y FROM kills k JOIN matches m ON m.match_id = k.match_id "
+                + "WHERE m.map_name = ? AND k.attacker_x IS NOT NULL AND k.attacker_y IS NOT NULL", rs -> {
+            int cell = HeatmapService.cellOf(transform, RESOLUTION, rs.getDouble(1), rs.getDouble(2));
+            if (cell >= 0) {
+                cells[cell]++;
+            }
+        }, MAP);
+        return cells;
+    }
+
+    @Benchmark
+    public Map<String, Object> tileHeatmap() {
+        return heatmapService.getHeatmap(MAP, null, null, null, HeatmapService.ATTACKER, RESOLUTION, true);
+    }
+
+    @Benchmark
+    public Map<String, Object> sideHeatmap() {
+        return heatmapService.getHeatmap(MAP, "t", null, null, HeatmapService.VICTIM, RESOLUTION, true);
+    }
+
+    @Benchmark
+    public Map<String, Object> userHeatmap() {
+        return heatmapService.getHeatmap(MAP, null, null, "bench_player_" + (next++ % PLAYERS), HeatmapService.ATTACKER,
+            RESOLUTION, true);
+    }
+
+    @Benchmark
+    public Map<String, Object> weaponHeatmap() {
+        return heatmapService.getHeatmap(MAP, null, "weapon_" + (next++ % 25), null, HeatmapService.ATTACKER,
+            RESOLUTION, true);
+    }
+}
@@ -0,0 +1,237 @@
+package com.tacticore.lambda.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tacticore.lambda.model.KillEntity;
+import com.tacticore.lambda.model.MapTransform;
+import com.tacticore.lambda.model.MatchEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Heatmaps contra H2 real: mismas celdas que binnear cada kill a mano con la transformación del mapa,
+ * batches nuevos visibles solo al confirmar, kills que esperan el mapa de su match y rebinneo
+ * cuando el ML trae otra transformación.
+ */
+@SpringBootTest
+class HeatmapServiceTest {
+
+    @Autowired
+    private HeatmapService heatmapService;
+
+    @Autowired
+    private KillIngestService killIngestService;
+
+    @Autowired
+    private DatabaseMatchService databaseMatchService;
+
+    @Autowired
+    private MapTransformRegistry mapTransformRegistry;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String suffix;
+    private String mapName;
+    private String matchId;
+
+    @BeforeEach
+    void setUp() {
+        suffix = Long.toString(System.nanoTime());
+        // Mapa propio de cada test: sin valores conocidos, usa la transformación genérica
+        mapName = "de_heatmap_" + suffix;
+        matchId = "heatmap_" + suffix;
+        databaseMatchService.saveMatch(new MatchEntity(matchId, "heatmap.dem", mapName, 64, 0, "completed", false));
+    }
+
+    @Test
+    void testHeatmapMatchesNaiveBinning() {
+        Random random = new Random(17);
+        List<KillEntity> kills = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            kills.add(kill(i % 3 == 0 ? "alice" : "bob", i % 3 == 0 ? "bob" : "alice", i % 2 == 0 ? "ak47" : "awp",
+                i % 4 == 0 ? "ct" : "t", position(random), position(random), position(random), position(random)));
+        }
+        // Sin posición o fuera de la imagen: no suman en ninguna celda
+        kills.add(kill("alice", "bob", "ak47", "t", null, null, 50_000.0, 0.0));
+        killIngestService.ingest(kills);
+
+        MapTransform transform = mapTransformRegistry.get(mapName);
+        assertArrayEquals(naive(kills, transform, 32, false, null, null, null),
+            cells(heatmapService.getHeatmap(mapName, null, null, null, "attacker", 32, false), 32));
+        assertArrayEquals(naive(kills, transform, 64, true, name("t"), null, null),
+            cells(heatmapService.getHeatmap(mapName, name("t"), null, null, "victim", 64, false), 64));
+        assertArrayEquals(naive(kills, transform, 16, false, null, name("awp"), name("bob")),
+            cells(heatmapService.getHeatmap(mapName, null, name("awp"), name("bob"), "attacker", 16, false), 16));
+        assertArrayEquals(naive(kills, transform, 128, true, name("ct"), name("ak47"), name("alice")),
+            cells(heatmapService.getHeatmap(mapName, name("ct"), name("ak47"), name("alice"), "victim", 128, false), 128));
+
+        Map<String, Object> quantized = heatmapService.getHeatmap(mapName, null, null, null, "attacker", 32, true);
+        int[] counts = naive(kills, transform, 32, false, null, null, null);
+        int[] levels = cells(quantized, 32);
+        assertEquals(255, Arrays.stream(levels).max().orElse(0));
+        for (int cell = 0; cell < counts.length; cell++) {
+            assertEquals(counts[cell] > 0, levels[cell] > 0, "celda " + cell);
+        }
+        assertEquals(500L, quantized.get("totalKills"));
+    }
+
+    @Test
+    void testIngestAfterLoadSeesCommittedBatchesOnly() {
+        killIngestService.ingest(List.of(kill("alice", "bob", "ak47", "t", 0.0, 0.0, 100.0, 100.0)));
+        assertEquals(1L, heatmapService.getHeatmap(mapName, null, null, null, "attacker", 8, false).get("totalKills"));
+
+        killIngestService.ingest(List.of(
+            kill("alice", "carol", "ak47", "t", 10.0, 10.0, 100.0, 100.0),
+            kill("carol", "alice", "awp", "ct", 2000.0, -1000.0, 0.0, 0.0)
+        ));
+        transactionTemplate.executeWithoutResult(status -> {
+            killIngestService.ingest(List.of(kill("dave", "alice", "deagle", "t", 0.0, 0.0, 0.0, 0.0)));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(3L, heatmapService.getHeatmap(mapName, null, null, null, "attacker", 8, false).get("totalKills"));
+        assertEquals(2L, heatmapService.getHeatmap(mapName, null, null, name("alice"), "attacker", 8, false).get("totalKills"));
+        assertEquals(0L, heatmapService.getHeatmap(mapName, null, null, name("dave"), "attacker", 8, false).get("totalKills"));
+
+        heatmapService.invalidate();
+        assertEquals(3L, heatmapService.getHeatmap(mapName, null, null, null, "attacker", 8, false).get("totalKills"));
+    }
+
+    @Test
+    void testKillsWithoutMapStayPendingUntilMatchHasMap() {
+        heatmapService.getHeatmap(mapName, null, null, null, "attacker", 8, false);
+        // Match todavía sin mapa: sus kills no se pueden binnear, pero no se pierden
+        String pendingMatchId = "heatmap_nomap_" + suffix;
+        databaseMatchService.saveMatch(new MatchEntity(pendingMatchId, "nomap.dem", null, null, null, "processing", false));
+        KillEntity kill = kill("alice", "bob", "ak47", "t", 0.0, 0.0, 100.0, 100.0);
+        kill.setMatchId(pendingMatchId);
+        killIngestService.ingest(List.of(kill));
+        assertEquals(0L, heatmapService.getHeatmap(mapName, null, null, null, "attacker", 8, false).get("totalKills"));
+
+        databaseMatchService.updateMatchWithResults(pendingMatchId, 1, 64, mapName);
+
+        assertEquals(1L, heatmapService.getHeatmap(mapName, null, null, null, "attacker", 8, false).get("totalKills"));
+    }
+
+    @Test
+    void testLearnedTransformRebinsMap() throws Exception {
+        // Con los parámetros del ML (centro en 0,0) el kill en el origen cae en el centro de la imagen
+        Map<String, Object> context = new LinkedHashMap<>();
+        context.put("side", "t");
+        context.put("attacker_x", 0.0);
+        context.put("attacker_y", 0.0);
+        context.put("debug_attacker", Map.of("parameters",
+            Map.of("pos_x", 0.0, "pos_y", 0.0, "scale", 4.0, "x_adjust", 0, "y_adjust", 0)));
+        Map<String, Object> prediction = new LinkedHashMap<>();
+        prediction.put("kill_id", "k0");
+        prediction.put("attacker", name("alice"));
+        prediction.put("victim", name("bob"));
+        prediction.put("round", 1);
+        prediction.put("headshot", false);
+        prediction.put("weapon", "ak47");
+        prediction.put("context", context);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", "success");
+        response.put("total_kills", 1);
+        response.put("map", mapName);
+        response.put("predictions", List.of(prediction));
+        heatmapService.getHeatmap(mapName, null, null, null, "attacker", 2, false);
+
+        databaseMatchService.updateMatchFromMlResponse(matchId,
+            new ByteArrayInputStream(objectMapper.writeValueAsBytes(response)));
+
+        Map<String, Object> heatmap = heatmapService.getHeatmap(mapName, null, null, null, "attacker", 2, false);
+        assertEquals(4.0, ((Map<?, ?>) heatmap.get("transform")).get("scale"));
+        // Centro exacto (512, 512): celda inferior derecha de una grilla 2x2
+        assertArrayEquals(new int[]{0, 0, 0, 1}, cells(heatmap, 2));
+    }
+
+    @Test
+    void testRejectsInvalidParameters() {
+        assertThrows(IllegalArgumentException.class,
+            () -> heatmapService.getHeatmap(mapName, null, null, null, "spectator", 64, true));
+        assertThrows(IllegalArgumentException.class,
+            () -> heatmapService.getHeatmap(mapName, null, null, null, "attacker", 48, true));
+        assertThrows(IllegalArgumentException.class,
+            () -> heatmapService.getHeatmap(null, null, null, null, "attacker", 64, true));
+
+        int[] runs = HeatmapService.runLengthEncode(new int[]{0, 0, 0, 5, 5, 0});
+        assertArrayEquals(new int[]{0, 3, 5, 2, 0, 1}, runs);
+    }
+
+    private int[] naive(List<KillEntity> kills, MapTransform transform, int resolution, boolean byVictim,
+                        String side, String weapon, String user) {
+        int[] cells = new int[resolution * resolution];
+        for (KillEntity kill : kills) {
+            Double x = byVictim ? kill.getVictimX() : kill.getAttackerX();
+            Double y = byVictim ? kill.getVictimY() : kill.getAttackerY();
+            String player = byVictim ? kill.getVictim() : kill.getAttacker();
+            if (x == null || y == null || (side != null && !side.equals(kill.getSide()))
+                || (weapon != null && !weapon.equals(kill.getWeapon())) || (user != null && !user.equals(player))) {
+                continue;
+            }
+            double imageX = transform.toImageX(x);
+            double imageY = transform.toImageY(y);
+            if (imageX < 0 || imageX >= MapTransform.IMAGE_SIZE || imageY < 0 || imageY >= MapTransform.IMAGE_SIZE) {
+                continue;
+            }
+            int base = heatmapService.getBaseResolution();
+            int column = (int) (imageX * base / MapTransform.IMAGE_SIZE) * resolution / base;
+            int row = (int) (imageY * base / MapTransform.IMAGE_SIZE) * resolution / base;
+            cells[row * resolution + column]++;
+        }
+        return cells;
+    }
+
+    // Decodifica los pares [valor, repeticiones]
+    private static int[] cells(Map<String, Object> heatmap, int resolution) {
+        assertEquals(resolution, heatmap.get("resolution"));
+        int[] runs = (int[]) heatmap.get("cells");
+        int[] cells = new int[resolution * resolution];
+        int cell = 0;
+        for (int i = 0; i < runs.length; i += 2) {
+            Arrays.fill(cells, cell, cell + runs[i + 1], runs[i]);
+            cell += runs[i + 1];
+        }
+        assertEquals(cells.length, cell);
+        return cells;
+    }
+
+    // Posición dentro de la imagen con la transformación genérica (-2000, 3000, escala 5)
+    private static double position(Random random) {
+        return -1900.0 + random.nextInt(4900);
+    }
+
+    private KillEntity kill(String attacker, String victim, String weapon, String side,
+                            Double attackerX, Double attackerY, Double victimX, Double victimY) {
+        KillEntity kill = new KillEntity();
+        kill.setKillId("heatmap_" + suffix + "_" + System.nanoTime());
+        kill.setMatchId(matchId);
+        kill.setAttacker(name(attacker));
+        kill.setVictim(name(victim));
+        kill.setWeapon(name(weapon));
+        kill.setSide(name(side));
+        kill.setRound(1);
+        kill.setHeadshot(false);
+        kill.setAttackerX(attackerX);
+        kill.setAttackerY(attackerY);
+        kill.setVictimX(victimX);
+        kill.setVictimY(victimY);
+        return kill;
+    }
+
+    private String name(String value) {
+        return value + "_" + suffix;
+    }
+}
@@ -0,0 +1,66 @@
+package com.tacticore.lambda.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Llamadas repetidas a /api/matches/{id}/kills resueltas desde demos-jsons (getMatchKillsFromJson + serialización),
+ * con el cache de documentos parseados (json.match.cache.max-bytes por defecto) y sin cache (max-bytes=0).
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.include=JsonMatchCacheBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonMatchCacheBenchmark {
+
+    @Param({"33554432", "0"})
+    private long cacheMaxBytes;
+
+    @Param({"de_mirage"})
+    private String matchId;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private JsonMatchService jsonMatchService;
+
+    @Setup(Level.Trial)
+    public void startService() {
+        jsonMatchService = new JsonMatchService(new String[]{"demos-jsons"}, cacheMaxBytes, false);
+        jsonMatchService.init();
+        if (jsonMatchService.getMatchDataFromJson(matchId) == null) {
+            throw new IllegalStateException("No se encontró el JSON de " + matchId + " en demos-jsons");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopService() {
+        jsonMatchService.shutdown();
+    }
+
+    @Benchmark
+    public byte[] matchKills() throws Exception {
+        return mapper.writeValueAsBytes(jsonMatchService.getMatchKillsFromJson(matchId, null));
+    }
+
+    @Benchmark
+    public byte[] matchKillsForUser() throws Exception {
+        return mapper.writeValueAsBytes(jsonMatchService.getMatchKillsFromJson(matchId, "broky"));
+    }
+}
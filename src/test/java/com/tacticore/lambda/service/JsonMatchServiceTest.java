@@ -0,0 +1,130 @@
+package com.tacticore.lambda.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cache de documentos JSON de partidas sobre un directorio temporal: hits repetidos,
+ * límite por bytes e invalidación por WatchService al modificar o crear archivos.
+ */
+class JsonMatchServiceTest {
+
+    private static final long WATCH_TIMEOUT_MS = 10_000;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private Path directory;
+    private JsonMatchService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("json-match-cache");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (service != null) {
+            service.shutdown();
+        }
+        for (File file : directory.toFile().listFiles()) {
+            Files.deleteIfExists(file.toPath());
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    void testRepeatedReadsAreServedFromCache() throws IOException {
+        writeMatch("cachetest_match", 6);
+        service = start(1024 * 1024, false);
+
+        Map<String, Object> first = service.getMatchKillsFromJson("cachetest_match", null);
+        Map<String, Object> second = service.getMatchKillsFromJson("cachetest_match", "player_1");
+        Map<String, Object> byFileName = service.getMatchKillsFromJsonByFileName("other_id", "cachetest_match.dem", null);
+
+        assertEquals(6, first.get("total_kills"));
+        assertEquals(2, second.get("total_kills"));
+        assertEquals(6, ((List<?>) byFileName.get("predictions")).size());
+
+        Map<String, Object> stats = service.getCacheStats();
+        assertEquals(1L, stats.get("misses"));
+        assertEquals(2L, stats.get("hits"));
+        assertEquals(1, stats.get("indexedFiles"));
+    }
+
+    @Test
+    void testCacheIsBoundedByFileSize() throws IOException {
+        long size = writeMatch("first_match", 20);
+        writeMatch("second_match", 20);
+        service = start(size + size / 2, false);
+
+        service.getMatchDataFromJson("first_match");
+        service.getMatchDataFromJson("second_match");
+        service.getMatchDataFromJson("first_match");
+
+        Map<String, Object> stats = service.getCacheStats();
+        assertEquals(3L, stats.get("misses"));
+        assertEquals(2L, stats.get("evictions"));
+        assertEquals(1, stats.get("entries"));
+    }
+
+    @Test
+    void testWatchServiceInvalidatesModifiedAndNewFiles() throws Exception {
+        writeMatch("watched_match", 3);
+        service = start(1024 * 1024, true);
+        assertEquals(3, service.getMatchKillsFromJson("watched_match", null).get("total_kills"));
+        assertEquals(true, service.getCacheStats().get("watching"));
+
+        writeMatch("watched_match", 5);
+        assertTrue(waitFor(() -> Integer.valueOf(5).equals(service.getMatchKillsFromJson("watched_match", null).get("total_kills"))));
+
+        writeMatch("late_arrival", 2);
+        assertTrue(waitFor(() -> service.getMatchDataFromJson("late_arrival") != null));
+        assertTrue((Long) service.getCacheStats().get("invalidations") >= 1);
+    }
+
+    private JsonMatchService start(long maxBytes, boolean watch) {
+        JsonMatchService jsonMatchService = new JsonMatchService(new String[]{directory.toString()}, maxBytes, watch);
+        jsonMatchService.init();
+        return jsonMatchService;
+    }
+
+    private long writeMatch(String name, int kills) throws IOException {
+        List<Map<String, Object>> predictions = new ArrayList<>();
+        for (int i = 0; i < kills; i++) {
+            predictions.add(Map.of(
+                "kill_id", "kill_" + i,
+                "round", 1 + i / 3,
+                "weapon", "ak47",
+                "time_in_round", 10.0 + i,
+                "context", Map.of("attacker_name", "player_" + (i % 3), "victim_name", "enemy_" + i, "side", "t"),
+                "prediction", Map.of("predicted_label", i % 2 == 0 ? "good_decision" : "bad_position")
+            ));
+        }
+        Path file = directory.resolve(name + ".json");
+        mapper.writeValue(file.toFile(), Map.of("map", "de_mirage", "predictions", predictions));
+        return Files.size(file);
+    }
+
+    private static boolean waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WATCH_TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return false;
+    }
+}
@@ -27,6 +27,9 @@ class KillAnalysisServiceTest {
     @Mock
     private KillPredictionRepository killPredictionRepository;
 
+    @Mock
+    private PredictionAggregateService predictionAggregateService;
+
     @InjectMocks
     private KillAnalysisService killAnalysisService;
 
@@ -0,0 +1,132 @@
+package com.tacticore.lambda.service;
+
+import com.tacticore.lambda.LambdaApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caja de 400x400 unidades, radio de 200 y los 10 más cercanos sobre 1M kills de de_mirage:
+ * SQL sobre kills (sin índice de posiciones: recorre la tabla) contra KillSpatialIndex, que devuelve
+ * hasta 100 kills leídos por id. El setup imprime el tiempo de carga del índice.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.include=KillSpatialIndexBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class KillSpatialIndexBenchmark {
+
+    private static final String MAP = "de_mirage";
+    private static final int MATCHES = 2000;
+    private static final int LIMIT = 100;
+
+    @Param({"1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private KillSpatialIndex killSpatialIndex;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void loadKills() {
+        context = new SpringApplicationBuilder(LambdaApplication.class)
+                .profiles("lambda")
+                .web(WebApplicationType.NONE)
+                .properties("logging.level.root=WARN")
+                .run();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        killSpatialIndex = context.getBean(KillSpatialIndex.class);
+
+        jdbcTemplate.execute("INSERT INTO matches (match_id, file_name, map_name, tickrate, total_kills, status, has_video, "
+                + "created_at, updated_at) "
+                + "SELECT 'bench_match_' || X, 'bench_' || X || '.dem', '" + MAP + "', 64, 0, 'completed', FALSE, "
+                + "CURRENT_TIMESTAMP, CURRENT_TIMESTAMP FROM SYSTEM_RANGE(0, " + (MATCHES - 1) + ")");
+        // Posiciones pseudoaleatorias en [-2000, 2000] sobre toda la imagen de de_mirage
+        jdbcTemplate.execute("INSERT INTO kills (id, kill_id, match_id, attacker, victim, place, "
+                + "round_number, weapon, headshot, distance, time_in_round, side, attacker_x, attacker_y, victim_x, victim_y) "
+                + "SELECT -X, 'bench_kill_' || X, 'bench_match_' || MOD(X, " + MATCHES + "), "
+                + "'bench_player_' || MOD(X, 1000), 'bench_player_' || MOD(X * 7 + 3, 1000), "
+                + "'place_' || MOD(X, 40), MOD(X, 30) + 1, 'weapon_' || MOD(X, 25), MOD(X, 4) = 0, "
+                + "MOD(X, 2000) + 1, MOD(X, 115), CASE WHEN MOD(X, 2) = 0 THEN 't' ELSE 'ct' END, "
+                + "MOD(X * 7919, 4001) - 2000, MOD(X * 104729, 4001) - 2000, "
+                + "MOD(X * 15485863, 4001) - 2000, MOD(X * 32452843, 4001) - 2000 "
+                + "FROM SYSTEM_RANGE(1, " + rows + ")");
+        jdbcTemplate.execute("ANALYZE");
+        killSpatialIndex.reload();
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> sqlBox() {
+        double x = nextCoordinate();
+        return jdbcTemplate.queryForList("SELECT k.id, k.victim_x, k.victim_y FROM kills k "
+                + "JOIN matches m ON m.match_id = k.match_id WHERE m.map_name = ? "
+                + "AND k.victim_x BETWEEN ? AND ? AND k.victim_y BETWEEN ? AND ? ORDER BY k.id", MAP, x, x + 400, x, x + 400);
+    }
+
+    @Benchmark
+    public Map<String, Object> indexBox() {
+        double x = nextCoordinate();
+        return killSpatialIndex.findInBox(MAP, HeatmapService.VICTIM, x, x, x + 400, x + 400,
+            KillSpatialIndex.Filter.none(), LIMIT);
+    }
+
+    @Benchmark
+    public Map<String, Object> indexRadius() {
+        double x = nextCoordinate();
+        return killSpatialIndex.findInRadius(MAP, HeatmapService.VICTIM, x, -x, 200, KillSpatialIndex.Filter.none(), LIMIT);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> sqlNearest() {
+        double x = nextCoordinate();
+        return jdbcTemplate.queryForList("SELECT k.id FROM kills k JOIN matches m ON m.match_id = k.match_id "
+                + "WHERE m.map_name = ? AND k.victim_x IS NOT NULL "
+                + "ORDER BY (k.victim_x - ?) * (k.victim_x - ?) + (k.victim_y - ?) * (k.victim_y - ?), k.id LIMIT 10",
+            MAP, x, x, -x, -x);
+    }
+
+    @Benchmark
+    public Map<String, Object> indexNearest() {
+        double x = nextCoordinate();
+        return killSpatialIndex.findNearest(MAP, HeatmapService.VICTIM, x, -x, 10, KillSpatialIndex.Filter.none());
+    }
+
+    @Benchmark
+    public Map<String, Object> indexNearestFiltered() {
+        double x = nextCoordinate();
+        return killSpatialIndex.findNearest(MAP, HeatmapService.VICTIM, x, -x, 10,
+            new KillSpatialIndex.Filter(1 + next % 30, "t", "weapon_3"));
+    }
+
+    private double nextCoordinate() {
+        return -1800 + (next++ * 379) % 3400;
+    }
+}
@@ -0,0 +1,195 @@
+package com.tacticore.lambda.service;
+
+import com.tacticore.lambda.model.KillEntity;
+import com.tacticore.lambda.model.MatchEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Índice espacial contra H2 real: caja, polígono, radio y k más cercanos iguales a recorrer todos los kills,
+ * con filtros, posiciones fuera de la imagen y batches visibles solo al confirmar.
+ */
+@SpringBootTest
+class KillSpatialIndexTest {
+
+    @Autowired
+    private KillSpatialIndex killSpatialIndex;
+
+    @Autowired
+    private KillIngestService killIngestService;
+
+    @Autowired
+    private DatabaseMatchService databaseMatchService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private String suffix;
+    private String mapName;
+    private String matchId;
+    private List<KillEntity> kills;
+
+    @BeforeEach
+    void setUp() {
+        suffix = Long.toString(System.nanoTime());
+        // Mapa propio de cada test: transformación genérica, la imagen cubre x en [-2000, 3120) e y en (-2120, 3000]
+        mapName = "de_spatial_" + suffix;
+        matchId = "spatial_" + suffix;
+        databaseMatchService.saveMatch(new MatchEntity(matchId, "spatial.dem", mapName, 64, 0, "completed", false));
+
+        Random random = new Random(18);
+        kills = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            kills.add(kill(1 + i % 5, i % 2 == 0 ? "t" : "ct", i % 3 == 0 ? "awp" : "ak47",
+                coordinate(random), coordinate(random), coordinate(random), coordinate(random)));
+        }
+        // Fuera de la imagen y sin posición de víctima
+        kills.add(kill(1, "t", "ak47", -9000.0, 8000.0, 9000.0, -9000.0));
+        kills.add(kill(1, "t", "ak47", 100.0, 100.0, null, null));
+        killIngestService.ingest(kills);
+    }
+
+    @Test
+    void testBoxAndPolygonMatchFullScan() {
+        Map<String, Object> box = killSpatialIndex.findInBox(mapName, "victim", -500, -500, 1200, 700,
+            KillSpatialIndex.Filter.none(), KillSpatialIndex.MAX_LIMIT);
+        List<KillEntity> expected = scan(k -> k.getVictimX() != null && k.getVictimX() >= -500 && k.getVictimX() <= 1200
+            && k.getVictimY() >= -500 && k.getVictimY() <= 700);
+        assertEquals(expected.size(), box.get("total"));
+        assertEquals(killIds(expected), killIds(box));
+
+        Map<String, Object> filtered = killSpatialIndex.findInBox(mapName, "attacker", -3000, -3000, 4000, 4000,
+            new KillSpatialIndex.Filter(2, name("t"), name("awp")), 5);
+        List<KillEntity> expectedFiltered = scan(k -> k.getRound() == 2 && k.getSide().equals(name("t"))
+            && k.getWeapon().equals(name("awp")) && k.getAttackerX() >= -3000);
+        assertEquals(expectedFiltered.size(), filtered.get("total"));
+        assertEquals(killIds(expectedFiltered).subList(0, 5), killIds(filtered));
+
+        // Triángulo (0,0) (2000,0) (0,2000): x >= 0, y >= 0, x + y < 2000
+        double[] triangle = {0, 0, 2000, 0, 0, 2000};
+        Map<String, Object> polygon = killSpatialIndex.findInPolygon(mapName, "attacker", triangle,
+            KillSpatialIndex.Filter.none(), KillSpatialIndex.MAX_LIMIT);
+        assertEquals(killIds(scan(k -> KillSpatialIndex.contains(triangle, k.getAttackerX(), k.getAttackerY()))),
+            killIds(polygon));
+        assertTrue((Integer) polygon.get("total") > 0);
+
+        Map<String, Object> outside = killSpatialIndex.findInBox(mapName, "victim", 8000, -10000, 10000, -8000,
+            KillSpatialIndex.Filter.none(), 10);
+        assertEquals(1, outside.get("total"));
+    }
+
+    @Test
+    void testRadiusAndNearestMatchFullScan() {
+        double x = 400.0, y = 250.0;
+        Map<String, Object> radius = killSpatialIndex.findInRadius(mapName, "victim", x, y, 600.0,
+            KillSpatialIndex.Filter.none(), KillSpatialIndex.MAX_LIMIT);
+        List<KillEntity> expected = byDistance(scan(k -> k.getVictimX() != null
+            && Math.hypot(k.getVictimX() - x, k.getVictimY() - y) <= 600.0), x, y, true);
+        assertEquals(killIds(expected), killIds(radius));
+        assertEquals(Math.hypot(expected.get(0).getVictimX() - x, expected.get(0).getVictimY() - y),
+            (Double) kills(radius).get(0).get("distance"), 1e-9);
+
+        // Dentro de la imagen, en un borde y fuera de la grilla
+        for (double[] point : new double[][]{{x, y}, {-1990.0, 2990.0}, {7000.0, -7000.0}}) {
+            for (int k : new int[]{1, 7, 40}) {
+                Map<String, Object> nearest = killSpatialIndex.findNearest(mapName, "attacker", point[0], point[1], k,
+                    new KillSpatialIndex.Filter(null, name("ct"), null));
+                List<KillEntity> candidates = byDistance(scan(kill -> kill.getSide().equals(name("ct"))), point[0], point[1], false);
+                assertEquals(killIds(candidates.subList(0, k)), killIds(nearest), "k=" + k + " en " + Arrays.toString(point));
+            }
+        }
+    }
+
+    @Test
+    void testIngestAfterLoadSeesCommittedBatchesOnly() {
+        int before = (Integer) killSpatialIndex.findNearest(mapName, "victim", 0, 0, 1000, KillSpatialIndex.Filter.none())
+            .get("total");
+
+        killIngestService.ingest(List.of(kill(9, "t", "deagle", 0.0, 0.0, 1.0, 1.0)));
+        transactionTemplate.executeWithoutResult(status -> {
+            killIngestService.ingest(List.of(kill(9, "t", "deagle", 0.0, 0.0, 2.0, 2.0)));
+            status.setRollbackOnly();
+        });
+
+        Map<String, Object> nearest = killSpatialIndex.findNearest(mapName, "victim", 1.0, 1.0, 1,
+            new KillSpatialIndex.Filter(9, null, name("deagle")));
+        assertEquals(1, nearest.get("total"));
+        assertEquals(0.0, (Double) kills(nearest).get(0).get("distance"), 1e-9);
+        assertEquals(Math.min(1000, before + 1),
+            killSpatialIndex.findNearest(mapName, "victim", 0, 0, 1000, KillSpatialIndex.Filter.none()).get("total"));
+
+        killSpatialIndex.invalidate();
+        assertEquals(1, killSpatialIndex.findInRadius(mapName, "victim", 1.0, 1.0, 0.5,
+            new KillSpatialIndex.Filter(9, null, null), 10).get("total"));
+    }
+
+    @Test
+    void testRejectsInvalidParameters() {
+        KillSpatialIndex.Filter none = KillSpatialIndex.Filter.none();
+        assertThrows(IllegalArgumentException.class, () -> killSpatialIndex.findInBox(mapName, "victim", 10, 0, 0, 10, none, 10));
+        assertThrows(IllegalArgumentException.class, () -> killSpatialIndex.findInRadius(mapName, "victim", 0, 0, -1, none, 10));
+        assertThrows(IllegalArgumentException.class, () -> killSpatialIndex.findNearest(mapName, "victim", 0, 0, 0, none));
+        assertThrows(IllegalArgumentException.class, () -> killSpatialIndex.findInPolygon(mapName, "victim", new double[]{0, 0, 1, 1}, none, 10));
+        assertThrows(IllegalArgumentException.class, () -> killSpatialIndex.findInBox(mapName, "spectator", 0, 0, 1, 1, none, 10));
+        assertEquals(0, killSpatialIndex.findInBox("de_unknown_" + suffix, "victim", 0, 0, 1, 1, none, 10).get("total"));
+    }
+
+    private List<KillEntity> scan(Predicate<KillEntity> predicate) {
+        return kills.stream().filter(k -> k.getAttackerX() != null).filter(predicate)
+            .sorted(Comparator.comparing(KillEntity::getId)).collect(Collectors.toList());
+    }
+
+    private static List<KillEntity> byDistance(List<KillEntity> candidates, double x, double y, boolean byVictim) {
+        return candidates.stream().sorted(Comparator.<KillEntity>comparingDouble(k -> byVictim
+                ? Math.hypot(k.getVictimX() - x, k.getVictimY() - y) : Math.hypot(k.getAttackerX() - x, k.getAttackerY() - y))
+            .thenComparing(KillEntity::getId)).collect(Collectors.toList());
+    }
+
+    private static List<String> killIds(List<KillEntity> kills) {
+        return kills.stream().map(KillEntity::getKillId).collect(Collectors.toList());
+    }
+
+    private static List<String> killIds(Map<String, Object> result) {
+        return kills(result).stream().map(kill -> (String) kill.get("killId")).collect(Collectors.toList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> kills(Map<String, Object> result) {
+        return (List<Map<String, Object>>) result.get("kills");
+    }
+
+    private static double coordinate(Random random) {
+        return -1900.0 + random.nextDouble() * 4900.0;
+    }
+
+    private KillEntity kill(int round, String side, String weapon, Double attackerX, Double attackerY,
+                            Double victimX, Double victimY) {
+        KillEntity kill = new KillEntity();
+        kill.setKillId("spatial_" + suffix + "_" + System.nanoTime());
+        kill.setMatchId(matchId);
+        kill.setAttacker(name("alice"));
+        kill.setVictim(name("bob"));
+        kill.setWeapon(name(weapon));
+        kill.setSide(name(side));
+        kill.setRound(round);
+        kill.setHeadshot(false);
+        kill.setAttackerX(attackerX);
+        kill.setAttackerY(attackerY);
+        kill.setVictimX(victimX);
+        kill.setVictimY(victimY);
+        return kill;
+    }
+
+    private String name(String value) {
+        return value + "_" + suffix;
+    }
+}
@@ -0,0 +1,118 @@
+package com.tacticore.lambda.service;
+
+import com.tacticore.lambda.LambdaApplication;
+import com.tacticore.lambda.model.UserEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rankings sobre 1M jugadores: página de 50 en una posición cualquiera y posición de un jugador con SQL
+ * (ORDER BY sobre users y COUNT de los que están por encima) contra LeaderboardService, más el costo de
+ * reubicar a un jugador que cambió de stats. El setup imprime el tiempo de carga de los rankings.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.include=LeaderboardBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class LeaderboardBenchmark {
+
+    private static final int PAGE = 50;
+
+    @Param({"1000000"})
+    private int players;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private LeaderboardService leaderboardService;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void loadPlayers() {
+        context = new SpringApplicationBuilder(LambdaApplication.class)
+                .profiles("lambda")
+                .web(WebApplicationType.NONE)
+                .properties("logging.level.root=WARN")
+                .run();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        leaderboardService = context.getBean(LeaderboardService.class);
+
+        jdbcTemplate.execute("INSERT INTO users (name, role, average_score, total_kills, total_deaths, total_matches, "
+                + "created_at, updated_at) "
+                + "SELECT 'bench_player_' || X, 'Entry Fragger', MOD(X * 7919, 9001) / 1000.0, MOD(X * 104729, 5000), "
+                + "MOD(X * 15485863, 4000), MOD(X, 200), CURRENT_TIMESTAMP, CURRENT_TIMESTAMP "
+                + "FROM SYSTEM_RANGE(1, " + players + ")");
+        jdbcTemplate.execute("ANALYZE");
+        leaderboardService.reload();
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> sqlPage() {
+        return jdbcTemplate.queryForList("SELECT id, name, role, average_score, total_kills, total_deaths, total_matches "
+                + "FROM users ORDER BY average_score DESC, name LIMIT ? OFFSET ?", PAGE, nextOffset());
+    }
+
+    @Benchmark
+    public Map<String, Object> leaderboardPage() {
+        return leaderboardService.getPage(LeaderboardService.SCORE, nextOffset(), PAGE, null, null);
+    }
+
+    @Benchmark
+    public Long sqlRank() {
+        String name = nextPlayer();
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) + 1 FROM users u, (SELECT average_score s, name n FROM users "
+                + "WHERE name = ?) p WHERE u.average_score > p.s OR (u.average_score = p.s AND u.name < p.n)", Long.class, name);
+    }
+
+    @Benchmark
+    public Map<String, Object> leaderboardRank() {
+        return leaderboardService.getRank(nextPlayer());
+    }
+
+    @Benchmark
+    public Map<String, Object> leaderboardUpdateAndRank() {
+        String name = nextPlayer();
+        UserEntity user = new UserEntity(name, "Entry Fragger");
+        user.setAverageScore((next % 9001) / 1000.0);
+        user.setTotalKills(next % 5000);
+        user.setTotalDeaths(next % 4000);
+        user.setTotalMatches(next % 200);
+        leaderboardService.updateAfterCommit(user);
+        return leaderboardService.getRank(name);
+    }
+
+    private int nextOffset() {
+        return (next++ * 7919) % (players - PAGE);
+    }
+
+    private String nextPlayer() {
+        return "bench_player_" + (1 + (next++ * 104729L) % players);
+    }
+}
@@ -0,0 +1,187 @@
+package com.tacticore.lambda.service;
+
+import com.tacticore.lambda.model.UserEntity;
+import com.tacticore.lambda.model.dto.UserDto;
+import com.tacticore.lambda.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Rankings contra H2 real: páginas, cursores y posiciones iguales a ordenar toda la tabla users,
+ * cambios visibles solo al confirmar, y el árbol de rangos contra una lista ordenada.
+ */
+@SpringBootTest
+class LeaderboardServiceTest {
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private String suffix;
+
+    @BeforeEach
+    void setUp() {
+        suffix = Long.toString(System.nanoTime());
+        Random random = new Random(19);
+        for (int i = 0; i < 120; i++) {
+            String name = name(i);
+            userService.createOrGetUser(name, "Entry Fragger");
+            // Valores repetidos a propósito: el empate se desempata por nombre
+            userService.updateUserStatsWithMatches(name, random.nextInt(40), random.nextInt(30),
+                random.nextInt(20) / 2.0, random.nextInt(12));
+        }
+    }
+
+    @Test
+    void testPagesAndRanksMatchFullSort() {
+        Map<String, ToDoubleFunction<UserEntity>> values = Map.of(
+            LeaderboardService.SCORE, user -> user.getAverageScore(),
+            LeaderboardService.KILLS, user -> user.getTotalKills(),
+            LeaderboardService.KDR, UserEntity::getKDR);
+
+        for (Map.Entry<String, ToDoubleFunction<UserEntity>> board : values.entrySet()) {
+            List<String> expected = sorted(board.getValue(), LeaderboardService.KDR.equals(board.getKey()), 0);
+
+            // Recorrido completo con cursor, de a 7
+            List<String> walked = new ArrayList<>();
+            String cursor = null;
+            do {
+                Map<String, Object> page = leaderboardService.getPage(board.getKey(), 0, 7, cursor, null);
+                assertEquals(expected.size(), page.get("total"));
+                items(page).forEach(item -> walked.add((String) item.get("name")));
+                cursor = (String) page.get("nextCursor");
+            } while (cursor != null);
+            assertEquals(expected, walked, board.getKey());
+
+            // Por offset, con el rank absoluto de cada item
+            Map<String, Object> page = leaderboardService.getPage(board.getKey(), 30, 25, null, null);
+            List<Map<String, Object>> items = items(page);
+            assertEquals(expected.subList(30, 55), items.stream().map(item -> item.get("name")).collect(Collectors.toList()));
+            assertEquals(31, items.get(0).get("rank"));
+
+            for (int i = 0; i < 120; i += 17) {
+                Map<?, ?> rank = (Map<?, ?>) leaderboardService.getRank(name(i)).get(board.getKey());
+                int index = expected.indexOf(name(i));
+                assertEquals(index >= 0 ? index + 1 : null, rank.get("rank"), board.getKey() + " " + name(i));
+            }
+        }
+
+        List<String> expectedMatches = sorted(user -> user.getAverageScore(), false, 5);
+        List<UserDto> top = leaderboardService.getTop(LeaderboardService.SCORE, 3, 20, 5);
+        assertEquals(expectedMatches.subList(3, 23), top.stream().map(UserDto::getName).collect(Collectors.toList()));
+        assertTrue(top.stream().allMatch(user -> user.getTotalMatches() >= 5));
+    }
+
+    @Test
+    void testUpdatesVisibleAfterCommitOnly() {
+        Map<String, Object> page = leaderboardService.getPage(LeaderboardService.KILLS, 0, 1, null, null);
+        int best = (Integer) items(page).get(0).get("totalKills");
+
+        userService.updateUserStatsWithMatches(name(0), best + 1, 1, 5.0, 3);
+        transactionTemplate.executeWithoutResult(status -> {
+            userService.updateUserStatsWithMatches(name(1), best + 2, 1, 5.0, 3);
+            status.setRollbackOnly();
+        });
+        // Nuevo usuario: entra al ranking en su posición
+        userService.createOrGetUser(name(500), "Entry Fragger");
+
+        Map<String, Object> rank = leaderboardService.getRank(name(0));
+        assertEquals(1, ((Map<?, ?>) rank.get(LeaderboardService.KILLS)).get("rank"));
+        assertEquals((double) best + 1, ((Map<?, ?>) rank.get(LeaderboardService.KILLS)).get("value"));
+        assertTrue((Integer) ((Map<?, ?>) leaderboardService.getRank(name(1)).get(LeaderboardService.KILLS)).get("rank") > 1);
+        assertNotNull(leaderboardService.getRank(name(500)));
+        assertNull(((Map<?, ?>) leaderboardService.getRank(name(500)).get(LeaderboardService.KDR)).get("rank"));
+        assertEquals(userRepository.count(), ((Number) rank.get("totalPlayers")).longValue());
+
+        leaderboardService.invalidate();
+        assertEquals(1, ((Map<?, ?>) leaderboardService.getRank(name(0)).get(LeaderboardService.KILLS)).get("rank"));
+        assertNull(leaderboardService.getRank("nobody_" + suffix));
+    }
+
+    @Test
+    void testRejectsInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> leaderboardService.getPage("headshots", 0, 10, null, null));
+        assertThrows(IllegalArgumentException.class, () -> leaderboardService.getPage(LeaderboardService.SCORE, -1, 10, null, null));
+        assertThrows(IllegalArgumentException.class, () -> leaderboardService.getPage(LeaderboardService.SCORE, 0, 0, null, null));
+        assertThrows(IllegalArgumentException.class,
+            () -> leaderboardService.getPage(LeaderboardService.SCORE, 0, LeaderboardService.MAX_LIMIT + 1, null, null));
+        assertThrows(IllegalArgumentException.class, () -> leaderboardService.getPage(LeaderboardService.SCORE, 0, 10, "%%%", null));
+
+        Map<String, Object> past = leaderboardService.getPage(LeaderboardService.SCORE, 1_000_000, 10, null, null);
+        assertTrue(items(past).isEmpty());
+        assertNull(past.get("nextCursor"));
+    }
+
+    @Test
+    void testRankedTreeMatchesSortedList() {
+        Random random = new Random(7);
+        RankedTree<Integer> tree = new RankedTree<>(Comparator.reverseOrder());
+        List<Integer> expected = new ArrayList<>();
+        for (int value = 0; value < 300; value += 3) {
+            expected.add(value);
+        }
+        expected.sort(Comparator.reverseOrder());
+        tree.build(new ArrayList<>(expected));
+
+        for (int step = 0; step < 3000; step++) {
+            int value = random.nextInt(1000);
+            int index = Collections.binarySearch(expected, value, Comparator.reverseOrder());
+            if (index >= 0) {
+                assertTrue(tree.remove(value));
+                expected.remove(index);
+            } else {
+                tree.add(value);
+                expected.add(-index - 1, value);
+            }
+            assertFalse(index >= 0 && tree.remove(value));
+        }
+
+        assertEquals(expected.size(), tree.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), tree.get(i));
+            assertEquals(i, tree.rank(expected.get(i)));
+        }
+        assertEquals(expected.size(), tree.rank(-1));
+        for (int from : new int[]{0, 1, expected.size() / 2, expected.size() - 1, expected.size()}) {
+            List<Integer> walked = new ArrayList<>();
+            tree.forEachFrom(from, value -> walked.add(value) && walked.size() < 10);
+            assertEquals(expected.subList(from, Math.min(expected.size(), from + 10)), walked);
+        }
+    }
+
+    // Nombres de la tabla users en el orden del ranking (valor descendente, después nombre)
+    private List<String> sorted(ToDoubleFunction<UserEntity> value, boolean onlyWithKills, int minMatches) {
+        return userRepository.findAll().stream()
+            .filter(user -> !onlyWithKills || user.getTotalKills() > 0)
+            .filter(user -> user.getTotalMatches() >= minMatches)
+            .sorted(Comparator.comparingDouble(value).reversed().thenComparing(UserEntity::getName))
+            .map(UserEntity::getName)
+            .collect(Collectors.toList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> items(Map<String, Object> page) {
+        return (List<Map<String, Object>>) page.get("items");
+    }
+
+    private String name(int index) {
+        return "lb_" + suffix + "_" + index;
+    }
+}
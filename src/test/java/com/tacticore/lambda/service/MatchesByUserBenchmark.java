@@ -0,0 +1,113 @@
+package com.tacticore.lambda.service;
+
+import com.tacticore.lambda.LambdaApplication;
+import com.tacticore.lambda.model.DashboardStats;
+import com.tacticore.lambda.model.MatchEntity;
+import com.tacticore.lambda.repository.KillRepository;
+import com.tacticore.lambda.repository.MatchRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * getMatchesByUser y el dashboard de un usuario con 1k y 10k matches en la base: el usuario juega
+ * siempre 50, así que la latencia no debería crecer con el total de matches.
+ * legacyPerMatchQueries reproduce el patrón anterior (findAll + exists + 2 counts por match) como referencia.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.include=MatchesByUserBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class MatchesByUserBenchmark {
+
+    private static final String USER = "bench_user";
+    private static final int USER_MATCHES = 50;
+    private static final int PLAYERS_PER_MATCH = 10;
+    private static final int KILLS_PER_MATCH = 20;
+
+    @Param({"1000", "10000"})
+    private int matches;
+
+    private ConfigurableApplicationContext context;
+    private DatabaseMatchService databaseMatchService;
+    private AnalyticsService analyticsService;
+    private MatchRepository matchRepository;
+    private KillRepository killRepository;
+
+    @Setup(Level.Trial)
+    public void loadMatches() {
+        context = new SpringApplicationBuilder(LambdaApplication.class)
+                .profiles("lambda")
+                .web(WebApplicationType.NONE)
+                .properties("logging.level.root=WARN")
+                .run();
+        databaseMatchService = context.getBean(DatabaseMatchService.class);
+        analyticsService = context.getBean(AnalyticsService.class);
+        matchRepository = context.getBean(MatchRepository.class);
+        killRepository = context.getBean(KillRepository.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.execute("INSERT INTO matches (match_id, file_name, map_name, tickrate, total_kills, good_plays, "
+                + "bad_plays, status, has_video, created_at, updated_at) "
+                + "SELECT 'bench_match_' || X, 'bench_' || X || '.dem', 'de_dust2', 64, " + KILLS_PER_MATCH + ", 8, 4, "
+                + "'completed', FALSE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP FROM SYSTEM_RANGE(1, " + matches + ")");
+        // Kills sintéticos (ids negativos, fuera de kills_seq): el usuario mata en los primeros USER_MATCHES matches
+        jdbcTemplate.execute("INSERT INTO kills (id, kill_id, match_id, attacker, victim, place, round_number, weapon, "
+                + "headshot, distance, time_in_round, side) "
+                + "SELECT -X, 'bench_kill_' || X, 'bench_match_' || (1 + MOD(X, " + matches + ")), "
+                + "CASE WHEN MOD(X, " + matches + ") < " + USER_MATCHES + " AND MOD(X / " + matches + ", 2) = 0 "
+                + "THEN '" + USER + "' ELSE 'bench_player_' || MOD(X, " + PLAYERS_PER_MATCH + ") END, "
+                + "'bench_player_' || MOD(X + 1, " + PLAYERS_PER_MATCH + "), 'BombsiteA', 1 + MOD(X / " + matches + ", 24), "
+                + "'ak47', FALSE, 500, 30, 't' "
+                + "FROM SYSTEM_RANGE(1, " + ((long) matches * KILLS_PER_MATCH) + ")");
+        context.getBean(PlayerAggregateService.class).rebuild();
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public int matchesByUser() {
+        return databaseMatchService.getMatchesByUser(USER).size();
+    }
+
+    @Benchmark
+    public DashboardStats dashboardByUser() {
+        return analyticsService.getDashboardStats(USER);
+    }
+
+    @Benchmark
+    public long legacyPerMatchQueries() {
+        long total = 0;
+        for (MatchEntity match : matchRepository.findAll()) {
+            if (killRepository.existsByMatchIdAndAttackerName(match.getMatchId(), USER)) {
+                total += killRepository.countKillsByUserAndMatchId(USER, match.getMatchId())
+                        + killRepository.countDeathsByUserAndMatchId(USER, match.getMatchId());
+            }
+        }
+        return total;
+    }
+}
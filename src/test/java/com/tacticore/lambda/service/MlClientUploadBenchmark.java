@@ -0,0 +1,148 @@
+package com.tacticore.lambda.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 50 uploads concurrentes de un demo en disco contra un servidor ML stub local (lee el multipart completo
+ * y responde un JSON chico después de mlLatencyMs). legacy reproduce el cliente anterior (new RestTemplate(),
+ * multipart por FormHttpMessageConverter); simple y jdk son los transportes de MlServiceTransport.
+ * Al final de cada trial se imprime cuántas conexiones TCP abrió el cliente.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.include=MlClientUploadBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(50)
+@State(Scope.Benchmark)
+public class MlClientUploadBenchmark {
+
+    private static final String RESPONSE = "{\"status\":\"success\",\"total_kills\":0,\"predictions\":[]}";
+
+    @Param({"legacy", MlServiceTransport.SIMPLE, MlServiceTransport.JDK})
+    private String transport;
+
+    @Param({"262144"})
+    private int demoBytes;
+
+    @Param({"20"})
+    private long mlLatencyMs;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private final Set<String> connections = ConcurrentHashMap.newKeySet();
+    private Path demo;
+    private String analyzeUrl;
+    private MLServiceClient client;
+    private MlServiceTransport mlServiceTransport;
+    private RestTemplate legacyRestTemplate;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        serverExecutor = Executors.newFixedThreadPool(64);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 256);
+        server.setExecutor(serverExecutor);
+        server.createContext("/analyze-demo", this::handleAnalyze);
+        server.start();
+        analyzeUrl = "http://localhost:" + server.getAddress().getPort() + "/analyze-demo";
+
+        byte[] content = new byte[demoBytes];
+        new Random(42).nextBytes(content);
+        demo = Files.createTempFile("ml-upload-benchmark", ".dem");
+        Files.write(demo, content);
+
+        if ("legacy".equals(transport)) {
+            legacyRestTemplate = new RestTemplate();
+        } else {
+            // Sin límite efectivo: se mide el transporte, no la espera por lugar
+            mlServiceTransport = new MlServiceTransport(transport, 60_000, 64, 60_000);
+            client = new MLServiceClient(mlServiceTransport);
+            ReflectionTestUtils.setField(client, "mlServiceUrl", "http://localhost:" + server.getAddress().getPort());
+            ReflectionTestUtils.setField(client, "fileParamName", "demo_file");
+            ReflectionTestUtils.setField(client, "simulationEnabled", false);
+            ReflectionTestUtils.setField(client, "objectMapper", new ObjectMapper());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        System.out.println("\n" + transport + ": " + connections.size() + " TCP connections opened");
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        if (mlServiceTransport != null) {
+            mlServiceTransport.shutdown();
+        }
+        Files.deleteIfExists(demo);
+    }
+
+    @Benchmark
+    public Object upload() {
+        if (legacyRestTemplate != null) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+            MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+            body.add("demo_file", new FileSystemResource(demo));
+            return legacyRestTemplate.postForEntity(analyzeUrl, new HttpEntity<>(body, headers), Map.class).getBody();
+        }
+        return client.analyzeDemoFile(demo, "benchmark.dem");
+    }
+
+    private void handleAnalyze(HttpExchange exchange) throws IOException {
+        connections.add(exchange.getRemoteAddress().toString());
+        try (InputStream in = exchange.getRequestBody()) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        try {
+            Thread.sleep(mlLatencyMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] bytes = RESPONSE.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
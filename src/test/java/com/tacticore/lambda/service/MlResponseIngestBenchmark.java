@@ -0,0 +1,120 @@
+package com.tacticore.lambda.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tacticore.lambda.model.UserEntity;
+import com.tacticore.lambda.serialization.MlResponseCodec;
+import com.tacticore.lambda.serialization.MlResponseStreamReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingesta de una respuesta del ML (sin base de datos): Map completo + SimulationDataMapper + MlResponseCodec.encode
+ * (camino anterior) contra MlResponseStreamReader.readAndEncode. Las predicciones de de_mirage.json se repiten
+ * hasta {@code kills}; al final de cada iteración se imprimen los bytes asignados por operación.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.include=MlResponseIngestBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MlResponseIngestBenchmark {
+
+    @Param({"150", "1500"})
+    private int kills;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MlResponseCodec codec = new MlResponseCodec(objectMapper, false);
+    private final MlResponseStreamReader reader = new MlResponseStreamReader(objectMapper, codec);
+    private final SimulationDataMapper simulationDataMapper = new SimulationDataMapper();
+
+    private byte[] json;
+    private long operations;
+    private long allocatedAtStart;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void buildResponse() throws IOException {
+        Map<String, Object> response = objectMapper.readValue(new File("demos-jsons/de_mirage.json"), Map.class);
+        List<Map<String, Object>> source = (List<Map<String, Object>>) response.get("predictions");
+        List<Map<String, Object>> predictions = new ArrayList<>(kills);
+        for (int i = 0; i < kills; i++) {
+            predictions.add(source.get(i % source.size()));
+        }
+        response.put("predictions", predictions);
+        response.put("total_kills", kills);
+        json = objectMapper.writeValueAsBytes(response);
+
+        // Sin base de datos: el benchmark mide solo el parseo y el mapeo
+        try {
+            Field userService = SimulationDataMapper.class.getDeclaredField("userService");
+            userService.setAccessible(true);
+            userService.set(simulationDataMapper, new UserService() {
+                @Override
+                public List<UserEntity> ensureUsersExist(List<String> userNames) {
+                    return List.of();
+                }
+            });
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void startCounting() {
+        operations = 0;
+        allocatedAtStart = allocatedBytes();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printAllocation() {
+        if (operations > 0) {
+            System.out.printf("%n%d kills: %,d bytes asignados por operación%n", kills, (allocatedBytes() - allocatedAtStart) / operations);
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public int mapBased() throws IOException {
+        operations++;
+        Map<String, Object> response = objectMapper.readValue(json, Map.class);
+        SimulationDataMapper.SimulationResult result = simulationDataMapper.mapMLResponseToEntities(response, "bench_match", "bench.dem");
+        return result.getKillEntities().size() + codec.encode(response).length;
+    }
+
+    @Benchmark
+    public int streaming() throws IOException {
+        operations++;
+        int[] count = new int[1];
+        MlResponseStreamReader.Summary summary = reader.readAndEncode(new ByteArrayInputStream(json), "bench_match",
+            (kill, predictions) -> count[0] += predictions.size());
+        return count[0] + summary.getCompressedResponse().length;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+}
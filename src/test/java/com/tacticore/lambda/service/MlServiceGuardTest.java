@@ -0,0 +1,379 @@
+package com.tacticore.lambda.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.tacticore.lambda.serialization.MlResponseStreamReader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MlServiceGuard y MatchProcessingService contra un servicio ML stub al que se le dicta
+ * el status de cada respuesta: reintentos, circuit breaker, bulkhead, probe cacheado
+ * y matches diferidos mientras el circuito está abierto
+ */
+class MlServiceGuardTest {
+
+    private static final byte[] DEMO = "demo".getBytes(StandardCharsets.UTF_8);
+    private static final String ML_RESPONSE = "{\"status\":\"success\",\"total_kills\":0,\"predictions\":[]}";
+
+    private HttpServer server;
+    // Status de las próximas respuestas de /analyze-demo; vacía = 200
+    private final Queue<Integer> statuses = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger analyzeRequests = new AtomicInteger();
+    private final AtomicInteger probeRequests = new AtomicInteger();
+    private final CountDownLatch analyzeStarted = new CountDownLatch(1);
+    private volatile CountDownLatch analyzeGate;
+    private MlServiceTransport transport;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/analyze-demo", this::handleAnalyze);
+        server.createContext("/", exchange -> {
+            probeRequests.incrementAndGet();
+            respond(exchange, 200, "{\"status\":\"ok\"}");
+        });
+        server.start();
+        transport = new MlServiceTransport(MlServiceTransport.JDK, 5000, 8, 1000);
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+        transport.shutdown();
+    }
+
+    @Test
+    void testTransientFailuresAreRetriedWithBackoff() throws Exception {
+        MlServiceGuard guard = guard(2, 5, 1000, 3);
+        MLServiceClient client = client(serverUrl());
+        statuses.add(503);
+        statuses.add(502);
+
+        long start = System.nanoTime();
+        assertEquals(ML_RESPONSE, analyze(guard, client, true));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(3, analyzeRequests.get());
+        Map<String, Object> stats = guard.getStats();
+        assertEquals(2L, stats.get("retries"));
+        assertEquals(2L, stats.get("failures"));
+        assertEquals(1L, stats.get("successes"));
+        assertEquals("CLOSED", stats.get("state"));
+        // Backoff de 20 ms y 40 ms, la mitad de cada uno fija
+        assertTrue(elapsedMs >= 30, "sin backoff entre intentos: " + elapsedMs + " ms");
+    }
+
+    @Test
+    void testConnectionRefusedIsRetriedUpToMaxAttempts() throws Exception {
+        MlServiceGuard guard = guard(2, 5, 1000, 3);
+        MLServiceClient client = client("http://localhost:" + closedPort());
+
+        assertThrows(RuntimeException.class, () -> analyze(guard, client, true));
+        assertEquals(3L, guard.getStats().get("calls"));
+        assertEquals(3L, guard.getStats().get("failures"));
+    }
+
+    @Test
+    void testClientErrorIsNeitherRetriedNorCountedAsFailure() {
+        MlServiceGuard guard = guard(2, 1, 1000, 3);
+        MLServiceClient client = client(serverUrl());
+        statuses.add(400);
+
+        assertThrows(RuntimeException.class, () -> analyze(guard, client, true));
+        assertEquals(1, analyzeRequests.get());
+        assertEquals(0L, guard.getStats().get("failures"));
+        assertEquals(MlServiceGuard.State.CLOSED, guard.getState());
+    }
+
+    @Test
+    void testNonReplayableUploadAndStartedIngestAreNotRetried() throws Exception {
+        MlServiceGuard guard = guard(2, 5, 1000, 3);
+        MLServiceClient client = client(serverUrl());
+        statuses.add(503);
+
+        assertThrows(RuntimeException.class, () -> guard.execute(false, false, received ->
+            client.analyzeDemoStream(new ByteArrayInputStream(DEMO), "stream.dem", body -> {
+                received.run();
+                return body.readAllBytes();
+            })));
+        assertEquals(1, analyzeRequests.get());
+
+        // La respuesta llegó y falló la ingesta: el servicio está sano y no se repite el análisis
+        assertThrows(RuntimeException.class, () -> guard.execute(false, true, received ->
+            client.analyzeDemoFile(DEMO, "ingest.dem", body -> {
+                received.run();
+                throw new IOException("kills inválidos");
+            })));
+        assertEquals(2, analyzeRequests.get());
+        assertEquals(0, guard.getStats().get("consecutiveFailures"));
+    }
+
+    @Test
+    void testCircuitOpensFailsFastAndClosesAfterTrialCall() throws Exception {
+        MlServiceGuard guard = guard(2, 2, 300, 1);
+        MLServiceClient client = client(serverUrl());
+        statuses.add(500);
+        statuses.add(500);
+        statuses.add(500);
+
+        assertThrows(RuntimeException.class, () -> analyze(guard, client, true));
+        assertThrows(RuntimeException.class, () -> analyze(guard, client, true));
+        assertEquals(MlServiceGuard.State.OPEN, guard.getState());
+
+        // Abierto: falla sin tocar la red
+        MlServiceGuard.MlUnavailableException open =
+            assertThrows(MlServiceGuard.MlUnavailableException.class, () -> analyze(guard, client, true));
+        assertTrue(open.getRetryAfterMs() > 0 && open.getRetryAfterMs() <= 300, "retryAfter " + open.getRetryAfterMs());
+        assertEquals(2, analyzeRequests.get());
+
+        // La llamada de prueba falla y lo vuelve a abrir
+        Thread.sleep(350);
+        assertThrows(RuntimeException.class, () -> analyze(guard, client, true));
+        assertEquals(MlServiceGuard.State.OPEN, guard.getState());
+        assertEquals(3, analyzeRequests.get());
+
+        // La siguiente prueba sale bien y lo cierra
+        Thread.sleep(350);
+        assertEquals(ML_RESPONSE, analyze(guard, client, true));
+        assertEquals(MlServiceGuard.State.CLOSED, guard.getState());
+        Map<String, Object> stats = guard.getStats();
+        assertEquals(2L, stats.get("timesOpened"));
+        assertEquals(1L, stats.get("rejectedOpen"));
+    }
+
+    @Test
+    void testBulkheadRejectsSyncCallerWhenFull() throws Exception {
+        MlServiceGuard guard = guard(1, 5, 1000, 1);
+        MLServiceClient client = client(serverUrl());
+        analyzeGate = new CountDownLatch(1);
+
+        Thread first = new Thread(() -> {
+            try {
+                analyze(guard, client, true);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        first.start();
+        assertTrue(analyzeStarted.await(5, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        assertThrows(MlServiceGuard.MlUnavailableException.class, () -> analyze(guard, client, false));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(elapsedMs < 1000, "esperó " + elapsedMs + " ms por el bulkhead");
+        assertEquals(1, analyzeRequests.get());
+        assertEquals(1, guard.getStats().get("inFlight"));
+        assertEquals(1L, guard.getStats().get("rejectedBulkhead"));
+
+        analyzeGate.countDown();
+        first.join(5000);
+        assertFalse(first.isAlive());
+        assertEquals(0, guard.getStats().get("inFlight"));
+    }
+
+    @Test
+    void testProbeResultIsCached() throws Exception {
+        MLServiceClient client = client(serverUrl());
+        ReflectionTestUtils.setField(client, "probeCacheMs", 200L);
+
+        assertTrue(client.isServiceAvailable());
+        assertTrue(client.isServiceAvailable());
+        assertEquals(1, probeRequests.get());
+
+        Thread.sleep(250);
+        assertTrue(client.isServiceAvailable());
+        assertEquals(2, probeRequests.get());
+    }
+
+    @Test
+    void testAsyncMatchIsQueuedAgainWhileCircuitIsOpen() throws Exception {
+        MlServiceGuard guard = guard(1, 1, 300, 1);
+        RecordingMatchService matches = new RecordingMatchService();
+        MatchProcessingService processing = processing(guard, matches, true);
+        statuses.add(500);
+        AtomicInteger cleanups = new AtomicInteger();
+
+        try {
+            // El primero abre el circuito y queda failed; el segundo vuelve a la cola hasta que se cierra
+            processing.enqueue("match_1", "a.dem", this::analyzeMatch, cleanups::incrementAndGet);
+            awaitCondition(() -> matches.statuses("match_1").contains("failed"), "match_1 no falló");
+            processing.enqueue("match_2", "b.dem", this::analyzeMatch, cleanups::incrementAndGet);
+            awaitCondition(() -> matches.statuses("match_2").contains("completed"), "match_2 no se completó");
+        } finally {
+            processing.shutdown();
+        }
+
+        assertEquals(List.of("processing", "failed"), matches.statuses("match_1"));
+        List<String> second = matches.statuses("match_2");
+        assertEquals("processing", second.get(0));
+        assertEquals("queued", second.get(1));
+        assertEquals("completed", second.get(second.size() - 1));
+        assertFalse(second.contains("failed"), second.toString());
+        assertEquals(2, cleanups.get());
+        assertTrue((Long) processing.getMlStatus().get("requeued") >= 1);
+    }
+
+    @Test
+    void testSyncMatchFailsFastWhileCircuitIsOpen() throws Exception {
+        MlServiceGuard guard = guard(1, 1, 5000, 1);
+        RecordingMatchService matches = new RecordingMatchService();
+        MatchProcessingService processing = processing(guard, matches, false);
+        statuses.add(503);
+
+        assertThrows(RuntimeException.class, () -> processing.process("match_1", "a.dem", this::analyzeMatch));
+        assertThrows(MlServiceGuard.MlUnavailableException.class,
+            () -> processing.process("match_2", "b.dem", this::analyzeMatch));
+        assertEquals(List.of("processing", "failed"), matches.statuses("match_2"));
+        assertEquals(1, analyzeRequests.get());
+    }
+
+    private MlResponseStreamReader.Summary analyzeMatch(MLServiceClient client,
+                                                        MLServiceClient.ResponseHandler<MlResponseStreamReader.Summary> ingest) {
+        return client.analyzeDemoFile(DEMO, "match.dem", ingest);
+    }
+
+    private String analyze(MlServiceGuard guard, MLServiceClient client, boolean waitForPermit) throws Exception {
+        return guard.execute(waitForPermit, true, received -> client.analyzeDemoFile(DEMO, "guarded.dem", body -> {
+            received.run();
+            return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }));
+    }
+
+    private static MlServiceGuard guard(int maxConcurrentCalls, int failureThreshold, long openMs, int maxAttempts) {
+        MlServiceGuard guard = new MlServiceGuard();
+        ReflectionTestUtils.setField(guard, "maxConcurrentCalls", maxConcurrentCalls);
+        ReflectionTestUtils.setField(guard, "bulkheadWaitMs", 100L);
+        ReflectionTestUtils.setField(guard, "failureThreshold", failureThreshold);
+        ReflectionTestUtils.setField(guard, "openMs", openMs);
+        ReflectionTestUtils.setField(guard, "maxAttempts", maxAttempts);
+        ReflectionTestUtils.setField(guard, "initialBackoffMs", 20L);
+        ReflectionTestUtils.setField(guard, "maxBackoffMs", 200L);
+        guard.init();
+        return guard;
+    }
+
+    private MLServiceClient client(String url) {
+        MLServiceClient client = new MLServiceClient(transport);
+        ReflectionTestUtils.setField(client, "mlServiceUrl", url);
+        ReflectionTestUtils.setField(client, "fileParamName", "demo_file");
+        ReflectionTestUtils.setField(client, "simulationEnabled", false);
+        ReflectionTestUtils.setField(client, "objectMapper", new ObjectMapper());
+        return client;
+    }
+
+    private MatchProcessingService processing(MlServiceGuard guard, RecordingMatchService matches, boolean async) {
+        MatchProcessingService processing = new MatchProcessingService();
+        ReflectionTestUtils.setField(processing, "mlServiceClient", client(serverUrl()));
+        ReflectionTestUtils.setField(processing, "databaseMatchService", matches);
+        ReflectionTestUtils.setField(processing, "mlServiceGuard", guard);
+        ReflectionTestUtils.setField(processing, "async", async);
+        ReflectionTestUtils.setField(processing, "workers", 1);
+        ReflectionTestUtils.setField(processing, "queueCapacity", 4);
+        ReflectionTestUtils.setField(processing, "mlConcurrency", 1);
+        ReflectionTestUtils.setField(processing, "maxRequeues", 10);
+        processing.init();
+        return processing;
+    }
+
+    private String serverUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private void handleAnalyze(HttpExchange exchange) throws IOException {
+        analyzeRequests.incrementAndGet();
+        try (InputStream in = exchange.getRequestBody()) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        analyzeStarted.countDown();
+        try {
+            if (analyzeGate != null) {
+                analyzeGate.await(10, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Integer status = statuses.poll();
+        if (status == null || status == 200) {
+            respond(exchange, 200, ML_RESPONSE);
+        } else {
+            respond(exchange, status, "{\"detail\":\"stub error\"}");
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static int closedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void awaitCondition(java.util.function.BooleanSupplier condition, String message) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail(message);
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    /**
+     * Registra las transiciones de status de cada match en lugar de persistirlas
+     */
+    private static class RecordingMatchService extends DatabaseMatchService {
+        private final List<String[]> updates = new CopyOnWriteArrayList<>();
+
+        List<String> statuses(String matchId) {
+            return updates.stream().filter(update -> update[0].equals(matchId)).map(update -> update[1]).toList();
+        }
+
+        @Override
+        public void updateMatchStatus(String matchId, String status) {
+            updates.add(new String[]{matchId, status});
+        }
+
+        @Override
+        public void updateMatchWithError(String matchId, String errorMessage) {
+            updates.add(new String[]{matchId, "failed"});
+        }
+
+        @Override
+        public MlResponseStreamReader.Summary updateMatchFromMlResponse(String matchId, InputStream mlResponse) throws IOException {
+            mlResponse.readAllBytes();
+            updates.add(new String[]{matchId, "completed"});
+            return new MlResponseStreamReader.Summary();
+        }
+    }
+}
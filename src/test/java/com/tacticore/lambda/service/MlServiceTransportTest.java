@@ -0,0 +1,214 @@
+package com.tacticore.lambda.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MLServiceClient sobre MlServiceTransport contra un servidor ML stub: multipart en streaming
+ * (con Content-Length si el tamaño se conoce), conexiones reutilizadas, timeouts y límite por ruta
+ */
+class MlServiceTransportTest {
+
+    private static final byte[] DEMO = demoBytes(300_000);
+
+    private HttpServer server;
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final AtomicReference<String> lastContentLength = new AtomicReference<>();
+    private final AtomicReference<String> lastTransferEncoding = new AtomicReference<>();
+    private final AtomicReference<byte[]> lastFile = new AtomicReference<>();
+    private volatile long analyzeDelayMs;
+    private volatile CountDownLatch analyzeGate;
+    private final CountDownLatch analyzeStarted = new CountDownLatch(1);
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/analyze-demo", this::handleAnalyze);
+        server.createContext("/", exchange -> respond(exchange, "{\"status\":\"ok\"}"));
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    void testKnownSizeUploadStreamsWithContentLengthOverOneConnection() throws Exception {
+        MLServiceClient client = client(new MlServiceTransport(MlServiceTransport.JDK, 5000, 4, 1000));
+        Path demo = Files.createTempFile("transport-test", ".dem");
+        try {
+            Files.write(demo, DEMO);
+            for (int i = 0; i < 3; i++) {
+                assertEquals("success", client.analyzeDemoFile(demo, "big \"match\".dem").get("status"));
+                assertArrayEquals(DEMO, lastFile.get());
+                assertNotNull(lastContentLength.get(), "tamaño conocido: Content-Length, no chunked");
+            }
+            assertEquals("success", client.analyzeDemoFile(DEMO, "bytes.dem").get("status"));
+            assertArrayEquals(DEMO, lastFile.get());
+        } finally {
+            Files.deleteIfExists(demo);
+        }
+        // Keep-alive: los cuatro uploads usan la misma conexión
+        assertEquals(1, clientPorts.size(), clientPorts.toString());
+    }
+
+    @Test
+    void testStreamOfUnknownSizeIsChunkedAndNotClosed() throws Exception {
+        MLServiceClient client = client(new MlServiceTransport(MlServiceTransport.JDK, 5000, 4, 1000));
+        boolean[] closed = {false};
+        InputStream content = new ByteArrayInputStream(DEMO) {
+            @Override
+            public void close() throws IOException {
+                closed[0] = true;
+                super.close();
+            }
+        };
+
+        assertEquals("success", client.analyzeDemoStream(content, "stream.dem").get("status"));
+        assertArrayEquals(DEMO, lastFile.get());
+        assertNull(lastContentLength.get());
+        assertEquals("chunked", lastTransferEncoding.get());
+        assertFalse(closed[0], "el stream lo cierra el llamador");
+    }
+
+    @Test
+    void testReadTimeoutFailsTheUpload() throws Exception {
+        MLServiceClient client = client(new MlServiceTransport(MlServiceTransport.JDK, 300, 4, 1000));
+        analyzeDelayMs = 3000;
+
+        long start = System.nanoTime();
+        RuntimeException error = assertThrows(RuntimeException.class, () -> client.analyzeDemoFile(DEMO, "slow.dem"));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(error.getMessage().contains("Could not connect to ML service"), error.getMessage());
+        assertTrue(elapsedMs < 2500, "timeout de lectura de 300 ms, tardó " + elapsedMs + " ms");
+    }
+
+    @Test
+    void testUploadLimitDoesNotBlockProbes() throws Exception {
+        MLServiceClient client = client(new MlServiceTransport(MlServiceTransport.JDK, 5000, 1, 200));
+        analyzeGate = new CountDownLatch(1);
+
+        Thread first = new Thread(() -> client.analyzeDemoFile(DEMO, "first.dem"));
+        first.start();
+        assertTrue(analyzeStarted.await(5, TimeUnit.SECONDS));
+
+        // El único lugar de ANALYZE está ocupado: el segundo upload espera 200 ms y falla
+        RuntimeException busy = assertThrows(RuntimeException.class, () -> client.analyzeDemoFile(DEMO, "second.dem"));
+        assertTrue(busy.getMessage().contains("ML service busy"), busy.getMessage());
+        // Los probes tienen su propio límite
+        assertTrue(client.isServiceAvailable());
+
+        analyzeGate.countDown();
+        first.join(5000);
+        assertFalse(first.isAlive());
+    }
+
+    @Test
+    void testSimpleTransportStillUploads() {
+        MLServiceClient client = client(new MlServiceTransport(MlServiceTransport.SIMPLE, 5000, 4, 1000));
+        assertEquals("success", client.analyzeDemoFile(DEMO, "simple.dem").get("status"));
+        assertArrayEquals(DEMO, lastFile.get());
+        assertTrue(client.isServiceAvailable());
+    }
+
+    @Test
+    void testUnknownTransportIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new MlServiceTransport("okhttp", 5000, 4, 1000));
+    }
+
+    private MLServiceClient client(MlServiceTransport transport) {
+        MLServiceClient client = new MLServiceClient(transport);
+        ReflectionTestUtils.setField(client, "mlServiceUrl", "http://localhost:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(client, "fileParamName", "demo_file");
+        ReflectionTestUtils.setField(client, "simulationEnabled", false);
+        ReflectionTestUtils.setField(client, "objectMapper", new ObjectMapper());
+        return client;
+    }
+
+    private void handleAnalyze(HttpExchange exchange) throws IOException {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        lastContentLength.set(exchange.getRequestHeaders().getFirst("Content-Length"));
+        lastTransferEncoding.set(exchange.getRequestHeaders().getFirst("Transfer-Encoding"));
+        byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = in.readAllBytes();
+        }
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        String boundary = contentType.substring(contentType.indexOf("boundary=") + "boundary=".length());
+        int start = indexOf(body, "\r\n\r\n".getBytes(StandardCharsets.US_ASCII)) + 4;
+        int end = body.length - ("\r\n--" + boundary + "--\r\n").length();
+        lastFile.set(Arrays.copyOfRange(body, start, end));
+
+        analyzeStarted.countDown();
+        try {
+            if (analyzeGate != null) {
+                analyzeGate.await(10, TimeUnit.SECONDS);
+            }
+            Thread.sleep(analyzeDelayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        respond(exchange, "{\"status\":\"success\",\"total_kills\":0,\"predictions\":[]}");
+    }
+
+    private static void respond(HttpExchange exchange, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        try {
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (IOException e) {
+            // El cliente ya cortó por timeout
+            exchange.close();
+        }
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern) {
+        outer:
+        for (int i = 0; i <= data.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static byte[] demoBytes(int size) {
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) (i * 31 + (i >> 7));
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,221 @@
+package com.tacticore.lambda.service;
+
+import com.tacticore.lambda.model.KillEntity;
+import com.tacticore.lambda.model.KillPredictionEntity;
+import com.tacticore.lambda.model.PlayerStatCounterEntity;
+import com.tacticore.lambda.model.PlayerStatsEntity;
+import com.tacticore.lambda.repository.KillRepository;
+import com.tacticore.lambda.repository.PlayerStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Agregados por jugador contra H2 real: incrementos por batch, rollback junto con los kills,
+ * chequeo de consistencia contra la tabla kills, rebuild e ingest concurrente con un borrado.
+ */
+@SpringBootTest
+class PlayerAggregateServiceTest {
+
+    @Autowired
+    private KillIngestService killIngestService;
+
+    @Autowired
+    private PlayerAggregateService playerAggregateService;
+
+    @Autowired
+    private PredictionAggregateService predictionAggregateService;
+
+    @Autowired
+    private PlayerStatsRepository playerStatsRepository;
+
+    @Autowired
+    private KillRepository killRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private String alice;
+    private String bob;
+    private String carol;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = Long.toString(System.nanoTime());
+        alice = "alice_" + suffix;
+        bob = "bob_" + suffix;
+        carol = "carol_" + suffix;
+    }
+
+    @Test
+    void testIngestUpdatesAggregatesIncrementally() {
+        killIngestService.ingest(List.of(
+            kill("m1", alice, bob, "ak47", "BombsiteA", "t", true, 500.0, 20.0),
+            kill("m1", alice, bob, "awp", "Mid", "t", false, 1500.0, 40.0),
+            kill("m1", bob, alice, "m4a1", "BombsiteA", "ct", false, 0.0, 60.0)
+        ));
+        killIngestService.ingest(List.of(
+            kill("m2", alice, carol, "ak47", null, "ct", true, 250.0, 10.0)
+        ));
+
+        PlayerStatsEntity aliceStats = playerAggregateService.getPlayerStats(alice).orElseThrow();
+        assertEquals(3L, aliceStats.getKills());
+        assertEquals(1L, aliceStats.getDeaths());
+        assertEquals(2L, aliceStats.getHeadshots());
+        assertEquals(2, aliceStats.getMatches());
+        assertEquals(750.0, aliceStats.getAverageDistance(), 1e-9);
+        assertEquals(70.0 / 3, aliceStats.getAverageTimeInRound(), 1e-9);
+
+        PlayerStatsEntity bobStats = playerAggregateService.getPlayerStats(bob).orElseThrow();
+        assertEquals(1L, bobStats.getKills());
+        assertEquals(2L, bobStats.getDeaths());
+        assertEquals(1, bobStats.getMatches());
+        assertNull(bobStats.getAverageDistance());
+
+        List<PlayerStatCounterEntity> weapons = playerAggregateService.getCounters(alice, PlayerStatCounterEntity.WEAPON);
+        assertEquals("ak47", weapons.get(0).getCounterKey());
+        assertEquals(2L, weapons.get(0).getKillCount());
+        List<PlayerStatCounterEntity> places = playerAggregateService.getCounters(alice, PlayerStatCounterEntity.PLACE);
+        assertEquals(3, places.size());
+        assertTrue(places.stream().anyMatch(c -> PlayerStatCounterEntity.UNKNOWN_KEY.equals(c.getCounterKey())));
+        assertEquals(2, playerAggregateService.getPlayerMatches(alice).size());
+
+        assertEquals(true, playerAggregateService.checkConsistency().get("consistent"));
+    }
+
+    @Test
+    void testAggregatesRollBackWithTheKillBatch() {
+        KillEntity kill = kill("m1", alice, bob, "ak47", "BombsiteA", "t", true, 500.0, 20.0);
+
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            killIngestService.ingest(List.of(kill));
+            assertTrue(playerAggregateService.getPlayerStats(alice).isPresent());
+            throw new IllegalStateException("rollback");
+        }));
+
+        assertTrue(killRepository.findByKillId(kill.getKillId()).isEmpty());
+        assertTrue(playerAggregateService.getPlayerStats(alice).isEmpty());
+        assertTrue(playerAggregateService.getCounters(alice, PlayerStatCounterEntity.WEAPON).isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testConsistencyCheckDetectsDriftAndRebuildRepairsIt() {
+        killIngestService.ingest(List.of(
+            kill("m1", alice, bob, "ak47", "BombsiteA", "t", true, 500.0, 20.0),
+            kill("m1", bob, alice, "m4a1", "BombsiteB", "ct", false, 300.0, 30.0)
+        ));
+
+        PlayerStatsEntity aliceStats = playerStatsRepository.findByPlayerName(alice).orElseThrow();
+        aliceStats.setKills(aliceStats.getKills() + 5);
+        playerStatsRepository.save(aliceStats);
+
+        Map<String, Object> check = playerAggregateService.checkConsistency();
+        assertEquals(false, check.get("consistent"));
+        List<Map<String, Object>> mismatches = (List<Map<String, Object>>) check.get("mismatches");
+        assertTrue(mismatches.stream().anyMatch(m -> alice.equals(m.get("key"))
+            && ((List<String>) m.get("fields")).contains("kills")));
+
+        Map<String, Object> rebuild = playerAggregateService.rebuild();
+        assertTrue((Integer) rebuild.get("players") >= 2);
+        assertEquals(true, playerAggregateService.checkConsistency().get("consistent"));
+        assertEquals(1L, playerAggregateService.getPlayerStats(alice).orElseThrow().getKills());
+    }
+
+    @Test
+    void testConcurrentIngestAndClearDoNotDeadlock() throws Exception {
+        ReentrantLock playerLock = (ReentrantLock) ReflectionTestUtils.getField(playerAggregateService, "writeLock");
+        ReentrantLock predictionLock = (ReentrantLock) ReflectionTestUtils.getField(predictionAggregateService, "writeLock");
+        CountDownLatch ingestHoldsPlayerLock = new CountDownLatch(1);
+        CountDownLatch clearStarted = new CountDownLatch(1);
+        AtomicReference<Throwable> ingestError = new AtomicReference<>();
+        AtomicReference<Throwable> clearError = new AtomicReference<>();
+
+        // Ingest de un match en dos batches de la misma transacción: el primero toma el lock de
+        // jugadores, el segundo (con predicciones) el de predicciones
+        Thread ingest = new Thread(() -> {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    killIngestService.ingest(List.of(kill("m1", alice, bob, "ak47", "A", "t", true, 500.0, 20.0)));
+                    ingestHoldsPlayerLock.countDown();
+                    // Sigue cuando el borrado ya está esperando un lock (o tiene el de predicciones)
+                    awaitQuietly(clearStarted);
+                    long deadline = System.currentTimeMillis() + 2000;
+                    while (!playerLock.hasQueuedThreads() && !predictionLock.isLocked()
+                            && System.currentTimeMillis() < deadline) {
+                        Thread.onSpinWait();
+                    }
+                    KillEntity second = kill("m1", bob, alice, "awp", "B", "ct", false, 900.0, 30.0);
+                    killIngestService.ingest(List.of(second),
+                        List.of(new KillPredictionEntity(second.getKillId(), "good_decision", 0.8, true)));
+                });
+            } catch (Throwable e) {
+                ingestError.set(e);
+            }
+        }, "ingest");
+        // El borrado se revierte para no vaciar los datos demo del contexto compartido
+        Thread clear = new Thread(() -> {
+            try {
+                awaitQuietly(ingestHoldsPlayerLock);
+                clearStarted.countDown();
+                transactionTemplate.executeWithoutResult(status -> {
+                    killIngestService.deleteAllKills();
+                    status.setRollbackOnly();
+                });
+            } catch (Throwable e) {
+                clearError.set(e);
+            }
+        }, "clear");
+        ingest.setDaemon(true);
+        clear.setDaemon(true);
+        ingest.start();
+        clear.start();
+
+        ingest.join(15_000);
+        clear.join(15_000);
+        assertFalse(ingest.isAlive() || clear.isAlive(), "deadlock: player lock queued=" + playerLock.hasQueuedThreads()
+            + ", prediction lock queued=" + predictionLock.hasQueuedThreads());
+        assertNull(ingestError.get(), String.valueOf(ingestError.get()));
+        assertNull(clearError.get(), String.valueOf(clearError.get()));
+        assertEquals(1L, playerAggregateService.getPlayerStats(alice).orElseThrow().getKills());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static int killSequence = 0;
+
+    private static KillEntity kill(String match, String attacker, String victim, String weapon, String place,
+                                   String side, boolean headshot, double distance, double timeInRound) {
+        KillEntity kill = new KillEntity();
+        kill.setKillId("agg_" + System.nanoTime() + "_" + (++killSequence));
+        kill.setMatchId(match + "_" + attacker.substring(attacker.indexOf('_') + 1));
+        kill.setAttacker(attacker);
+        kill.setVictim(victim);
+        kill.setWeapon(weapon);
+        kill.setPlace(place);
+        kill.setSide(side);
+        kill.setRound(1);
+        kill.setHeadshot(headshot);
+        kill.setDistance(distance);
+        kill.setTimeInRound(timeInRound);
+        return kill;
+    }
+}
@@ -0,0 +1,176 @@
+package com.tacticore.lambda.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tacticore.lambda.model.KillPredictionEntity;
+import com.tacticore.lambda.model.MatchEntity;
+import com.tacticore.lambda.model.PredictionCounterEntity;
+import com.tacticore.lambda.repository.KillPredictionRepository;
+import com.tacticore.lambda.repository.MatchRepository;
+import com.tacticore.lambda.serialization.MlResponseCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Predicciones del ML guardadas en el ingest contra H2 real: filas de kill_predictions por kill,
+ * agregados por jugador y por match, rebuild y backfill de plays sin leer la respuesta cruda.
+ */
+@SpringBootTest
+class PredictionAggregateServiceTest {
+
+    @Autowired
+    private DatabaseMatchService databaseMatchService;
+
+    @Autowired
+    private PredictionAggregateService predictionAggregateService;
+
+    @Autowired
+    private KillAnalysisService killAnalysisService;
+
+    @Autowired
+    private KillPredictionRepository killPredictionRepository;
+
+    @Autowired
+    private MatchRepository matchRepository;
+
+    @Autowired
+    private MlResponseCodec mlResponseCodec;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String alice;
+    private String bob;
+    private String matchId;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = Long.toString(System.nanoTime());
+        alice = "alice_" + suffix;
+        bob = "bob_" + suffix;
+        matchId = "predictions_" + suffix;
+        databaseMatchService.saveMatch(new MatchEntity(matchId, "predictions.dem", null, null, null, "processing", false));
+    }
+
+    @Test
+    void testIngestStoresPredictionRowsAndAggregates() throws Exception {
+        ingest(mlResponse(6));
+
+        List<KillPredictionEntity> rows = killPredictionRepository.findByKillId(matchId + "_k0");
+        assertEquals(2, rows.stream().filter(KillPredictionEntity::getIsTopPrediction).count());
+        assertEquals(3, rows.stream().filter(row -> KillPredictionEntity.LABEL.equals(row.getKind())).count());
+        KillPredictionEntity aim = rows.stream()
+            .filter(row -> KillPredictionEntity.STRENGTH.equals(row.getKind())).findFirst().orElseThrow();
+        assertEquals("aim", aim.getLabel());
+        assertEquals(0.9, aim.getConfidence(), 1e-9);
+
+        // alice ataca en los kills pares (3), bob en los impares (3)
+        List<PredictionCounterEntity> labels = predictionAggregateService.getCounters(
+            PredictionCounterEntity.PLAYER, alice, PredictionCounterEntity.LABEL);
+        assertEquals(List.of("good_decision", "other"), labels.stream().map(PredictionCounterEntity::getCounterKey).collect(Collectors.toList()));
+        assertEquals(3L, labels.get(0).getCount());
+        assertEquals(0.7, labels.get(0).getAverage(), 1e-9);
+
+        assertArrayEquals(new int[]{3, 3}, predictionAggregateService.getMatchPlays(matchId).orElseThrow());
+        MatchEntity match = matchRepository.findByMatchId(matchId).orElseThrow();
+        assertEquals(3, match.getGoodPlays());
+        assertEquals(3, match.getBadPlays());
+        assertEquals(Map.of(PredictionCounterEntity.GOOD_PLAY, 3L), counts(PredictionCounterEntity.PLAYER, alice, PredictionCounterEntity.PLAY));
+        assertEquals(Map.of(PredictionCounterEntity.BAD_PLAY, 3L), counts(PredictionCounterEntity.PLAYER, bob, PredictionCounterEntity.PLAY));
+
+        List<Map<String, Object>> stats = killAnalysisService.getAnalysisByUser(alice).getPredictionStats();
+        assertEquals("good_decision", stats.get(0).get("label"));
+        assertEquals(3L, stats.get(0).get("count"));
+        assertEquals(0.7, (Double) stats.get(0).get("average_confidence"), 1e-9);
+    }
+
+    @Test
+    void testRebuildMatchesIncrementalAggregates() throws Exception {
+        ingest(mlResponse(10));
+        Map<String, Long> before = snapshot();
+
+        Map<String, Object> result = predictionAggregateService.rebuild();
+
+        assertTrue((Integer) result.get("counters") > 0);
+        assertEquals(before, snapshot());
+    }
+
+    @Test
+    void testBackfillReadsPlaysFromAggregates() throws Exception {
+        ingest(mlResponse(4));
+        // La respuesta guardada ya no tiene attacker_strengths: el backfill no debe leerla
+        Map<String, Object> withoutStrengths = mlResponse(4);
+        withoutStrengths.put("predictions", List.of());
+        MatchEntity match = matchRepository.findByMatchId(matchId).orElseThrow();
+        match.setGoodPlays(null);
+        match.setBadPlays(null);
+        match.setMlResponseGz(mlResponseCodec.encode(withoutStrengths));
+        matchRepository.save(match);
+
+        databaseMatchService.backfillMatchSummaries();
+
+        MatchEntity stored = matchRepository.findByMatchId(matchId).orElseThrow();
+        assertEquals(2, stored.getGoodPlays());
+        assertEquals(2, stored.getBadPlays());
+    }
+
+    private void ingest(Map<String, Object> response) throws Exception {
+        databaseMatchService.updateMatchFromMlResponse(matchId,
+            new ByteArrayInputStream(objectMapper.writeValueAsBytes(response)));
+    }
+
+    private Map<String, Long> counts(String scope, String key, String dimension) {
+        return predictionAggregateService.getCounters(scope, key, dimension).stream()
+            .collect(Collectors.toMap(PredictionCounterEntity::getCounterKey, PredictionCounterEntity::getCount));
+    }
+
+    // Contadores de alice, bob y el match de este test, con la suma redondeada para comparar
+    private Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        for (String[] scope : new String[][]{
+                {PredictionCounterEntity.PLAYER, alice}, {PredictionCounterEntity.PLAYER, bob}, {PredictionCounterEntity.MATCH, matchId}}) {
+            for (String dimension : List.of(PredictionCounterEntity.LABEL, PredictionCounterEntity.STRENGTH, PredictionCounterEntity.PLAY)) {
+                for (PredictionCounterEntity counter : predictionAggregateService.getCounters(scope[0], scope[1], dimension)) {
+                    String key = scope[0] + "|" + scope[1] + "|" + dimension + "|" + counter.getCounterKey();
+                    snapshot.put(key + "|count", counter.getCount());
+                    snapshot.put(key + "|sum", Math.round(counter.getValueSum() * 1e6));
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    private Map<String, Object> mlResponse(int kills) {
+        List<Map<String, Object>> predictions = new ArrayList<>();
+        for (int i = 0; i < kills; i++) {
+            Map<String, Object> prediction = new LinkedHashMap<>();
+            prediction.put("kill_id", "k" + i);
+            prediction.put("attacker", i % 2 == 0 ? alice : bob);
+            prediction.put("victim", i % 2 == 0 ? bob : alice);
+            prediction.put("round", 1 + i / 5);
+            prediction.put("weapon", "ak47");
+            prediction.put("headshot", false);
+            prediction.put("context", Map.of("side", "t", "kill_tick", 1000 + i));
+            prediction.put("attacker_strengths", Map.of("aim", i % 2 == 0 ? 0.9 : 0.2));
+            prediction.put("prediction", Map.of("predicted_label", "good_decision",
+                "top_predictions", List.of(Map.of("label", "good_decision", "confidence", 0.7),
+                    Map.of("label", "other", "confidence", 0.3)),
+                "all_probabilities", Map.of("precise", 0.0)));
+            predictions.add(prediction);
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", "success");
+        response.put("total_kills", kills);
+        response.put("map", "de_mirage");
+        response.put("tickrate", 64);
+        response.put("predictions", predictions);
+        return response;
+    }
+}
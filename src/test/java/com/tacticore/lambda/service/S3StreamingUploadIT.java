@@ -0,0 +1,230 @@
+package com.tacticore.lambda.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * S3 (stub compatible, path-style) -> GZIPInputStream -> multipart streaming hacia un stub del servicio ML,
+ * con un demo sintético de varios GB. Corre con el perfil integration-tests (failsafe con -Xmx256m):
+ * si algún tramo bufferizara el archivo completo el test terminaría en OutOfMemoryError.
+ *
+ * mvn -Pintegration-tests verify -Dit.test=S3StreamingUploadIT -Ds3.streaming.bytes=4294967296
+ */
+class S3StreamingUploadIT {
+
+    private static final long DEMO_BYTES = Long.getLong("s3.streaming.bytes", 2L * 1024 * 1024 * 1024);
+    private static final byte[] BLOCK = createBlock();
+
+    private static HttpServer s3Server;
+    private static HttpServer mlServer;
+
+    private static final AtomicLong receivedFileBytes = new AtomicLong(-1);
+    private static final AtomicLong receivedCrc = new AtomicLong();
+
+    private static S3Service s3Service;
+    private static MLServiceClient mlServiceClient;
+
+    @BeforeAll
+    static void startStubs() throws IOException {
+        s3Server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        s3Server.setExecutor(Executors.newCachedThreadPool());
+        s3Server.createContext("/", S3StreamingUploadIT::handleS3);
+        s3Server.start();
+
+        mlServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        mlServer.setExecutor(Executors.newCachedThreadPool());
+        mlServer.createContext("/analyze-demo", S3StreamingUploadIT::handleAnalyze);
+        mlServer.start();
+
+        // Cadena de credenciales por defecto: system properties
+        System.setProperty("aws.accessKeyId", "test");
+        System.setProperty("aws.secretAccessKey", "test");
+
+        s3Service = new S3Service();
+        ReflectionTestUtils.setField(s3Service, "awsRegion", "us-east-1");
+        ReflectionTestUtils.setField(s3Service, "s3Endpoint", "http://localhost:" + s3Server.getAddress().getPort());
+        s3Service.init();
+
+        mlServiceClient = new MLServiceClient();
+        ReflectionTestUtils.setField(mlServiceClient, "mlServiceUrl", "http://localhost:" + mlServer.getAddress().getPort());
+        ReflectionTestUtils.setField(mlServiceClient, "fileParamName", "demo_file");
+        ReflectionTestUtils.setField(mlServiceClient, "simulationEnabled", false);
+        ReflectionTestUtils.setField(mlServiceClient, "objectMapper", new ObjectMapper());
+    }
+
+    @AfterAll
+    static void stopStubs() {
+        s3Server.stop(0);
+        mlServer.stop(0);
+    }
+
+    @Test
+    void testStreamsGzippedDemoLargerThanHeapToMlService() throws Exception {
+        assertTrue(Runtime.getRuntime().maxMemory() < DEMO_BYTES,
+            "El heap (" + Runtime.getRuntime().maxMemory() + ") debe ser menor que el demo para que el test sea significativo");
+        resetPeakHeapUsage();
+
+        Map<String, Object> response;
+        try (InputStream content = s3Service.downloadFileAsStream("demos", "uploads/big_match.dem.gz")) {
+            response = mlServiceClient.analyzeDemoStream(content, "big_match.dem");
+        }
+
+        assertEquals("success", response.get("status"));
+        assertEquals(DEMO_BYTES, receivedFileBytes.get());
+        assertEquals(expectedCrc(), receivedCrc.get());
+
+        System.out.println("Demo de " + DEMO_BYTES / (1024 * 1024) + " MB subido con un pico de heap de "
+            + peakHeapUsage() / (1024 * 1024) + " MB (max " + Runtime.getRuntime().maxMemory() / (1024 * 1024) + " MB)");
+    }
+
+    /**
+     * GET/HEAD path-style /{bucket}/{key}: el objeto es el gzip del demo sintético, generado al vuelo
+     */
+    private static void handleS3(HttpExchange exchange) throws IOException {
+        try {
+            exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream body = exchange.getResponseBody();
+                 GZIPOutputStream gzip = new GZIPOutputStream(body, 64 * 1024) {
+                     {
+                         def.setLevel(Deflater.BEST_SPEED);
+                     }
+                 }) {
+                long remaining = DEMO_BYTES;
+                while (remaining > 0) {
+                    int chunk = (int) Math.min(BLOCK.length, remaining);
+                    gzip.write(BLOCK, 0, chunk);
+                    remaining -= chunk;
+                }
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Lee el multipart en streaming y registra tamaño y CRC de la parte del archivo
+     */
+    private static void handleAnalyze(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            String boundary = contentType.substring(contentType.indexOf("boundary=") + "boundary=".length());
+            byte[] trailer = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+
+            skipPartHeaders(in);
+
+            // Todo lo que sigue a los headers es el archivo, salvo los últimos bytes (cierre del multipart)
+            CRC32 crc = new CRC32();
+            byte[] buffer = new byte[64 * 1024];
+            byte[] tail = new byte[0];
+            long fileBytes = 0;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                byte[] window = new byte[tail.length + read];
+                System.arraycopy(tail, 0, window, 0, tail.length);
+                System.arraycopy(buffer, 0, window, tail.length, read);
+                int payload = Math.max(window.length - trailer.length, 0);
+                crc.update(window, 0, payload);
+                fileBytes += payload;
+                tail = Arrays.copyOfRange(window, payload, window.length);
+            }
+            assertArrayEquals(trailer, tail);
+            receivedFileBytes.set(fileBytes);
+            receivedCrc.set(crc.getValue());
+
+            byte[] response = "{\"status\":\"success\",\"total_kills\":0,\"map\":\"de_mirage\",\"tickrate\":64,\"predictions\":[]}"
+                .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        } catch (Throwable e) {
+            exchange.sendResponseHeaders(500, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void skipPartHeaders(InputStream in) throws IOException {
+        int matched = 0;
+        byte[] separator = "\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+        while (matched < separator.length) {
+            int value = in.read();
+            if (value == -1) {
+                throw new IOException("Multipart sin headers de parte");
+            }
+            matched = value == separator[matched] ? matched + 1 : (value == separator[0] ? 1 : 0);
+        }
+    }
+
+    private static long expectedCrc() {
+        CRC32 crc = new CRC32();
+        long remaining = DEMO_BYTES;
+        while (remaining > 0) {
+            int chunk = (int) Math.min(BLOCK.length, remaining);
+            crc.update(BLOCK, 0, chunk);
+            remaining -= chunk;
+        }
+        return crc.getValue();
+    }
+
+    private static byte[] createBlock() {
+        // Bloque pseudoaleatorio de 1 MB que se repite: comprime bien (rápido de servir) y el CRC detecta desorden
+        byte[] block = new byte[1024 * 1024];
+        Random random = new Random(42);
+        byte[] pattern = new byte[4096];
+        random.nextBytes(pattern);
+        for (int i = 0; i < block.length; i++) {
+            block[i] = (byte) (pattern[i % pattern.length] + i / pattern.length);
+        }
+        return block;
+    }
+
+    private static void resetPeakHeapUsage() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long peakHeapUsage() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
@@ -1,5 +1,7 @@
 package com.tacticore.lambda.service;
 
+import com.tacticore.lambda.model.PlayerStatCounterEntity;
+import com.tacticore.lambda.model.PlayerStatsEntity;
 import com.tacticore.lambda.model.UserEntity;
 import com.tacticore.lambda.model.UserRole;
 import com.tacticore.lambda.model.dto.UserDto;
@@ -28,6 +30,12 @@ class UserServiceTest {
     @Mock
     private KillRepository killRepository;
 
+    @Mock
+    private PlayerAggregateService playerAggregateService;
+
+    @Mock
+    private LeaderboardService leaderboardService;
+
     @InjectMocks
     private UserService userService;
 
@@ -192,76 +200,64 @@ class UserServiceTest {
     @Test
     void testGetTopPlayersByScore() {
         // Given
-        UserEntity user1 = new UserEntity("user1", "PLAYER");
-        user1.setAverageScore(9.5);
-        UserEntity user2 = new UserEntity("user2", "PLAYER");
-        user2.setAverageScore(8.0);
-        when(userRepository.findAllOrderByAverageScoreDesc()).thenReturn(Arrays.asList(user1, user2));
+        UserDto user1 = new UserDto(1L, "user1", "PLAYER", 9.5, 0, 0, 0, 0.0);
+        UserDto user2 = new UserDto(2L, "user2", "PLAYER", 8.0, 0, 0, 0, 0.0);
+        when(leaderboardService.getTop(LeaderboardService.SCORE, 0, 100, null)).thenReturn(Arrays.asList(user1, user2));
 
         // When
-        List<UserEntity> result = userService.getTopPlayersByScore();
+        List<UserDto> result = userService.getTopPlayersByScore(0, 100);
 
         // Then
         assertNotNull(result);
         assertEquals(2, result.size());
-        verify(userRepository).findAllOrderByAverageScoreDesc();
+        verify(leaderboardService).getTop(LeaderboardService.SCORE, 0, 100, null);
+        verifyNoInteractions(userRepository);
     }
 
     @Test
     void testGetTopPlayersByKills() {
         // Given
-        UserEntity user1 = new UserEntity("user1", "PLAYER");
-        user1.setTotalKills(100);
-        UserEntity user2 = new UserEntity("user2", "PLAYER");
-        user2.setTotalKills(80);
-        when(userRepository.findAllOrderByTotalKillsDesc()).thenReturn(Arrays.asList(user1, user2));
+        UserDto user1 = new UserDto(1L, "user1", "PLAYER", 0.0, 100, 0, 0, 100.0);
+        when(leaderboardService.getTop(LeaderboardService.KILLS, 10, 1, null)).thenReturn(List.of(user1));
 
         // When
-        List<UserEntity> result = userService.getTopPlayersByKills();
+        List<UserDto> result = userService.getTopPlayersByKills(10, 1);
 
         // Then
-        assertNotNull(result);
-        assertEquals(2, result.size());
-        verify(userRepository).findAllOrderByTotalKillsDesc();
+        assertEquals(1, result.size());
+        verify(leaderboardService).getTop(LeaderboardService.KILLS, 10, 1, null);
+        verifyNoInteractions(userRepository);
     }
 
     @Test
     void testGetTopPlayersByKDR() {
         // Given
-        UserEntity user1 = new UserEntity("user1", "PLAYER");
-        user1.setTotalKills(50);
-        user1.setTotalDeaths(25);
-        UserEntity user2 = new UserEntity("user2", "PLAYER");
-        user2.setTotalKills(40);
-        user2.setTotalDeaths(30);
-        when(userRepository.findAllOrderByKDRDesc()).thenReturn(Arrays.asList(user1, user2));
+        UserDto user1 = new UserDto(1L, "user1", "PLAYER", 0.0, 50, 25, 0, 2.0);
+        UserDto user2 = new UserDto(2L, "user2", "PLAYER", 0.0, 40, 30, 0, 40.0 / 30);
+        when(leaderboardService.getTop(LeaderboardService.KDR, 0, 2, null)).thenReturn(Arrays.asList(user1, user2));
 
         // When
-        List<UserEntity> result = userService.getTopPlayersByKDR();
+        List<UserDto> result = userService.getTopPlayersByKDR(0, 2);
 
         // Then
-        assertNotNull(result);
         assertEquals(2, result.size());
-        verify(userRepository).findAllOrderByKDRDesc();
+        verify(leaderboardService).getTop(LeaderboardService.KDR, 0, 2, null);
     }
 
     @Test
     void testGetTopPlayersByMatches() {
         // Given
         int minMatches = 5;
-        UserEntity user1 = new UserEntity("user1", "PLAYER");
-        user1.setTotalMatches(10);
-        UserEntity user2 = new UserEntity("user2", "PLAYER");
-        user2.setTotalMatches(8);
-        when(userRepository.findTopPlayersByMatches(minMatches)).thenReturn(Arrays.asList(user1, user2));
+        UserDto user1 = new UserDto(1L, "user1", "PLAYER", 9.0, 0, 0, 10, 0.0);
+        UserDto user2 = new UserDto(2L, "user2", "PLAYER", 8.0, 0, 0, 8, 0.0);
+        when(leaderboardService.getTop(LeaderboardService.SCORE, 0, 100, minMatches)).thenReturn(Arrays.asList(user1, user2));
 
         // When
-        List<UserEntity> result = userService.getTopPlayersByMatches(minMatches);
+        List<UserDto> result = userService.getTopPlayersByMatches(minMatches, 0, 100);
 
         // Then
-        assertNotNull(result);
         assertEquals(2, result.size());
-        verify(userRepository).findTopPlayersByMatches(minMatches);
+        verify(leaderboardService).getTop(LeaderboardService.SCORE, 0, 100, minMatches);
     }
 
     @Test
@@ -285,6 +281,7 @@ class UserServiceTest {
         assertEquals(score, user.getAverageScore());
         verify(userRepository).findByName(userName);
         verify(userRepository).save(user);
+        verify(leaderboardService).updateAfterCommit(user);
     }
 
     @Test
@@ -299,6 +296,7 @@ class UserServiceTest {
         // Then
         verify(userRepository).findByName(userName);
         verify(userRepository, never()).save(any(UserEntity.class));
+        verifyNoInteractions(leaderboardService);
     }
 
     @Test
@@ -418,13 +416,13 @@ class UserServiceTest {
         
         when(userRepository.findByName(userName)).thenReturn(Optional.of(user));
         
-        List<Object[]> weaponStats = new ArrayList<>();
-        weaponStats.add(new Object[]{"ak47", 20L});
-        when(killRepository.getWeaponUsageStatsByUser(userName)).thenReturn(weaponStats);
+        PlayerStatCounterEntity weapon = new PlayerStatCounterEntity(userName, PlayerStatCounterEntity.WEAPON, "ak47");
+        weapon.setKillCount(20L);
+        when(playerAggregateService.getCounters(userName, PlayerStatCounterEntity.WEAPON)).thenReturn(List.of(weapon));
         
-        List<Object[]> locationStats = new ArrayList<>();
-        locationStats.add(new Object[]{"BombsiteA", 15L});
-        when(killRepository.getLocationStatsByUser(userName)).thenReturn(locationStats);
+        PlayerStatCounterEntity place = new PlayerStatCounterEntity(userName, PlayerStatCounterEntity.PLACE, "BombsiteA");
+        place.setKillCount(15L);
+        when(playerAggregateService.getCounters(userName, PlayerStatCounterEntity.PLACE)).thenReturn(List.of(place));
 
         // When
         UserProfileDto result = userService.getUserProfile(userName);
@@ -436,7 +434,9 @@ class UserServiceTest {
         assertNotNull(result.getStats());
         assertNotNull(result.getRecentActivity());
         assertNotNull(result.getPreferences());
+        assertEquals("ak47", result.getStats().getFavoriteWeapon());
         verify(userRepository).findByName(userName);
+        verifyNoInteractions(killRepository);
     }
 
     @Test
@@ -479,9 +479,14 @@ class UserServiceTest {
     void testGetRealUserStatsFromKills() {
         // Given
         String userName = "testUser";
-        when(killRepository.countKillsByUser(userName)).thenReturn(50L);
-        when(killRepository.countDeathsByUser(userName)).thenReturn(30L);
-        when(killRepository.countHeadshotsByUser(userName)).thenReturn(25L);
+        PlayerStatsEntity stats = new PlayerStatsEntity(userName);
+        stats.setKills(50L);
+        stats.setDeaths(30L);
+        stats.setHeadshots(25L);
+        stats.setMatches(4);
+        stats.setDistanceSum(1000.0);
+        stats.setDistanceSamples(40L);
+        when(playerAggregateService.getPlayerStats(userName)).thenReturn(Optional.of(stats));
         
         UserEntity user = new UserEntity(userName, "PLAYER");
         user.setTotalKills(50);
@@ -499,10 +504,11 @@ class UserServiceTest {
         assertEquals(30, result.get("deathsFromRepository"));
         assertEquals(25, result.get("headshotsFromRepository"));
         assertTrue(result.containsKey("calculatedKDR"));
+        assertEquals(4, result.get("matchesFromRepository"));
+        assertEquals(25.0, result.get("averageDistance"));
         assertTrue(result.containsKey("calculatedScore"));
-        verify(killRepository).countKillsByUser(userName);
-        verify(killRepository).countDeathsByUser(userName);
-        verify(killRepository).countHeadshotsByUser(userName);
+        verify(playerAggregateService).getPlayerStats(userName);
+        verifyNoInteractions(killRepository);
     }
 }
 